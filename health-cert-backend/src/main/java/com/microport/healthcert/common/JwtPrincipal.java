@@ -0,0 +1,68 @@
+package com.microport.healthcert.common;
+
+import lombok.Getter;
+
+/**
+ * 当前登录用户
+ * JWT拦截器验证Token后创建（每个请求只验证一次），存入request attribute供后续使用，创建后不可修改
+ *
+ * @author system
+ * @date 2024
+ */
+@Getter
+public class JwtPrincipal {
+
+    /**
+     * request attribute名称
+     */
+    public static final String REQUEST_ATTRIBUTE = "principal";
+
+    /**
+     * Token ID（jti，用于吊销；升级前签发的Token没有jti）
+     */
+    private final String tokenId;
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 用户名（管理员用户名或员工域账号）
+     */
+    private final String username;
+
+    /**
+     * 用户类型（employee/admin）
+     */
+    private final String userType;
+
+    /**
+     * 会话ID（登录时生成，刷新Token时沿用，用于登出时吊销刷新Token）
+     */
+    private final String sessionId;
+
+    /**
+     * Token过期时间（毫秒时间戳）
+     */
+    private final long expiresAt;
+
+    public JwtPrincipal(String tokenId, Long userId, String username, String userType, String sessionId, long expiresAt) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.username = username;
+        this.userType = userType;
+        this.sessionId = sessionId;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 判断Token是否已过期
+     *
+     * @param now 当前时间（毫秒时间戳）
+     * @return 是否已过期
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
@@ -0,0 +1,43 @@
+package com.microport.healthcert.common;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * 系统配置变更事件
+ * 配置快照刷新后发现配置值有变化时发布（本实例保存配置、或轮询发现其他实例修改了配置）
+ * 依赖配置构建的对象（邮件发送器、钉钉token等）监听该事件后重建
+ *
+ * @author system
+ * @date 2024
+ */
+@Getter
+public class SystemConfigChangedEvent extends ApplicationEvent {
+
+    /**
+     * 发生变化的配置键（新增、修改、删除）
+     */
+    private final Set<String> changedKeys;
+
+    public SystemConfigChangedEvent(Object source, Set<String> changedKeys) {
+        super(source);
+        this.changedKeys = changedKeys;
+    }
+
+    /**
+     * 判断指定前缀的配置是否有变化
+     *
+     * @param keyPrefix 配置键前缀（如"email."、"dingtalk."）
+     * @return 是否有变化
+     */
+    public boolean isChanged(String keyPrefix) {
+        for (String key : changedKeys) {
+            if (key.startsWith(keyPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
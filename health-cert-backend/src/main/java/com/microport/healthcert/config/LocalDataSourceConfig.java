@@ -43,7 +43,18 @@ import javax.sql.DataSource;
         com.microport.healthcert.mapper.DepartmentMapper.class,
         com.microport.healthcert.mapper.EmployeeMapper.class,
         com.microport.healthcert.mapper.HealthCertificateMapper.class,
+        com.microport.healthcert.mapper.JobHistoryMapper.class,
+        com.microport.healthcert.mapper.JobLeaseMapper.class,
+        com.microport.healthcert.mapper.LoginPrincipalMapper.class,
+        com.microport.healthcert.mapper.NotificationOutboxMapper.class,
+        com.microport.healthcert.mapper.OcrBatchItemMapper.class,
+        com.microport.healthcert.mapper.OcrBatchMapper.class,
+        com.microport.healthcert.mapper.OcrResultCacheMapper.class,
+        com.microport.healthcert.mapper.OcrTaskMapper.class,
         com.microport.healthcert.mapper.OperationLogMapper.class,
+        com.microport.healthcert.mapper.RefreshTokenMapper.class,
+        com.microport.healthcert.mapper.ReminderShardMapper.class,
+        com.microport.healthcert.mapper.RevokedTokenMapper.class,
         com.microport.healthcert.mapper.SystemConfigMapper.class
     },
     // 明确指定使用本地数据源的SqlSessionFactory
@@ -0,0 +1,85 @@
+package com.microport.healthcert.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * OCR异步识别线程池配置类
+ * 上传请求只负责保存图片，OCR识别交给有界线程池执行
+ * 线程数应与OCR服务器的并发处理能力保持一致，队列满时直接拒绝，避免请求无限堆积
+ *
+ * @author system
+ * @date 2024
+ */
+@Configuration
+public class OcrExecutorConfig {
+
+    /**
+     * OCR并发数（同时调用OCR服务的最大请求数）
+     */
+    @Value("${ocr.worker.concurrency:4}")
+    private Integer concurrency;
+
+    /**
+     * 等待队列容量（超过后拒绝新的识别任务）
+     */
+    @Value("${ocr.worker.queue-capacity:200}")
+    private Integer queueCapacity;
+
+    /**
+     * 批量识别并发数（批量导入与员工上传分开线程池，避免批量任务占满员工上传的识别名额）
+     */
+    @Value("${ocr.batch.concurrency:2}")
+    private Integer batchConcurrency;
+
+    /**
+     * 批量识别等待队列容量
+     */
+    @Value("${ocr.batch.queue-capacity:5000}")
+    private Integer batchQueueCapacity;
+
+    /**
+     * 创建OCR识别线程池
+     *
+     * @return OCR线程池
+     */
+    @Bean(name = "ocrExecutor")
+    public ThreadPoolTaskExecutor ocrExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 核心线程数与最大线程数一致，保证并发数固定
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ocr-worker-");
+        // 队列满时抛出RejectedExecutionException，由调用方提示用户稍后重试
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // 应用关闭时等待已提交的识别任务完成
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 创建批量识别线程池
+     *
+     * @return 批量识别线程池
+     */
+    @Bean(name = "ocrBatchExecutor")
+    public ThreadPoolTaskExecutor ocrBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchConcurrency);
+        executor.setMaxPoolSize(batchConcurrency);
+        executor.setQueueCapacity(batchQueueCapacity);
+        executor.setThreadNamePrefix("ocr-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
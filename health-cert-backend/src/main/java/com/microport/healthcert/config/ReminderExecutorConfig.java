@@ -0,0 +1,51 @@
+package com.microport.healthcert.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 提醒发送线程池配置类
+ * 提醒任务的邮件和钉钉消息在有界线程池中并发发送，实际调用速率由各通道的限流器控制
+ *
+ * @author system
+ * @date 2024
+ */
+@Configuration
+public class ReminderExecutorConfig {
+
+    /**
+     * 发送并发数
+     */
+    @Value("${reminder.dispatch.concurrency:8}")
+    private Integer concurrency;
+
+    /**
+     * 等待队列容量
+     */
+    @Value("${reminder.dispatch.queue-capacity:10000}")
+    private Integer queueCapacity;
+
+    /**
+     * 创建提醒发送线程池
+     *
+     * @return 提醒发送线程池
+     */
+    @Bean(name = "reminderDispatchExecutor")
+    public ThreadPoolTaskExecutor reminderDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("reminder-dispatch-");
+        // 队列满时由提交任务的线程（定时任务线程）自己执行，不丢弃提醒
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -6,7 +6,6 @@ import com.microport.healthcert.interceptor.SyncLockInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -28,28 +27,6 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private LogInterceptor logInterceptor;
 
-    /**
-     * 配置静态资源映射
-     * 用于访问上传的图片文件
-     * 
-     * @param registry 资源处理器注册表
-     */
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 获取项目根目录
-        String userDir = System.getProperty("user.dir");
-        // 统一使用正斜杠作为路径分隔符（适用于Windows和Linux）
-        String uploadPath = userDir.replace("\\", "/") + "/uploads/";
-        
-        // 映射 /uploads/** 路径到文件系统的 uploads 目录
-        // 使用 file: 前缀指定文件系统路径
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath);
-        
-        // 输出日志以便调试
-        System.out.println("静态资源映射配置：/uploads/** -> file:" + uploadPath);
-    }
-
     /**
      * 注册拦截器并配置拦截路径
      * 
@@ -61,22 +38,24 @@ public class WebMvcConfig implements WebMvcConfigurer {
         registry.addInterceptor(logInterceptor)
                 // 拦截所有请求
                 .addPathPatterns("/**")
+                // 排除图片和文件下载（页面加载时请求量大，不逐条写入操作日志）
+                .excludePathPatterns("/uploads/**", "/files/**")
                 .order(-1); // 设置优先级为-1（数字越小优先级越高）
 
         // 注册同步锁拦截器（优先级高，先执行）
         registry.addInterceptor(syncLockInterceptor)
                 // 拦截所有/api/**路径的请求
                 .addPathPatterns("/api/**")
-                // 排除/api/auth/login和/api/auth/health路径（登录和健康检查接口不需要检查同步状态）
-                .excludePathPatterns("/api/auth/login", "/api/auth/health")
+                // 排除/api/auth/login、/api/auth/refresh和/api/auth/health路径（登录、刷新Token和健康检查接口不需要检查同步状态）
+                .excludePathPatterns("/api/auth/login", "/api/auth/refresh", "/api/auth/health")
                 .order(0); // 设置优先级为0（数字越小优先级越高）
 
         // 注册JWT拦截器
         registry.addInterceptor(jwtInterceptor)
                 // 拦截所有/api/**路径的请求
                 .addPathPatterns("/api/**")
-                // 排除/api/auth/login和/api/auth/health路径（登录和健康检查接口不需要验证token）
-                .excludePathPatterns("/api/auth/login", "/api/auth/health")
+                // 排除/api/auth/login、/api/auth/refresh和/api/auth/health路径（登录、刷新Token和健康检查接口不需要验证token）
+                .excludePathPatterns("/api/auth/login", "/api/auth/refresh", "/api/auth/health")
                 .order(1); // 设置优先级为1
     }
 }
@@ -7,19 +7,21 @@ import com.microport.healthcert.dto.ExportRequestDTO;
 import com.microport.healthcert.entity.HealthCertificate;
 import com.microport.healthcert.service.AdminHealthCertService;
 import com.microport.healthcert.service.ExportService;
+import com.microport.healthcert.service.OcrBatchService;
+import com.microport.healthcert.service.StorageService;
 import com.microport.healthcert.service.impl.ExportServiceImpl;
+import com.microport.healthcert.vo.OcrBatchVO;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
-import java.io.File;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 管理员健康证控制器
@@ -38,6 +40,12 @@ public class AdminHealthCertController {
     @Autowired
     private ExportService exportService;
 
+    @Autowired
+    private OcrBatchService ocrBatchService;
+
+    @Autowired
+    private StorageService storageService;
+
     /**
      * 获取待审核列表
      * 
@@ -178,6 +186,55 @@ public class AdminHealthCertController {
         }
     }
 
+    /**
+     * 批量导入健康证图片
+     * 支持多张图片或ZIP包，保存后立即返回批次ID，识别和员工匹配在后台执行，
+     * 信息完整且匹配到员工的生成待审核记录，前端通过/batch/{batchId}查询进度
+     * 
+     * @param files 图片文件或ZIP包
+     * @param request HTTP请求对象（用于获取管理员信息）
+     * @return 批次信息（包含批次ID）
+     */
+    @PostMapping("/batch-import")
+    public Result<OcrBatchVO> batchImport(@RequestParam("files") MultipartFile[] files, HttpServletRequest request) {
+        try {
+            // 从request attribute获取管理员信息（由JWT拦截器设置）
+            Long adminId = (Long) request.getAttribute("userId");
+            String adminName = (String) request.getAttribute("username");
+
+            if (adminId == null || adminName == null) {
+                return Result.error(401, "未登录");
+            }
+            if (!"admin".equals(request.getAttribute("userType"))) {
+                return Result.error(403, "无权限");
+            }
+
+            OcrBatchVO batch = ocrBatchService.createBatch(files, adminId, adminName);
+            return Result.success(batch);
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            return Result.error(500, "导入失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询批量导入进度
+     * 
+     * @param batchId 批次ID
+     * @return 批次信息（包含识别进度和明细）
+     */
+    @GetMapping("/batch/{batchId}")
+    public Result<OcrBatchVO> getBatch(@PathVariable("batchId") String batchId) {
+        try {
+            return Result.success(ocrBatchService.getBatch(batchId));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            return Result.error(500, "查询失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 导出健康证
      * 
@@ -205,49 +262,30 @@ public class AdminHealthCertController {
 
     /**
      * 下载文件
+     * 重定向到导出文件的访问URL（带签名和有效期，对象存储时由浏览器直接从对象存储下载）
+     * 导出文件生成1小时后不再允许下载
      * 
      * @param fileName 文件名
-     * @return 文件资源
+     * @return 重定向响应
      */
     @GetMapping("/download/{fileName}")
-    public ResponseEntity<Resource> download(@PathVariable("fileName") String fileName) {
+    public ResponseEntity<Void> download(@PathVariable("fileName") String fileName) {
         try {
-            // 检查文件URL是否过期
-            if (!ExportServiceImpl.isFileUrlValid(fileName)) {
+            if (fileName.contains("/") || fileName.contains("\\")) {
                 return ResponseEntity.notFound().build();
             }
-
-            // 获取文件路径
-            String userDir = System.getProperty("user.dir");
-            String filePath = userDir + File.separator + "downloads" + File.separator + fileName;
-            File file = new File(filePath);
-
-            if (!file.exists()) {
+            String key = ExportServiceImpl.DOWNLOAD_PREFIX + fileName;
+            StorageService.StoredObject object = storageService.stat(key);
+            if (object == null || System.currentTimeMillis() - object.getLastModified()
+                    > TimeUnit.SECONDS.toMillis(ExportServiceImpl.FILE_URL_EXPIRY_SECONDS)) {
                 return ResponseEntity.notFound().build();
             }
 
-            Resource resource = new FileSystemResource(file);
-
-            // 设置响应头
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
-
-            // 根据文件扩展名设置Content-Type
-            String contentType = "application/octet-stream";
-            if (fileName.endsWith(".xlsx")) {
-                contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-            } else if (fileName.endsWith(".pdf")) {
-                contentType = "application/pdf";
-            }
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(resource);
-
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(storageService.getAccessUrl(key, fileName, 60)))
+                    .build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 }
-
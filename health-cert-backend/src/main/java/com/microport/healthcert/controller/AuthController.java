@@ -1,9 +1,11 @@
 package com.microport.healthcert.controller;
 
+import com.microport.healthcert.common.JwtPrincipal;
 import com.microport.healthcert.common.Result;
 import com.microport.healthcert.dto.LoginDTO;
+import com.microport.healthcert.dto.RefreshTokenDTO;
+import com.microport.healthcert.exception.LoginException;
 import com.microport.healthcert.service.AuthService;
-import com.microport.healthcert.util.JwtUtil;
 import com.microport.healthcert.vo.LoginVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -12,7 +14,7 @@ import javax.servlet.http.HttpServletRequest;
 
 /**
  * 认证控制器
- * 提供登录、登出、获取当前用户等接口
+ * 提供登录、刷新Token、登出、获取当前用户等接口
  * 
  * @author system
  * @date 2024
@@ -24,37 +26,55 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
     /**
      * 用户登录
      * 支持管理员和员工登录，员工首次登录会自动同步到本地
      * 
      * @param loginDTO 登录请求DTO
+     * @param request HTTP请求对象（用于获取客户端IP）
      * @return 登录响应结果（包含token和用户信息）
      */
     @PostMapping("/login")
-    public Result<LoginVO> login(@RequestBody LoginDTO loginDTO) {
-        LoginVO loginVO = authService.login(loginDTO);
-        return Result.success(loginVO);
+    public Result<LoginVO> login(@RequestBody LoginDTO loginDTO, HttpServletRequest request) {
+        try {
+            LoginVO loginVO = authService.login(loginDTO, getClientIp(request));
+            return Result.success(loginVO);
+        } catch (LoginException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 刷新Token
+     * 访问Token过期后使用刷新Token换取新的访问Token和刷新Token，不需要携带访问Token
+     * 
+     * @param refreshTokenDTO 刷新Token请求DTO
+     * @return 登录响应结果（包含新的token和用户信息）
+     */
+    @PostMapping("/refresh")
+    public Result<LoginVO> refresh(@RequestBody RefreshTokenDTO refreshTokenDTO) {
+        try {
+            LoginVO loginVO = authService.refresh(refreshTokenDTO.getRefreshToken());
+            return Result.success(loginVO);
+        } catch (LoginException e) {
+            // 刷新Token无效、过期或用户已停用，需要重新登录；数据库异常等由全局异常处理返回500，前端稍后重试
+            return Result.error(e.getCode(), e.getMessage());
+        }
     }
 
     /**
      * 用户登出
-     * 记录登出日志
+     * 吊销当前Token和会话的刷新Token，记录登出日志
      * 
      * @param request HTTP请求对象（用于获取token中的用户信息）
      * @return 登出结果
      */
     @PostMapping("/logout")
     public Result<Object> logout(HttpServletRequest request) {
-        // 从请求头获取token
-        String token = getTokenFromRequest(request);
-        if (token != null) {
-            // 从token获取用户ID
-            Long userId = jwtUtil.getUserIdFromToken(token);
-            authService.logout(userId);
+        // 从request attribute获取当前用户（由JWT拦截器设置）
+        JwtPrincipal principal = (JwtPrincipal) request.getAttribute(JwtPrincipal.REQUEST_ATTRIBUTE);
+        if (principal != null) {
+            authService.logout(principal);
         }
         return Result.success();
     }
@@ -68,18 +88,32 @@ public class AuthController {
      */
     @GetMapping("/me")
     public Result<Object> getCurrentUser(HttpServletRequest request) {
-        // 从请求头获取token
-        String token = getTokenFromRequest(request);
-        if (token == null) {
+        // 从request attribute获取当前用户（由JWT拦截器设置）
+        JwtPrincipal principal = (JwtPrincipal) request.getAttribute(JwtPrincipal.REQUEST_ATTRIBUTE);
+        if (principal == null) {
             return Result.error(401, "未登录");
         }
 
-        // 从token获取用户ID
-        Long userId = jwtUtil.getUserIdFromToken(token);
-        Object user = authService.getCurrentUser(userId);
+        Object user = authService.getCurrentUser(principal.getUserId());
         return Result.success(user);
     }
 
+    /**
+     * 获取客户端IP（用于登录限流）
+     * 优先使用Nginx设置的X-Real-IP（由Nginx覆盖，客户端无法伪造），没有时使用连接地址；
+     * 不使用X-Forwarded-For的第一个地址，该地址可以由客户端任意填写，用于限流会被绕过
+     * 
+     * @param request HTTP请求对象
+     * @return 客户端IP
+     */
+    private String getClientIp(HttpServletRequest request) {
+        String ip = request.getHeader("X-Real-IP");
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getRemoteAddr();
+        }
+        return ip;
+    }
+
     /**
      * 健康检查接口
      * 用于Docker健康检查，不需要认证
@@ -90,19 +124,4 @@ public class AuthController {
     public Result<Object> health() {
         return Result.success("服务运行正常");
     }
-
-    /**
-     * 从请求头获取Token
-     * 
-     * @param request HTTP请求对象
-     * @return Token字符串
-     */
-    private String getTokenFromRequest(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            return authHeader.substring(7);
-        }
-        return null;
-    }
 }
-
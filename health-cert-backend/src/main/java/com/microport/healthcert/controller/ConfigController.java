@@ -5,12 +5,23 @@ import com.microport.healthcert.dto.DingTalkConfigDTO;
 import com.microport.healthcert.dto.EmailConfigDTO;
 import com.microport.healthcert.dto.ReminderConfigDTO;
 import com.microport.healthcert.dto.SyncResultDTO;
+import com.microport.healthcert.entity.JobHistory;
+import com.microport.healthcert.entity.ReminderShard;
 import com.microport.healthcert.service.ConfigService;
+import com.microport.healthcert.service.JobCoordinationService;
+import com.microport.healthcert.service.MailTransportService;
+import com.microport.healthcert.service.ReminderService;
+import com.microport.healthcert.service.ReminderShardService;
 import com.microport.healthcert.service.SyncService;
+import com.microport.healthcert.vo.MailStatsVO;
+import com.microport.healthcert.vo.ReminderDispatchStatsVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 系统配置控制器
@@ -29,6 +40,18 @@ public class ConfigController {
     @Autowired
     private SyncService syncService;
 
+    @Autowired
+    private MailTransportService mailTransportService;
+
+    @Autowired
+    private ReminderService reminderService;
+
+    @Autowired
+    private ReminderShardService reminderShardService;
+
+    @Autowired
+    private JobCoordinationService jobCoordinationService;
+
     /**
      * 获取邮件配置
      * 
@@ -85,6 +108,16 @@ public class ConfigController {
         }
     }
 
+    /**
+     * 获取邮件发送统计（发送数量、SMTP连接复用情况、平均耗时）
+     * 
+     * @return 邮件发送统计
+     */
+    @GetMapping("/email/stats")
+    public Result<MailStatsVO> getEmailStats() {
+        return Result.success(mailTransportService.getStats());
+    }
+
     /**
      * 获取钉钉配置
      * 
@@ -165,6 +198,41 @@ public class ConfigController {
         }
     }
 
+    /**
+     * 获取最近一次提醒任务的发送统计（各通道吞吐量、耗时、失败重试情况）
+     * 
+     * @return 提醒发送统计，尚未执行过时为null
+     */
+    @GetMapping("/reminder/stats")
+    public Result<ReminderDispatchStatsVO> getReminderStats() {
+        return Result.success(reminderService.getLastRunStats());
+    }
+
+    /**
+     * 查询提醒任务的分片执行情况（执行节点、进度、完成时间）
+     * 
+     * @param date 提醒日期，为空时查询今天
+     * @return 分片（按分片号排序）
+     */
+    @GetMapping("/reminder/shards")
+    public Result<List<ReminderShard>> getReminderShards(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return Result.success(reminderShardService.listShards(date != null ? date : LocalDate.now()));
+    }
+
+    /**
+     * 查询定时任务执行记录（执行节点、耗时、结果）
+     * 
+     * @param jobName 任务名称，为空时查询全部任务
+     * @param limit 最多返回数量
+     * @return 执行记录（按开始时间倒序）
+     */
+    @GetMapping("/job/history")
+    public Result<List<JobHistory>> getJobHistory(@RequestParam(required = false) String jobName,
+                                                  @RequestParam(defaultValue = "50") Integer limit) {
+        return Result.success(jobCoordinationService.listHistory(jobName, limit));
+    }
+
     /**
      * 手动触发员工和部门同步
      * 同步远程hr_sync表的数据到本地employees和departments表
@@ -188,7 +256,7 @@ public class ConfigController {
             // 这里直接执行同步，SyncLockInterceptor会处理并发控制
             
             // 执行同步（包含员工和部门同步）
-            SyncResultDTO result = syncService.syncEmployees();
+            SyncResultDTO result = syncService.syncEmployees(null);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(500, "同步失败：" + e.getMessage());
@@ -0,0 +1,82 @@
+package com.microport.healthcert.controller;
+
+import com.microport.healthcert.service.impl.LocalStorageServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 文件访问控制器（本地存储）
+ * 处理StorageService.getAccessUrl生成的带签名URL：/files/{key}?expires=..&name=..&signature=..
+ * 签名即访问凭证，不经过JWT拦截器
+ *
+ * @author system
+ * @date 2024
+ */
+@RestController
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class FileController {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    @Autowired
+    private LocalStorageServiceImpl storageService;
+
+    /**
+     * 下载文件
+     *
+     * @param expires 过期时间（秒级时间戳）
+     * @param name 下载文件名（为空时浏览器直接显示）
+     * @param signature 签名
+     * @param request HTTP请求
+     * @return 文件内容
+     */
+    @GetMapping("/files/**")
+    public ResponseEntity<Resource> getFile(@RequestParam("expires") long expires,
+                                            @RequestParam(value = "name", required = false) String name,
+                                            @RequestParam("signature") String signature,
+                                            HttpServletRequest request) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String key = PATH_MATCHER.extractPathWithinPattern(pattern, path);
+
+        if (!storageService.verifyAccessUrl(key, expires, name, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        File file;
+        try {
+            file = storageService.getLocalFile(key);
+        } catch (FileNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+
+        String fileName = name != null && !name.isEmpty() ? name : file.getName();
+        MediaType mediaType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(mediaType);
+        if (name != null && !name.isEmpty()) {
+            builder.header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(name, StandardCharsets.UTF_8).build().toString());
+        }
+        return builder.body(new FileSystemResource(file));
+    }
+}
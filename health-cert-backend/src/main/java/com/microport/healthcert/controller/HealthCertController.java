@@ -4,6 +4,8 @@ import com.microport.healthcert.common.Result;
 import com.microport.healthcert.dto.HealthCertDTO;
 import com.microport.healthcert.entity.HealthCertificate;
 import com.microport.healthcert.service.HealthCertService;
+import com.microport.healthcert.service.OcrTaskService;
+import com.microport.healthcert.vo.OcrTaskVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +27,9 @@ public class HealthCertController {
     @Autowired
     private HealthCertService healthCertService;
 
+    @Autowired
+    private OcrTaskService ocrTaskService;
+
     /**
      * 上传图片
      * 保存文件，调用OCR识别，返回图片路径和OCR结果
@@ -44,6 +49,58 @@ public class HealthCertController {
         }
     }
 
+    /**
+     * 异步上传图片
+     * 保存文件后立即返回任务ID和图片路径，OCR识别在后台执行，前端通过/ocr-task/{taskId}轮询结果
+     * 
+     * @param image 图片文件
+     * @param request HTTP请求对象（用于获取用户信息）
+     * @return 识别任务（包含任务ID和图片路径）
+     */
+    @PostMapping("/upload-async")
+    public Result<OcrTaskVO> uploadAsync(@RequestParam("image") MultipartFile image, HttpServletRequest request) {
+        try {
+            // 从request attribute获取用户信息（由JWT拦截器设置）
+            Long userId = (Long) request.getAttribute("userId");
+            if (userId == null) {
+                return Result.error(401, "未登录");
+            }
+
+            OcrTaskVO task = ocrTaskService.submit(image, userId);
+            return Result.success(task);
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            return Result.error(500, "上传失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询OCR识别任务结果
+     * 只能查询自己提交的任务
+     * 
+     * @param taskId 任务ID
+     * @param request HTTP请求对象（用于获取用户信息）
+     * @return 识别任务（包含状态和识别结果）
+     */
+    @GetMapping("/ocr-task/{taskId}")
+    public Result<OcrTaskVO> getOcrTask(@PathVariable("taskId") String taskId, HttpServletRequest request) {
+        try {
+            // 从request attribute获取用户信息（由JWT拦截器设置）
+            Long userId = (Long) request.getAttribute("userId");
+            if (userId == null) {
+                return Result.error(401, "未登录");
+            }
+
+            OcrTaskVO task = ocrTaskService.getTask(taskId, userId);
+            return Result.success(task);
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            return Result.error(500, "查询失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 提交健康证
      * 验证编号唯一性，验证所有必填字段，保存健康证记录(状态为pending)，记录操作日志
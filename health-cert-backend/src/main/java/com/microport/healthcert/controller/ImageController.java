@@ -0,0 +1,205 @@
+package com.microport.healthcert.controller;
+
+import com.microport.healthcert.service.StorageService;
+import com.microport.healthcert.service.impl.LocalStorageServiceImpl;
+import com.microport.healthcert.util.FileUtil;
+import com.microport.healthcert.util.ImagePreprocessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片访问控制器
+ * 提供/uploads/{image_path}的图片访问，替代原来的静态资源映射
+ *
+ * 内容寻址的图片（uploads/cas/...）文件名即SHA-256，内容永不变化：
+ * 以哈希作为强ETag，并设置一年的Cache-Control（immutable），浏览器和代理缓存后不再请求
+ * 支持If-None-Match条件请求（304）和Range分段请求（206），由Spring根据ResponseEntity自动处理
+ * 支持?w=宽度参数获取缩略图，缩略图生成一次后存入文件存储（variants/），之后直接读取
+ * 对象存储时重定向到预签名URL，图片内容不经过后端
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@RestController
+public class ImageController {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * 内容寻址图片的缓存时间（一年）
+     * 健康证图片包含姓名、身份证号等个人信息，只允许浏览器缓存，代理服务器和CDN不缓存
+     */
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().getHeaderValue() + ", immutable";
+
+    /**
+     * 历史图片（非内容寻址）的缓存时间，过期后通过ETag校验（只允许浏览器缓存）
+     */
+    private static final CacheControl REVALIDATE = CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate();
+
+    /**
+     * 对象存储预签名URL有效期（秒），重定向响应的缓存时间要小于该值
+     */
+    private static final long PRESIGN_EXPIRY_SECONDS = 60 * 60L;
+
+    /**
+     * 缩略图JPEG质量
+     */
+    private static final float VARIANT_JPEG_QUALITY = 0.8f;
+
+    @Autowired
+    private StorageService storageService;
+
+    /**
+     * 允许的缩略图宽度（请求的宽度向上取整到其中一档，避免任意尺寸占满磁盘）
+     */
+    @Value("${upload.image.variant-widths:160,480,960}")
+    private int[] variantWidths;
+
+    /**
+     * 访问上传的图片
+     *
+     * @param width 缩略图宽度（可选，为空时返回原图）
+     * @param request HTTP请求
+     * @return 图片内容、304或重定向
+     */
+    @GetMapping("/uploads/**")
+    public ResponseEntity<Resource> getImage(@RequestParam(value = "w", required = false) Integer width,
+                                             HttpServletRequest request) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String imagePath = PATH_MATCHER.extractPathWithinPattern(pattern, path);
+        if (imagePath.isEmpty() || imagePath.contains("..") || imagePath.contains("\\")) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            String key = FileUtil.UPLOAD_PREFIX + imagePath;
+            if (width != null && width > 0) {
+                key = getVariant(imagePath, key, snapWidth(width));
+            }
+
+            if (!(storageService instanceof LocalStorageServiceImpl)) {
+                // 对象存储：重定向到预签名URL，浏览器在URL有效期内复用重定向结果
+                if (!storageService.exists(key)) {
+                    return ResponseEntity.notFound().build();
+                }
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .cacheControl(CacheControl.maxAge(PRESIGN_EXPIRY_SECONDS / 2, TimeUnit.SECONDS).cachePrivate())
+                        .location(URI.create(storageService.getAccessUrl(key, null, PRESIGN_EXPIRY_SECONDS)))
+                        .build();
+            }
+
+            File file = storageService.getLocalFile(key);
+            String hash = contentHash(imagePath);
+            MediaType mediaType = MediaTypeFactory.getMediaType(file.getName()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(mediaType);
+            if (hash != null) {
+                // 同一张图片的不同尺寸ETag不同
+                builder.eTag(width != null && width > 0 ? hash + "-w" + snapWidth(width) : hash).header(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+            } else {
+                builder.eTag(Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()))
+                        .lastModified(file.lastModified())
+                        .cacheControl(REVALIDATE);
+            }
+            return builder.body(new FileSystemResource(file));
+        } catch (FileNotFoundException | IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (ImagePreprocessor.ImageTooLargeException e) {
+            // 像素数过大的图片不生成缩略图
+            log.warn("图片像素过大，不生成缩略图：{}，{}", imagePath, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (Exception e) {
+            log.error("读取图片失败：{}", imagePath, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取缩略图的存储key，不存在时从原图生成
+     * 并发请求同一缩略图时可能重复生成，结果相同，store会去重
+     *
+     * @param imagePath 图片相对路径
+     * @param originalKey 原图存储key
+     * @param width 缩略图宽度
+     * @return 缩略图存储key
+     * @throws IOException IO异常（原图不存在时抛出FileNotFoundException）
+     */
+    private String getVariant(String imagePath, String originalKey, int width) throws IOException {
+        // 缩略图统一为JPEG
+        int dot = imagePath.lastIndexOf('.');
+        String baseName = dot > imagePath.lastIndexOf('/') ? imagePath.substring(0, dot) : imagePath;
+        String variantKey = FileUtil.VARIANT_PREFIX + "w" + width + "/" + baseName + ".jpg";
+        if (storageService.exists(variantKey)) {
+            return variantKey;
+        }
+
+        File original = storageService.getLocalFile(originalKey);
+        byte[] data = ImagePreprocessor.resizeToWidth(original, width, VARIANT_JPEG_QUALITY);
+        Path tmp = storageService.createTempFile();
+        try {
+            Files.write(tmp, data);
+            storageService.store(variantKey, tmp);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return variantKey;
+    }
+
+    /**
+     * 将请求的宽度向上取整到允许的缩略图宽度
+     *
+     * @param width 请求的宽度
+     * @return 缩略图宽度
+     */
+    private int snapWidth(int width) {
+        int[] widths = variantWidths.clone();
+        Arrays.sort(widths);
+        for (int w : widths) {
+            if (w >= width) {
+                return w;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    /**
+     * 获取内容寻址图片的SHA-256（cas/ab/cd/{sha256}.ext），其他路径返回null
+     *
+     * @param imagePath 图片相对路径
+     * @return SHA-256
+     */
+    private String contentHash(String imagePath) {
+        if (!imagePath.startsWith(FileUtil.CAS_DIR + "/")) {
+            return null;
+        }
+        String name = imagePath.substring(imagePath.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        String hash = dot >= 0 ? name.substring(0, dot) : name;
+        return hash.length() == 64 ? hash : null;
+    }
+}
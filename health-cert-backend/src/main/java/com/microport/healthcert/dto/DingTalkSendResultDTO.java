@@ -0,0 +1,35 @@
+package com.microport.healthcert.dto;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 钉钉工作通知发送结果DTO
+ * 工作通知为异步发送，发送接口只返回task_id，实际送达情况通过task_id查询；
+ * 不在任何结果列表中的userid表示钉钉尚未处理完成
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class DingTalkSendResultDTO {
+
+    /**
+     * 已送达的userid（已读和未读）
+     */
+    private Set<String> deliveredUserIds = new HashSet<>();
+
+    /**
+     * 发送失败的userid（key: userid, value: 失败原因）
+     */
+    private Map<String, String> failedUserIds = new HashMap<>();
+
+    /**
+     * 无效的userid（已离职或不在企业通讯录中，需要重新查询userid）
+     */
+    private Set<String> invalidUserIds = new HashSet<>();
+}
@@ -0,0 +1,49 @@
+package com.microport.healthcert.dto;
+
+import lombok.Data;
+
+/**
+ * 登录账号DTO
+ * 按用户名一次查询admins和employees两张表得到的账号信息，用于登录时校验密码
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class LoginPrincipalDTO {
+
+    /**
+     * 用户类型（admin/employee）
+     */
+    private String userType;
+
+    /**
+     * 用户ID（admins.id或employees.id）
+     */
+    private Long id;
+
+    /**
+     * 用户名（管理员账号或员工域账号）
+     */
+    private String username;
+
+    /**
+     * 密码
+     */
+    private String password;
+
+    /**
+     * 姓名
+     */
+    private String realName;
+
+    /**
+     * 邮箱地址
+     */
+    private String email;
+
+    /**
+     * 是否启用/在职（1是0否）
+     */
+    private Integer isActive;
+}
@@ -0,0 +1,38 @@
+package com.microport.healthcert.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发件箱提醒条目DTO
+ * 写入notification_outbox.payload，只保存ID和提醒天数，发送时再读取员工和健康证的最新信息
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxItemDTO {
+
+    /**
+     * 健康证ID
+     */
+    private Long certId;
+
+    /**
+     * 员工ID
+     */
+    private Long employeeId;
+
+    /**
+     * 到期天数（0表示已过期）
+     */
+    private int days;
+
+    /**
+     * 是否已过期
+     */
+    private boolean expired;
+}
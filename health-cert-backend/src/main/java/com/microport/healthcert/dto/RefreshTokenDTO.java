@@ -0,0 +1,18 @@
+package com.microport.healthcert.dto;
+
+import lombok.Data;
+
+/**
+ * 刷新Token请求DTO
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+public class RefreshTokenDTO {
+
+    /**
+     * 登录或上次刷新时返回的刷新Token
+     */
+    private String refreshToken;
+}
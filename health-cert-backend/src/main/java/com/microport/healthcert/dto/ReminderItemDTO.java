@@ -0,0 +1,40 @@
+package com.microport.healthcert.dto;
+
+import com.microport.healthcert.entity.Employee;
+import com.microport.healthcert.entity.HealthCertificate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 提醒条目DTO
+ * 一次提醒任务中需要提醒的一张健康证，汇总后按收件人合并发送
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderItemDTO {
+
+    /**
+     * 员工信息
+     */
+    private Employee employee;
+
+    /**
+     * 健康证信息
+     */
+    private HealthCertificate cert;
+
+    /**
+     * 到期天数（0表示已过期）
+     */
+    private int days;
+
+    /**
+     * 是否已过期
+     */
+    private boolean expired;
+}
@@ -0,0 +1,75 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务执行记录实体类
+ * 对应数据库表: job_history
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("job_history")
+public class JobHistory {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 任务名称
+     */
+    @TableField("job_name")
+    private String jobName;
+
+    /**
+     * 执行节点
+     */
+    @TableField("owner")
+    private String owner;
+
+    /**
+     * 执行时持有的租约令牌
+     */
+    @TableField("fencing_token")
+    private Long fencingToken;
+
+    /**
+     * 状态: running执行中/success成功/fail失败/interrupted中断(节点退出或租约丢失)
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 执行结果或失败原因
+     */
+    @TableField("message")
+    private String message;
+
+    /**
+     * 开始时间
+     */
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    @TableField("finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 执行耗时(毫秒)
+     */
+    @TableField("duration_ms")
+    private Long durationMs;
+}
@@ -0,0 +1,57 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务租约实体类
+ * 对应数据库表: job_leases
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("job_leases")
+public class JobLease {
+
+    /**
+     * 任务名称
+     */
+    @TableId(value = "job_name", type = IdType.INPUT)
+    private String jobName;
+
+    /**
+     * 持有租约的节点
+     */
+    @TableField("owner")
+    private String owner;
+
+    /**
+     * 令牌(每次获得租约加1，续约和释放时校验)
+     */
+    @TableField("fencing_token")
+    private Long fencingToken;
+
+    /**
+     * 租约有效期
+     */
+    @TableField("lease_until")
+    private LocalDateTime leaseUntil;
+
+    /**
+     * 获得租约时间
+     */
+    @TableField("acquired_at")
+    private LocalDateTime acquiredAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
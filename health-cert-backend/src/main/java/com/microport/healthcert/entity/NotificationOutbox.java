@@ -0,0 +1,123 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知发件箱实体类
+ * 对应数据库表: notification_outbox
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("notification_outbox")
+public class NotificationOutbox {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 去重键(提醒日期:通道:收件人)
+     */
+    @TableField("dedup_key")
+    private String dedupKey;
+
+    /**
+     * 通道: email邮件/dingtalk钉钉
+     */
+    @TableField("channel")
+    private String channel;
+
+    /**
+     * 收件人(邮箱地址或员工域账号)
+     */
+    @TableField("recipient")
+    private String recipient;
+
+    /**
+     * 提醒条目(JSON数组)
+     */
+    @TableField("payload")
+    private String payload;
+
+    /**
+     * 状态: pending待发送/sending发送中/sent已发送/skipped无需发送/failed失败
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 已尝试次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 下次可发送时间
+     */
+    @TableField("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 领取标识(每次领取生成)
+     */
+    @TableField("lease_owner")
+    private String leaseOwner;
+
+    /**
+     * 领取有效期
+     */
+    @TableField("lease_until")
+    private LocalDateTime leaseUntil;
+
+    /**
+     * 最近一次失败原因
+     */
+    @TableField("last_error")
+    private String lastError;
+
+    /**
+     * 发送完成时间
+     */
+    @TableField("sent_at")
+    private LocalDateTime sentAt;
+
+    /**
+     * 通道返回的发送任务ID(钉钉工作通知task_id)
+     */
+    @TableField("channel_task_id")
+    private String channelTaskId;
+
+    /**
+     * 通道中的接收人ID(钉钉userid)
+     */
+    @TableField("channel_user_id")
+    private String channelUserId;
+
+    /**
+     * 送达状态: pending待查询/delivered已送达/failed未送达/unknown超时未查到
+     */
+    @TableField("delivery_status")
+    private String deliveryStatus;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量识别批次实体类
+ * 对应数据库表: ocr_batches
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("ocr_batches")
+public class OcrBatch {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 批次ID(前端轮询使用)
+     */
+    @TableField("batch_id")
+    private String batchId;
+
+    /**
+     * 创建人姓名
+     */
+    @TableField("creator_name")
+    private String creatorName;
+
+    /**
+     * 上传文件是否已读取完成: 1是/0否
+     */
+    @TableField("upload_finished")
+    private Integer uploadFinished;
+
+    /**
+     * 提示信息
+     */
+    @TableField("message")
+    private String message;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,93 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量识别明细实体类
+ * 对应数据库表: ocr_batch_items
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("ocr_batch_items")
+public class OcrBatchItem {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 批次ID
+     */
+    @TableField("batch_id")
+    private String batchId;
+
+    /**
+     * 原始文件名
+     */
+    @TableField("file_name")
+    private String fileName;
+
+    /**
+     * 图片相对路径
+     */
+    @TableField("image_path")
+    private String imagePath;
+
+    /**
+     * 状态: waiting识别中/submitted已生成待审核记录/unmatched未匹配员工/incomplete信息不完整/duplicate重复/failed失败
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 匹配到的员工ID
+     */
+    @TableField("employee_id")
+    private Long employeeId;
+
+    /**
+     * 匹配到的员工域账号
+     */
+    @TableField("sf_user_id")
+    private String sfUserId;
+
+    /**
+     * 生成的健康证ID
+     */
+    @TableField("cert_id")
+    private Long certId;
+
+    /**
+     * 识别结果(HealthCertDTO JSON)
+     */
+    @TableField("result_json")
+    private String resultJson;
+
+    /**
+     * 提示信息
+     */
+    @TableField("message")
+    private String message;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
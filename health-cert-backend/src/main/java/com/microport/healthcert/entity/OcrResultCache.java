@@ -0,0 +1,63 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * OCR识别结果缓存实体类
+ * 对应数据库表: ocr_result_cache
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("ocr_result_cache")
+public class OcrResultCache {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 图片内容SHA-256哈希(十六进制)
+     */
+    @TableField("image_hash")
+    private String imageHash;
+
+    /**
+     * 解析后的识别结果(HealthCertDTO JSON)
+     */
+    @TableField("result_json")
+    private String resultJson;
+
+    /**
+     * OCR原始识别文本(rec_texts JSON数组)
+     */
+    @TableField("rec_texts")
+    private String recTexts;
+
+    /**
+     * 命中次数
+     */
+    @TableField("hit_count")
+    private Integer hitCount;
+
+    /**
+     * 最后命中时间
+     */
+    @TableField("last_hit_at")
+    private LocalDateTime lastHitAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,75 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * OCR异步识别任务实体类
+ * 对应数据库表: ocr_tasks
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("ocr_tasks")
+public class OcrTask {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 任务ID(前端轮询使用)
+     */
+    @TableField("task_id")
+    private String taskId;
+
+    /**
+     * 上传员工ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 图片相对路径
+     */
+    @TableField("image_path")
+    private String imagePath;
+
+    /**
+     * 状态: processing识别中/success识别完成/failed识别失败
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 识别结果(HealthCertDTO JSON)
+     */
+    @TableField("result_json")
+    private String resultJson;
+
+    /**
+     * 提示信息
+     */
+    @TableField("message")
+    private String message;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
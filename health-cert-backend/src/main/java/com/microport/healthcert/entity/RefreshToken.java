@@ -0,0 +1,75 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 刷新Token实体类
+ * 对应数据库表: refresh_tokens
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("refresh_tokens")
+public class RefreshToken {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 刷新Token的SHA-256摘要(十六进制，不保存原文)
+     */
+    @TableField("token_hash")
+    private String tokenHash;
+
+    /**
+     * 会话ID(同一次登录轮换出的刷新Token相同)
+     */
+    @TableField("family_id")
+    private String familyId;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 用户类型: employee员工/admin管理员
+     */
+    @TableField("user_type")
+    private String userType;
+
+    /**
+     * 状态: active可用/rotated已轮换/revoked已吊销
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 过期时间
+     */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+
+    /**
+     * 轮换时间
+     */
+    @TableField("rotated_at")
+    private LocalDateTime rotatedAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
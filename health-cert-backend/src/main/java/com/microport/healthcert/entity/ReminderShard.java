@@ -0,0 +1,100 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 提醒任务分片实体类
+ * 对应数据库表: reminder_shards
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("reminder_shards")
+public class ReminderShard {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 提醒日期
+     */
+    @TableField("run_date")
+    private LocalDate runDate;
+
+    /**
+     * 分片号(employee_id % shard_count)
+     */
+    @TableField("shard_no")
+    private Integer shardNo;
+
+    /**
+     * 分片数
+     */
+    @TableField("shard_count")
+    private Integer shardCount;
+
+    /**
+     * 状态: pending待执行/running执行中/done已完成
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 领取标识(每次领取生成)
+     */
+    @TableField("owner")
+    private String owner;
+
+    /**
+     * 令牌(每次领取加1，保存进度和完成时校验)
+     */
+    @TableField("fencing_token")
+    private Long fencingToken;
+
+    /**
+     * 领取有效期(过期未完成可被其他节点重新领取)
+     */
+    @TableField("lease_until")
+    private LocalDateTime leaseUntil;
+
+    /**
+     * 进度：已写入发件箱的最后一个员工ID
+     */
+    @TableField("checkpoint_employee_id")
+    private Long checkpointEmployeeId;
+
+    /**
+     * 已处理的提醒条目数
+     */
+    @TableField("item_count")
+    private Integer itemCount;
+
+    /**
+     * 第一次领取时间
+     */
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 完成时间
+     */
+    @TableField("finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,57 @@
+package com.microport.healthcert.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已吊销Token实体类
+ * 对应数据库表: revoked_tokens
+ * 
+ * @author system
+ * @date 2024
+ */
+@Data
+@TableName("revoked_tokens")
+public class RevokedToken {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * Token ID(JWT的jti)
+     */
+    @TableField("jti")
+    private String jti;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 吊销原因: logout登出等
+     */
+    @TableField("reason")
+    private String reason;
+
+    /**
+     * Token过期时间(过期后记录可删除)
+     */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+
+    /**
+     * 吊销时间(数据库时间，各节点按此增量同步)
+     */
+    @TableField("revoked_at")
+    private LocalDateTime revokedAt;
+}
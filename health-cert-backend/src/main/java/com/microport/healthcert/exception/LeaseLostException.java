@@ -0,0 +1,16 @@
+package com.microport.healthcert.exception;
+
+/**
+ * 定时任务租约丢失异常
+ * 执行期间租约已过期或被其他节点获取（令牌已变化），本节点应停止执行，避免与新的执行节点重复写入；
+ * 在事务中抛出时本次写入全部回滚，执行记录标记为中断
+ *
+ * @author system
+ * @date 2024
+ */
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
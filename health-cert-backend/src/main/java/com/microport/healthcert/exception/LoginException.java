@@ -0,0 +1,26 @@
+package com.microport.healthcert.exception;
+
+/**
+ * 登录失败异常
+ * 用户名或密码错误、登录过于频繁、HR系统无法访问、刷新Token无效或用户已停用等登录失败原因，由认证控制器转换为对应的错误码返回，
+ * 不作为系统异常记录堆栈
+ *
+ * @author system
+ * @date 2024
+ */
+public class LoginException extends RuntimeException {
+
+    /**
+     * 错误码（401用户名或密码错误，429登录过于频繁，503 HR系统无法访问）
+     */
+    private final int code;
+
+    public LoginException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -1,7 +1,9 @@
 package com.microport.healthcert.interceptor;
 
+import com.microport.healthcert.common.JwtPrincipal;
 import com.microport.healthcert.common.Result;
 import com.microport.healthcert.common.ResultCode;
+import com.microport.healthcert.service.TokenRevocationService;
 import com.microport.healthcert.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +16,7 @@ import java.io.PrintWriter;
 
 /**
  * JWT拦截器
- * 拦截所有/api/**请求（除了/api/auth/login），验证JWT Token有效性
+ * 拦截所有/api/**请求（除了/api/auth/login、/api/auth/refresh），验证JWT Token有效性
  * 
  * @author system
  * @date 2024
@@ -25,6 +27,9 @@ public class JwtInterceptor implements HandlerInterceptor {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     /**
      * 请求处理前的拦截逻辑
      * 
@@ -39,8 +44,9 @@ public class JwtInterceptor implements HandlerInterceptor {
         // 获取请求路径
         String requestPath = request.getRequestURI();
 
-        // 排除登录接口和健康检查接口，不需要验证token
-        if ("/api/auth/login".equals(requestPath) || "/api/auth/health".equals(requestPath)) {
+        // 排除登录、刷新Token和健康检查接口，不需要验证token
+        if ("/api/auth/login".equals(requestPath) || "/api/auth/refresh".equals(requestPath)
+                || "/api/auth/health".equals(requestPath)) {
             return true;
         }
 
@@ -54,27 +60,26 @@ public class JwtInterceptor implements HandlerInterceptor {
         // 提取token（去掉"Bearer "前缀）
         String token = authHeader.substring(7);
 
-        // 验证token有效性
-        if (!jwtUtil.validateToken(token)) {
+        // 验证token（验签和过期检查只做一次），得到当前用户
+        JwtPrincipal principal;
+        try {
+            principal = jwtUtil.parseToken(token);
+        } catch (Exception e) {
             // token无效，返回401错误
             return handleUnauthorized(response, "Token无效或已过期");
         }
 
-        // token有效，从token中提取用户信息并存入request attribute
-        try {
-            Long userId = jwtUtil.getUserIdFromToken(token);
-            String username = jwtUtil.getUsernameFromToken(token);
-            String userType = jwtUtil.getUserTypeFromToken(token);
-
-            // 将用户信息存入request attribute，供后续使用
-            request.setAttribute("userId", userId);
-            request.setAttribute("username", username);
-            request.setAttribute("userType", userType);
-        } catch (Exception e) {
-            // 解析token失败，返回401错误
-            return handleUnauthorized(response, "Token解析失败");
+        // 检查token是否已吊销（登出等，内存名单判断，不访问数据库）
+        if (tokenRevocationService.isRevoked(principal.getTokenId())) {
+            return handleUnauthorized(response, "Token已失效，请重新登录");
         }
 
+        // 将用户信息存入request attribute，供后续使用
+        request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
+        request.setAttribute("userId", principal.getUserId());
+        request.setAttribute("username", principal.getUsername());
+        request.setAttribute("userType", principal.getUserType());
+
         // 验证通过，继续处理请求
         return true;
     }
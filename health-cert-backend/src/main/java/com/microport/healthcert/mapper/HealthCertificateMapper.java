@@ -1,8 +1,13 @@
 package com.microport.healthcert.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.dto.ReminderItemDTO;
 import com.microport.healthcert.entity.HealthCertificate;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 健康证信息Mapper接口
@@ -14,5 +19,26 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface HealthCertificateMapper extends BaseMapper<HealthCertificate> {
+
+    /**
+     * 查询待提醒的健康证（联表查询员工信息，只返回在职员工的已通过、当前有效的健康证）
+     * 包括已过期的健康证和在指定日期到期的健康证，只查询一个分片内的员工，按(员工ID, 健康证ID)分批查询
+     * 
+     * @param today 今天
+     * @param dates 需要提醒的到期日期（今天+30/15/7/3/1天）
+     * @param shardCount 分片数
+     * @param shardNo 分片号（employee_id % shardCount）
+     * @param afterEmployeeId 上一批最后一条的员工ID（第一批传0）
+     * @param afterId 上一批最后一条的健康证ID（第一批传0）
+     * @param limit 每批数量
+     * @return 提醒条目（按员工ID、健康证ID排序，days为距到期天数，已过期为0）
+     */
+    List<ReminderItemDTO> selectReminderCandidates(@Param("today") LocalDate today,
+                                                   @Param("dates") List<LocalDate> dates,
+                                                   @Param("shardCount") int shardCount,
+                                                   @Param("shardNo") int shardNo,
+                                                   @Param("afterEmployeeId") Long afterEmployeeId,
+                                                   @Param("afterId") Long afterId,
+                                                   @Param("limit") int limit);
 }
 
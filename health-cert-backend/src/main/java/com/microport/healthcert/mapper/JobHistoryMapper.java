@@ -0,0 +1,17 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.JobHistory;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 定时任务执行记录Mapper接口
+ * 对应实体类: JobHistory
+ * 对应数据库表: job_history
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface JobHistoryMapper extends BaseMapper<JobHistory> {
+}
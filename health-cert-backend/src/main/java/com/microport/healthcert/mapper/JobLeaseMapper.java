@@ -0,0 +1,79 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.JobLease;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 定时任务租约Mapper接口
+ * 对应实体类: JobLease
+ * 对应数据库表: job_leases
+ * 租约有效期统一使用数据库时间（NOW()）判断，不受各节点时钟偏差影响
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface JobLeaseMapper extends BaseMapper<JobLease> {
+
+    /**
+     * 任务第一次执行时创建租约记录（已存在时忽略）
+     * 
+     * @param jobName 任务名称
+     * @return 实际写入的记录数
+     */
+    int insertIgnore(@Param("jobName") String jobName);
+
+    /**
+     * 获取租约：租约已过期时写入本节点并将令牌加1，一条UPDATE完成，多个节点只有一个能获取成功
+     * 
+     * @param jobName 任务名称
+     * @param owner 节点标识
+     * @param leaseSeconds 租约时长（秒）
+     * @return 1表示获取成功，0表示租约被其他节点持有
+     */
+    int acquire(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 续约（仍持有该令牌时才续约）
+     * 
+     * @param jobName 任务名称
+     * @param owner 节点标识
+     * @param fencingToken 获取租约时的令牌
+     * @param leaseSeconds 租约时长（秒）
+     * @return 1表示续约成功，0表示租约已丢失
+     */
+    int renew(@Param("jobName") String jobName,
+              @Param("owner") String owner,
+              @Param("fencingToken") long fencingToken,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 校验并锁定租约：仍由该节点以该令牌持有且未过期时返回1（SELECT ... FOR UPDATE，事务中锁定到提交）
+     * 
+     * @param jobName 任务名称
+     * @param owner 节点标识
+     * @param fencingToken 获取租约时的令牌
+     * @return 1表示仍持有租约，0表示租约已丢失
+     */
+    int lockHeld(@Param("jobName") String jobName,
+                 @Param("owner") String owner,
+                 @Param("fencingToken") long fencingToken);
+
+    /**
+     * 释放租约：租约至少保持到获取后minHoldSeconds秒，避免其他节点在同一周期内再次执行
+     * 
+     * @param jobName 任务名称
+     * @param owner 节点标识
+     * @param fencingToken 获取租约时的令牌
+     * @param minHoldSeconds 最少保持时间（秒）
+     * @return 1表示释放成功，0表示租约已丢失
+     */
+    int release(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("fencingToken") long fencingToken,
+                @Param("minHoldSeconds") long minHoldSeconds);
+}
@@ -0,0 +1,26 @@
+package com.microport.healthcert.mapper;
+
+import com.microport.healthcert.dto.LoginPrincipalDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 登录账号Mapper接口
+ * 按用户名同时查询admins和employees表（两张表的用户名都有唯一索引）
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface LoginPrincipalMapper {
+
+    /**
+     * 按用户名查询管理员和员工账号（一次查询）
+     * 
+     * @param username 用户名（管理员账号或员工域账号）
+     * @return 账号列表（最多一个管理员和一个员工）
+     */
+    List<LoginPrincipalDTO> selectByUsername(@Param("username") String username);
+}
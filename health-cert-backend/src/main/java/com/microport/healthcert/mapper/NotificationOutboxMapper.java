@@ -0,0 +1,52 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.NotificationOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知发件箱Mapper接口
+ * 对应实体类: NotificationOutbox
+ * 对应数据库表: notification_outbox
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface NotificationOutboxMapper extends BaseMapper<NotificationOutbox> {
+
+    /**
+     * 批量写入发件箱，去重键已存在的记录忽略（INSERT IGNORE）
+     * 
+     * @param rows 发件箱记录
+     * @return 实际写入的记录数
+     */
+    int insertIgnoreBatch(@Param("rows") List<NotificationOutbox> rows);
+
+    /**
+     * 批量写入暂不发送的汇总通知，去重键已存在且仍为暂不发送状态时合并payload（JSON数组拼接）
+     * 
+     * @param rows 发件箱记录
+     * @return 影响的记录数
+     */
+    int insertOrMergeHeldBatch(@Param("rows") List<NotificationOutbox> rows);
+
+    /**
+     * 领取待发送的记录
+     * 到达发送时间的待发送记录，以及领取已过期（发送进程中断）的发送中记录，一条UPDATE完成领取，多个实例不会领取到同一条
+     * 
+     * @param owner 领取标识
+     * @param now 当前时间
+     * @param leaseUntil 领取有效期
+     * @param limit 最多领取数量
+     * @return 领取到的记录数
+     */
+    int claim(@Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("limit") int limit);
+}
@@ -0,0 +1,17 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.OcrBatchItem;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 批量识别明细 Mapper接口
+ * 对应实体类: OcrBatchItem
+ * 对应数据库表: ocr_batch_items
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface OcrBatchItemMapper extends BaseMapper<OcrBatchItem> {
+}
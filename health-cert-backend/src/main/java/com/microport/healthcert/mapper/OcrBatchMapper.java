@@ -0,0 +1,17 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.OcrBatch;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 批量识别批次 Mapper接口
+ * 对应实体类: OcrBatch
+ * 对应数据库表: ocr_batches
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface OcrBatchMapper extends BaseMapper<OcrBatch> {
+}
@@ -0,0 +1,17 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.OcrResultCache;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * OCR识别结果缓存Mapper接口
+ * 对应实体类: OcrResultCache
+ * 对应数据库表: ocr_result_cache
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface OcrResultCacheMapper extends BaseMapper<OcrResultCache> {
+}
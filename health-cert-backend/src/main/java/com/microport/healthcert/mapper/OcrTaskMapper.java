@@ -0,0 +1,17 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.OcrTask;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * OCR异步识别任务 Mapper接口
+ * 对应实体类: OcrTask
+ * 对应数据库表: ocr_tasks
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface OcrTaskMapper extends BaseMapper<OcrTask> {
+}
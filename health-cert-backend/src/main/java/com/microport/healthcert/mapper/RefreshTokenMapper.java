@@ -0,0 +1,17 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.RefreshToken;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 刷新Token Mapper接口
+ * 对应实体类: RefreshToken
+ * 对应数据库表: refresh_tokens
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface RefreshTokenMapper extends BaseMapper<RefreshToken> {
+}
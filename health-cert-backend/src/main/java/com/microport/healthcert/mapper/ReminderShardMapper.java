@@ -0,0 +1,78 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.ReminderShard;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 提醒任务分片Mapper接口
+ * 对应实体类: ReminderShard
+ * 对应数据库表: reminder_shards
+ * 领取有效期统一使用数据库时间（NOW()）判断，不受各节点时钟偏差影响
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface ReminderShardMapper extends BaseMapper<ReminderShard> {
+
+    /**
+     * 创建当天的分片（已存在的忽略）
+     * 
+     * @param runDate 提醒日期
+     * @param shardCount 分片数
+     * @param shardNos 分片号（0 ~ shardCount-1）
+     * @return 实际写入的记录数
+     */
+    int insertIgnoreShards(@Param("runDate") LocalDate runDate,
+                           @Param("shardCount") int shardCount,
+                           @Param("shardNos") List<Integer> shardNos);
+
+    /**
+     * 领取一个分片：待执行的，或领取已过期（执行节点退出）的执行中分片，一条UPDATE完成领取
+     * 
+     * @param runDate 提醒日期
+     * @param owner 领取标识
+     * @param leaseSeconds 领取有效期（秒）
+     * @return 1表示领取成功，0表示没有可领取的分片
+     */
+    int claim(@Param("runDate") LocalDate runDate,
+              @Param("owner") String owner,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 保存进度并延长领取有效期（仍持有该令牌时才保存）
+     * 
+     * @param id 分片ID
+     * @param owner 领取标识
+     * @param fencingToken 领取时的令牌
+     * @param checkpointEmployeeId 已写入发件箱的最后一个员工ID
+     * @param itemCount 已处理的提醒条目数
+     * @param leaseSeconds 领取有效期（秒）
+     * @return 1表示保存成功，0表示分片已被其他节点领取
+     */
+    int checkpoint(@Param("id") Long id,
+                   @Param("owner") String owner,
+                   @Param("fencingToken") long fencingToken,
+                   @Param("checkpointEmployeeId") long checkpointEmployeeId,
+                   @Param("itemCount") int itemCount,
+                   @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 标记分片完成（仍持有该令牌时才标记）
+     * 
+     * @param id 分片ID
+     * @param owner 领取标识
+     * @param fencingToken 领取时的令牌
+     * @param itemCount 已处理的提醒条目数
+     * @return 1表示标记成功，0表示分片已被其他节点领取
+     */
+    int complete(@Param("id") Long id,
+                 @Param("owner") String owner,
+                 @Param("fencingToken") long fencingToken,
+                 @Param("itemCount") int itemCount);
+}
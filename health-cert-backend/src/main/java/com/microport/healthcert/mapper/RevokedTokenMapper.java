@@ -0,0 +1,26 @@
+package com.microport.healthcert.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.microport.healthcert.entity.RevokedToken;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 已吊销Token Mapper接口
+ * 对应实体类: RevokedToken
+ * 对应数据库表: revoked_tokens
+ * 
+ * @author system
+ * @date 2024
+ */
+@Mapper
+public interface RevokedTokenMapper extends BaseMapper<RevokedToken> {
+
+    /**
+     * 写入已吊销Token（jti已存在时忽略），吊销时间使用数据库时间
+     * 
+     * @param token 已吊销Token（jti、userId、reason、expiresAt）
+     * @return 实际写入的记录数
+     */
+    int insertIgnore(@Param("token") RevokedToken token);
+}
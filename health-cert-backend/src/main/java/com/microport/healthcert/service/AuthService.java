@@ -1,5 +1,6 @@
 package com.microport.healthcert.service;
 
+import com.microport.healthcert.common.JwtPrincipal;
 import com.microport.healthcert.dto.LoginDTO;
 import com.microport.healthcert.vo.LoginVO;
 
@@ -16,16 +17,29 @@ public interface AuthService {
      * 用户登录
      * 
      * @param loginDTO 登录请求DTO
+     * @param clientIp 客户端IP（用于登录限流和记录最后登录IP）
      * @return 登录响应VO（包含token和用户信息）
+     * @throws com.microport.healthcert.exception.LoginException 用户名或密码错误、登录过于频繁、HR系统无法访问时抛出异常
      */
-    LoginVO login(LoginDTO loginDTO);
+    LoginVO login(LoginDTO loginDTO, String clientIp);
+
+    /**
+     * 刷新Token
+     * 使用刷新Token换取新的访问Token和刷新Token（旧的刷新Token随即失效）
+     * 
+     * @param refreshToken 刷新Token
+     * @return 登录响应VO（包含新的Token和用户信息）
+     * @throws com.microport.healthcert.exception.LoginException 刷新Token无效、过期、被重复使用或用户已停用时抛出异常（错误码401）
+     */
+    LoginVO refresh(String refreshToken);
 
     /**
      * 用户登出
+     * 吊销当前Token和会话的刷新Token，记录登出日志
      * 
-     * @param userId 用户ID
+     * @param principal 当前用户
      */
-    void logout(Long userId);
+    void logout(JwtPrincipal principal);
 
     /**
      * 获取当前用户信息
@@ -1,5 +1,9 @@
 package com.microport.healthcert.service;
 
+import com.microport.healthcert.dto.DingTalkSendResultDTO;
+
+import java.util.List;
+
 /**
  * 钉钉服务接口
  * 提供钉钉API调用功能
@@ -9,11 +13,16 @@ package com.microport.healthcert.service;
  */
 public interface DingTalkService {
 
+    /**
+     * 每条工作通知最多发送的userid数量（钉钉接口限制）
+     */
+    int MAX_USERIDS_PER_MESSAGE = 100;
+
     /**
      * 获取access_token
-     * 从system_configs读取dingtalk.corp_id和dingtalk.app_secret，调用钉钉API获取token，缓存token（2小时）
+     * 从system_configs读取dingtalk.corp_id和dingtalk.app_secret，调用钉钉API获取token，按接口返回的有效期缓存，到期前提前刷新
      * 
-     * @return access_token
+     * @return access_token，获取失败时返回null
      */
     String getAccessToken();
 
@@ -21,17 +30,56 @@ public interface DingTalkService {
      * 根据手机号获取userid
      * 
      * @param mobile 手机号
-     * @return 钉钉userid
+     * @return 钉钉userid，不存在或查询失败时返回null
      */
     String getUserIdByMobile(String mobile);
 
+    /**
+     * 根据手机号解析userid
+     * 先查内存缓存；钉钉明确返回用户不存在的手机号会在一段时间内直接返回null，不再调用接口
+     * 
+     * @param mobile 手机号
+     * @return 钉钉userid，钉钉中不存在该手机号的用户时返回null
+     * @throws Exception 配置不完整、网络异常或钉钉接口返回其他错误时抛出异常（可重试）
+     */
+    String resolveUserId(String mobile) throws Exception;
+
+    /**
+     * 清除手机号对应的userid缓存
+     * 钉钉返回userid无效（已离职或重新加入企业）时调用，下次按手机号重新查询
+     * 
+     * @param mobile 手机号
+     */
+    void evictUserId(String mobile);
+
     /**
      * 发送工作通知
      * markdown格式，内容包含健康证信息
      * 
      * @param userId 钉钉用户ID
      * @param content 消息内容（markdown格式）
+     * @return 是否发送成功
+     */
+    boolean sendWorkMessage(String userId, String content);
+
+    /**
+     * 批量发送工作通知
+     * 同一内容一次发送给多个用户（钉钉限制每次最多100个userid），工作通知为异步发送
+     * 
+     * @param userIds 钉钉用户ID列表（最多100个）
+     * @param content 消息内容（markdown格式）
+     * @return 钉钉返回的发送任务ID，用于查询发送结果
+     * @throws Exception 配置不完整、网络异常或钉钉接口返回错误时抛出异常
+     */
+    long sendBatchWorkMessage(List<String> userIds, String content) throws Exception;
+
+    /**
+     * 查询工作通知发送结果
+     * 
+     * @param taskId 发送任务ID
+     * @return 发送结果
+     * @throws Exception 配置不完整、网络异常或钉钉接口返回错误时抛出异常
      */
-    void sendWorkMessage(String userId, String content);
+    DingTalkSendResultDTO getSendResult(long taskId) throws Exception;
 }
 
@@ -1,8 +1,12 @@
 package com.microport.healthcert.service;
 
+import com.microport.healthcert.dto.ReminderItemDTO;
 import com.microport.healthcert.entity.Employee;
 import com.microport.healthcert.entity.HealthCertificate;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 邮件服务接口
  * 提供邮件发送功能
@@ -38,5 +42,23 @@ public interface EmailService {
      * @param cert 健康证信息
      */
     void sendReminderEmail(Employee employee, HealthCertificate cert);
-}
 
+    /**
+     * 批量确定提醒邮件的收件人
+     * 员工有邮箱时发给员工；无邮箱时发给主管；主管也无邮箱时发给系统管理员
+     * 
+     * @param employees 员工列表
+     * @return 收件人邮箱（key: 员工ID），无法确定收件人的员工不在结果中
+     */
+    Map<Long, String> determineRecipients(List<Employee> employees);
+
+    /**
+     * 发送合并提醒邮件
+     * 同一收件人只有一条提醒时按邮件模板发送；有多条时合并为一封汇总邮件，列出所有需要更新的健康证
+     * 
+     * @param to 收件人邮箱
+     * @param items 该收件人的提醒条目
+     * @throws Exception 发送失败时抛出异常（由调用方决定是否重试）
+     */
+    void sendReminderDigest(String to, List<ReminderItemDTO> items) throws Exception;
+}
@@ -14,7 +14,7 @@ public interface ExportService {
     /**
      * 导出Excel
      * 使用POI创建Excel，如果includeImages=true则嵌入健康证图片
-     * 生成临时文件到downloads目录，返回下载URL（1小时后过期）
+     * 生成文件存入文件存储（downloads/），返回带签名的下载URL（1小时后过期）
      * 
      * @param filters 筛选条件
      * @param includeImages 是否包含图片
@@ -25,7 +25,7 @@ public interface ExportService {
     /**
      * 导出PDF
      * 使用iText创建PDF，嵌入健康证图片
-     * 生成临时文件到downloads目录，返回下载URL（1小时后过期）
+     * 生成文件存入文件存储（downloads/），返回带签名的下载URL（1小时后过期）
      * 
      * @param filters 筛选条件
      * @param includeImages 是否包含图片
@@ -0,0 +1,110 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.entity.JobHistory;
+
+import java.util.List;
+
+/**
+ * 定时任务协调服务接口
+ * 后端多节点部署时每个节点都会触发@Scheduled任务，执行前先获取数据库租约（job_leases），
+ * 同一任务同一时间只有一个节点执行；执行期间定期续约，节点退出后租约过期由其他节点接手；
+ * 每次执行的节点、令牌、耗时和结果记录在job_history中；
+ * 任务通过LeaseHandle在分批处理之间检查租约，关键写入前在同一事务中锁定并校验令牌
+ *
+ * @author system
+ * @date 2024
+ */
+public interface JobCoordinationService {
+
+    /**
+     * 状态：执行中
+     */
+    String STATUS_RUNNING = "running";
+
+    /**
+     * 状态：成功
+     */
+    String STATUS_SUCCESS = "success";
+
+    /**
+     * 状态：失败
+     */
+    String STATUS_FAIL = "fail";
+
+    /**
+     * 状态：中断（执行节点退出或租约丢失）
+     */
+    String STATUS_INTERRUPTED = "interrupted";
+
+    /**
+     * 获取租约后执行任务，租约被其他节点持有时不执行
+     * 任务结束后租约至少保持到获取后minHoldSeconds秒，避免各节点触发时间略有先后时同一周期执行多次，
+     * minHoldSeconds应小于任务的执行间隔
+     *
+     * @param jobName 任务名称
+     * @param minHoldSeconds 租约最少保持时间（秒）
+     * @param action 任务
+     * @return 是否在本节点执行（执行失败也返回true）
+     */
+    boolean runExclusive(String jobName, long minHoldSeconds, JobAction action);
+
+    /**
+     * 查询最近的执行记录
+     *
+     * @param jobName 任务名称，为空时查询全部任务
+     * @param limit 最多返回数量
+     * @return 执行记录（按开始时间倒序）
+     */
+    List<JobHistory> listHistory(String jobName, int limit);
+
+    /**
+     * 定时任务
+     */
+    @FunctionalInterface
+    interface JobAction {
+
+        /**
+         * 执行任务
+         *
+         * @param lease 本次执行持有的租约
+         * @return 执行结果（记录到执行记录中，可为null）
+         * @throws Exception 执行失败时抛出异常，租约丢失时抛出LeaseLostException
+         */
+        String run(LeaseHandle lease) throws Exception;
+    }
+
+    /**
+     * 本次执行持有的租约
+     */
+    interface LeaseHandle {
+
+        /**
+         * 获取租约时的令牌（每次获取加1，令牌较小的执行已失效）
+         *
+         * @return 令牌
+         */
+        long getFencingToken();
+
+        /**
+         * 续约时是否发现租约已被其他节点获取
+         *
+         * @return 是否已丢失
+         */
+        boolean isLost();
+
+        /**
+         * 检查租约（只检查续约结果，不访问数据库），适合在分批处理之间调用
+         *
+         * @throws com.microport.healthcert.exception.LeaseLostException 租约已丢失
+         */
+        void checkHeld();
+
+        /**
+         * 在数据库中校验本节点仍持有该令牌且租约未过期，并锁定租约记录
+         * 在事务中调用时锁定到事务提交，其他节点在此期间无法获取租约，用于保护关键写入
+         *
+         * @throws com.microport.healthcert.exception.LeaseLostException 租约已丢失
+         */
+        void lockHeld();
+    }
+}
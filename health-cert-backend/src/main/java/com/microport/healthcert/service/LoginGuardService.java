@@ -0,0 +1,44 @@
+package com.microport.healthcert.service;
+
+/**
+ * 登录防护服务接口
+ * 在内存中按用户名和客户端IP限制登录尝试次数（令牌桶），并缓存本地和远程HR库都不存在的用户名，
+ * 输错用户名或暴力尝试时不再每次查询远程HR库
+ *
+ * @author system
+ * @date 2024
+ */
+public interface LoginGuardService {
+
+    /**
+     * 占用一次登录尝试，用户名或IP的尝试次数超过限制时抛出异常
+     *
+     * @param username 用户名
+     * @param clientIp 客户端IP
+     * @throws com.microport.healthcert.exception.LoginException 登录过于频繁时抛出异常（错误码429）
+     */
+    void acquireAttempt(String username, String clientIp);
+
+    /**
+     * 登录成功，归还本次尝试占用的次数（只限制失败的尝试，同一出口IP的大量正常登录不受影响）
+     *
+     * @param username 用户名
+     * @param clientIp 客户端IP
+     */
+    void releaseAttempt(String username, String clientIp);
+
+    /**
+     * 判断用户名是否在最近确认过不存在（本地和远程HR库都没有）
+     *
+     * @param username 用户名
+     * @return 是否不存在
+     */
+    boolean isUnknownUsername(String username);
+
+    /**
+     * 记录不存在的用户名，缓存有效期内不再查询远程HR库
+     *
+     * @param username 用户名
+     */
+    void markUnknownUsername(String username);
+}
@@ -0,0 +1,33 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.vo.MailStatsVO;
+
+/**
+ * 邮件发送通道服务接口
+ * 按system_configs中的SMTP配置维护已认证的SMTP连接池，多封邮件复用同一连接发送，
+ * 避免每封邮件都重新建立连接、TLS握手和登录认证
+ *
+ * @author system
+ * @date 2024
+ */
+public interface MailTransportService {
+
+    /**
+     * 发送纯文本邮件
+     * 从连接池借用连接发送，连接断开时自动换新连接重试一次
+     *
+     * @param from 发件人邮箱
+     * @param to 收件人邮箱
+     * @param subject 邮件主题
+     * @param content 邮件内容
+     * @throws Exception 配置不完整或发送失败时抛出异常
+     */
+    void send(String from, String to, String subject, String content) throws Exception;
+
+    /**
+     * 获取发送统计
+     *
+     * @return 发送统计
+     */
+    MailStatsVO getStats();
+}
@@ -0,0 +1,138 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.entity.NotificationOutbox;
+
+import java.util.List;
+
+/**
+ * 通知发件箱服务接口
+ * 提醒任务把待发送的通知写入发件箱，发送任务领取后发送并记录结果；
+ * 领取带有效期，发送进程中断时领取过期后由其他实例或下次发送任务重新领取
+ *
+ * @author system
+ * @date 2024
+ */
+public interface NotificationOutboxService {
+
+    /**
+     * 状态：暂不发送（汇总通知等待当天所有分片执行完成，期间写入的同一收件人的提醒条目合并到该记录）
+     */
+    String STATUS_HELD = "held";
+
+    /**
+     * 状态：待发送
+     */
+    String STATUS_PENDING = "pending";
+
+    /**
+     * 状态：发送中（已领取）
+     */
+    String STATUS_SENDING = "sending";
+
+    /**
+     * 状态：已发送
+     */
+    String STATUS_SENT = "sent";
+
+    /**
+     * 状态：无需发送（如员工无手机号、健康证已删除）
+     */
+    String STATUS_SKIPPED = "skipped";
+
+    /**
+     * 状态：重试次数用完仍失败
+     */
+    String STATUS_FAILED = "failed";
+
+    /**
+     * 送达状态：待查询（异步发送的通道已受理，尚未查询到结果）
+     */
+    String DELIVERY_PENDING = "pending";
+
+    /**
+     * 送达状态：已送达
+     */
+    String DELIVERY_DELIVERED = "delivered";
+
+    /**
+     * 送达状态：未送达
+     */
+    String DELIVERY_FAILED = "failed";
+
+    /**
+     * 送达状态：超过查询期限仍未查到结果
+     */
+    String DELIVERY_UNKNOWN = "unknown";
+
+    /**
+     * 批量写入发件箱（按去重键去重，已存在的忽略）
+     *
+     * @param rows 发件箱记录（dedupKey、channel、recipient、payload）
+     * @return 实际写入的记录数
+     */
+    int enqueue(List<NotificationOutbox> rows);
+
+    /**
+     * 批量写入汇总通知（暂不发送）
+     * 去重键已存在且记录仍为暂不发送状态时，把提醒条目合并到已有记录；已释放的记录不再修改
+     * 同一收件人的提醒分多批写入时不会丢失，写入完成后调用release释放
+     *
+     * @param rows 发件箱记录（dedupKey、channel、recipient、payload为提醒条目JSON数组）
+     */
+    void enqueueHeld(List<NotificationOutbox> rows);
+
+    /**
+     * 释放暂不发送的汇总通知（改为待发送）
+     *
+     * @param dedupKeyPrefix 去重键前缀
+     * @return 释放的记录数
+     */
+    int release(String dedupKeyPrefix);
+
+    /**
+     * 领取待发送的记录
+     *
+     * @param limit 最多领取数量
+     * @return 领取到的记录（状态为sending，leaseOwner为本次领取标识）
+     */
+    List<NotificationOutbox> claim(int limit);
+
+    /**
+     * 标记发送完成
+     * 只更新仍由本次领取持有的记录，领取过期被重新领取后不再覆盖；
+     * 记录设置了channelTaskId时（异步发送的通道）一并保存，送达状态置为待查询
+     *
+     * @param row 发件箱记录
+     * @param sent 是否已发送（false表示无需发送）
+     * @return 是否更新成功
+     */
+    boolean complete(NotificationOutbox row, boolean sent);
+
+    /**
+     * 标记发送失败
+     * 未超过最大尝试次数时按退避间隔重新进入待发送状态，否则标记为失败
+     *
+     * @param row 发件箱记录
+     * @param error 失败原因
+     * @return 是否已标记为最终失败（不再重试）
+     */
+    boolean fail(NotificationOutbox row, String error);
+
+    /**
+     * 查询等待送达结果的记录
+     *
+     * @param channel 通道
+     * @param limit 最多返回数量
+     * @return 已发送、送达状态为待查询的记录
+     */
+    List<NotificationOutbox> listAwaitingDelivery(String channel, int limit);
+
+    /**
+     * 更新送达状态
+     *
+     * @param ids 发件箱记录ID
+     * @param deliveryStatus 送达状态
+     * @param error 未送达原因
+     */
+    void updateDeliveryStatus(List<Long> ids, String deliveryStatus, String error);
+}
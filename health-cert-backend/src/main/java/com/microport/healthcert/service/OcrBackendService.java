@@ -0,0 +1,26 @@
+package com.microport.healthcert.service;
+
+import okhttp3.RequestBody;
+
+import java.io.IOException;
+
+/**
+ * OCR后端服务接口
+ * 管理多个PaddleOCR服务节点，负责节点选择、健康检查、熔断和对冲请求
+ *
+ * @author system
+ * @date 2024
+ */
+public interface OcrBackendService {
+
+    /**
+     * 发送OCR识别请求
+     * 选择当前未完成请求数最少的可用节点发送，超过对冲等待时间仍未返回时向另一个节点再发一次，取先返回的结果
+     * 请求体可能被发送多次，必须可重复写出
+     *
+     * @param requestBody 请求体
+     * @return OCR服务响应内容
+     * @throws IOException 没有可用节点或所有节点都请求失败
+     */
+    String recognize(RequestBody requestBody) throws IOException;
+}
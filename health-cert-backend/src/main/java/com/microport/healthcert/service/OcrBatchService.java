@@ -0,0 +1,33 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.vo.OcrBatchVO;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 批量识别服务接口
+ * 管理员一次上传多张健康证图片（或ZIP包），后台并行识别并匹配员工，生成待审核记录
+ *
+ * @author system
+ * @date 2024
+ */
+public interface OcrBatchService {
+
+    /**
+     * 创建批量识别批次
+     * 图片（ZIP包逐个解压）保存后立即返回，识别在后台执行
+     *
+     * @param files 上传的文件（图片或ZIP包）
+     * @param adminId 管理员ID
+     * @param adminName 管理员姓名
+     * @return 批次信息（包含批次ID）
+     */
+    OcrBatchVO createBatch(MultipartFile[] files, Long adminId, String adminName);
+
+    /**
+     * 查询批量识别批次
+     *
+     * @param batchId 批次ID
+     * @return 批次信息（包含识别进度和明细）
+     */
+    OcrBatchVO getBatch(String batchId);
+}
@@ -0,0 +1,33 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.dto.HealthCertDTO;
+
+import java.util.List;
+
+/**
+ * OCR识别结果缓存服务接口
+ * 以图片内容SHA-256为键缓存识别结果，相同图片重复上传时无需再次调用OCR服务
+ * 
+ * @author system
+ * @date 2024
+ */
+public interface OcrCacheService {
+
+    /**
+     * 查询缓存的识别结果
+     * 先查内存缓存，未命中再查数据库缓存表
+     * 
+     * @param imageHash 图片内容SHA-256哈希
+     * @return 识别结果副本，未命中返回null
+     */
+    HealthCertDTO get(String imageHash);
+
+    /**
+     * 缓存识别结果
+     * 
+     * @param imageHash 图片内容SHA-256哈希
+     * @param result 解析后的识别结果
+     * @param recTexts OCR原始识别文本
+     */
+    void put(String imageHash, HealthCertDTO result, List<String> recTexts);
+}
@@ -3,6 +3,7 @@ package com.microport.healthcert.service;
 import com.microport.healthcert.dto.HealthCertDTO;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * OCR服务接口
@@ -21,6 +22,25 @@ public interface OcrService {
      */
     HealthCertDTO callOcrApi(File imageFile);
 
+    /**
+     * 调用OCR API识别健康证（图片哈希已在保存时计算，不再重复读取文件）
+     * 
+     * @param imageFile 图片文件
+     * @param imageHash 图片内容SHA-256
+     * @return OCR识别结果（HealthCertDTO）
+     */
+    HealthCertDTO callOcrApi(File imageFile, String imageHash);
+
+    /**
+     * 识别健康证，OCR服务调用失败时抛出异常（callOcrApi失败时返回空对象，无法区分失败和未识别到内容）
+     * 
+     * @param imageFile 图片文件
+     * @param imageHash 图片内容SHA-256
+     * @return OCR识别结果（HealthCertDTO）
+     * @throws IOException 图片无法处理、OCR服务不可用或响应格式错误
+     */
+    HealthCertDTO recognize(File imageFile, String imageHash) throws IOException;
+
     /**
      * 解析OCR结果为HealthCertDTO
      * 
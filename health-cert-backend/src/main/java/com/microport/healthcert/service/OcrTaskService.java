@@ -0,0 +1,33 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.vo.OcrTaskVO;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * OCR异步识别任务服务接口
+ * 上传请求保存图片后立即返回任务ID，OCR识别在后台线程池中执行
+ *
+ * @author system
+ * @date 2024
+ */
+public interface OcrTaskService {
+
+    /**
+     * 上传图片并提交OCR识别任务
+     *
+     * @param file 图片文件
+     * @param userId 上传用户ID
+     * @return 识别任务（包含任务ID和图片路径）
+     */
+    OcrTaskVO submit(MultipartFile file, Long userId);
+
+    /**
+     * 查询OCR识别任务
+     * 只能查询自己提交的任务
+     *
+     * @param taskId 任务ID
+     * @param userId 用户ID（用于验证权限）
+     * @return 识别任务（包含状态和识别结果）
+     */
+    OcrTaskVO getTask(String taskId, Long userId);
+}
@@ -0,0 +1,56 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.entity.RefreshToken;
+
+/**
+ * 刷新Token服务接口
+ * 刷新Token为随机字符串，数据库只保存摘要；每次使用后轮换（旧Token作废、签发新Token），
+ * 已轮换的Token再次被使用说明Token已泄露（或被重放），吊销该会话的所有刷新Token
+ *
+ * @author system
+ * @date 2024
+ */
+public interface RefreshTokenService {
+
+    /**
+     * 状态：可用
+     */
+    String STATUS_ACTIVE = "active";
+
+    /**
+     * 状态：已轮换（已使用过）
+     */
+    String STATUS_ROTATED = "rotated";
+
+    /**
+     * 状态：已吊销（登出、重复使用、用户停用）
+     */
+    String STATUS_REVOKED = "revoked";
+
+    /**
+     * 签发刷新Token
+     *
+     * @param userId 用户ID
+     * @param userType 用户类型（employee/admin）
+     * @param familyId 会话ID（登录时新建，轮换时沿用）
+     * @return 刷新Token原文（只在签发时返回）
+     */
+    String issue(Long userId, String userType, String familyId);
+
+    /**
+     * 使用刷新Token：可用时标记为已轮换并返回，调用方随后签发同一会话的新Token
+     * 已轮换的Token被再次使用时吊销整个会话
+     *
+     * @param rawToken 刷新Token原文
+     * @return 被轮换的刷新Token记录
+     * @throws com.microport.healthcert.exception.LoginException Token不存在、已过期、已吊销或被重复使用时抛出异常（错误码401）
+     */
+    RefreshToken rotate(String rawToken);
+
+    /**
+     * 吊销会话的所有刷新Token
+     *
+     * @param familyId 会话ID
+     */
+    void revokeFamily(String familyId);
+}
@@ -0,0 +1,109 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.vo.ReminderDispatchStatsVO;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 提醒发送调度服务接口
+ * 将提醒发送任务分发到有界线程池并发执行，每个通道（邮件、钉钉）按各自的QPS限制独立限流，失败时按退避间隔重试
+ *
+ * @author system
+ * @date 2024
+ */
+public interface ReminderDispatchService {
+
+    /**
+     * 邮件通道
+     */
+    String CHANNEL_EMAIL = "email";
+
+    /**
+     * 钉钉通道
+     */
+    String CHANNEL_DINGTALK = "dingtalk";
+
+    /**
+     * 执行结果：已发送
+     */
+    String RESULT_SENT = "sent";
+
+    /**
+     * 执行结果：无需发送
+     */
+    String RESULT_SKIPPED = "skipped";
+
+    /**
+     * 执行结果：重试后仍失败
+     */
+    String RESULT_FAILED = "failed";
+
+    /**
+     * 并发执行发送任务，全部完成（成功、跳过或重试后仍失败）后返回
+     *
+     * @param tasks 发送任务
+     * @return 本次发送统计
+     */
+    ReminderDispatchStatsVO dispatch(List<DispatchTask> tasks);
+
+    /**
+     * 获取最近一次发送统计
+     *
+     * @return 发送统计，尚未执行过时返回null
+     */
+    ReminderDispatchStatsVO getLastRunStats();
+
+    /**
+     * 发送动作
+     */
+    @FunctionalInterface
+    interface DispatchAction {
+
+        /**
+         * 执行发送
+         *
+         * @return 是否已发送（false表示无需发送，如员工无手机号）
+         * @throws Exception 发送失败时抛出异常，由调度服务重试
+         */
+        boolean execute() throws Exception;
+    }
+
+    /**
+     * 发送任务
+     * 执行完成后由调度服务写入执行结果
+     */
+    @Data
+    class DispatchTask {
+
+        /**
+         * 通道（email/dingtalk）
+         */
+        private final String channel;
+
+        /**
+         * 发送目标（收件人邮箱、员工工号，用于日志）
+         */
+        private final String target;
+
+        /**
+         * 每次执行消耗的限流令牌数（一次发送需要调用的接口次数）
+         */
+        private final int permits;
+
+        /**
+         * 发送动作
+         */
+        private final DispatchAction action;
+
+        /**
+         * 执行结果（sent/skipped/failed）
+         */
+        private volatile String result;
+
+        /**
+         * 最后一次失败原因
+         */
+        private volatile String error;
+    }
+}
@@ -1,5 +1,7 @@
 package com.microport.healthcert.service;
 
+import com.microport.healthcert.vo.ReminderDispatchStatsVO;
+
 /**
  * 提醒服务接口
  * 提供健康证到期提醒功能
@@ -9,10 +11,45 @@ package com.microport.healthcert.service;
  */
 public interface ReminderService {
 
+    /**
+     * 发送通知发件箱的任务名称（job_leases.job_name）
+     * 各节点的发送限流器相互独立，同一时间只允许一个节点发送，保证各通道的实际发送速率不超过配置
+     */
+    String OUTBOX_JOB_NAME = "reminder-outbox";
+
     /**
      * 发送提醒
-     * 查询即将到期的健康证（30/15/7/3/1天）和已过期的健康证（每周提醒一次），调用EmailService和DingTalkService发送
+     * 查询即将到期的健康证（30/15/7/3/1天）和已过期的健康证（每周提醒一次），写入通知发件箱后发送
      */
     void sendReminders();
-}
 
+    /**
+     * 继续执行当天未完成的提醒任务分片（执行节点退出后领取已过期的分片）
+     * 
+     * @return 本次执行的分片数
+     */
+    int resumeShards();
+
+    /**
+     * 发送通知发件箱中到达发送时间的通知（包括等待重试的和领取已过期的）
+     * 调用方需持有OUTBOX_JOB_NAME租约，每批发送前检查租约，租约丢失时停止发送
+     * 
+     * @param lease 持有的发件箱租约
+     * @return 本次处理的通知数量
+     */
+    int deliverOutbox(JobCoordinationService.LeaseHandle lease);
+
+    /**
+     * 检查钉钉工作通知的送达情况（合并发送的工作通知为异步发送，按task_id查询发送结果）
+     * 
+     * @return 本次更新送达状态的通知数量
+     */
+    int checkDingTalkDelivery();
+
+    /**
+     * 获取最近一次提醒任务的发送统计
+     * 
+     * @return 发送统计（各通道吞吐量、耗时、失败重试情况），尚未执行过时返回null
+     */
+    ReminderDispatchStatsVO getLastRunStats();
+}
@@ -0,0 +1,74 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.entity.ReminderShard;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 提醒任务分片服务接口
+ * 每天的提醒任务按employee_id % 分片数拆分为多个分片，各节点领取分片执行，一个节点同一时间只执行一个分片；
+ * 执行中定期保存进度（已写入发件箱的最后一个员工ID），节点退出后分片领取过期，由其他节点从进度处继续
+ *
+ * @author system
+ * @date 2024
+ */
+public interface ReminderShardService {
+
+    /**
+     * 状态：待执行
+     */
+    String STATUS_PENDING = "pending";
+
+    /**
+     * 状态：执行中（已领取）
+     */
+    String STATUS_RUNNING = "running";
+
+    /**
+     * 状态：已完成
+     */
+    String STATUS_DONE = "done";
+
+    /**
+     * 创建当天的分片（当天已创建过的不再创建，分片数以第一次创建时为准）
+     *
+     * @param runDate 提醒日期
+     */
+    void prepare(LocalDate runDate);
+
+    /**
+     * 领取一个分片
+     *
+     * @param runDate 提醒日期
+     * @return 领取到的分片（owner为本次领取标识），没有可领取的分片时返回null
+     */
+    ReminderShard claim(LocalDate runDate);
+
+    /**
+     * 保存进度并延长领取有效期
+     *
+     * @param shard 分片
+     * @param checkpointEmployeeId 已写入发件箱的最后一个员工ID
+     * @param itemCount 已处理的提醒条目数
+     * @return 是否保存成功（false表示领取已过期、分片已被其他节点领取，应停止执行）
+     */
+    boolean checkpoint(ReminderShard shard, long checkpointEmployeeId, int itemCount);
+
+    /**
+     * 标记分片完成
+     *
+     * @param shard 分片
+     * @param itemCount 已处理的提醒条目数
+     * @return 是否标记成功
+     */
+    boolean complete(ReminderShard shard, int itemCount);
+
+    /**
+     * 查询某天的分片执行情况
+     *
+     * @param runDate 提醒日期
+     * @return 分片（按分片号排序）
+     */
+    List<ReminderShard> listShards(LocalDate runDate);
+}
@@ -0,0 +1,140 @@
+package com.microport.healthcert.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 文件存储服务接口
+ * 上传图片和导出文件统一通过该接口读写，key为"/"分隔的相对路径（如uploads/cas/ab/cd/xxx.jpg、downloads/xxx.xlsx）
+ * 实现：本地文件系统（storage.type=local，默认）、S3兼容对象存储（storage.type=s3）
+ *
+ * @author system
+ * @date 2024
+ */
+public interface StorageService {
+
+    /**
+     * 创建本地临时文件
+     * 文件先写入临时文件（边写边计算哈希、生成导出文件等），写完后调用store存入
+     *
+     * @return 临时文件路径
+     * @throws IOException IO异常
+     */
+    Path createTempFile() throws IOException;
+
+    /**
+     * 存入文件
+     * 临时文件会被移走（本地存储为重命名，对象存储为上传后移入本地缓存），调用后不要再使用source
+     * key已存在时直接覆盖（内容寻址的key内容相同）
+     *
+     * @param key 存储key
+     * @param source 本地临时文件
+     * @throws IOException IO异常
+     */
+    void store(String key, Path source) throws IOException;
+
+    /**
+     * 判断文件是否存在
+     *
+     * @param key 存储key
+     * @return 是否存在
+     * @throws IOException IO异常
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * 查询单个文件的信息（大小、最后修改时间）
+     *
+     * @param key 存储key
+     * @return 文件信息，文件不存在时返回null
+     * @throws IOException IO异常
+     */
+    StoredObject stat(String key) throws IOException;
+
+    /**
+     * 打开文件输入流（流式读取，调用方负责关闭）
+     *
+     * @param key 存储key
+     * @return 输入流
+     * @throws IOException IO异常（文件不存在时抛出FileNotFoundException）
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * 获取本地文件（OCR识别、导出插图等需要本地文件的场景）
+     * 本地存储直接返回文件；对象存储返回本地缓存，没有缓存时先下载
+     *
+     * @param key 存储key
+     * @return 本地文件（只读使用）
+     * @throws IOException IO异常
+     */
+    File getLocalFile(String key) throws IOException;
+
+    /**
+     * 删除文件
+     *
+     * @param key 存储key
+     * @throws IOException IO异常
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * 文件修改时间不晚于指定时间时才删除（清理任务使用）
+     * 内容寻址的文件被重新存入时会刷新修改时间，清理任务查询列表后文件被重新上传的不会被删除
+     *
+     * @param key 存储key
+     * @param lastModified 修改时间上限（毫秒时间戳）
+     * @return 是否已删除（文件不存在或修改时间晚于上限时返回false）
+     * @throws IOException IO异常
+     */
+    boolean deleteIfNotModifiedSince(String key, long lastModified) throws IOException;
+
+    /**
+     * 列出指定前缀下的所有文件
+     *
+     * @param prefix key前缀
+     * @return 文件列表
+     * @throws IOException IO异常
+     */
+    List<StoredObject> list(String prefix) throws IOException;
+
+    /**
+     * 获取带签名和有效期的访问URL
+     * 浏览器直接通过该URL下载，对象存储时不经过后端转发
+     *
+     * @param key 存储key
+     * @param downloadName 下载文件名（为空时浏览器直接显示，不作为附件下载）
+     * @param expireSeconds 有效期（秒）
+     * @return 访问URL
+     */
+    String getAccessUrl(String key, String downloadName, long expireSeconds);
+
+    /**
+     * 存储的文件信息
+     */
+    @Data
+    @AllArgsConstructor
+    class StoredObject {
+
+        /**
+         * 存储key
+         */
+        private String key;
+
+        /**
+         * 文件大小（字节）
+         */
+        private long size;
+
+        /**
+         * 最后修改时间（毫秒时间戳）
+         */
+        private long lastModified;
+    }
+}
@@ -1,6 +1,7 @@
 package com.microport.healthcert.service;
 
 import com.microport.healthcert.dto.SyncResultDTO;
+import com.microport.healthcert.service.JobCoordinationService.LeaseHandle;
 
 /**
  * 员工同步服务接口
@@ -14,9 +15,11 @@ public interface SyncService {
     /**
      * 同步员工数据
      * 从远程hr_sync表同步到本地employees表
+     * 定时任务传入持有的租约：逐条同步时定期检查租约，提交前锁定租约并校验令牌，租约丢失时整体回滚
      * 
+     * @param lease 定时任务持有的租约，管理员手动同步时为null
      * @return 同步结果（新增数/更新数/离职数）
      */
-    SyncResultDTO syncEmployees();
+    SyncResultDTO syncEmployees(LeaseHandle lease);
 }
 
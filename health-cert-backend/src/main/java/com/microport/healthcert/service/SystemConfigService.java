@@ -0,0 +1,72 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.entity.SystemConfig;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 系统配置读取服务接口
+ * system_configs表整体加载为内存中的只读快照，读取配置不再查询数据库
+ * 保存配置后立即刷新快照；其他实例修改配置时通过定时检查版本戳发现并刷新
+ * 快照内容变化时发布SystemConfigChangedEvent
+ *
+ * @author system
+ * @date 2024
+ */
+public interface SystemConfigService {
+
+    /**
+     * 获取配置值
+     *
+     * @param configKey 配置键
+     * @return 配置值，如果不存在返回null
+     */
+    String getValue(String configKey);
+
+    /**
+     * 获取配置值
+     *
+     * @param configKey 配置键
+     * @param defaultValue 默认值
+     * @return 配置值，如果不存在或为空返回默认值
+     */
+    String getValue(String configKey, String defaultValue);
+
+    /**
+     * 获取整数配置值
+     *
+     * @param configKey 配置键
+     * @param defaultValue 默认值
+     * @return 配置值，如果不存在或格式错误返回默认值
+     */
+    int getInt(String configKey, int defaultValue);
+
+    /**
+     * 获取布尔配置值（"true"不区分大小写为true）
+     *
+     * @param configKey 配置键
+     * @param defaultValue 默认值
+     * @return 配置值，如果不存在或为空返回默认值
+     */
+    boolean getBoolean(String configKey, boolean defaultValue);
+
+    /**
+     * 获取配置快照
+     *
+     * @return 只读的配置键值Map
+     */
+    Map<String, String> getSnapshot();
+
+    /**
+     * 批量保存配置（按config_key新增或更新），保存后刷新快照
+     *
+     * @param configs 配置列表（configKey、configValue必填，其他字段仅新增时使用）
+     */
+    void saveConfigs(List<SystemConfig> configs);
+
+    /**
+     * 从数据库重新加载配置快照
+     */
+    void refresh();
+}
@@ -0,0 +1,36 @@
+package com.microport.healthcert.service;
+
+import com.microport.healthcert.common.JwtPrincipal;
+
+/**
+ * Token吊销服务接口
+ * 登出等操作吊销的Token写入revoked_tokens表，各节点定时增量同步到内存名单；
+ * 请求验证时先查布隆过滤器，可能命中时再查精确名单，判断为O(1)且不访问数据库；
+ * 名单中的记录在Token过期后移除（过期的Token验签时已被拒绝）
+ *
+ * @author system
+ * @date 2024
+ */
+public interface TokenRevocationService {
+
+    /**
+     * 吊销原因：登出
+     */
+    String REASON_LOGOUT = "logout";
+
+    /**
+     * 吊销Token（本节点立即生效，其他节点在下次同步后生效）
+     *
+     * @param principal Token对应的当前用户（包含jti和过期时间）
+     * @param reason 吊销原因
+     */
+    void revoke(JwtPrincipal principal, String reason);
+
+    /**
+     * 判断Token是否已吊销
+     *
+     * @param tokenId Token ID（jti），为空时（没有jti的Token）返回false
+     * @return 是否已吊销
+     */
+    boolean isRevoked(String tokenId);
+}
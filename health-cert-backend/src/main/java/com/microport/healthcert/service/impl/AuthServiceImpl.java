@@ -1,23 +1,51 @@
 package com.microport.healthcert.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.microport.healthcert.common.JwtPrincipal;
 import com.microport.healthcert.dto.LoginDTO;
+import com.microport.healthcert.dto.LoginPrincipalDTO;
 import com.microport.healthcert.entity.Admin;
 import com.microport.healthcert.entity.Employee;
 import com.microport.healthcert.entity.OperationLog;
+import com.microport.healthcert.entity.RefreshToken;
 import com.microport.healthcert.entity.remote.HrSync;
 import com.microport.healthcert.mapper.AdminMapper;
+import com.microport.healthcert.exception.LoginException;
 import com.microport.healthcert.mapper.EmployeeMapper;
+import com.microport.healthcert.mapper.LoginPrincipalMapper;
 import com.microport.healthcert.mapper.OperationLogMapper;
 import com.microport.healthcert.mapper.remote.HrSyncMapper;
 import com.microport.healthcert.service.AuthService;
+import com.microport.healthcert.service.LoginGuardService;
+import com.microport.healthcert.service.RefreshTokenService;
+import com.microport.healthcert.service.TokenRevocationService;
+import com.microport.healthcert.util.CircuitBreaker;
 import com.microport.healthcert.util.JwtUtil;
 import com.microport.healthcert.vo.LoginVO;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 认证服务实现类
@@ -25,9 +53,34 @@ import java.time.LocalDateTime;
  * @author system
  * @date 2024
  */
+@Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
 
+    /**
+     * 查询远程HR库的等待时间（毫秒），超时按失败处理
+     */
+    @Value("${auth.login.remote.timeout-ms:3000}")
+    private long remoteTimeoutMs = 3000;
+
+    /**
+     * 同时查询远程HR库的最大登录请求数（超过时直接按失败处理，不排队等待）
+     */
+    @Value("${auth.login.remote.max-concurrent:4}")
+    private int remoteMaxConcurrent = 4;
+
+    /**
+     * 连续失败多少次后熔断
+     */
+    @Value("${auth.login.remote.failure-threshold:5}")
+    private int remoteFailureThreshold = 5;
+
+    /**
+     * 熔断时间（秒），期间登录不再查询远程HR库（已同步到本地的员工可以正常登录）
+     */
+    @Value("${auth.login.remote.open-seconds:30}")
+    private long remoteOpenSeconds = 30;
+
     @Autowired
     private AdminMapper adminMapper;
 
@@ -43,38 +96,111 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginPrincipalMapper loginPrincipalMapper;
+
+    @Autowired
+    private LoginGuardService loginGuardService;
+
+    /**
+     * 远程HR库熔断器
+     */
+    private CircuitBreaker hrSyncBreaker;
+
+    /**
+     * 查询远程HR库的线程池（限制等待时间和并发数）
+     */
+    private ExecutorService remoteLookupExecutor;
+
+    /**
+     * 初始化远程HR库熔断器和查询线程池
+     */
+    @PostConstruct
+    public void init() {
+        hrSyncBreaker = new CircuitBreaker("远程HR库（登录）", remoteFailureThreshold, remoteOpenSeconds);
+        AtomicInteger threadNo = new AtomicInteger();
+        int threads = Math.max(1, remoteMaxConcurrent);
+        remoteLookupExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads), runnable -> {
+                    Thread thread = new Thread(runnable, "login-hr-lookup-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 关闭查询线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        remoteLookupExecutor.shutdownNow();
+    }
+
     /**
      * 用户登录
-     * 先查本地admins表，如果不存在，再查本地employees表，最后查远程hr_sync表
+     * 1. 按用户名和IP限制登录失败次数
+     * 2. 一次查询本地admins和employees表，管理员优先
+     * 3. 本地没有匹配的账号时查询远程hr_sync表（带超时和熔断，本地和远程都不存在的用户名缓存一段时间，期间不再查询远程库）
      * 如果找到远程员工，同步到本地employees表
      * 
      * @param loginDTO 登录请求DTO
+     * @param clientIp 客户端IP
      * @return 登录响应VO（包含token和用户信息）
      */
     @Override
-    public LoginVO login(LoginDTO loginDTO) {
+    public LoginVO login(LoginDTO loginDTO, String clientIp) {
         String username = loginDTO.getUsername();
         String password = loginDTO.getPassword();
+        if (username == null || username.isEmpty() || password == null || password.isEmpty()) {
+            throw new LoginException(401, "用户名或密码错误");
+        }
 
-        // 1. 先查本地admins表
-        LambdaQueryWrapper<Admin> adminWrapper = new LambdaQueryWrapper<>();
-        adminWrapper.eq(Admin::getUsername, username)
-                    .eq(Admin::getPassword, password)
-                    .eq(Admin::getIsActive, 1);
-        Admin admin = adminMapper.selectOne(adminWrapper);
-
-        if (admin != null) {
-            // 管理员登录成功
-            // 更新最后登录时间
-            admin.setLastLoginTime(LocalDateTime.now());
-            adminMapper.updateById(admin);
+        // 占用一次登录尝试（超过限制时抛出异常），登录成功后归还
+        loginGuardService.acquireAttempt(username, clientIp);
+        LoginVO loginVO = authenticate(username, password, clientIp);
+        loginGuardService.releaseAttempt(username, clientIp);
+        return loginVO;
+    }
 
-            // 生成Token
-            String token = jwtUtil.generateToken(admin.getId(), admin.getUsername(), "admin");
+    /**
+     * 校验用户名和密码，成功后签发Token
+     * 
+     * @param username 用户名
+     * @param password 密码
+     * @param clientIp 客户端IP
+     * @return 登录响应VO（包含token和用户信息）
+     */
+    private LoginVO authenticate(String username, String password, String clientIp) {
+        // 1. 一次查询本地admins和employees表
+        LoginPrincipalDTO admin = null;
+        LoginPrincipalDTO localEmployee = null;
+        List<LoginPrincipalDTO> principals = loginPrincipalMapper.selectByUsername(username);
+        for (LoginPrincipalDTO principal : principals) {
+            if ("admin".equals(principal.getUserType())) {
+                admin = principal;
+            } else {
+                localEmployee = principal;
+            }
+        }
 
-            // 创建LoginVO
+        if (admin != null && Integer.valueOf(1).equals(admin.getIsActive()) && passwordMatches(admin.getPassword(), password)) {
+            // 管理员登录成功
+            // 更新最后登录时间和IP
+            LambdaUpdateWrapper<Admin> adminWrapper = new LambdaUpdateWrapper<>();
+            adminWrapper.eq(Admin::getId, admin.getId())
+                        .set(Admin::getLastLoginTime, LocalDateTime.now())
+                        .set(Admin::getLastLoginIp, clientIp);
+            adminMapper.update(null, adminWrapper);
+
+            // 生成Token，创建LoginVO（新会话）
             LoginVO loginVO = new LoginVO();
-            loginVO.setToken(token);
+            issueTokens(loginVO, admin.getId(), admin.getUsername(), "admin", UUID.randomUUID().toString());
             loginVO.setUserId(admin.getId());
             loginVO.setUsername(admin.getUsername());
             loginVO.setUserType("admin");
@@ -87,42 +213,48 @@ public class AuthServiceImpl implements AuthService {
             return loginVO;
         }
 
-        // 2. 查本地employees表（优先使用本地数据）
-        LambdaQueryWrapper<Employee> employeeWrapper = new LambdaQueryWrapper<>();
-        employeeWrapper.eq(Employee::getSfUserId, username)
-                      .eq(Employee::getPassword, password)
-                      .eq(Employee::getIsActive, 1);
-        Employee employee = employeeMapper.selectOne(employeeWrapper);
-
-        if (employee != null) {
+        // 2. 本地员工（优先使用本地数据）
+        if (localEmployee != null && Integer.valueOf(1).equals(localEmployee.getIsActive())
+                && passwordMatches(localEmployee.getPassword(), password)) {
             // 本地员工登录成功
-            // 生成Token
-            String token = jwtUtil.generateToken(employee.getId(), employee.getSfUserId(), "employee");
-
-            // 创建LoginVO
+            // 生成Token，创建LoginVO（新会话）
             LoginVO loginVO = new LoginVO();
-            loginVO.setToken(token);
-            loginVO.setUserId(employee.getId());
-            loginVO.setUsername(employee.getSfUserId());
+            issueTokens(loginVO, localEmployee.getId(), localEmployee.getUsername(), "employee", UUID.randomUUID().toString());
+            loginVO.setUserId(localEmployee.getId());
+            loginVO.setUsername(localEmployee.getUsername());
             loginVO.setUserType("employee");
-            loginVO.setRealName(employee.getName());
-            loginVO.setEmail(employee.getEmail());
+            loginVO.setRealName(localEmployee.getRealName());
+            loginVO.setEmail(localEmployee.getEmail());
 
             // 记录操作日志
-            saveOperationLog(employee.getId(), employee.getSfUserId(), "employee", "login", "员工登录");
+            saveOperationLog(localEmployee.getId(), localEmployee.getUsername(), "employee", "login", "员工登录");
 
             return loginVO;
         }
 
-        // 3. 如果本地employees表不存在，再查远程hr_sync表
-        LambdaQueryWrapper<HrSync> hrSyncWrapper = new LambdaQueryWrapper<>();
-        hrSyncWrapper.eq(HrSync::getSfUserId, username)
-                     .eq(HrSync::getPassword, password);
-        HrSync hrSync = hrSyncMapper.selectOne(hrSyncWrapper);
+        // 3. 本地没有匹配的账号，再查远程hr_sync表（远程密码可能已修改，或员工尚未同步到本地）
+        // 本地没有该用户名，且最近确认过远程库也没有时，不再查询远程库
+        if (principals.isEmpty() && loginGuardService.isUnknownUsername(username)) {
+            throw new LoginException(401, "用户名或密码错误");
+        }
+        HrSync hrSync;
+        try {
+            hrSync = findRemoteEmployee(username);
+        } catch (LoginException e) {
+            // 本地有该用户名（管理员或已同步的员工）时按密码错误处理，输错密码不因远程库不可用而返回503
+            if (!principals.isEmpty()) {
+                throw new LoginException(401, "用户名或密码错误");
+            }
+            throw e;
+        }
+        if (hrSync == null && principals.isEmpty()) {
+            loginGuardService.markUnknownUsername(username);
+        }
 
-        if (hrSync != null) {
+        if (hrSync != null && passwordMatches(hrSync.getPassword(), password)) {
             // 找到远程员工，同步到本地employees表
             // 先查本地是否已存在（可能密码已更新）
+            Employee employee;
             LambdaQueryWrapper<Employee> existingEmployeeWrapper = new LambdaQueryWrapper<>();
             existingEmployeeWrapper.eq(Employee::getSfUserId, hrSync.getSfUserId());
             Employee existingEmployee = employeeMapper.selectOne(existingEmployeeWrapper);
@@ -173,12 +305,9 @@ public class AuthServiceImpl implements AuthService {
                 throw new RuntimeException("同步员工信息失败");
             }
 
-            // 生成Token
-            String token = jwtUtil.generateToken(employee.getId(), employee.getSfUserId(), "employee");
-
-            // 创建LoginVO
+            // 生成Token，创建LoginVO（新会话）
             LoginVO loginVO = new LoginVO();
-            loginVO.setToken(token);
+            issueTokens(loginVO, employee.getId(), employee.getSfUserId(), "employee", UUID.randomUUID().toString());
             loginVO.setUserId(employee.getId());
             loginVO.setUsername(employee.getSfUserId());
             loginVO.setUserType("employee");
@@ -192,19 +321,111 @@ public class AuthServiceImpl implements AuthService {
         }
 
         // 登录失败，抛出异常
-        throw new RuntimeException("用户名或密码错误");
+        throw new LoginException(401, "用户名或密码错误");
+    }
+
+    /**
+     * 按员工域账号查询远程hr_sync表
+     * 在独立线程池中执行并限制等待时间；连续失败（异常、超时）后熔断，熔断期间不再访问远程库
+     * 线程池已满或等待被中断时远程库并未返回错误，不计入熔断失败
+     * 
+     * @param username 员工域账号
+     * @return 远程员工信息，不存在时返回null
+     * @throws LoginException 远程库无法访问（熔断、线程池已满、超时、异常）时抛出异常（错误码503）
+     */
+    private HrSync findRemoteEmployee(String username) {
+        if (!hrSyncBreaker.allowRequest()) {
+            throw new LoginException(503, "HR系统暂时无法访问，请稍后重试");
+        }
+
+        Future<HrSync> future = null;
+        try {
+            future = remoteLookupExecutor.submit(() -> {
+                LambdaQueryWrapper<HrSync> hrSyncWrapper = new LambdaQueryWrapper<>();
+                hrSyncWrapper.eq(HrSync::getSfUserId, username)
+                             .last("LIMIT 1");
+                return hrSyncMapper.selectOne(hrSyncWrapper);
+            });
+            HrSync hrSync = future.get(remoteTimeoutMs, TimeUnit.MILLISECONDS);
+            hrSyncBreaker.recordSuccess();
+            return hrSync;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hrSyncBreaker.recordSkipped();
+        } catch (RejectedExecutionException e) {
+            // 同时查询远程库的登录请求已满（远程库响应慢），本次未访问远程库，不计入失败
+            hrSyncBreaker.recordSkipped();
+            log.warn("查询远程HR库的登录请求过多，用户名：{}", username);
+        } catch (TimeoutException e) {
+            hrSyncBreaker.recordFailure();
+            log.warn("查询远程HR库超时（{}ms），用户名：{}", remoteTimeoutMs, username);
+        } catch (ExecutionException e) {
+            hrSyncBreaker.recordFailure();
+            log.warn("查询远程HR库失败，用户名：{}，原因：{}", username, e.getCause().getMessage());
+        }
+        if (future != null) {
+            future.cancel(true);
+        }
+        throw new LoginException(503, "HR系统暂时无法访问，请稍后重试");
+    }
+
+    /**
+     * 刷新Token
+     * 轮换刷新Token，重新读取用户状态（停用、离职的用户不能刷新），签发同一会话的新访问Token和刷新Token
+     * 签发失败（数据库异常等）时轮换一并回滚，客户端重试时原刷新Token仍可使用，不会被当作重复使用而吊销会话；
+     * 刷新Token无效时吊销会话的操作不回滚
+     * 
+     * @param refreshToken 刷新Token
+     * @return 登录响应VO（包含新的Token和用户信息）
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class, noRollbackFor = LoginException.class)
+    public LoginVO refresh(String refreshToken) {
+        RefreshToken rotated = refreshTokenService.rotate(refreshToken);
+
+        LoginVO loginVO = new LoginVO();
+        if ("admin".equals(rotated.getUserType())) {
+            Admin admin = adminMapper.selectById(rotated.getUserId());
+            if (admin == null || !Integer.valueOf(1).equals(admin.getIsActive())) {
+                refreshTokenService.revokeFamily(rotated.getFamilyId());
+                throw new LoginException(401, "账号已停用，请重新登录");
+            }
+            issueTokens(loginVO, admin.getId(), admin.getUsername(), "admin", rotated.getFamilyId());
+            loginVO.setUserId(admin.getId());
+            loginVO.setUsername(admin.getUsername());
+            loginVO.setUserType("admin");
+            loginVO.setRealName(admin.getRealName());
+            loginVO.setEmail(admin.getEmail());
+        } else {
+            Employee employee = employeeMapper.selectById(rotated.getUserId());
+            if (employee == null || !Integer.valueOf(1).equals(employee.getIsActive())) {
+                refreshTokenService.revokeFamily(rotated.getFamilyId());
+                throw new LoginException(401, "账号已停用，请重新登录");
+            }
+            issueTokens(loginVO, employee.getId(), employee.getSfUserId(), "employee", rotated.getFamilyId());
+            loginVO.setUserId(employee.getId());
+            loginVO.setUsername(employee.getSfUserId());
+            loginVO.setUserType("employee");
+            loginVO.setRealName(employee.getName());
+            loginVO.setEmail(employee.getEmail());
+        }
+        return loginVO;
     }
 
     /**
      * 用户登出
-     * 记录登出日志
+     * 吊销当前Token（过期前不能再使用）和会话的刷新Token，记录登出日志
      * 
-     * @param userId 用户ID
+     * @param principal 当前用户
      */
     @Override
-    public void logout(Long userId) {
+    public void logout(JwtPrincipal principal) {
+        // 吊销当前Token和会话的刷新Token
+        tokenRevocationService.revoke(principal, TokenRevocationService.REASON_LOGOUT);
+        refreshTokenService.revokeFamily(principal.getSessionId());
+
         // 记录操作日志
-        saveOperationLog(userId, null, null, "logout", "用户登出");
+        saveOperationLog(principal.getUserId(), principal.getUsername(), principal.getUserType(), "logout", "用户登出");
     }
 
     /**
@@ -232,6 +453,35 @@ public class AuthServiceImpl implements AuthService {
         throw new RuntimeException("用户不存在");
     }
 
+    /**
+     * 签发访问Token和刷新Token
+     * 
+     * @param loginVO 登录响应VO
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param userType 用户类型（employee/admin）
+     * @param sessionId 会话ID（登录时新建，刷新时沿用）
+     */
+    private void issueTokens(LoginVO loginVO, Long userId, String username, String userType, String sessionId) {
+        loginVO.setToken(jwtUtil.generateToken(userId, username, userType, sessionId));
+        loginVO.setRefreshToken(refreshTokenService.issue(userId, userType, sessionId));
+        loginVO.setExpiresIn(jwtUtil.getExpirationSeconds());
+    }
+
+    /**
+     * 比较密码（按字节比较全部内容，耗时与密码在第几个字符不同无关）
+     * 
+     * @param expected 账号的密码
+     * @param actual 输入的密码
+     * @return 是否一致
+     */
+    private boolean passwordMatches(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * 保存操作日志
      * 
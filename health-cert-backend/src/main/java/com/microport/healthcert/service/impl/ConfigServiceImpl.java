@@ -1,20 +1,20 @@
 package com.microport.healthcert.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.microport.healthcert.dto.DingTalkConfigDTO;
 import com.microport.healthcert.dto.EmailConfigDTO;
 import com.microport.healthcert.dto.ReminderConfigDTO;
 import com.microport.healthcert.entity.OperationLog;
 import com.microport.healthcert.entity.SystemConfig;
 import com.microport.healthcert.mapper.OperationLogMapper;
-import com.microport.healthcert.mapper.SystemConfigMapper;
 import com.microport.healthcert.service.ConfigService;
 import com.microport.healthcert.service.EmailService;
+import com.microport.healthcert.service.SystemConfigService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 /**
  * 系统配置服务实现类
@@ -27,7 +27,7 @@ import java.time.LocalDateTime;
 public class ConfigServiceImpl implements ConfigService {
 
     @Autowired
-    private SystemConfigMapper systemConfigMapper;
+    private SystemConfigService systemConfigService;
 
     @Autowired
     private EmailService emailService;
@@ -62,13 +62,15 @@ public class ConfigServiceImpl implements ConfigService {
      */
     @Override
     public void saveEmailConfig(EmailConfigDTO configDTO, Long adminId, String adminName) {
-        saveConfig("email.smtp.host", configDTO.getSmtpHost(), "string", "邮件SMTP服务器地址", "email");
-        saveConfig("email.smtp.port", configDTO.getSmtpPort(), "string", "邮件SMTP端口", "email");
-        saveConfig("email.username", configDTO.getUsername(), "string", "邮件SMTP用户名", "email");
-        saveConfig("email.password", configDTO.getPassword(), "string", "邮件SMTP密码", "email");
-        saveConfig("email.from", configDTO.getFrom(), "string", "发件人邮箱", "email");
-        saveConfig("email.subject.template", configDTO.getSubjectTemplate(), "string", "邮件主题模板", "email");
-        saveConfig("email.content.template", configDTO.getContentTemplate(), "string", "邮件内容模板", "email");
+        systemConfigService.saveConfigs(Arrays.asList(
+                newConfig("email.smtp.host", configDTO.getSmtpHost(), "string", "邮件SMTP服务器地址", "email"),
+                newConfig("email.smtp.port", configDTO.getSmtpPort(), "string", "邮件SMTP端口", "email"),
+                newConfig("email.username", configDTO.getUsername(), "string", "邮件SMTP用户名", "email"),
+                newConfig("email.password", configDTO.getPassword(), "string", "邮件SMTP密码", "email"),
+                newConfig("email.from", configDTO.getFrom(), "string", "发件人邮箱", "email"),
+                newConfig("email.subject.template", configDTO.getSubjectTemplate(), "string", "邮件主题模板", "email"),
+                newConfig("email.content.template", configDTO.getContentTemplate(), "string", "邮件内容模板", "email")
+        ));
 
         // 记录操作日志
         saveOperationLog(adminId, adminName, "admin", "config", "保存邮件配置", "success");
@@ -113,9 +115,11 @@ public class ConfigServiceImpl implements ConfigService {
      */
     @Override
     public void saveDingTalkConfig(DingTalkConfigDTO configDTO, Long adminId, String adminName) {
-        saveConfig("dingtalk.corp_id", configDTO.getCorpId(), "string", "钉钉企业ID", "dingtalk");
-        saveConfig("dingtalk.app_secret", configDTO.getAppSecret(), "string", "钉钉应用密钥", "dingtalk");
-        saveConfig("dingtalk.app_key", configDTO.getAppKey(), "string", "钉钉应用Key", "dingtalk");
+        systemConfigService.saveConfigs(Arrays.asList(
+                newConfig("dingtalk.corp_id", configDTO.getCorpId(), "string", "钉钉企业ID", "dingtalk"),
+                newConfig("dingtalk.app_secret", configDTO.getAppSecret(), "string", "钉钉应用密钥", "dingtalk"),
+                newConfig("dingtalk.app_key", configDTO.getAppKey(), "string", "钉钉应用Key", "dingtalk")
+        ));
 
         // 记录操作日志
         saveOperationLog(adminId, adminName, "admin", "config", "保存钉钉配置", "success");
@@ -144,59 +148,44 @@ public class ConfigServiceImpl implements ConfigService {
      */
     @Override
     public void saveReminderConfig(ReminderConfigDTO configDTO, Long adminId, String adminName) {
-        saveConfig("reminder.days", configDTO.getReminderDays(), "string", "提醒天数", "reminder");
-        saveConfig("reminder.email.enabled", configDTO.getEmailEnabled() != null && configDTO.getEmailEnabled() ? "true" : "false", "string", "是否启用邮件提醒", "reminder");
-        saveConfig("reminder.dingtalk.enabled", configDTO.getDingtalkEnabled() != null && configDTO.getDingtalkEnabled() ? "true" : "false", "string", "是否启用钉钉提醒", "reminder");
+        systemConfigService.saveConfigs(Arrays.asList(
+                newConfig("reminder.days", configDTO.getReminderDays(), "string", "提醒天数", "reminder"),
+                newConfig("reminder.email.enabled", configDTO.getEmailEnabled() != null && configDTO.getEmailEnabled() ? "true" : "false", "string", "是否启用邮件提醒", "reminder"),
+                newConfig("reminder.dingtalk.enabled", configDTO.getDingtalkEnabled() != null && configDTO.getDingtalkEnabled() ? "true" : "false", "string", "是否启用钉钉提醒", "reminder")
+        ));
 
         // 记录操作日志
         saveOperationLog(adminId, adminName, "admin", "config", "保存提醒规则配置", "success");
     }
 
     /**
-     * 从system_configs表读取配置值
+     * 读取配置值（配置快照，不查询数据库）
      * 
      * @param configKey 配置键
      * @return 配置值，如果不存在返回null
      */
     private String getConfigValue(String configKey) {
-        LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(SystemConfig::getConfigKey, configKey);
-        SystemConfig config = systemConfigMapper.selectOne(wrapper);
-        return config != null ? config.getConfigValue() : null;
+        return systemConfigService.getValue(configKey);
     }
 
     /**
-     * 保存配置到system_configs表
+     * 构建待保存的配置
      * 
      * @param configKey 配置键
      * @param configValue 配置值
      * @param configType 配置类型
      * @param description 配置描述
      * @param groupName 配置分组
+     * @return 配置实体
      */
-    private void saveConfig(String configKey, String configValue, String configType, String description, String groupName) {
-        LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(SystemConfig::getConfigKey, configKey);
-        SystemConfig config = systemConfigMapper.selectOne(wrapper);
-
-        if (config == null) {
-            // 配置不存在，创建新配置
-            config = new SystemConfig();
-            config.setConfigKey(configKey);
-            config.setConfigValue(configValue);
-            config.setConfigType(configType);
-            config.setDescription(description);
-            config.setGroupName(groupName);
-            config.setIsEncrypted(0);
-            config.setCreatedAt(LocalDateTime.now());
-            config.setUpdatedAt(LocalDateTime.now());
-            systemConfigMapper.insert(config);
-        } else {
-            // 配置已存在，更新配置值
-            config.setConfigValue(configValue);
-            config.setUpdatedAt(LocalDateTime.now());
-            systemConfigMapper.updateById(config);
-        }
+    private SystemConfig newConfig(String configKey, String configValue, String configType, String description, String groupName) {
+        SystemConfig config = new SystemConfig();
+        config.setConfigKey(configKey);
+        config.setConfigValue(configValue);
+        config.setConfigType(configType);
+        config.setDescription(description);
+        config.setGroupName(groupName);
+        return config;
     }
 
     /**
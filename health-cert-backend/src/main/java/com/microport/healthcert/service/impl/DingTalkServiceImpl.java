@@ -1,19 +1,27 @@
 package com.microport.healthcert.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.microport.healthcert.entity.SystemConfig;
-import com.microport.healthcert.mapper.SystemConfigMapper;
+import com.microport.healthcert.common.SystemConfigChangedEvent;
+import com.microport.healthcert.dto.DingTalkSendResultDTO;
 import com.microport.healthcert.service.DingTalkService;
+import com.microport.healthcert.service.SystemConfigService;
+import com.microport.healthcert.util.AccessTokenManager;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 钉钉服务实现类
@@ -41,86 +49,124 @@ public class DingTalkServiceImpl implements DingTalkService {
     private static final String SEND_WORK_MESSAGE_URL = "https://oapi.dingtalk.com/topapi/message/corpconversation/asyncsend_v2";
 
     /**
-     * Token缓存（key: "token", value: token字符串）
+     * 钉钉API地址 - 查询工作通知发送结果
      */
-    private static final Map<String, String> TOKEN_CACHE = new ConcurrentHashMap<>();
+    private static final String GET_SEND_RESULT_URL = "https://oapi.dingtalk.com/topapi/message/corpconversation/getsendresult";
 
     /**
-     * Token过期时间缓存（key: "token_expires_at", value: 过期时间戳）
+     * 钉钉错误码 - 不合法的access_token
      */
-    private static final Map<String, Long> TOKEN_EXPIRES_CACHE = new ConcurrentHashMap<>();
+    private static final int ERRCODE_INVALID_TOKEN = 40014;
 
     /**
-     * Token缓存时间（毫秒），2小时
+     * 钉钉错误码 - access_token已过期
      */
-    private static final long TOKEN_CACHE_DURATION = 2 * 60 * 60 * 1000L;
+    private static final int ERRCODE_TOKEN_EXPIRED = 42001;
 
-    @Autowired
-    private SystemConfigMapper systemConfigMapper;
+    /**
+     * 接口未返回有效期时使用的默认有效期（秒），钉钉access_token有效期为2小时
+     */
+    private static final long DEFAULT_TOKEN_EXPIRES_IN = 7200L;
 
     /**
-     * 获取access_token
-     * 从system_configs读取dingtalk.corp_id和dingtalk.app_secret，调用钉钉API获取token，缓存token（2小时）
-     * 
-     * @return access_token
+     * JSON请求体类型
      */
-    @Override
-    public String getAccessToken() {
-        try {
-            // 检查缓存中是否有未过期的token
-            String cachedToken = TOKEN_CACHE.get("token");
-            Long expiresAt = TOKEN_EXPIRES_CACHE.get("token_expires_at");
-            if (cachedToken != null && expiresAt != null && System.currentTimeMillis() < expiresAt) {
-                return cachedToken;
-            }
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
 
-            // 从system_configs读取配置
-            String corpId = getConfigValue("dingtalk.corp_id");
-            String appSecret = getConfigValue("dingtalk.app_secret");
+    /**
+     * 钉钉错误码 - 找不到该用户（手机号未在企业通讯录中）
+     */
+    private static final int ERRCODE_USER_NOT_FOUND = 60121;
 
-            if (corpId == null || appSecret == null || corpId.trim().isEmpty() || appSecret.trim().isEmpty()) {
-                log.warn("钉钉配置不完整，无法获取access_token");
-                return null;
-            }
+    /**
+     * 手机号对应userid缓存（key: 手机号, value: userid），超过最大数量时淘汰最久未使用的
+     */
+    private Map<String, String> userIdCache;
 
-            // 调用钉钉API获取token（使用corpid和corpsecret参数）
-            OkHttpClient client = new OkHttpClient();
-            String url = GET_TOKEN_URL + "?corpid=" + corpId + "&corpsecret=" + appSecret;
+    /**
+     * 钉钉中不存在的手机号缓存（key: 手机号, value: 过期时间戳），超过最大数量时淘汰最久未使用的
+     */
+    private Map<String, Long> userIdNotFoundCache;
 
-            Request request = new Request.Builder()
-                    .url(url)
-                    .get()
-                    .build();
+    /**
+     * userid缓存最大数量（查到的和不存在的手机号分别计算）
+     */
+    @Value("${dingtalk.userid-cache.max-size:20000}")
+    private int userIdCacheMaxSize = 20000;
 
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    log.error("获取钉钉access_token失败，HTTP状态码：{}", response.code());
-                    return null;
-                }
+    /**
+     * 不存在的手机号缓存时间（分钟），期间不再调用钉钉接口查询
+     */
+    @Value("${dingtalk.userid-cache.not-found-ttl-minutes:1440}")
+    private long userIdNotFoundTtlMinutes = 1440;
 
-                String responseBody = response.body() != null ? response.body().string() : "";
-                ObjectMapper objectMapper = new ObjectMapper();
-                JsonNode jsonNode = objectMapper.readTree(responseBody);
+    /**
+     * access_token提前刷新时间（秒），剩余有效期小于该值时在后台刷新
+     */
+    @Value("${dingtalk.token.refresh-ahead-seconds:300}")
+    private long tokenRefreshAheadSeconds = 300;
 
-                // 检查errcode
-                int errcode = jsonNode.get("errcode") != null ? jsonNode.get("errcode").asInt() : -1;
-                if (errcode != 0) {
-                    String errmsg = jsonNode.get("errmsg") != null ? jsonNode.get("errmsg").asText() : "未知错误";
-                    log.error("获取钉钉access_token失败，errcode：{}，errmsg：{}", errcode, errmsg);
-                    return null;
-                }
+    @Autowired
+    private SystemConfigService systemConfigService;
+
+    /**
+     * HTTP客户端（共享连接池）
+     */
+    private final OkHttpClient httpClient = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-                // 提取access_token
-                String accessToken = jsonNode.get("access_token").asText();
+    /**
+     * access_token管理（单次获取、到期前后台刷新、失效时作废）
+     */
+    private AccessTokenManager tokenManager;
 
-                // 缓存token（2小时）
-                TOKEN_CACHE.put("token", accessToken);
-                TOKEN_EXPIRES_CACHE.put("token_expires_at", System.currentTimeMillis() + TOKEN_CACHE_DURATION);
+    /**
+     * 初始化access_token管理
+     */
+    @PostConstruct
+    public void init() {
+        tokenManager = new AccessTokenManager("dingtalk", this::fetchAccessToken, tokenRefreshAheadSeconds);
+        userIdCache = newLruMap(userIdCacheMaxSize);
+        userIdNotFoundCache = newLruMap(userIdCacheMaxSize);
+    }
 
-                log.info("获取钉钉access_token成功");
-                return accessToken;
+    /**
+     * 创建按访问顺序淘汰的线程安全Map
+     * 
+     * @param maxSize 最大数量
+     * @return Map
+     */
+    private static <V> Map<String, V> newLruMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
             }
+        });
+    }
+
+    /**
+     * 关闭access_token后台刷新线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        tokenManager.shutdown();
+    }
 
+    /**
+     * 获取access_token
+     * 从system_configs读取dingtalk.corp_id和dingtalk.app_secret，调用钉钉API获取token，按接口返回的有效期缓存，到期前在后台刷新
+     * 
+     * @return access_token，获取失败时返回null
+     */
+    @Override
+    public String getAccessToken() {
+        try {
+            return tokenManager.get();
         } catch (Exception e) {
             log.error("获取钉钉access_token异常", e);
             return null;
@@ -128,68 +174,122 @@ public class DingTalkServiceImpl implements DingTalkService {
     }
 
     /**
-     * 根据手机号获取userid
+     * 调用钉钉API获取access_token（由AccessTokenManager调用，同一时间只有一个请求）
      * 
-     * @param mobile 手机号
-     * @return 钉钉userid
+     * @return access_token及有效期
+     * @throws Exception 配置不完整、网络异常或接口返回错误时抛出异常
      */
-    @Override
-    public String getUserIdByMobile(String mobile) {
-        try {
-            // 获取access_token
-            String accessToken = getAccessToken();
-            if (accessToken == null) {
-                log.warn("无法获取access_token，无法查询userid");
-                return null;
-            }
+    private AccessTokenManager.Token fetchAccessToken() throws Exception {
+        // 从system_configs读取配置
+        String corpId = getConfigValue("dingtalk.corp_id");
+        String appSecret = getConfigValue("dingtalk.app_secret");
 
-            // 调用钉钉API根据手机号获取userid
-            OkHttpClient client = new OkHttpClient();
-            String url = GET_USERID_BY_MOBILE_URL + "?access_token=" + accessToken;
+        if (corpId == null || appSecret == null || corpId.trim().isEmpty() || appSecret.trim().isEmpty()) {
+            throw new IllegalStateException("钉钉配置不完整，无法获取access_token");
+        }
 
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("mobile", mobile);
+        // 调用钉钉API获取token（使用corpid和corpsecret参数）
+        String url = GET_TOKEN_URL + "?corpid=" + corpId + "&corpsecret=" + appSecret;
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .build();
 
-            RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json; charset=utf-8"));
-            Request request = new Request.Builder()
-                    .url(url)
-                    .post(body)
-                    .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IllegalStateException("获取钉钉access_token失败，HTTP状态码：" + response.code());
+            }
 
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    log.error("根据手机号获取userid失败，HTTP状态码：{}", response.code());
-                    return null;
-                }
+            String responseBody = response.body() != null ? response.body().string() : "";
+            JsonNode jsonNode = objectMapper.readTree(responseBody);
 
-                String responseBody = response.body() != null ? response.body().string() : "";
-                JsonNode jsonNode = objectMapper.readTree(responseBody);
+            // 检查errcode
+            int errcode = jsonNode.get("errcode") != null ? jsonNode.get("errcode").asInt() : -1;
+            if (errcode != 0) {
+                String errmsg = jsonNode.get("errmsg") != null ? jsonNode.get("errmsg").asText() : "未知错误";
+                throw new IllegalStateException("获取钉钉access_token失败，errcode：" + errcode + "，errmsg：" + errmsg);
+            }
 
-                // 检查errcode
-                int errcode = jsonNode.get("errcode") != null ? jsonNode.get("errcode").asInt() : -1;
-                if (errcode != 0) {
-                    String errmsg = jsonNode.get("errmsg") != null ? jsonNode.get("errmsg").asText() : "未知错误";
-                    log.error("根据手机号获取userid失败，errcode：{}，errmsg：{}", errcode, errmsg);
-                    return null;
-                }
+            // 提取access_token和有效期
+            String accessToken = jsonNode.get("access_token").asText();
+            long expiresIn = jsonNode.path("expires_in").asLong(DEFAULT_TOKEN_EXPIRES_IN);
 
-                // 提取userid
-                JsonNode resultNode = jsonNode.get("result");
-                if (resultNode != null && resultNode.get("userid") != null) {
-                    return resultNode.get("userid").asText();
-                }
+            log.info("获取钉钉access_token成功，有效期{}秒", expiresIn);
+            return new AccessTokenManager.Token(accessToken, expiresIn);
+        }
+    }
 
+    /**
+     * 根据手机号获取userid
+     * 
+     * @param mobile 手机号
+     * @return 钉钉userid，不存在或查询失败时返回null
+     */
+    @Override
+    public String getUserIdByMobile(String mobile) {
+        try {
+            return resolveUserId(mobile);
+        } catch (Exception e) {
+            log.error("根据手机号获取userid异常，手机号：{}", mobile, e);
+            return null;
+        }
+    }
+
+    /**
+     * 根据手机号解析userid
+     * 
+     * @param mobile 手机号
+     * @return 钉钉userid，钉钉中不存在该手机号的用户时返回null
+     * @throws Exception 配置不完整、网络异常或钉钉接口返回其他错误时抛出异常
+     */
+    @Override
+    public String resolveUserId(String mobile) throws Exception {
+        String cachedUserId = userIdCache.get(mobile);
+        if (cachedUserId != null) {
+            return cachedUserId;
+        }
+        Long notFoundUntil = userIdNotFoundCache.get(mobile);
+        if (notFoundUntil != null) {
+            if (System.currentTimeMillis() < notFoundUntil) {
                 return null;
             }
+            userIdNotFoundCache.remove(mobile);
+        }
 
-        } catch (Exception e) {
-            log.error("根据手机号获取userid异常，手机号：{}", mobile, e);
+        // 调用钉钉API根据手机号获取userid
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("mobile", mobile);
+        JsonNode jsonNode = call(GET_USERID_BY_MOBILE_URL, requestBody, "根据手机号获取userid");
+
+        // 检查errcode
+        int errcode = jsonNode.get("errcode") != null ? jsonNode.get("errcode").asInt() : -1;
+        if (errcode == ERRCODE_USER_NOT_FOUND) {
+            userIdNotFoundCache.put(mobile, System.currentTimeMillis() + userIdNotFoundTtlMinutes * 60 * 1000L);
+            log.warn("钉钉中不存在该手机号的用户，手机号：{}", mobile);
             return null;
         }
+        checkErrcode(jsonNode, "根据手机号获取userid");
+
+        // 提取userid
+        JsonNode resultNode = jsonNode.get("result");
+        if (resultNode != null && resultNode.get("userid") != null) {
+            String userId = resultNode.get("userid").asText();
+            userIdCache.put(mobile, userId);
+            return userId;
+        }
+
+        return null;
+    }
+
+    /**
+     * 清除手机号对应的userid缓存
+     * 
+     * @param mobile 手机号
+     */
+    @Override
+    public void evictUserId(String mobile) {
+        userIdCache.remove(mobile);
     }
 
     /**
@@ -198,87 +298,193 @@ public class DingTalkServiceImpl implements DingTalkService {
      * 
      * @param userId 钉钉用户ID
      * @param content 消息内容（markdown格式）
+     * @return 是否发送成功
      */
     @Override
-    public void sendWorkMessage(String userId, String content) {
+    public boolean sendWorkMessage(String userId, String content) {
         try {
-            // 获取access_token
-            String accessToken = getAccessToken();
-            if (accessToken == null) {
-                log.warn("无法获取access_token，无法发送工作通知");
-                return;
-            }
+            sendBatchWorkMessage(Collections.singletonList(userId), content);
+            log.info("发送钉钉工作通知成功，userid：{}", userId);
+            return true;
+        } catch (Exception e) {
+            log.error("发送钉钉工作通知失败，userid：{}，错误：{}", userId, e.getMessage());
+            return false;
+        }
+    }
 
-            // 从system_configs读取app_key
-            String appKey = getConfigValue("dingtalk.app_key");
-            if (appKey == null || appKey.trim().isEmpty()) {
-                log.warn("钉钉app_key未配置，无法发送工作通知");
-                return;
-            }
+    /**
+     * 批量发送工作通知
+     * 
+     * @param userIds 钉钉用户ID列表（最多100个）
+     * @param content 消息内容（markdown格式）
+     * @return 发送任务ID
+     * @throws Exception 发送失败时抛出异常
+     */
+    @Override
+    public long sendBatchWorkMessage(List<String> userIds, String content) throws Exception {
+        if (userIds.isEmpty() || userIds.size() > MAX_USERIDS_PER_MESSAGE) {
+            throw new IllegalArgumentException("每次发送的userid数量应为1-" + MAX_USERIDS_PER_MESSAGE + "个，实际：" + userIds.size());
+        }
 
-            // 调用钉钉API发送工作通知
-            OkHttpClient client = new OkHttpClient();
-            String url = SEND_WORK_MESSAGE_URL + "?access_token=" + accessToken;
+        // 构建请求体
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("agent_id", getAgentId());
+        requestBody.put("userid_list", String.join(",", userIds));
+
+        // 构建消息内容（markdown格式）
+        Map<String, Object> msgMap = new HashMap<>();
+        msgMap.put("msgtype", "markdown");
+        Map<String, String> markdownMap = new HashMap<>();
+        markdownMap.put("title", "健康证提醒");
+        markdownMap.put("text", content);
+        msgMap.put("markdown", markdownMap);
+        requestBody.put("msg", msgMap);
+
+        JsonNode jsonNode = post(SEND_WORK_MESSAGE_URL, requestBody, "发送钉钉工作通知");
+        long taskId = jsonNode.path("task_id").asLong();
+        log.info("发送钉钉工作通知成功，{}个用户，task_id：{}", userIds.size(), taskId);
+        return taskId;
+    }
 
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("agent_id", appKey);
-            requestBody.put("userid_list", userId);
+    /**
+     * 查询工作通知发送结果
+     * 
+     * @param taskId 发送任务ID
+     * @return 发送结果
+     * @throws Exception 查询失败时抛出异常
+     */
+    @Override
+    public DingTalkSendResultDTO getSendResult(long taskId) throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("agent_id", getAgentId());
+        requestBody.put("task_id", taskId);
+
+        JsonNode sendResult = post(GET_SEND_RESULT_URL, requestBody, "查询钉钉工作通知发送结果").path("send_result");
+        DingTalkSendResultDTO result = new DingTalkSendResultDTO();
+        for (JsonNode userId : sendResult.path("read_user_id_list")) {
+            result.getDeliveredUserIds().add(userId.asText());
+        }
+        for (JsonNode userId : sendResult.path("unread_user_id_list")) {
+            result.getDeliveredUserIds().add(userId.asText());
+        }
+        for (JsonNode userId : sendResult.path("invalid_user_id_list")) {
+            result.getInvalidUserIds().add(userId.asText());
+            result.getFailedUserIds().put(userId.asText(), "userid无效");
+        }
+        for (JsonNode userId : sendResult.path("forbidden_user_id_list")) {
+            result.getFailedUserIds().put(userId.asText(), "发送受限（超过发送频率或重复发送相同消息）");
+        }
+        for (JsonNode forbidden : sendResult.path("forbidden_list")) {
+            result.getFailedUserIds().put(forbidden.path("userid").asText(), "发送受限，错误码：" + forbidden.path("code").asText());
+        }
+        for (JsonNode userId : sendResult.path("failed_user_id_list")) {
+            result.getFailedUserIds().put(userId.asText(), "发送失败");
+        }
+        return result;
+    }
 
-            // 构建消息内容（markdown格式）
-            Map<String, Object> msgMap = new HashMap<>();
-            msgMap.put("msgtype", "markdown");
-            Map<String, String> markdownMap = new HashMap<>();
-            markdownMap.put("title", "健康证提醒");
-            markdownMap.put("text", content);
-            msgMap.put("markdown", markdownMap);
-            requestBody.put("msg", msgMap);
+    /**
+     * 钉钉配置变更后清除缓存的access_token和userid（使用新的企业ID和密钥重新获取）
+     * 
+     * @param event 配置变更事件
+     */
+    @EventListener
+    public void onConfigChanged(SystemConfigChangedEvent event) {
+        if (event.isChanged("dingtalk.")) {
+            tokenManager.invalidateAll();
+            userIdCache.clear();
+            userIdNotFoundCache.clear();
+            log.info("钉钉配置已变更，清除access_token和userid缓存");
+        }
+    }
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
+    /**
+     * 读取工作通知使用的应用agent_id（system_configs中的dingtalk.app_key）
+     * 
+     * @return agent_id
+     */
+    private String getAgentId() {
+        String appKey = getConfigValue("dingtalk.app_key");
+        if (appKey == null || appKey.trim().isEmpty()) {
+            throw new IllegalStateException("钉钉app_key未配置，无法发送工作通知");
+        }
+        return appKey;
+    }
+
+    /**
+     * 调用钉钉接口（POST JSON），检查HTTP状态码和errcode
+     * 
+     * @param apiUrl 接口地址（不含access_token）
+     * @param requestBody 请求体
+     * @param action 操作名称（用于错误信息）
+     * @return 响应JSON
+     * @throws Exception 获取token失败、网络异常或接口返回错误时抛出异常
+     */
+    private JsonNode post(String apiUrl, Map<String, Object> requestBody, String action) throws Exception {
+        JsonNode jsonNode = call(apiUrl, requestBody, action);
+        checkErrcode(jsonNode, action);
+        return jsonNode;
+    }
 
-            RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json; charset=utf-8"));
+    /**
+     * 调用钉钉接口（POST JSON），只检查HTTP状态码，errcode由调用方处理
+     * 接口返回access_token无效或过期时作废当前token，重新获取后重试一次
+     * 
+     * @param apiUrl 接口地址（不含access_token）
+     * @param requestBody 请求体
+     * @param action 操作名称（用于错误信息）
+     * @return 响应JSON
+     * @throws Exception 获取token失败或网络异常时抛出异常
+     */
+    private JsonNode call(String apiUrl, Map<String, Object> requestBody, String action) throws Exception {
+        String jsonBody = objectMapper.writeValueAsString(requestBody);
+        for (int attempt = 1; ; attempt++) {
+            String accessToken = tokenManager.get();
             Request request = new Request.Builder()
-                    .url(url)
-                    .post(body)
+                    .url(apiUrl + "?access_token=" + accessToken)
+                    .post(RequestBody.create(jsonBody, JSON))
                     .build();
 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = httpClient.newCall(request).execute()) {
                 if (!response.isSuccessful()) {
-                    log.error("发送钉钉工作通知失败，HTTP状态码：{}", response.code());
-                    return;
+                    throw new IllegalStateException(action + "失败，HTTP状态码：" + response.code());
                 }
 
                 String responseBody = response.body() != null ? response.body().string() : "";
                 JsonNode jsonNode = objectMapper.readTree(responseBody);
-
-                // 检查errcode
-                int errcode = jsonNode.get("errcode") != null ? jsonNode.get("errcode").asInt() : -1;
-                if (errcode != 0) {
-                    String errmsg = jsonNode.get("errmsg") != null ? jsonNode.get("errmsg").asText() : "未知错误";
-                    log.error("发送钉钉工作通知失败，errcode：{}，errmsg：{}", errcode, errmsg);
-                    return;
+                int errcode = jsonNode.path("errcode").asInt(-1);
+                if ((errcode == ERRCODE_INVALID_TOKEN || errcode == ERRCODE_TOKEN_EXPIRED) && attempt == 1) {
+                    log.warn("{}时access_token无效或已过期（errcode：{}），重新获取后重试", action, errcode);
+                    tokenManager.invalidate(accessToken);
+                    continue;
                 }
-
-                log.info("发送钉钉工作通知成功，userid：{}", userId);
+                return jsonNode;
             }
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("发送钉钉工作通知异常，userid：{}", userId, e);
+    /**
+     * 检查钉钉接口返回的errcode
+     * 
+     * @param jsonNode 响应JSON
+     * @param action 操作名称（用于错误信息）
+     */
+    private void checkErrcode(JsonNode jsonNode, String action) {
+        int errcode = jsonNode.get("errcode") != null ? jsonNode.get("errcode").asInt() : -1;
+        if (errcode != 0) {
+            String errmsg = jsonNode.get("errmsg") != null ? jsonNode.get("errmsg").asText() : "未知错误";
+            throw new IllegalStateException(action + "失败，errcode：" + errcode + "，errmsg：" + errmsg);
         }
     }
 
     /**
-     * 从system_configs表读取配置值
+     * 读取配置值（配置快照，不查询数据库）
      * 
      * @param configKey 配置键
      * @return 配置值，如果不存在返回null
      */
     private String getConfigValue(String configKey) {
-        LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(SystemConfig::getConfigKey, configKey);
-        SystemConfig config = systemConfigMapper.selectOne(wrapper);
-        return config != null ? config.getConfigValue() : null;
+        return systemConfigService.getValue(configKey);
     }
 }
 
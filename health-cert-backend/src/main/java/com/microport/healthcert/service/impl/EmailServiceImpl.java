@@ -1,24 +1,28 @@
 package com.microport.healthcert.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.microport.healthcert.dto.ReminderItemDTO;
 import com.microport.healthcert.entity.Admin;
 import com.microport.healthcert.entity.Employee;
 import com.microport.healthcert.entity.HealthCertificate;
-import com.microport.healthcert.entity.SystemConfig;
 import com.microport.healthcert.mapper.AdminMapper;
 import com.microport.healthcert.mapper.EmployeeMapper;
-import com.microport.healthcert.mapper.SystemConfigMapper;
 import com.microport.healthcert.service.EmailService;
+import com.microport.healthcert.service.MailTransportService;
+import com.microport.healthcert.service.SystemConfigService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 邮件服务实现类
@@ -31,7 +35,10 @@ import java.util.Properties;
 public class EmailServiceImpl implements EmailService {
 
     @Autowired
-    private SystemConfigMapper systemConfigMapper;
+    private SystemConfigService systemConfigService;
+
+    @Autowired
+    private MailTransportService mailTransportService;
 
     @Autowired
     private EmployeeMapper employeeMapper;
@@ -46,7 +53,7 @@ public class EmailServiceImpl implements EmailService {
 
     /**
      * 发送邮件（抛出异常模式，用于测试）
-     * 使用Spring的JavaMailSender，SMTP配置从system_configs表读取
+     * 通过MailTransportService发送，SMTP配置从system_configs表读取
      * 
      * @param to 收件人邮箱
      * @param subject 邮件主题
@@ -55,26 +62,14 @@ public class EmailServiceImpl implements EmailService {
      */
     @Override
     public void sendEmail(String to, String subject, String content) throws Exception {
-        // 从system_configs表读取SMTP配置
-        JavaMailSender mailSender = createMailSender();
-        if (mailSender == null) {
-            throw new RuntimeException("邮件配置不完整，无法发送邮件。请检查SMTP配置：host、port、username、password");
-        }
-
-        // 创建邮件消息
-        SimpleMailMessage message = new SimpleMailMessage();
         String fromEmail = getConfigValue("email.from");
         if (fromEmail == null || fromEmail.trim().isEmpty()) {
             throw new RuntimeException("发件人邮箱未配置（email.from）");
         }
-        message.setFrom(fromEmail);
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(content);
 
-        // 发送邮件
+        // 发送邮件（复用连接池中的SMTP连接）
         try {
-            mailSender.send(message);
+            mailTransportService.send(fromEmail, to, subject, content);
             log.info("邮件发送成功：收件人={}, 主题={}, 发件人={}", to, subject, fromEmail);
         } catch (Exception e) {
             log.error("邮件发送失败：收件人={}, 主题={}, 发件人={}, 错误={}", to, subject, fromEmail, e.getMessage(), e);
@@ -110,19 +105,6 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendReminderEmail(Employee employee, HealthCertificate cert) {
         try {
-            // 从system_configs读取邮件模板
-            String subjectTemplate = getConfigValue("email.subject.template");
-            String contentTemplate = getConfigValue("email.content.template");
-
-            if (subjectTemplate == null || contentTemplate == null) {
-                log.warn("邮件模板未配置，无法发送提醒邮件");
-                return;
-            }
-
-            // 替换模板变量
-            String subject = replaceTemplateVariables(subjectTemplate, employee, cert);
-            String content = replaceTemplateVariables(contentTemplate, employee, cert);
-
             // 确定收件人
             String recipientEmail = determineRecipient(employee);
 
@@ -131,9 +113,7 @@ public class EmailServiceImpl implements EmailService {
                 return;
             }
 
-            // 发送邮件（使用静默模式，失败不抛异常）
-            sendEmailSilently(recipientEmail, subject, content);
-
+            sendTemplateEmail(recipientEmail, employee, cert);
         } catch (Exception e) {
             // 发送失败记录日志，不抛异常
             log.error("发送健康证提醒邮件失败：员工={}, 健康证编号={}, 错误={}",
@@ -142,81 +122,139 @@ public class EmailServiceImpl implements EmailService {
     }
 
     /**
-     * 创建JavaMailSender
-     * 从system_configs表读取SMTP配置
+     * 批量确定提醒邮件的收件人
+     * 主管和管理员邮箱各查询一次，不再逐个员工查询
      * 
-     * @return JavaMailSender对象，如果配置不完整返回null
+     * @param employees 员工列表
+     * @return 收件人邮箱（key: 员工ID）
      */
-    private JavaMailSender createMailSender() {
-        try {
-            // 读取SMTP配置
-            String host = getConfigValue("email.smtp.host");
-            String portStr = getConfigValue("email.smtp.port");
-            String username = getConfigValue("email.username");
-            String password = getConfigValue("email.password");
-
-            if (host == null || portStr == null || username == null) {
-                log.warn("SMTP配置不完整，无法创建邮件发送器");
-                return null;
+    @Override
+    public Map<Long, String> determineRecipients(List<Employee> employees) {
+        Map<Long, String> recipients = new HashMap<>();
+
+        // 1. 员工有邮箱，发给员工；否则记录主管工号
+        Set<String> supervisorIds = new HashSet<>();
+        for (Employee employee : employees) {
+            if (hasText(employee.getEmail())) {
+                recipients.put(employee.getId(), employee.getEmail());
+            } else if (hasText(employee.getSupervisorSfUserId())) {
+                supervisorIds.add(employee.getSupervisorSfUserId());
             }
+        }
+        if (recipients.size() == employees.size()) {
+            return recipients;
+        }
 
-            // 创建JavaMailSenderImpl
-            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
-            mailSender.setHost(host);
-            mailSender.setPort(Integer.parseInt(portStr));
-            mailSender.setUsername(username);
-            if (password != null && !password.trim().isEmpty()) {
-                mailSender.setPassword(password);
+        // 2. 一次查询所有主管的邮箱
+        Map<String, String> supervisorEmails = new HashMap<>();
+        if (!supervisorIds.isEmpty()) {
+            LambdaQueryWrapper<Employee> supervisorWrapper = new LambdaQueryWrapper<>();
+            supervisorWrapper.select(Employee::getSfUserId, Employee::getEmail)
+                             .in(Employee::getSfUserId, supervisorIds);
+            for (Employee supervisor : employeeMapper.selectList(supervisorWrapper)) {
+                if (hasText(supervisor.getEmail())) {
+                    supervisorEmails.put(supervisor.getSfUserId(), supervisor.getEmail());
+                }
             }
+        }
 
-            // 配置SMTP属性
-            Properties props = mailSender.getJavaMailProperties();
-            props.put("mail.transport.protocol", "smtp");
-            props.put("mail.smtp.auth", "true");
-            
-            // 根据端口判断是否启用TLS/SSL
-            int port = Integer.parseInt(portStr);
-            if (port == 465) {
-                // SSL端口
-                props.put("mail.smtp.ssl.enable", "true");
-                props.put("mail.smtp.ssl.trust", host);
-                props.put("mail.smtp.starttls.enable", "false");
-            } else if (port == 587 || port == 25) {
-                // TLS端口
-                props.put("mail.smtp.starttls.enable", "true");
-                props.put("mail.smtp.starttls.required", "true");
-                props.put("mail.smtp.ssl.enable", "false");
-            } else {
-                // 其他端口，默认不启用TLS/SSL
-                props.put("mail.smtp.starttls.enable", "false");
-                props.put("mail.smtp.ssl.enable", "false");
+        // 3. 主管也无邮箱，发给系统管理员
+        String adminEmail = null;
+        boolean adminQueried = false;
+        for (Employee employee : employees) {
+            if (recipients.containsKey(employee.getId())) {
+                continue;
+            }
+            String email = employee.getSupervisorSfUserId() != null ? supervisorEmails.get(employee.getSupervisorSfUserId()) : null;
+            if (email == null) {
+                if (!adminQueried) {
+                    adminEmail = findAdminEmail();
+                    adminQueried = true;
+                }
+                email = adminEmail;
+            }
+            if (email != null) {
+                recipients.put(employee.getId(), email);
             }
-            
-            // 启用调试模式（用于排查问题）
-            props.put("mail.debug", "true");
-            
-            log.info("创建邮件发送器：host={}, port={}, username={}, from={}", 
-                    host, port, username, getConfigValue("email.from"));
+        }
+        return recipients;
+    }
 
-            return mailSender;
+    /**
+     * 发送合并提醒邮件
+     * 
+     * @param to 收件人邮箱
+     * @param items 该收件人的提醒条目
+     * @throws Exception 发送失败时抛出异常
+     */
+    @Override
+    public void sendReminderDigest(String to, List<ReminderItemDTO> items) throws Exception {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        if (items.size() == 1) {
+            ReminderItemDTO item = items.get(0);
+            sendTemplateEmail(to, item.getEmployee(), item.getCert());
+            return;
+        }
 
-        } catch (Exception e) {
-            log.error("创建邮件发送器失败", e);
-            return null;
+        // 已过期的排在前面，其余按到期天数排序
+        List<ReminderItemDTO> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing((ReminderItemDTO item) -> !item.isExpired()).thenComparingInt(ReminderItemDTO::getDays));
+
+        StringBuilder content = new StringBuilder();
+        content.append("您好：\n\n以下").append(sorted.size()).append("名员工的健康证即将到期或已过期，请提醒相关员工及时更新：\n\n");
+        for (ReminderItemDTO item : sorted) {
+            Employee employee = item.getEmployee();
+            HealthCertificate cert = item.getCert();
+            content.append("- ").append(employee.getName());
+            if (employee.getSfUserId() != null) {
+                content.append("（").append(employee.getSfUserId()).append("）");
+            }
+            content.append("，健康证编号：").append(cert.getCertNumber() != null ? cert.getCertNumber() : "-");
+            content.append("，有效期至：").append(cert.getExpiryDate() != null ? cert.getExpiryDate().format(DATE_FORMATTER) : "-");
+            content.append("，").append(item.isExpired() ? "已过期" : item.getDays() + "天后到期").append("\n");
         }
+        content.append("\n此邮件由员工健康证管理系统自动发送，请勿回复。");
+
+        sendEmail(to, "健康证到期提醒汇总（" + sorted.size() + "人）", content.toString());
+    }
+
+    /**
+     * 按邮件模板发送单张健康证的提醒邮件
+     * 从system_configs读取邮件模板，替换模板变量
+     * 
+     * @param to 收件人邮箱
+     * @param employee 员工信息
+     * @param cert 健康证信息
+     * @throws Exception 发送失败时抛出异常
+     */
+    private void sendTemplateEmail(String to, Employee employee, HealthCertificate cert) throws Exception {
+        // 从system_configs读取邮件模板
+        String subjectTemplate = getConfigValue("email.subject.template");
+        String contentTemplate = getConfigValue("email.content.template");
+
+        if (subjectTemplate == null || contentTemplate == null) {
+            log.warn("邮件模板未配置，无法发送提醒邮件");
+            return;
+        }
+
+        // 替换模板变量
+        String subject = replaceTemplateVariables(subjectTemplate, employee, cert);
+        String content = replaceTemplateVariables(contentTemplate, employee, cert);
+
+        // 发送邮件（失败时抛出异常，由调用方记录日志或重试）
+        sendEmail(to, subject, content);
     }
 
     /**
-     * 从system_configs表读取配置值
+     * 读取配置值（配置快照，不查询数据库）
      * 
      * @param configKey 配置键
      * @return 配置值，如果不存在返回null
      */
     private String getConfigValue(String configKey) {
-        LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(SystemConfig::getConfigKey, configKey);
-        SystemConfig config = systemConfigMapper.selectOne(wrapper);
-        return config != null ? config.getConfigValue() : null;
+        return systemConfigService.getValue(configKey);
     }
 
     /**
@@ -260,24 +298,15 @@ public class EmailServiceImpl implements EmailService {
      * @return 收件人邮箱
      */
     private String determineRecipient(Employee employee) {
-        // 1. 如果员工有邮箱，发给员工
-        if (employee.getEmail() != null && !employee.getEmail().trim().isEmpty()) {
-            return employee.getEmail();
-        }
-
-        // 2. 如果员工无邮箱，发给主管
-        if (employee.getSupervisorSfUserId() != null && !employee.getSupervisorSfUserId().trim().isEmpty()) {
-            LambdaQueryWrapper<Employee> supervisorWrapper = new LambdaQueryWrapper<>();
-            supervisorWrapper.eq(Employee::getSfUserId, employee.getSupervisorSfUserId());
-            Employee supervisor = employeeMapper.selectOne(supervisorWrapper);
-
-            if (supervisor != null && supervisor.getEmail() != null && !supervisor.getEmail().trim().isEmpty()) {
-                return supervisor.getEmail();
-            }
-        }
+        return determineRecipients(Collections.singletonList(employee)).get(employee.getId());
+    }
 
-        // 3. 主管也无邮箱，发给系统管理员
-        // 查询第一个有邮箱的管理员
+    /**
+     * 查询第一个有邮箱的系统管理员
+     * 
+     * @return 管理员邮箱，如果没有返回null
+     */
+    private String findAdminEmail() {
         LambdaQueryWrapper<Admin> adminWrapper = new LambdaQueryWrapper<>();
         adminWrapper.eq(Admin::getIsActive, 1)
                     .isNotNull(Admin::getEmail)
@@ -287,9 +316,10 @@ public class EmailServiceImpl implements EmailService {
         if (admins != null && !admins.isEmpty()) {
             return admins.get(0).getEmail();
         }
-
-        // 如果都没有邮箱，返回null
         return null;
     }
-}
 
+    private boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
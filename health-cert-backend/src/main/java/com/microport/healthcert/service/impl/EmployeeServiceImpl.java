@@ -1,6 +1,7 @@
 package com.microport.healthcert.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.microport.healthcert.entity.Employee;
 import com.microport.healthcert.mapper.EmployeeMapper;
@@ -120,6 +121,14 @@ public class EmployeeServiceImpl implements EmployeeService {
         // 使用MyBatis-Plus的update方法，只更新非null字段
         int rows = employeeMapper.updateById(updateEmployee);
         
+        // 手机号变更且未同时指定钉钉号时，清空按旧手机号查到的钉钉号（发送提醒时按新手机号重新查询）
+        if (rows > 0 && employee.getMobile() != null && employee.getDingtalkUserid() == null
+                && !employee.getMobile().equals(existingEmployee.getMobile())) {
+            LambdaUpdateWrapper<Employee> clearWrapper = new LambdaUpdateWrapper<>();
+            clearWrapper.set(Employee::getDingtalkUserid, null).eq(Employee::getId, employee.getId());
+            employeeMapper.update(null, clearWrapper);
+        }
+        
         if (rows > 0) {
             String logDesc = "更新员工ID: " + employee.getId() + ", 姓名: " + existingEmployee.getName();
             if (employee.getEmail() != null) {
@@ -14,6 +14,8 @@ import com.itextpdf.text.pdf.PdfWriter;
 import com.microport.healthcert.entity.HealthCertificate;
 import com.microport.healthcert.mapper.HealthCertificateMapper;
 import com.microport.healthcert.service.ExportService;
+import com.microport.healthcert.service.StorageService;
+import com.microport.healthcert.util.FileUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -25,17 +27,16 @@ import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
 import org.apache.poi.xssf.usermodel.XSSFDrawing;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 导出服务实现类
@@ -48,20 +49,20 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ExportServiceImpl implements ExportService {
 
     /**
-     * 文件URL过期时间（毫秒），1小时
+     * 文件URL有效期（秒），1小时，超过该时间的导出文件不再允许下载，由清理任务删除
      */
-    private static final long FILE_URL_EXPIRY = 60 * 60 * 1000L;
+    public static final long FILE_URL_EXPIRY_SECONDS = 60 * 60L;
 
     /**
-     * 文件URL缓存（key: 文件名, value: 创建时间）
+     * 导出文件的存储key前缀
      */
-    private static final Map<String, Long> FILE_URL_CACHE = new ConcurrentHashMap<>();
+    public static final String DOWNLOAD_PREFIX = "downloads/";
 
     @Autowired
     private HealthCertificateMapper healthCertificateMapper;
 
-    @Value("${server.servlet.context-path:}")
-    private String contextPath;
+    @Autowired
+    private StorageService storageService;
 
     /**
      * 导出Excel
@@ -103,15 +104,15 @@ public class ExportServiceImpl implements ExportService {
 
             // 生成临时文件
             String fileName = "health_cert_" + System.currentTimeMillis() + ".xlsx";
-            String filePath = getDownloadPath() + File.separator + fileName;
-            File file = new File(filePath);
-            file.getParentFile().mkdirs();
+            Path tmpFile = storageService.createTempFile();
 
-            fileOut = new FileOutputStream(file);
+            fileOut = new FileOutputStream(tmpFile.toFile());
             workbook.write(fileOut);
+            fileOut.close();
+            fileOut = null;
 
-            // 记录文件创建时间（用于URL过期控制）
-            FILE_URL_CACHE.put(fileName, System.currentTimeMillis());
+            // 存入文件存储
+            storageService.store(DOWNLOAD_PREFIX + fileName, tmpFile);
 
             log.info("Excel导出成功，文件：{}，记录数：{}", fileName, certificates.size());
 
@@ -152,13 +153,11 @@ public class ExportServiceImpl implements ExportService {
 
             // 生成临时文件
             String fileName = "health_cert_" + System.currentTimeMillis() + ".pdf";
-            String filePath = getDownloadPath() + File.separator + fileName;
-            File file = new File(filePath);
-            file.getParentFile().mkdirs();
+            Path tmpFile = storageService.createTempFile();
 
             // 创建PDF文档
             document = new Document(PageSize.A4.rotate()); // 横向
-            writer = PdfWriter.getInstance(document, new FileOutputStream(file));
+            writer = PdfWriter.getInstance(document, new FileOutputStream(tmpFile.toFile()));
             document.open();
 
             // 创建表格（7列，如果包含图片则8列）
@@ -177,8 +176,8 @@ public class ExportServiceImpl implements ExportService {
             document.add(table);
             document.close();
 
-            // 记录文件创建时间（用于URL过期控制）
-            FILE_URL_CACHE.put(fileName, System.currentTimeMillis());
+            // 存入文件存储
+            storageService.store(DOWNLOAD_PREFIX + fileName, tmpFile);
 
             log.info("PDF导出成功，文件：{}，记录数：{}", fileName, certificates.size());
 
@@ -302,10 +301,9 @@ public class ExportServiceImpl implements ExportService {
      * @param colNum 列号
      */
     private void insertExcelImage(XSSFWorkbook workbook, Sheet sheet, Row row, String imagePath, int colNum) throws IOException {
-        String fullImagePath = getImageFullPath(imagePath);
-        File imageFile = new File(fullImagePath);
-        if (!imageFile.exists()) {
-            log.warn("图片文件不存在：{}", fullImagePath);
+        File imageFile = getImageFile(imagePath);
+        if (imageFile == null) {
+            log.warn("图片文件不存在：{}", imagePath);
             return;
         }
 
@@ -419,15 +417,14 @@ public class ExportServiceImpl implements ExportService {
      * @param imagePath 图片路径
      */
     private void insertPdfImage(PdfPTable table, String imagePath) throws Exception {
-        String fullImagePath = getImageFullPath(imagePath);
-        File imageFile = new File(fullImagePath);
-        if (!imageFile.exists()) {
-            log.warn("图片文件不存在：{}", fullImagePath);
+        File imageFile = getImageFile(imagePath);
+        if (imageFile == null) {
+            log.warn("图片文件不存在：{}", imagePath);
             table.addCell(new PdfPCell());
             return;
         }
 
-        Image image = Image.getInstance(fullImagePath);
+        Image image = Image.getInstance(imageFile.getAbsolutePath());
         image.scaleToFit(50, 50); // 缩放图片大小
         PdfPCell cell = new PdfPCell(image, true);
         cell.setPadding(2);
@@ -461,61 +458,33 @@ public class ExportServiceImpl implements ExportService {
     }
 
     /**
-     * 获取下载目录路径
-     * 
-     * @return 下载目录路径
-     */
-    private String getDownloadPath() {
-        String userDir = System.getProperty("user.dir");
-        String downloadDir = userDir + File.separator + "downloads";
-        File dir = new File(downloadDir);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
-        return downloadDir;
-    }
-
-    /**
-     * 获取下载URL
+     * 获取下载URL（带签名和有效期，对象存储时为预签名URL）
      * 
      * @param fileName 文件名
      * @return 下载URL
      */
     private String getDownloadUrl(String fileName) {
-        String baseUrl = contextPath.isEmpty() ? "" : contextPath;
-        return baseUrl + "/api/admin/download/" + fileName;
+        return storageService.getAccessUrl(DOWNLOAD_PREFIX + fileName, fileName, FILE_URL_EXPIRY_SECONDS);
     }
 
     /**
-     * 获取图片完整路径
+     * 获取图片本地文件
      * 
-     * @param imagePath 相对路径
-     * @return 完整路径
+     * @param imagePath 相对路径（相对于上传目录）
+     * @return 本地文件，不存在时返回null
      */
-    private String getImageFullPath(String imagePath) {
+    private File getImageFile(String imagePath) {
         if (imagePath == null || imagePath.trim().isEmpty()) {
-            return "";
+            return null;
         }
-        String userDir = System.getProperty("user.dir");
-        if (imagePath.startsWith("/") || imagePath.startsWith("\\")) {
-            return userDir + imagePath;
-        } else {
-            return userDir + File.separator + imagePath;
+        String relativePath = imagePath.replace('\\', '/');
+        while (relativePath.startsWith("/")) {
+            relativePath = relativePath.substring(1);
         }
-    }
-
-    /**
-     * 检查文件URL是否过期
-     * 
-     * @param fileName 文件名
-     * @return true表示未过期，false表示已过期
-     */
-    public static boolean isFileUrlValid(String fileName) {
-        Long createTime = FILE_URL_CACHE.get(fileName);
-        if (createTime == null) {
-            return false;
+        try {
+            return storageService.getLocalFile(FileUtil.UPLOAD_PREFIX + relativePath);
+        } catch (IOException e) {
+            return null;
         }
-        return System.currentTimeMillis() - createTime < FILE_URL_EXPIRY;
     }
 }
-
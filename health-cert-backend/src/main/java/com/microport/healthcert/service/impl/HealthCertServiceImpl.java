@@ -10,13 +10,15 @@ import com.microport.healthcert.mapper.HealthCertificateMapper;
 import com.microport.healthcert.mapper.OperationLogMapper;
 import com.microport.healthcert.service.HealthCertService;
 import com.microport.healthcert.service.OcrService;
+import com.microport.healthcert.service.StorageService;
 import com.microport.healthcert.util.FileUtil;
+import com.microport.healthcert.util.UploadedFile;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -32,6 +34,9 @@ public class HealthCertServiceImpl implements HealthCertService {
     @Autowired
     private OcrService ocrService;
 
+    @Autowired
+    private StorageService storageService;
+
     @Autowired
     private HealthCertificateMapper healthCertificateMapper;
 
@@ -41,11 +46,6 @@ public class HealthCertServiceImpl implements HealthCertService {
     @Autowired
     private OperationLogMapper operationLogMapper;
 
-    /**
-     * 上传目录
-     */
-    private static final String UPLOAD_DIR = "uploads";
-
     /**
      * 上传图片并调用OCR识别
      * 
@@ -54,39 +54,24 @@ public class HealthCertServiceImpl implements HealthCertService {
      */
     @Override
     public HealthCertDTO uploadAndOcr(MultipartFile file) {
+        // 验证图片
+        FileUtil.validateImage(file);
+
+        // 保存文件（只写一次，保存时同时计算SHA-256）
+        UploadedFile uploaded;
         try {
-            // 验证图片
-            FileUtil.validateImage(file);
-
-            // 保存文件
-            String relativePath = FileUtil.saveFile(file, UPLOAD_DIR);
-
-            // 创建临时文件用于OCR识别
-            File tempFile = File.createTempFile("ocr_", file.getOriginalFilename());
-            file.transferTo(tempFile);
-
-            // 调用OCR识别
-            HealthCertDTO ocrResult = ocrService.callOcrApi(tempFile);
-
-            // 删除临时文件
-            tempFile.delete();
-
-            // 设置图片路径
-            ocrResult.setImagePath(relativePath);
-
-            return ocrResult;
-        } catch (Exception e) {
-            // 上传或OCR失败，返回空结果，允许手动填写
-            HealthCertDTO dto = new HealthCertDTO();
-            try {
-                // 如果文件已保存，设置图片路径
-                String relativePath = FileUtil.saveFile(file, UPLOAD_DIR);
-                dto.setImagePath(relativePath);
-            } catch (Exception ex) {
-                // 文件保存也失败，返回空对象
-            }
-            return dto;
+            uploaded = FileUtil.saveUpload(file, storageService);
+        } catch (IOException e) {
+            throw new RuntimeException("保存图片失败：" + e.getMessage(), e);
         }
+
+        // 调用OCR识别（直接读取已保存的文件，失败时返回空结果，允许手动填写）
+        HealthCertDTO ocrResult = ocrService.callOcrApi(uploaded.getFile(), uploaded.getSha256());
+
+        // 设置图片路径
+        ocrResult.setImagePath(uploaded.getRelativePath());
+
+        return ocrResult;
     }
 
     /**
@@ -0,0 +1,301 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.microport.healthcert.entity.JobHistory;
+import com.microport.healthcert.entity.JobLease;
+import com.microport.healthcert.mapper.JobHistoryMapper;
+import com.microport.healthcert.exception.LeaseLostException;
+import com.microport.healthcert.mapper.JobLeaseMapper;
+import com.microport.healthcert.service.JobCoordinationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 定时任务协调服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class JobCoordinationServiceImpl implements JobCoordinationService {
+
+    /**
+     * 执行结果最大长度（job_history.message）
+     */
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    /**
+     * 租约时长（秒），执行期间每1/3租约时长续约一次，节点退出后最多经过该时长由其他节点接手
+     */
+    @Value("${job.lease.lease-seconds:300}")
+    private long leaseSeconds = 300;
+
+    @Autowired
+    private JobLeaseMapper jobLeaseMapper;
+
+    @Autowired
+    private JobHistoryMapper jobHistoryMapper;
+
+    /**
+     * 本节点标识（主机名:进程号:随机标识）
+     */
+    private final String owner = buildOwner();
+
+    /**
+     * 续约线程
+     */
+    private final ScheduledExecutorService renewExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-lease-renew");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public boolean runExclusive(String jobName, long minHoldSeconds, JobAction action) {
+        Long fencingToken;
+        try {
+            fencingToken = acquire(jobName);
+        } catch (Exception e) {
+            log.error("获取定时任务租约失败，任务：{}", jobName, e);
+            return false;
+        }
+        if (fencingToken == null) {
+            log.info("定时任务{}已由其他节点执行，本节点跳过", jobName);
+            return false;
+        }
+
+        JobHistory history = startHistory(jobName, fencingToken);
+        Lease lease = new Lease(jobName, fencingToken);
+        AtomicBoolean leaseLost = lease.lost;
+        long renewInterval = Math.max(1, leaseSeconds / 3);
+        ScheduledFuture<?> renewal = renewExecutor.scheduleWithFixedDelay(
+                () -> renew(jobName, fencingToken, leaseLost), renewInterval, renewInterval, TimeUnit.SECONDS);
+
+        long start = System.currentTimeMillis();
+        String status;
+        String message;
+        boolean stopped = false;
+        try {
+            message = action.run(lease);
+            status = leaseLost.get() ? STATUS_INTERRUPTED : STATUS_SUCCESS;
+        } catch (LeaseLostException e) {
+            log.warn("定时任务{}的租约已丢失（令牌{}），停止执行", jobName, fencingToken);
+            leaseLost.set(true);
+            stopped = true;
+            status = STATUS_INTERRUPTED;
+            message = e.getMessage();
+        } catch (Exception e) {
+            log.error("定时任务{}执行失败", jobName, e);
+            status = STATUS_FAIL;
+            message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } finally {
+            renewal.cancel(false);
+        }
+        if (leaseLost.get() && !stopped) {
+            message = "租约已被其他节点获取" + (message != null ? "；" + message : "");
+        }
+
+        finishHistory(history, status, message, System.currentTimeMillis() - start);
+        try {
+            jobLeaseMapper.release(jobName, owner, fencingToken, minHoldSeconds);
+        } catch (Exception e) {
+            // 释放失败时租约到期后自动释放
+            log.warn("释放定时任务租约失败，任务：{}，错误：{}", jobName, e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public List<JobHistory> listHistory(String jobName, int limit) {
+        LambdaQueryWrapper<JobHistory> wrapper = new LambdaQueryWrapper<>();
+        if (jobName != null && !jobName.trim().isEmpty()) {
+            wrapper.eq(JobHistory::getJobName, jobName.trim());
+        }
+        wrapper.orderByDesc(JobHistory::getStartedAt)
+               .orderByDesc(JobHistory::getId)
+               .last("LIMIT " + Math.max(1, Math.min(limit, 1000)));
+        return jobHistoryMapper.selectList(wrapper);
+    }
+
+    /**
+     * 关闭续约线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        renewExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取租约
+     *
+     * @param jobName 任务名称
+     * @return 获取到的令牌，租约被其他节点持有时返回null
+     */
+    private Long acquire(String jobName) {
+        jobLeaseMapper.insertIgnore(jobName);
+        if (jobLeaseMapper.acquire(jobName, owner, leaseSeconds) == 0) {
+            return null;
+        }
+        JobLease lease = jobLeaseMapper.selectById(jobName);
+        return lease != null ? lease.getFencingToken() : null;
+    }
+
+    /**
+     * 续约，租约已被其他节点获取时记录并停止续约
+     *
+     * @param jobName 任务名称
+     * @param fencingToken 令牌
+     * @param leaseLost 租约是否丢失
+     */
+    private void renew(String jobName, long fencingToken, AtomicBoolean leaseLost) {
+        if (leaseLost.get()) {
+            return;
+        }
+        try {
+            if (jobLeaseMapper.renew(jobName, owner, fencingToken, leaseSeconds) == 0) {
+                leaseLost.set(true);
+                log.error("定时任务{}的租约已被其他节点获取（令牌{}），本次执行结果可能与其他节点重复", jobName, fencingToken);
+            }
+        } catch (Exception e) {
+            // 数据库暂时不可用时下次再续约，租约时长内恢复即可
+            log.warn("定时任务租约续约失败，任务：{}，错误：{}", jobName, e.getMessage());
+        }
+    }
+
+    /**
+     * 写入执行记录，同时把该任务之前未结束的执行（节点退出时未写入结果）标记为中断
+     *
+     * @param jobName 任务名称
+     * @param fencingToken 令牌
+     * @return 执行记录
+     */
+    private JobHistory startHistory(String jobName, long fencingToken) {
+        JobHistory history = new JobHistory();
+        history.setJobName(jobName);
+        history.setOwner(owner);
+        history.setFencingToken(fencingToken);
+        history.setStatus(STATUS_RUNNING);
+        history.setStartedAt(LocalDateTime.now());
+        try {
+            LambdaUpdateWrapper<JobHistory> staleWrapper = new LambdaUpdateWrapper<>();
+            staleWrapper.eq(JobHistory::getJobName, jobName)
+                        .eq(JobHistory::getStatus, STATUS_RUNNING)
+                        .lt(JobHistory::getFencingToken, fencingToken)
+                        .set(JobHistory::getStatus, STATUS_INTERRUPTED)
+                        .set(JobHistory::getMessage, "执行节点退出，未记录结果");
+            jobHistoryMapper.update(null, staleWrapper);
+            jobHistoryMapper.insert(history);
+        } catch (Exception e) {
+            // 执行记录写入失败不影响任务执行
+            log.warn("写入定时任务执行记录失败，任务：{}，错误：{}", jobName, e.getMessage());
+        }
+        return history;
+    }
+
+    /**
+     * 更新执行记录
+     *
+     * @param history 执行记录
+     * @param status 状态
+     * @param message 执行结果或失败原因
+     * @param durationMs 执行耗时（毫秒）
+     */
+    private void finishHistory(JobHistory history, String status, String message, long durationMs) {
+        log.info("定时任务{}执行结束，状态：{}，耗时{}ms，令牌：{}", history.getJobName(), status, durationMs, history.getFencingToken());
+        if (history.getId() == null) {
+            return;
+        }
+        JobHistory update = new JobHistory();
+        update.setId(history.getId());
+        update.setStatus(status);
+        update.setMessage(message != null && message.length() > MAX_MESSAGE_LENGTH
+                ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+        update.setFinishedAt(LocalDateTime.now());
+        update.setDurationMs(durationMs);
+        try {
+            jobHistoryMapper.updateById(update);
+        } catch (Exception e) {
+            log.warn("更新定时任务执行记录失败，任务：{}，错误：{}", history.getJobName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 本次执行持有的租约
+     */
+    private class Lease implements LeaseHandle {
+
+        private final String jobName;
+
+        private final long fencingToken;
+
+        /**
+         * 续约线程发现租约已被其他节点获取时置为true
+         */
+        private final AtomicBoolean lost = new AtomicBoolean(false);
+
+        Lease(String jobName, long fencingToken) {
+            this.jobName = jobName;
+            this.fencingToken = fencingToken;
+        }
+
+        @Override
+        public long getFencingToken() {
+            return fencingToken;
+        }
+
+        @Override
+        public boolean isLost() {
+            return lost.get();
+        }
+
+        @Override
+        public void checkHeld() {
+            if (lost.get()) {
+                throw new LeaseLostException("租约已被其他节点获取（令牌" + fencingToken + "），停止执行");
+            }
+        }
+
+        @Override
+        public void lockHeld() {
+            checkHeld();
+            if (jobLeaseMapper.lockHeld(jobName, owner, fencingToken) == 0) {
+                lost.set(true);
+                throw new LeaseLostException("租约已过期或被其他节点获取（令牌" + fencingToken + "），未写入本次结果");
+            }
+        }
+    }
+
+    /**
+     * 生成本节点标识
+     *
+     * @return 主机名:进程号:随机标识
+     */
+    private static String buildOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        String runtimeName = ManagementFactory.getRuntimeMXBean().getName();
+        String pid = runtimeName.contains("@") ? runtimeName.substring(0, runtimeName.indexOf('@')) : runtimeName;
+        String owner = host + ":" + pid + ":" + UUID.randomUUID().toString().substring(0, 8);
+        return owner.length() > 128 ? owner.substring(owner.length() - 128) : owner;
+    }
+}
@@ -0,0 +1,296 @@
+package com.microport.healthcert.service.impl;
+
+import cn.hutool.core.util.HexUtil;
+import com.microport.healthcert.service.StorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件系统存储实现类
+ * 文件保存在storage.local.root目录下（默认项目根目录），访问URL为带签名的/files/{key}
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalStorageServiceImpl implements StorageService {
+
+    /**
+     * 临时文件目录（相对于存储根目录）
+     */
+    private static final String TMP_DIR = "tmp";
+
+    /**
+     * 临时文件保留时间（毫秒），1天
+     */
+    private static final long TMP_EXPIRY = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 清理时先把文件改名为墓碑文件（原文件名加该后缀）再删除
+     */
+    private static final String TOMBSTONE_SUFFIX = ".deleting";
+
+    /**
+     * 存储根目录
+     */
+    @Value("${storage.local.root:}")
+    private String rootDir;
+
+    /**
+     * 访问URL签名密钥
+     */
+    @Value("${storage.local.signing-key:${jwt.secret}}")
+    private String signingKey;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private Path root;
+
+    /**
+     * 初始化存储根目录
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        String dir = rootDir == null || rootDir.trim().isEmpty() ? System.getProperty("user.dir") : rootDir.trim();
+        root = Paths.get(dir).toAbsolutePath().normalize();
+        Files.createDirectories(root.resolve(TMP_DIR));
+        log.info("文件存储：本地目录 {}", root);
+    }
+
+    /**
+     * 获取存储根目录（静态资源映射使用）
+     *
+     * @return 存储根目录
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public Path createTempFile() throws IOException {
+        // 临时文件与存储目录在同一文件系统，store时直接重命名
+        Path tmp = root.resolve(TMP_DIR).resolve(UUID.randomUUID().toString() + ".part");
+        return Files.createFile(tmp);
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            // 内容寻址的文件已存在，先更新修改时间（避免刚上传的图片被清理任务当作孤立文件删除），成功后再删除临时文件；
+            // 清理任务恰好已把文件改名删除时按新文件存入
+            try {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                Files.delete(source);
+                return;
+            } catch (NoSuchFileException e) {
+                log.debug("文件{}已被清理任务删除，重新存入", key);
+            }
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 并发存入了相同key
+            Files.delete(source);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        return new StoredObject(key, attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new FileNotFoundException(key);
+        }
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public File getLocalFile(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new FileNotFoundException(key);
+        }
+        return path.toFile();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * 先原子改名为墓碑文件，再按改名后的修改时间判断是否删除
+     * 改名前store已刷新修改时间的恢复原文件；改名后store刷新修改时间失败，会重新存入新文件
+     */
+    @Override
+    public boolean deleteIfNotModifiedSince(String key, long lastModified) throws IOException {
+        Path target = resolve(key);
+        Path tombstone = target.resolveSibling(target.getFileName() + TOMBSTONE_SUFFIX);
+        try {
+            Files.move(target, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(tombstone).toMillis() > lastModified) {
+            // 已被重新存入，恢复原文件（目标位置已有新存入的相同内容时删除墓碑文件即可）
+            try {
+                Files.move(tombstone, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(tombstone);
+            }
+            return false;
+        }
+        Files.delete(tombstone);
+        return true;
+    }
+
+    @Override
+    public List<StoredObject> list(String prefix) throws IOException {
+        List<StoredObject> objects = new ArrayList<>();
+        Path dir = resolve(prefix);
+        if (!Files.isDirectory(dir)) {
+            return objects;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    String key = root.relativize(path).toString().replace('\\', '/');
+                    objects.add(new StoredObject(key, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        return objects;
+    }
+
+    @Override
+    public String getAccessUrl(String key, String downloadName, long expireSeconds) {
+        long expires = System.currentTimeMillis() / 1000 + expireSeconds;
+        String name = downloadName == null ? "" : downloadName;
+        StringBuilder url = new StringBuilder(contextPath).append("/files/").append(key)
+                .append("?expires=").append(expires);
+        if (!name.isEmpty()) {
+            url.append("&name=").append(urlEncode(name));
+        }
+        url.append("&signature=").append(sign(key, expires, name));
+        return url.toString();
+    }
+
+    /**
+     * 校验访问URL签名
+     *
+     * @param key 存储key
+     * @param expires 过期时间（秒级时间戳）
+     * @param downloadName 下载文件名（可为空）
+     * @param signature 签名
+     * @return 签名正确且未过期时返回true
+     */
+    public boolean verifyAccessUrl(String key, long expires, String downloadName, String signature) {
+        if (signature == null || expires < System.currentTimeMillis() / 1000) {
+            return false;
+        }
+        String expected = sign(key, expires, downloadName == null ? "" : downloadName);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 清理过期的临时文件（中断的上传、导出失败留下的文件）
+     * 每小时执行一次
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L)
+    public void cleanupTempFiles() {
+        long now = System.currentTimeMillis();
+        try (Stream<Path> stream = Files.list(root.resolve(TMP_DIR))) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                if (now - Files.getLastModifiedTime(path).toMillis() > TMP_EXPIRY) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理临时文件失败", e);
+        }
+    }
+
+    /**
+     * 解析key对应的本地路径（禁止访问存储根目录以外的文件）
+     *
+     * @param key 存储key
+     * @return 本地路径
+     */
+    private Path resolve(String key) {
+        Path path = root.resolve(key.replace('\\', '/')).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("非法的文件路径：" + key);
+        }
+        return path;
+    }
+
+    private String sign(String key, long expires, String downloadName) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] digest = mac.doFinal((key + "\n" + expires + "\n" + downloadName).getBytes(StandardCharsets.UTF_8));
+            return HexUtil.encodeHexStr(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("生成访问URL签名失败", e);
+        }
+    }
+
+    private String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.microport.healthcert.service.impl;
+
+import com.microport.healthcert.exception.LoginException;
+import com.microport.healthcert.service.LoginGuardService;
+import com.microport.healthcert.util.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 登录防护服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class LoginGuardServiceImpl implements LoginGuardService {
+
+    /**
+     * 同一用户名每分钟允许的登录失败次数（也是允许的连续失败次数）
+     */
+    @Value("${auth.login.rate-limit.username-per-minute:5}")
+    private int usernamePerMinute = 5;
+
+    /**
+     * 同一IP每分钟允许的登录失败次数（也是允许的连续失败次数）
+     */
+    @Value("${auth.login.rate-limit.ip-per-minute:30}")
+    private int ipPerMinute = 30;
+
+    /**
+     * 限流记录的最大数量（用户名和IP分别计算），超过后淘汰最久未使用的记录
+     */
+    @Value("${auth.login.rate-limit.max-keys:10000}")
+    private int maxKeys = 10000;
+
+    /**
+     * 不存在的用户名缓存有效期（秒），HR库新增的员工最迟在该时间后可以登录
+     */
+    @Value("${auth.login.unknown-username.ttl-seconds:300}")
+    private long unknownUsernameTtlSeconds = 300;
+
+    /**
+     * 不存在的用户名缓存最大数量
+     */
+    @Value("${auth.login.unknown-username.max-size:10000}")
+    private int unknownUsernameMaxSize = 10000;
+
+    /**
+     * 用户名限流器（LRU，访问时加锁）
+     */
+    private Map<String, TokenBucket> usernameBuckets;
+
+    /**
+     * IP限流器（LRU，访问时加锁）
+     */
+    private Map<String, TokenBucket> ipBuckets;
+
+    /**
+     * 不存在的用户名及缓存到期时间（毫秒时间戳）（LRU，访问时加锁）
+     */
+    private Map<String, Long> unknownUsernames;
+
+    @PostConstruct
+    public void init() {
+        usernameBuckets = newLruMap(maxKeys);
+        ipBuckets = newLruMap(maxKeys);
+        unknownUsernames = newLruMap(unknownUsernameMaxSize);
+    }
+
+    @Override
+    public void acquireAttempt(String username, String clientIp) {
+        // 先检查IP，IP被限制时不占用用户名的次数
+        TokenBucket ipBucket = bucket(ipBuckets, clientIp, ipPerMinute);
+        if (ipBucket != null && !ipBucket.tryAcquire(1)) {
+            log.warn("登录尝试过于频繁，IP：{}", clientIp);
+            throw new LoginException(429, "登录尝试过于频繁，请稍后再试");
+        }
+        TokenBucket usernameBucket = bucket(usernameBuckets, username, usernamePerMinute);
+        if (usernameBucket != null && !usernameBucket.tryAcquire(1)) {
+            if (ipBucket != null) {
+                ipBucket.release(1);
+            }
+            log.warn("登录尝试过于频繁，用户名：{}，IP：{}", username, clientIp);
+            throw new LoginException(429, "该账号登录失败次数过多，请稍后再试");
+        }
+    }
+
+    @Override
+    public void releaseAttempt(String username, String clientIp) {
+        TokenBucket ipBucket = bucket(ipBuckets, clientIp, ipPerMinute);
+        if (ipBucket != null) {
+            ipBucket.release(1);
+        }
+        TokenBucket usernameBucket = bucket(usernameBuckets, username, usernamePerMinute);
+        if (usernameBucket != null) {
+            usernameBucket.release(1);
+        }
+    }
+
+    @Override
+    public boolean isUnknownUsername(String username) {
+        if (username == null || unknownUsernameTtlSeconds <= 0) {
+            return false;
+        }
+        synchronized (unknownUsernames) {
+            Long expiresAt = unknownUsernames.get(username);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt <= System.currentTimeMillis()) {
+                unknownUsernames.remove(username);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void markUnknownUsername(String username) {
+        if (username == null || unknownUsernameTtlSeconds <= 0) {
+            return;
+        }
+        synchronized (unknownUsernames) {
+            unknownUsernames.put(username, System.currentTimeMillis() + unknownUsernameTtlSeconds * 1000L);
+        }
+    }
+
+    /**
+     * 获取或创建限流器（桶容量为每分钟次数，按每分钟次数匀速恢复）
+     *
+     * @param buckets 限流器集合
+     * @param key 用户名或IP
+     * @param perMinute 每分钟次数（小于等于0表示不限制）
+     * @return 限流器，不限制时返回null
+     */
+    private TokenBucket bucket(Map<String, TokenBucket> buckets, String key, int perMinute) {
+        if (key == null || perMinute <= 0) {
+            return null;
+        }
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(key, k -> new TokenBucket(perMinute / 60.0, perMinute));
+        }
+    }
+
+    /**
+     * 创建按访问顺序淘汰的有界Map（非线程安全，调用方加锁）
+     *
+     * @param maxSize 最大数量
+     * @return Map
+     */
+    private static <V> Map<String, V> newLruMap(int maxSize) {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,405 @@
+package com.microport.healthcert.service.impl;
+
+import com.microport.healthcert.common.SystemConfigChangedEvent;
+import com.microport.healthcert.service.MailTransportService;
+import com.microport.healthcert.service.SystemConfigService;
+import com.microport.healthcert.vo.MailStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 邮件发送通道服务实现类
+ *
+ * SMTP会话（Session）按配置版本缓存，邮件配置变更后重建，旧连接归还时关闭
+ * 已认证的连接放入连接池复用，超过空闲时间或单连接发送数量上限后关闭重建
+ * （部分邮件服务器限制单个连接发送的邮件数量）
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class MailTransportServiceImpl implements MailTransportService {
+
+    /**
+     * 空闲超过该时间的连接在使用前先检查是否仍然可用（毫秒）
+     */
+    private static final long VALIDATE_AFTER_IDLE = 5000L;
+
+    @Autowired
+    private SystemConfigService systemConfigService;
+
+    /**
+     * 最大连接数（同时发送的邮件数量上限）
+     */
+    @Value("${mail.pool.max-size:4}")
+    private int maxSize = 4;
+
+    /**
+     * 空闲连接保留时间（毫秒）
+     */
+    @Value("${mail.pool.idle-timeout-ms:60000}")
+    private long idleTimeoutMs = 60000L;
+
+    /**
+     * 单个连接最多发送的邮件数量
+     */
+    @Value("${mail.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection = 100;
+
+    /**
+     * 等待可用连接的超时时间（毫秒）
+     */
+    @Value("${mail.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMs = 30000L;
+
+    /**
+     * 空闲连接（后进先出，优先使用最近用过的连接）
+     */
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * 正在使用的连接数限制
+     */
+    private Semaphore permits;
+
+    /**
+     * 当前配置版本的SMTP会话（配置变更后置空，下次发送时重建）
+     */
+    private volatile MailContext context;
+
+    /**
+     * 配置版本号
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong sendNanos = new AtomicLong();
+
+    /**
+     * 最近一分钟发送数量（按秒分桶）
+     */
+    private final long[] bucketSeconds = new long[60];
+    private final long[] bucketCounts = new long[60];
+
+    /**
+     * 初始化连接数限制
+     */
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, maxSize));
+    }
+
+    @Override
+    public void send(String from, String to, String subject, String content) throws Exception {
+        MailContext ctx = getContext();
+        MimeMessage message = new MimeMessage(ctx.session);
+        message.setFrom(new InternetAddress(from));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+        message.setSubject(subject, "UTF-8");
+        message.setText(content, "UTF-8");
+        message.setSentDate(new Date());
+        message.saveChanges();
+
+        if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+            failed.incrementAndGet();
+            throw new MessagingException("等待邮件发送连接超时");
+        }
+        active.incrementAndGet();
+        try {
+            // 复用的连接可能已被服务器关闭，换新连接重试一次
+            for (int attempt = 0; ; attempt++) {
+                PooledTransport pooled = borrow(ctx, attempt > 0);
+                long start = System.nanoTime();
+                try {
+                    pooled.transport.sendMessage(message, message.getAllRecipients());
+                } catch (SendFailedException e) {
+                    // 收件人地址被拒绝，连接本身正常
+                    release(pooled);
+                    throw e;
+                } catch (MessagingException e) {
+                    close(pooled);
+                    if (attempt == 0 && pooled.messages > 0) {
+                        log.info("SMTP连接已失效，重新建立连接：{}", e.getMessage());
+                        continue;
+                    }
+                    throw e;
+                }
+                sendNanos.addAndGet(System.nanoTime() - start);
+                pooled.messages++;
+                release(pooled);
+                sent.incrementAndGet();
+                recordSent();
+                return;
+            }
+        } catch (MessagingException e) {
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    @Override
+    public MailStatsVO getStats() {
+        MailStatsVO stats = new MailStatsVO();
+        long sentCount = sent.get();
+        long opened = connectionsOpened.get();
+        stats.setSent(sentCount);
+        stats.setFailed(failed.get());
+        stats.setConnectionsOpened(opened);
+        stats.setIdleConnections(idle.size());
+        stats.setActiveConnections(active.get());
+        stats.setMessagesPerConnection(opened == 0 ? 0D : (double) sentCount / opened);
+        stats.setAvgSendMillis(sentCount == 0 ? 0D : sendNanos.get() / 1e6 / sentCount);
+        stats.setSentLastMinute(sentLastMinute());
+        return stats;
+    }
+
+    /**
+     * 邮件配置变更后重建SMTP会话，关闭旧配置的空闲连接
+     *
+     * @param event 配置变更事件
+     */
+    @EventListener
+    public void onConfigChanged(SystemConfigChangedEvent event) {
+        if (event.isChanged("email.")) {
+            generation.incrementAndGet();
+            context = null;
+            closeIdle(0);
+            log.info("邮件配置已变更，重建SMTP连接");
+        }
+    }
+
+    /**
+     * 关闭空闲超时的连接
+     * 每30秒执行一次
+     */
+    @Scheduled(fixedDelay = 30000L)
+    public void evictIdle() {
+        closeIdle(idleTimeoutMs);
+    }
+
+    /**
+     * 服务关闭时关闭所有连接
+     */
+    @PreDestroy
+    public void shutdown() {
+        closeIdle(0);
+    }
+
+    /**
+     * 借用连接：优先使用空闲连接，没有时建立新连接
+     *
+     * @param ctx 当前SMTP会话
+     * @param forceNew 是否强制建立新连接
+     * @return 已连接的连接
+     * @throws MessagingException 建立连接失败
+     */
+    private PooledTransport borrow(MailContext ctx, boolean forceNew) throws MessagingException {
+        if (!forceNew) {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.generation != ctx.generation) {
+                    close(pooled);
+                    continue;
+                }
+                // 空闲较久的连接先检查（isConnected会发送NOOP）
+                if (System.currentTimeMillis() - pooled.lastUsed > VALIDATE_AFTER_IDLE && !pooled.transport.isConnected()) {
+                    close(pooled);
+                    continue;
+                }
+                return pooled;
+            }
+        }
+
+        Transport transport = ctx.session.getTransport("smtp");
+        transport.connect(ctx.host, ctx.port, ctx.username, ctx.password);
+        connectionsOpened.incrementAndGet();
+        return new PooledTransport(transport, ctx.generation);
+    }
+
+    /**
+     * 归还连接：配置已变更或达到单连接发送上限时关闭，否则放回连接池
+     *
+     * @param pooled 连接
+     */
+    private void release(PooledTransport pooled) {
+        if (pooled.generation != generation.get() || pooled.messages >= maxMessagesPerConnection) {
+            close(pooled);
+            return;
+        }
+        pooled.lastUsed = System.currentTimeMillis();
+        idle.offerFirst(pooled);
+    }
+
+    private void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (Exception e) {
+            log.debug("关闭SMTP连接失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭空闲超过指定时间的连接
+     *
+     * @param maxIdleMillis 最大空闲时间（毫秒），0表示关闭全部空闲连接
+     */
+    private void closeIdle(long maxIdleMillis) {
+        long now = System.currentTimeMillis();
+        Iterator<PooledTransport> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledTransport pooled = iterator.next();
+            if (now - pooled.lastUsed >= maxIdleMillis && idle.remove(pooled)) {
+                close(pooled);
+            }
+        }
+    }
+
+    /**
+     * 获取当前配置版本的SMTP会话，配置变更后重新创建
+     * 从system_configs读取SMTP配置
+     *
+     * @return SMTP会话
+     * @throws MessagingException 配置不完整
+     */
+    private MailContext getContext() throws MessagingException {
+        MailContext ctx = context;
+        if (ctx != null) {
+            return ctx;
+        }
+        synchronized (this) {
+            if (context != null) {
+                return context;
+            }
+            int version = generation.get();
+            String host = systemConfigService.getValue("email.smtp.host");
+            String portStr = systemConfigService.getValue("email.smtp.port");
+            String username = systemConfigService.getValue("email.username");
+            String password = systemConfigService.getValue("email.password");
+            if (host == null || portStr == null || username == null) {
+                throw new MessagingException("邮件配置不完整，无法发送邮件。请检查SMTP配置：host、port、username、password");
+            }
+            int port;
+            try {
+                port = Integer.parseInt(portStr.trim());
+            } catch (NumberFormatException e) {
+                throw new MessagingException("SMTP端口配置错误：" + portStr);
+            }
+
+            // 配置SMTP属性
+            Properties props = new Properties();
+            props.put("mail.transport.protocol", "smtp");
+            props.put("mail.smtp.auth", "true");
+            props.put("mail.smtp.connectiontimeout", "10000");
+            props.put("mail.smtp.timeout", "30000");
+            props.put("mail.smtp.writetimeout", "30000");
+
+            // 根据端口判断是否启用TLS/SSL
+            if (port == 465) {
+                // SSL端口
+                props.put("mail.smtp.ssl.enable", "true");
+                props.put("mail.smtp.ssl.trust", host);
+                props.put("mail.smtp.starttls.enable", "false");
+            } else if (port == 587 || port == 25) {
+                // TLS端口
+                props.put("mail.smtp.starttls.enable", "true");
+                props.put("mail.smtp.starttls.required", "true");
+                props.put("mail.smtp.ssl.enable", "false");
+            } else {
+                // 其他端口，默认不启用TLS/SSL
+                props.put("mail.smtp.starttls.enable", "false");
+                props.put("mail.smtp.ssl.enable", "false");
+            }
+
+            String pwd = password != null && !password.trim().isEmpty() ? password : null;
+            context = new MailContext(Session.getInstance(props), version, host, port, username, pwd);
+            log.info("创建SMTP会话：host={}, port={}, username={}", host, port, username);
+            return context;
+        }
+    }
+
+    private synchronized void recordSent() {
+        long second = System.currentTimeMillis() / 1000;
+        int index = (int) (second % 60);
+        if (bucketSeconds[index] != second) {
+            bucketSeconds[index] = second;
+            bucketCounts[index] = 0;
+        }
+        bucketCounts[index]++;
+    }
+
+    private synchronized long sentLastMinute() {
+        long second = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < 60; i++) {
+            if (second - bucketSeconds[i] < 60) {
+                total += bucketCounts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * SMTP会话及其对应的配置
+     */
+    private static class MailContext {
+        private final Session session;
+        private final int generation;
+        private final String host;
+        private final int port;
+        private final String username;
+        private final String password;
+
+        MailContext(Session session, int generation, String host, int port, String username, String password) {
+            this.session = session;
+            this.generation = generation;
+            this.host = host;
+            this.port = port;
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    /**
+     * 连接池中的SMTP连接
+     */
+    private static class PooledTransport {
+        private final Transport transport;
+        private final int generation;
+        private int messages;
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledTransport(Transport transport, int generation) {
+            this.transport = transport;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.microport.healthcert.entity.NotificationOutbox;
+import com.microport.healthcert.mapper.NotificationOutboxMapper;
+import com.microport.healthcert.service.NotificationOutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 通知发件箱服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+    /**
+     * 每条INSERT语句写入的记录数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 失败原因最大长度（与last_error字段长度一致）
+     */
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    /**
+     * 领取有效期（秒），应大于一批通知在限流下的发送时间
+     */
+    @Value("${reminder.outbox.lease-seconds:1800}")
+    private long leaseSeconds = 1800;
+
+    /**
+     * 最大尝试次数（每次尝试内还会按reminder.dispatch配置快速重试）
+     */
+    @Value("${reminder.outbox.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    /**
+     * 首次重新发送等待时间（秒），之后每次翻倍
+     */
+    @Value("${reminder.outbox.retry-backoff-seconds:300}")
+    private long retryBackoffSeconds = 300;
+
+    @Autowired
+    private NotificationOutboxMapper notificationOutboxMapper;
+
+    @Override
+    public int enqueue(List<NotificationOutbox> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+            List<NotificationOutbox> batch = rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size()));
+            for (NotificationOutbox row : batch) {
+                row.setNextAttemptAt(now);
+                row.setCreatedAt(now);
+                row.setUpdatedAt(now);
+            }
+            inserted += notificationOutboxMapper.insertIgnoreBatch(batch);
+        }
+        return inserted;
+    }
+
+    @Override
+    public void enqueueHeld(List<NotificationOutbox> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+            List<NotificationOutbox> batch = rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size()));
+            for (NotificationOutbox row : batch) {
+                row.setNextAttemptAt(now);
+                row.setCreatedAt(now);
+                row.setUpdatedAt(now);
+            }
+            notificationOutboxMapper.insertOrMergeHeldBatch(batch);
+        }
+    }
+
+    @Override
+    public int release(String dedupKeyPrefix) {
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<NotificationOutbox> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(NotificationOutbox::getStatus, STATUS_PENDING)
+               .set(NotificationOutbox::getNextAttemptAt, now)
+               .set(NotificationOutbox::getUpdatedAt, now)
+               .eq(NotificationOutbox::getStatus, STATUS_HELD)
+               .likeRight(NotificationOutbox::getDedupKey, dedupKeyPrefix);
+        return notificationOutboxMapper.update(null, wrapper);
+    }
+
+    @Override
+    public List<NotificationOutbox> claim(int limit) {
+        String owner = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = notificationOutboxMapper.claim(owner, now, now.plusSeconds(leaseSeconds), limit);
+        if (claimed == 0) {
+            return Collections.emptyList();
+        }
+
+        LambdaQueryWrapper<NotificationOutbox> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(NotificationOutbox::getLeaseOwner, owner)
+               .eq(NotificationOutbox::getStatus, STATUS_SENDING)
+               .orderByAsc(NotificationOutbox::getId);
+        return notificationOutboxMapper.selectList(wrapper);
+    }
+
+    @Override
+    public boolean complete(NotificationOutbox row, boolean sent) {
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<NotificationOutbox> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(NotificationOutbox::getStatus, sent ? STATUS_SENT : STATUS_SKIPPED)
+               .set(NotificationOutbox::getSentAt, now)
+               .set(NotificationOutbox::getLastError, null)
+               .set(NotificationOutbox::getUpdatedAt, now);
+        if (sent && row.getChannelTaskId() != null) {
+            wrapper.set(NotificationOutbox::getChannelTaskId, row.getChannelTaskId())
+                   .set(NotificationOutbox::getChannelUserId, row.getChannelUserId())
+                   .set(NotificationOutbox::getDeliveryStatus, DELIVERY_PENDING);
+        }
+        return updateLeased(row, wrapper);
+    }
+
+    @Override
+    public boolean fail(NotificationOutbox row, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        int attempts = row.getAttempts() != null ? row.getAttempts() : 1;
+        boolean exhausted = attempts >= maxAttempts;
+
+        LambdaUpdateWrapper<NotificationOutbox> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(NotificationOutbox::getLastError, truncate(error))
+               .set(NotificationOutbox::getUpdatedAt, now);
+        if (exhausted) {
+            wrapper.set(NotificationOutbox::getStatus, STATUS_FAILED);
+        } else {
+            long delay = retryBackoffSeconds << Math.min(attempts - 1, 10);
+            wrapper.set(NotificationOutbox::getStatus, STATUS_PENDING)
+                   .set(NotificationOutbox::getNextAttemptAt, now.plusSeconds(delay));
+        }
+        if (!updateLeased(row, wrapper)) {
+            return false;
+        }
+        if (exhausted) {
+            log.error("通知发送失败，已尝试{}次，不再重试，通道：{}，收件人：{}，原因：{}",
+                    attempts, row.getChannel(), row.getRecipient(), error);
+        } else {
+            log.warn("通知发送失败，第{}次尝试，稍后重新发送，通道：{}，收件人：{}，原因：{}",
+                    attempts, row.getChannel(), row.getRecipient(), error);
+        }
+        return exhausted;
+    }
+
+    @Override
+    public List<NotificationOutbox> listAwaitingDelivery(String channel, int limit) {
+        LambdaQueryWrapper<NotificationOutbox> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(NotificationOutbox::getDeliveryStatus, DELIVERY_PENDING)
+               .eq(NotificationOutbox::getChannel, channel)
+               .orderByAsc(NotificationOutbox::getSentAt)
+               .last("LIMIT " + limit);
+        return notificationOutboxMapper.selectList(wrapper);
+    }
+
+    @Override
+    public void updateDeliveryStatus(List<Long> ids, String deliveryStatus, String error) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        LambdaUpdateWrapper<NotificationOutbox> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(NotificationOutbox::getDeliveryStatus, deliveryStatus)
+               .set(NotificationOutbox::getLastError, truncate(error))
+               .set(NotificationOutbox::getUpdatedAt, LocalDateTime.now())
+               .in(NotificationOutbox::getId, ids)
+               .eq(NotificationOutbox::getDeliveryStatus, DELIVERY_PENDING);
+        notificationOutboxMapper.update(null, wrapper);
+    }
+
+    /**
+     * 更新仍由本次领取持有的记录，并释放领取
+     *
+     * @param row 发件箱记录
+     * @param wrapper 更新内容
+     * @return 是否更新成功（领取已过期并被重新领取时返回false）
+     */
+    private boolean updateLeased(NotificationOutbox row, LambdaUpdateWrapper<NotificationOutbox> wrapper) {
+        wrapper.set(NotificationOutbox::getLeaseOwner, null)
+               .set(NotificationOutbox::getLeaseUntil, null)
+               .eq(NotificationOutbox::getId, row.getId())
+               .eq(NotificationOutbox::getLeaseOwner, row.getLeaseOwner())
+               .eq(NotificationOutbox::getStatus, STATUS_SENDING);
+        if (notificationOutboxMapper.update(null, wrapper) > 0) {
+            return true;
+        }
+        log.warn("发件箱记录的领取已失效，不更新发送结果，id：{}", row.getId());
+        return false;
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,420 @@
+package com.microport.healthcert.service.impl;
+
+import com.microport.healthcert.service.OcrBackendService;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCR后端服务实现类
+ * 节点选择：可用节点中未完成请求数最少的节点
+ * 熔断：连续失败达到阈值后熔断，熔断期间直接跳过该节点；熔断时间到后放行一个试探请求，成功则恢复
+ * 健康检查：定时请求各节点的健康检查地址，不可达的节点暂停使用
+ * 对冲请求：超过对冲等待时间仍未返回时向另一个节点再发一次，取先返回的结果
+ * 所有节点都不可用时立即失败，由调用方返回空结果让用户手动填写
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class OcrBackendServiceImpl implements OcrBackendService {
+
+    /**
+     * OCR服务地址列表（逗号分隔）
+     */
+    @Value("${ocr.backend.urls:http://10.11.100.238:8081/ocr}")
+    private String[] urls;
+
+    /**
+     * 连接超时时间（毫秒）
+     */
+    @Value("${ocr.backend.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    /**
+     * 单次识别请求超时时间（毫秒）
+     */
+    @Value("${ocr.backend.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    /**
+     * 对冲等待时间（毫秒），0表示不发送对冲请求
+     */
+    @Value("${ocr.backend.hedge-delay-ms:5000}")
+    private long hedgeDelayMs;
+
+    /**
+     * 连续失败多少次后熔断
+     */
+    @Value("${ocr.backend.failure-threshold:3}")
+    private int failureThreshold;
+
+    /**
+     * 熔断持续时间（毫秒）
+     */
+    @Value("${ocr.backend.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    /**
+     * 健康检查路径
+     */
+    @Value("${ocr.backend.health-path:/health}")
+    private String healthPath;
+
+    private OkHttpClient client;
+
+    private OkHttpClient healthClient;
+
+    private List<Backend> backends;
+
+    /**
+     * 初始化HTTP客户端和节点列表
+     */
+    @PostConstruct
+    public void init() {
+        // 默认每个主机最多5个并发请求，OCR并发由ocrExecutor线程池控制，这里不再限制
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(256);
+        dispatcher.setMaxRequestsPerHost(64);
+
+        client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+                .callTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+        healthClient = client.newBuilder()
+                .readTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .callTimeout(connectTimeoutMs * 2, TimeUnit.MILLISECONDS)
+                .build();
+
+        List<Backend> list = new ArrayList<>();
+        for (String url : urls) {
+            if (url != null && !url.trim().isEmpty()) {
+                list.add(new Backend(url.trim()));
+            }
+        }
+        backends = Collections.unmodifiableList(list);
+        log.info("OCR服务节点：{}", list.size());
+    }
+
+    /**
+     * 关闭HTTP客户端
+     */
+    @PreDestroy
+    public void destroy() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    /**
+     * 发送OCR识别请求
+     *
+     * @param requestBody 请求体
+     * @return OCR服务响应内容
+     * @throws IOException 没有可用节点或所有节点都请求失败
+     */
+    @Override
+    public String recognize(RequestBody requestBody) throws IOException {
+        Set<Backend> tried = new HashSet<>();
+        Backend primary = select(tried);
+        if (primary == null) {
+            throw new IOException("没有可用的OCR服务节点");
+        }
+
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        List<Call> calls = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + requestTimeoutMs;
+        boolean hedged = hedgeDelayMs <= 0;
+        int inFlight = 0;
+        IOException lastError = null;
+
+        calls.add(send(primary, requestBody, outcomes));
+        tried.add(primary);
+        inFlight++;
+
+        try {
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IOException("OCR请求超时", lastError);
+                }
+                long wait = hedged ? remaining : Math.min(remaining, hedgeDelayMs);
+                Outcome outcome = outcomes.poll(wait, TimeUnit.MILLISECONDS);
+
+                if (outcome == null) {
+                    // 超过对冲等待时间仍未返回，向另一个节点再发一次
+                    if (!hedged) {
+                        hedged = true;
+                        Backend hedge = select(tried);
+                        if (hedge != null) {
+                            log.info("OCR请求超过{}ms未返回，向{}发送对冲请求", hedgeDelayMs, hedge.url);
+                            calls.add(send(hedge, requestBody, outcomes));
+                            tried.add(hedge);
+                            inFlight++;
+                        }
+                    }
+                    continue;
+                }
+
+                if (outcome.error == null) {
+                    return outcome.body;
+                }
+
+                // 所有已发出的请求都失败时，切换到还没试过的节点
+                lastError = outcome.error;
+                inFlight--;
+                if (inFlight == 0) {
+                    Backend failover = select(tried);
+                    if (failover == null) {
+                        throw lastError;
+                    }
+                    log.warn("OCR请求失败，切换到{}：{}", failover.url, lastError.getMessage());
+                    calls.add(send(failover, requestBody, outcomes));
+                    tried.add(failover);
+                    inFlight++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("OCR请求被中断", e);
+        } finally {
+            // 取消未完成的请求（对冲请求中较慢的一个）
+            for (Call call : calls) {
+                call.cancel();
+            }
+        }
+    }
+
+    /**
+     * 健康检查
+     * 按配置的间隔请求各节点的健康检查地址，能收到非5xx响应即认为节点可用
+     */
+    @Scheduled(fixedDelayString = "${ocr.backend.health-check-interval-ms:10000}")
+    public void checkHealth() {
+        for (Backend backend : backends) {
+            HttpUrl url = HttpUrl.parse(backend.url);
+            if (url == null) {
+                continue;
+            }
+            Request request = new Request.Builder()
+                    .url(url.newBuilder().encodedPath(healthPath).build())
+                    .get()
+                    .build();
+            healthClient.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    backend.updateHealth(false);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    backend.updateHealth(response.code() < 500);
+                }
+            });
+        }
+    }
+
+    /**
+     * 选择节点：可用节点中未完成请求数最少的节点
+     *
+     * @param excluded 排除的节点（已经请求过的节点）
+     * @return 选中的节点，没有可用节点时返回null
+     */
+    private Backend select(Set<Backend> excluded) {
+        Backend selected = null;
+        for (Backend backend : backends) {
+            if (excluded.contains(backend) || !backend.healthy || backend.isOpen()) {
+                continue;
+            }
+            if (selected == null || backend.outstanding.get() < selected.outstanding.get()) {
+                selected = backend;
+            }
+        }
+        // 熔断中的节点需要通过试探名额才能使用
+        if (selected != null && !selected.tryAcquire()) {
+            Set<Backend> next = new HashSet<>(excluded);
+            next.add(selected);
+            return select(next);
+        }
+        return selected;
+    }
+
+    /**
+     * 异步发送请求，结果放入结果队列
+     *
+     * @param backend 节点
+     * @param requestBody 请求体
+     * @param outcomes 结果队列
+     * @return 请求
+     */
+    private Call send(Backend backend, RequestBody requestBody, BlockingQueue<Outcome> outcomes) {
+        Request request = new Request.Builder()
+                .url(backend.url)
+                .post(requestBody)
+                .build();
+        Call call = client.newCall(request);
+        backend.outstanding.incrementAndGet();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                backend.outstanding.decrementAndGet();
+                // 主动取消的对冲请求不算节点故障
+                if (call.isCanceled()) {
+                    backend.probing.set(false);
+                } else {
+                    backend.recordFailure(e.getMessage());
+                }
+                outcomes.offer(new Outcome(null, e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                backend.outstanding.decrementAndGet();
+                try (Response r = response) {
+                    String body = r.body() != null ? r.body().string() : "";
+                    if (!r.isSuccessful()) {
+                        backend.recordFailure("状态码" + r.code());
+                        outcomes.offer(new Outcome(null, new IOException("OCR请求失败，状态码: " + r.code() + "，响应: " + body)));
+                        return;
+                    }
+                    backend.recordSuccess();
+                    outcomes.offer(new Outcome(body, null));
+                } catch (IOException e) {
+                    if (call.isCanceled()) {
+                        backend.probing.set(false);
+                    } else {
+                        backend.recordFailure(e.getMessage());
+                    }
+                    outcomes.offer(new Outcome(null, e));
+                }
+            }
+        });
+        return call;
+    }
+
+    /**
+     * 请求结果
+     */
+    private static class Outcome {
+
+        private final String body;
+
+        private final IOException error;
+
+        Outcome(String body, IOException error) {
+            this.body = body;
+            this.error = error;
+        }
+    }
+
+    /**
+     * OCR服务节点（包含熔断状态和健康状态）
+     */
+    private class Backend {
+
+        private final String url;
+
+        /**
+         * 未完成请求数
+         */
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        /**
+         * 连续失败次数
+         */
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        /**
+         * 熔断中的试探请求名额（熔断时间到后只放行一个请求）
+         */
+        private final AtomicBoolean probing = new AtomicBoolean();
+
+        /**
+         * 熔断开始时间，0表示未熔断
+         */
+        private volatile long openedAt;
+
+        /**
+         * 健康检查结果
+         */
+        private volatile boolean healthy = true;
+
+        Backend(String url) {
+            this.url = url;
+        }
+
+        /**
+         * 是否处于熔断中且熔断时间未到
+         */
+        boolean isOpen() {
+            long opened = openedAt;
+            return opened > 0 && System.currentTimeMillis() - opened < openDurationMs;
+        }
+
+        /**
+         * 获取请求名额：未熔断时直接放行，熔断时间到后只放行一个试探请求
+         */
+        boolean tryAcquire() {
+            return openedAt == 0 || probing.compareAndSet(false, true);
+        }
+
+        void recordSuccess() {
+            consecutiveFailures.set(0);
+            if (openedAt > 0) {
+                log.info("OCR服务节点恢复：{}", url);
+                openedAt = 0;
+            }
+            probing.set(false);
+        }
+
+        void recordFailure(String reason) {
+            int failures = consecutiveFailures.incrementAndGet();
+            // 试探请求失败或连续失败达到阈值时（重新）熔断
+            if (openedAt > 0 || failures >= failureThreshold) {
+                if (openedAt == 0) {
+                    log.warn("OCR服务节点连续失败{}次，熔断{}ms：{}，原因：{}", failures, openDurationMs, url, reason);
+                }
+                openedAt = System.currentTimeMillis();
+            }
+            probing.set(false);
+        }
+
+        void updateHealth(boolean reachable) {
+            if (healthy != reachable) {
+                if (reachable) {
+                    log.info("OCR服务节点健康检查恢复：{}", url);
+                } else {
+                    log.warn("OCR服务节点健康检查失败：{}", url);
+                }
+            }
+            healthy = reachable;
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microport.healthcert.dto.HealthCertDTO;
+import com.microport.healthcert.entity.Employee;
+import com.microport.healthcert.entity.HealthCertificate;
+import com.microport.healthcert.entity.OcrBatch;
+import com.microport.healthcert.entity.OcrBatchItem;
+import com.microport.healthcert.entity.OperationLog;
+import com.microport.healthcert.mapper.EmployeeMapper;
+import com.microport.healthcert.mapper.HealthCertificateMapper;
+import com.microport.healthcert.mapper.OcrBatchItemMapper;
+import com.microport.healthcert.mapper.OcrBatchMapper;
+import com.microport.healthcert.mapper.OperationLogMapper;
+import com.microport.healthcert.service.OcrBatchService;
+import com.microport.healthcert.service.OcrService;
+import com.microport.healthcert.service.StorageService;
+import com.microport.healthcert.util.FileUtil;
+import com.microport.healthcert.util.UploadedFile;
+import com.microport.healthcert.vo.OcrBatchItemVO;
+import com.microport.healthcert.vo.OcrBatchVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 批量识别服务实现类
+ * 上传的图片和ZIP包逐个流式保存到上传目录（ZIP包边解压边保存，不整体读入内存），
+ * 每保存一张就提交到ocrBatchExecutor线程池识别，识别结果按身份证号/姓名匹配员工，
+ * 信息完整的生成待审核健康证记录，进入管理员审核列表
+ * 批次和明细的识别进度保存在ocr_batches/ocr_batch_items表中，多节点部署时前端轮询请求由任一节点处理都能查到
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class OcrBatchServiceImpl implements OcrBatchService {
+
+    /**
+     * 批次保留时间（小时）
+     */
+    private static final long BATCH_EXPIRY_HOURS = 24;
+
+    /**
+     * ZIP包文件名编码（Windows压缩的中文文件名通常为GBK，标记为UTF-8的文件名仍按UTF-8解析）
+     */
+    private static final Charset ZIP_CHARSET = Charset.forName("GBK");
+
+    private static final String STATUS_WAITING = "waiting";
+
+    private static final String STATUS_SUBMITTED = "submitted";
+
+    private static final String STATUS_UNMATCHED = "unmatched";
+
+    private static final String STATUS_INCOMPLETE = "incomplete";
+
+    private static final String STATUS_DUPLICATE = "duplicate";
+
+    private static final String STATUS_FAILED = "failed";
+
+    /**
+     * 单个批次最多处理的图片数量
+     */
+    @Value("${ocr.batch.max-files:1000}")
+    private int maxFiles;
+
+    @Autowired
+    private OcrService ocrService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private HealthCertificateMapper healthCertificateMapper;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private OperationLogMapper operationLogMapper;
+
+    @Autowired
+    private OcrBatchMapper ocrBatchMapper;
+
+    @Autowired
+    private OcrBatchItemMapper ocrBatchItemMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("ocrBatchExecutor")
+    private ThreadPoolTaskExecutor ocrBatchExecutor;
+
+    /**
+     * 创建批量识别批次
+     *
+     * @param files 上传的文件（图片或ZIP包）
+     * @param adminId 管理员ID
+     * @param adminName 管理员姓名
+     * @return 批次信息（包含批次ID）
+     */
+    @Override
+    public OcrBatchVO createBatch(MultipartFile[] files, Long adminId, String adminName) {
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("请选择要导入的文件");
+        }
+
+        OcrBatch batch = new OcrBatch();
+        batch.setBatchId(UUID.randomUUID().toString().replace("-", ""));
+        batch.setCreatorName(adminName);
+        batch.setUploadFinished(0);
+        batch.setCreatedAt(LocalDateTime.now());
+        ocrBatchMapper.insert(batch);
+        BatchUpload upload = new BatchUpload(batch.getBatchId());
+
+        try {
+            for (MultipartFile file : files) {
+                String filename = file.getOriginalFilename();
+                if (filename != null && filename.toLowerCase().endsWith(".zip")) {
+                    try (InputStream in = file.getInputStream()) {
+                        addZip(upload, in);
+                    }
+                } else if (FileUtil.isImageFilename(filename)) {
+                    try (InputStream in = file.getInputStream()) {
+                        addImage(upload, filename, in);
+                    }
+                } else {
+                    log.warn("批量导入跳过不支持的文件：{}", filename);
+                }
+            }
+        } catch (IOException e) {
+            // 上传中断或ZIP包损坏：已保存的图片继续识别，返回批次让管理员查看结果，其余文件需要重新导入
+            log.error("读取批量导入文件失败，批次ID：{}", batch.getBatchId(), e);
+            if (upload.itemCount == 0) {
+                ocrBatchMapper.deleteById(batch.getId());
+                throw new RuntimeException("读取上传文件失败：" + e.getMessage(), e);
+            }
+            upload.message = "读取上传文件失败，只导入了前" + upload.itemCount + "张图片，其余图片请重新导入：" + e.getMessage();
+        }
+
+        if (upload.itemCount == 0) {
+            ocrBatchMapper.deleteById(batch.getId());
+            throw new IllegalArgumentException("没有找到可识别的图片（支持jpg、png、bmp格式或包含这些图片的ZIP包）");
+        }
+
+        // 标记上传完成（所有明细已写入），轮询时识别完的明细数达到总数即批次完成
+        batch.setUploadFinished(1);
+        batch.setMessage(upload.message);
+        LambdaUpdateWrapper<OcrBatch> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.eq(OcrBatch::getId, batch.getId())
+               .set(OcrBatch::getUploadFinished, 1)
+               .set(OcrBatch::getMessage, upload.message);
+        ocrBatchMapper.update(null, wrapper);
+
+        saveOperationLog(adminId, adminName, "batch_import", "批量导入健康证图片" + upload.itemCount + "张，批次：" + batch.getBatchId());
+        return toVO(batch);
+    }
+
+    /**
+     * 查询批量识别批次
+     *
+     * @param batchId 批次ID
+     * @return 批次信息（包含识别进度和明细）
+     */
+    @Override
+    public OcrBatchVO getBatch(String batchId) {
+        LambdaQueryWrapper<OcrBatch> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(OcrBatch::getBatchId, batchId);
+        OcrBatch batch = ocrBatchMapper.selectOne(wrapper);
+        if (batch == null || batch.getCreatedAt().isBefore(LocalDateTime.now().minusHours(BATCH_EXPIRY_HOURS))) {
+            throw new IllegalArgumentException("批次不存在或已过期");
+        }
+        return toVO(batch);
+    }
+
+    /**
+     * 清理过期的批次
+     * 每小时执行一次，删除创建时间超过24小时的批次和明细（已生成的待审核记录不受影响，各节点执行同一条删除语句，无需互斥）
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L)
+    public void cleanupExpiredBatches() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusHours(BATCH_EXPIRY_HOURS);
+        LambdaQueryWrapper<OcrBatchItem> itemWrapper = new LambdaQueryWrapper<>();
+        itemWrapper.lt(OcrBatchItem::getCreatedAt, expiredBefore);
+        ocrBatchItemMapper.delete(itemWrapper);
+        LambdaQueryWrapper<OcrBatch> batchWrapper = new LambdaQueryWrapper<>();
+        batchWrapper.lt(OcrBatch::getCreatedAt, expiredBefore);
+        ocrBatchMapper.delete(batchWrapper);
+    }
+
+    /**
+     * 逐个解压ZIP包中的图片（不支持嵌套ZIP）
+     *
+     * @param upload 批次上传状态
+     * @param in ZIP包输入流
+     * @throws IOException IO异常
+     */
+    private void addZip(BatchUpload upload, InputStream in) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in, ZIP_CHARSET);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            String simpleName = name.substring(name.lastIndexOf('/') + 1);
+            // 跳过目录、macOS生成的元数据文件和隐藏文件
+            if (entry.isDirectory() || name.startsWith("__MACOSX/") || simpleName.startsWith(".")
+                    || !FileUtil.isImageFilename(simpleName)) {
+                continue;
+            }
+            addImage(upload, name, zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * 保存一张图片并提交识别
+     *
+     * @param upload 批次上传状态
+     * @param fileName 原始文件名
+     * @param in 图片输入流
+     * @throws IOException IO异常
+     */
+    private void addImage(BatchUpload upload, String fileName, InputStream in) throws IOException {
+        // 超过上限的图片不再保存，在批次提示信息中说明
+        if (upload.itemCount >= maxFiles) {
+            upload.message = "单次最多导入" + maxFiles + "张图片，超出部分未处理";
+            return;
+        }
+
+        OcrBatchItem item = new OcrBatchItem();
+        item.setBatchId(upload.batchId);
+        item.setFileName(fileName);
+        item.setStatus(STATUS_WAITING);
+        item.setCreatedAt(LocalDateTime.now());
+        ocrBatchItemMapper.insert(item);
+        upload.itemCount++;
+
+        UploadedFile uploaded;
+        try {
+            uploaded = FileUtil.saveStream(in, fileName, storageService, FileUtil.MAX_IMAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            finish(item, STATUS_FAILED, e.getMessage());
+            return;
+        } catch (IOException e) {
+            // 读取中断的图片标记为失败，批次才能完成
+            finish(item, STATUS_FAILED, "读取文件失败：" + e.getMessage());
+            throw e;
+        }
+        item.setImagePath(uploaded.getRelativePath());
+
+        try {
+            ocrBatchExecutor.execute(() -> process(upload, item, uploaded));
+        } catch (TaskRejectedException e) {
+            log.warn("批量识别队列已满，批次ID：{}", upload.batchId);
+            finish(item, STATUS_FAILED, "识别服务繁忙，请稍后重新导入");
+        }
+    }
+
+    /**
+     * 识别一张图片并生成待审核记录（在ocrBatchExecutor线程中运行）
+     *
+     * @param upload 批次上传状态
+     * @param item 明细
+     * @param uploaded 已保存的图片
+     */
+    private void process(BatchUpload upload, OcrBatchItem item, UploadedFile uploaded) {
+        String claimedCertNumber = null;
+        try {
+            // OCR服务不可用时抛出异常，明细标记为识别失败（而不是未识别到姓名）
+            HealthCertDTO result = ocrService.recognize(uploaded.getFile(), uploaded.getSha256());
+            result.setImagePath(item.getImagePath());
+            item.setResultJson(objectMapper.writeValueAsString(result));
+
+            // 匹配员工
+            Employee employee = matchEmployee(result, item);
+            if (employee == null) {
+                finish(item, STATUS_UNMATCHED, item.getMessage() != null ? item.getMessage() : "未匹配到员工");
+                return;
+            }
+            item.setEmployeeId(employee.getId());
+            item.setSfUserId(employee.getSfUserId());
+
+            // 检查必填字段
+            if (isBlank(result.getCertNumber()) || result.getIssueDate() == null || result.getExpiryDate() == null) {
+                finish(item, STATUS_INCOMPLETE, "健康证编号或日期未识别，请让员工手动提交");
+                return;
+            }
+
+            // 同一批次中相同编号的图片只生成一条记录（多个线程并行识别，先登记的生成）
+            if (!upload.certNumbers.add(result.getCertNumber())) {
+                finish(item, STATUS_DUPLICATE, "同一批次中健康证编号重复：" + result.getCertNumber());
+                return;
+            }
+            claimedCertNumber = result.getCertNumber();
+
+            // 已存在未被拒绝的相同编号记录时不重复生成
+            LambdaQueryWrapper<HealthCertificate> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(HealthCertificate::getCertNumber, result.getCertNumber())
+                   .ne(HealthCertificate::getStatus, "rejected");
+            if (healthCertificateMapper.selectCount(wrapper) > 0) {
+                finish(item, STATUS_DUPLICATE, "健康证编号已存在：" + result.getCertNumber());
+                return;
+            }
+
+            HealthCertificate cert = new HealthCertificate();
+            BeanUtils.copyProperties(result, cert);
+            cert.setEmployeeId(employee.getId());
+            cert.setSfUserId(employee.getSfUserId());
+            cert.setEmployeeName(employee.getName());
+            cert.setOcrRawData(objectMapper.writeValueAsString(result));
+            cert.setStatus("pending"); // 状态为待审核
+            cert.setSubmitTime(LocalDateTime.now());
+            cert.setIsCurrent(0); // 待审核状态时设为0，审核通过后再设为1
+            cert.setVersion(1);
+            healthCertificateMapper.insert(cert);
+
+            item.setCertId(cert.getId());
+            finish(item, STATUS_SUBMITTED, null);
+        } catch (Exception e) {
+            // 生成记录失败时释放登记的编号，同批次中相同编号的其他图片仍可生成
+            if (claimedCertNumber != null) {
+                upload.certNumbers.remove(claimedCertNumber);
+            }
+            log.error("批量识别失败，批次ID：{}，文件：{}", upload.batchId, item.getFileName(), e);
+            finish(item, STATUS_FAILED, "识别失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 匹配员工
+     * 优先按身份证号匹配（员工以往提交过的健康证），其次按姓名匹配在职员工（同名时不匹配）
+     *
+     * @param result OCR识别结果
+     * @param item 明细（未匹配时写入原因）
+     * @return 员工信息，未匹配时返回null
+     */
+    private Employee matchEmployee(HealthCertDTO result, OcrBatchItem item) {
+        if (!isBlank(result.getIdCard())) {
+            LambdaQueryWrapper<HealthCertificate> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(HealthCertificate::getIdCard, result.getIdCard())
+                   .isNotNull(HealthCertificate::getEmployeeId)
+                   .orderByDesc(HealthCertificate::getCreatedAt)
+                   .last("LIMIT 1");
+            HealthCertificate previous = healthCertificateMapper.selectOne(wrapper);
+            if (previous != null) {
+                Employee employee = employeeMapper.selectById(previous.getEmployeeId());
+                if (employee != null && Integer.valueOf(1).equals(employee.getIsActive())) {
+                    return employee;
+                }
+            }
+        }
+
+        if (isBlank(result.getEmployeeName())) {
+            item.setMessage("未识别到姓名");
+            return null;
+        }
+        LambdaQueryWrapper<Employee> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Employee::getName, result.getEmployeeName().trim())
+               .eq(Employee::getIsActive, 1);
+        List<Employee> employees = employeeMapper.selectList(wrapper);
+        if (employees.size() == 1) {
+            return employees.get(0);
+        }
+        item.setMessage(employees.isEmpty()
+                ? "未找到员工：" + result.getEmployeeName()
+                : "存在" + employees.size() + "名同名员工：" + result.getEmployeeName());
+        return null;
+    }
+
+    /**
+     * 完成一条明细
+     * 状态和识别结果在同一条语句中写入，轮询读到最终状态时其他字段已可见
+     */
+    private void finish(OcrBatchItem item, String status, String message) {
+        item.setMessage(message);
+        item.setStatus(status);
+        LambdaUpdateWrapper<OcrBatchItem> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.eq(OcrBatchItem::getId, item.getId())
+               .set(OcrBatchItem::getStatus, status)
+               .set(OcrBatchItem::getMessage, message)
+               .set(OcrBatchItem::getImagePath, item.getImagePath())
+               .set(OcrBatchItem::getEmployeeId, item.getEmployeeId())
+               .set(OcrBatchItem::getSfUserId, item.getSfUserId())
+               .set(OcrBatchItem::getCertId, item.getCertId())
+               .set(OcrBatchItem::getResultJson, item.getResultJson());
+        ocrBatchItemMapper.update(null, wrapper);
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 转换为VO
+     *
+     * @param batch 批次
+     * @return 批次VO
+     */
+    private OcrBatchVO toVO(OcrBatch batch) {
+        OcrBatchVO vo = new OcrBatchVO();
+        vo.setBatchId(batch.getBatchId());
+        vo.setCreatorName(batch.getCreatorName());
+        vo.setCreatedAt(batch.getCreatedAt());
+        vo.setMessage(batch.getMessage());
+
+        LambdaQueryWrapper<OcrBatchItem> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(OcrBatchItem::getBatchId, batch.getBatchId())
+               .orderByAsc(OcrBatchItem::getId);
+        List<OcrBatchItem> batchItems = ocrBatchItemMapper.selectList(wrapper);
+
+        List<OcrBatchItemVO> items = new ArrayList<>(batchItems.size());
+        int processed = 0;
+        int submitted = 0;
+        for (OcrBatchItem item : batchItems) {
+            OcrBatchItemVO itemVO = new OcrBatchItemVO();
+            itemVO.setStatus(item.getStatus());
+            itemVO.setFileName(item.getFileName());
+            itemVO.setImagePath(item.getImagePath());
+            itemVO.setEmployeeId(item.getEmployeeId());
+            itemVO.setSfUserId(item.getSfUserId());
+            itemVO.setCertId(item.getCertId());
+            itemVO.setResult(parseResult(item));
+            itemVO.setMessage(item.getMessage());
+            items.add(itemVO);
+            if (!STATUS_WAITING.equals(item.getStatus())) {
+                processed++;
+            }
+            if (STATUS_SUBMITTED.equals(item.getStatus())) {
+                submitted++;
+            }
+        }
+        vo.setItems(items);
+        vo.setTotal(items.size());
+        vo.setProcessed(processed);
+        vo.setSubmitted(submitted);
+        boolean uploadFinished = Integer.valueOf(1).equals(batch.getUploadFinished());
+        vo.setStatus(uploadFinished && processed >= items.size() ? "completed" : "processing");
+        return vo;
+    }
+
+    /**
+     * 解析明细的识别结果
+     *
+     * @param item 明细
+     * @return 识别结果，未识别或解析失败时返回null
+     */
+    private HealthCertDTO parseResult(OcrBatchItem item) {
+        if (item.getResultJson() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(item.getResultJson(), HealthCertDTO.class);
+        } catch (Exception e) {
+            log.error("解析批量识别结果失败，批次ID：{}，文件：{}", item.getBatchId(), item.getFileName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存操作日志
+     */
+    private void saveOperationLog(Long userId, String userName, String operation, String description) {
+        OperationLog log = new OperationLog();
+        log.setUserId(userId);
+        log.setUserName(userName);
+        log.setUserType("admin");
+        log.setOperation(operation);
+        log.setDescription(description);
+        log.setResult("success");
+        log.setCreatedAt(LocalDateTime.now());
+        operationLogMapper.insert(log);
+    }
+
+    /**
+     * 批次上传状态（只在处理上传请求的节点上使用，识别任务也在该节点的线程池中执行）
+     */
+    private static class BatchUpload {
+
+        private final String batchId;
+
+        /**
+         * 本批次已登记的健康证编号（并行识别时同一编号只生成一条记录）
+         */
+        private final Set<String> certNumbers = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 已写入的明细数量（只在上传请求线程中修改）
+         */
+        private int itemCount;
+
+        private String message;
+
+        BatchUpload(String batchId) {
+            this.batchId = batchId;
+        }
+    }
+}
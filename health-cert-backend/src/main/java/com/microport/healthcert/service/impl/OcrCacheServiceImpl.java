@@ -0,0 +1,169 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microport.healthcert.dto.HealthCertDTO;
+import com.microport.healthcert.entity.OcrResultCache;
+import com.microport.healthcert.mapper.OcrResultCacheMapper;
+import com.microport.healthcert.service.OcrCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OCR识别结果缓存服务实现类
+ * 两级缓存：内存LRU（容量有限，毫秒级返回）+ 数据库缓存表（持久化，重启和多实例间共享）
+ * 
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class OcrCacheServiceImpl implements OcrCacheService {
+
+    @Autowired
+    private OcrResultCacheMapper ocrResultCacheMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 内存缓存最大条目数
+     */
+    @Value("${ocr.cache.max-size:1000}")
+    private Integer maxSize;
+
+    /**
+     * 数据库缓存保留天数（超过该天数未命中的记录会被清理）
+     */
+    @Value("${ocr.cache.retention-days:90}")
+    private Integer retentionDays;
+
+    /**
+     * 内存LRU缓存（访问顺序，超过容量时淘汰最久未访问的条目）
+     */
+    private final Map<String, HealthCertDTO> memoryCache = new LinkedHashMap<String, HealthCertDTO>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HealthCertDTO> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 查询缓存的识别结果
+     * 
+     * @param imageHash 图片内容SHA-256哈希
+     * @return 识别结果副本，未命中返回null
+     */
+    @Override
+    public HealthCertDTO get(String imageHash) {
+        // 1. 查内存缓存
+        HealthCertDTO cached;
+        synchronized (memoryCache) {
+            cached = memoryCache.get(imageHash);
+        }
+        if (cached != null) {
+            return copyOf(cached);
+        }
+
+        // 2. 查数据库缓存表
+        try {
+            LambdaQueryWrapper<OcrResultCache> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(OcrResultCache::getImageHash, imageHash);
+            OcrResultCache entity = ocrResultCacheMapper.selectOne(wrapper);
+            if (entity == null) {
+                return null;
+            }
+
+            HealthCertDTO result = objectMapper.readValue(entity.getResultJson(), HealthCertDTO.class);
+            synchronized (memoryCache) {
+                memoryCache.put(imageHash, result);
+            }
+
+            // 更新命中统计（用于清理长期未使用的缓存）
+            LambdaUpdateWrapper<OcrResultCache> updateWrapper = new LambdaUpdateWrapper<>();
+            updateWrapper.eq(OcrResultCache::getId, entity.getId())
+                         .setSql("hit_count = hit_count + 1")
+                         .set(OcrResultCache::getLastHitAt, LocalDateTime.now());
+            ocrResultCacheMapper.update(null, updateWrapper);
+
+            return copyOf(result);
+        } catch (Exception e) {
+            // 缓存读取失败不影响识别，按未命中处理
+            log.warn("读取OCR缓存失败，imageHash：{}", imageHash, e);
+            return null;
+        }
+    }
+
+    /**
+     * 缓存识别结果
+     * 
+     * @param imageHash 图片内容SHA-256哈希
+     * @param result 解析后的识别结果
+     * @param recTexts OCR原始识别文本
+     */
+    @Override
+    public void put(String imageHash, HealthCertDTO result, List<String> recTexts) {
+        // 图片路径与每次上传相关，不写入缓存
+        HealthCertDTO value = copyOf(result);
+        value.setImagePath(null);
+        synchronized (memoryCache) {
+            memoryCache.put(imageHash, value);
+        }
+
+        try {
+            OcrResultCache entity = new OcrResultCache();
+            entity.setImageHash(imageHash);
+            entity.setResultJson(objectMapper.writeValueAsString(value));
+            entity.setRecTexts(objectMapper.writeValueAsString(recTexts));
+            entity.setHitCount(0);
+            entity.setCreatedAt(LocalDateTime.now());
+            ocrResultCacheMapper.insert(entity);
+        } catch (DuplicateKeyException e) {
+            // 相同图片并发识别，已由其他请求写入
+            log.debug("OCR缓存已存在，imageHash：{}", imageHash);
+        } catch (Exception e) {
+            log.warn("写入OCR缓存失败，imageHash：{}", imageHash, e);
+        }
+    }
+
+    /**
+     * 清理长期未命中的数据库缓存
+     * cron表达式: 0 30 2 * * ? (每天凌晨2点30分执行)
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void cleanupExpiredCache() {
+        try {
+            LocalDateTime threshold = LocalDateTime.now().minusDays(retentionDays);
+            LambdaQueryWrapper<OcrResultCache> wrapper = new LambdaQueryWrapper<>();
+            wrapper.lt(OcrResultCache::getCreatedAt, threshold)
+                   .and(w -> w.isNull(OcrResultCache::getLastHitAt).or().lt(OcrResultCache::getLastHitAt, threshold));
+            int deletedCount = ocrResultCacheMapper.delete(wrapper);
+            log.info("OCR缓存清理完成，删除{}条{}天未命中的缓存", deletedCount, retentionDays);
+        } catch (Exception e) {
+            log.error("OCR缓存清理失败", e);
+        }
+    }
+
+    /**
+     * 复制识别结果，避免调用方修改缓存中的对象
+     * 
+     * @param source 识别结果
+     * @return 识别结果副本
+     */
+    private HealthCertDTO copyOf(HealthCertDTO source) {
+        HealthCertDTO copy = new HealthCertDTO();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+}
@@ -2,21 +2,28 @@ package com.microport.healthcert.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.microport.healthcert.dto.HealthCertDTO;
+import com.microport.healthcert.service.OcrBackendService;
+import com.microport.healthcert.service.OcrCacheService;
 import com.microport.healthcert.service.OcrService;
+import com.microport.healthcert.util.ImagePreprocessor;
+import com.microport.healthcert.util.OcrFieldExtractor;
 import okhttp3.*;
+import lombok.extern.slf4j.Slf4j;
+import okio.BufferedSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * OCR服务实现类
@@ -25,97 +32,138 @@ import java.util.regex.Pattern;
  * @author system
  * @date 2024
  */
+@Slf4j
 @Service
 public class OcrServiceImpl implements OcrService {
 
     /**
-     * OCR服务地址（PaddleOCR）
-     * 使用JSON格式，Base64编码图片数据
+     * JSON解析器（线程安全，全局复用）
      */
-    private static final String OCR_URL = "http://10.11.100.238:8081/ocr";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     /**
-     * 日期格式解析器（支持多种格式）
+     * 请求体JSON前缀和后缀，中间为Base64编码的图片数据
+     * 格式：{"file": "<base64>", "fileType": 1}，fileType 1表示图片
      */
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-        DateTimeFormatter.ofPattern("yyyy/MM/dd"),
-        DateTimeFormatter.ofPattern("yyyy年MM月dd日"),
-        DateTimeFormatter.ofPattern("yyyy.MM.dd")
-    };
+    private static final byte[] BODY_PREFIX = "{\"file\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] BODY_SUFFIX = "\",\"fileType\":1}".getBytes(StandardCharsets.US_ASCII);
+
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * 发送给OCR服务的图片长边像素数（超过时缩放）
+     */
+    @Value("${ocr.image.max-side:1600}")
+    private int imageMaxSide = 1600;
+
+    /**
+     * 缩放后重新编码的JPEG质量（0-1）
+     */
+    @Value("${ocr.image.jpeg-quality:0.85}")
+    private float imageJpegQuality = 0.85f;
+
+    /**
+     * OCR服务节点管理（PaddleOCR，JSON格式，Base64编码图片数据）
+     */
+    @Autowired
+    private OcrBackendService ocrBackendService;
+
+    /**
+     * OCR识别结果缓存（直接new本类做解析测试时为null）
+     */
+    @Autowired(required = false)
+    private OcrCacheService ocrCacheService;
 
     /**
      * 调用OCR API识别健康证
      * 使用Base64编码方式（JSON格式）调用PaddleOCR服务
+     * 相同内容的图片（SHA-256相同）直接返回缓存结果，不再调用OCR服务
+     * 图片先经过方向校正和缩放（见ImagePreprocessor），请求体边编码边发送，不在内存中拼接完整JSON
      * 
      * @param imageFile 图片文件
      * @return OCR识别结果（HealthCertDTO），如果调用失败返回空对象
      */
     @Override
     public HealthCertDTO callOcrApi(File imageFile) {
+        String imageHash;
         try {
-            OkHttpClient client = new OkHttpClient();
-            
-            // 读取图片文件并转换为Base64编码
-            byte[] imageBytes = Files.readAllBytes(imageFile.toPath());
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
-            
-            // 构建JSON请求体（根据PaddleOCR实际API格式）
-            ObjectMapper objectMapper = new ObjectMapper();
-            Map<String, Object> requestData = new HashMap<>();
-            requestData.put("file", base64Image);  // 使用file字段，不是image
-            requestData.put("fileType", 1);       // 文件类型：1表示图片
-            
-            String jsonBody = objectMapper.writeValueAsString(requestData);
-            
-            // 创建请求体
-            RequestBody requestBody = RequestBody.create(
-                jsonBody, 
-                MediaType.parse("application/json; charset=utf-8")
-            );
-            
-            // 创建请求
-            Request request = new Request.Builder()
-                    .url(OCR_URL)
-                    .post(requestBody)
-                    .addHeader("Content-Type", "application/json")
-                    .build();
-            
-            System.out.println("调用OCR服务: " + OCR_URL);
-            System.out.println("图片大小: " + imageBytes.length + " bytes");
-            
-            // 执行请求
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    System.err.println("OCR请求失败，状态码: " + response.code());
-                    String errorBody = response.body() != null ? response.body().string() : "";
-                    System.err.println("错误响应: " + errorBody);
-                    return new HealthCertDTO();
-                }
-                
-                // 获取响应体
-                String responseBody = response.body() != null ? response.body().string() : "";
-                if (responseBody.isEmpty()) {
-                    System.err.println("OCR响应为空");
-                    return new HealthCertDTO();
-                }
-                
-                // 打印OCR原始响应（用于调试）
-                System.out.println("OCR原始响应: " + responseBody.substring(0, Math.min(500, responseBody.length())));
-                
-                // 解析OCR结果
-                HealthCertDTO result = parseOcrResult(responseBody);
-                System.out.println("OCR解析结果: " + result);
-                return result;
-            }
+            // 图片内容哈希（基于原图，流式计算）
+            imageHash = DigestUtil.sha256Hex(imageFile);
+        } catch (Exception e) {
+            log.error("OCR调用失败，计算图片哈希失败：{}", imageFile, e);
+            return new HealthCertDTO();
+        }
+        return callOcrApi(imageFile, imageHash);
+    }
+
+    /**
+     * 调用OCR API识别健康证（图片哈希已在保存时计算）
+     * 
+     * @param imageFile 图片文件
+     * @param imageHash 图片内容SHA-256
+     * @return OCR识别结果（HealthCertDTO），如果调用失败返回空对象
+     */
+    @Override
+    public HealthCertDTO callOcrApi(File imageFile, String imageHash) {
+        try {
+            return recognize(imageFile, imageHash);
         } catch (Exception e) {
             // OCR调用失败，记录日志并返回空结果，允许手动填写
-            System.err.println("OCR调用失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("OCR调用失败，图片：{}", imageHash, e);
             return new HealthCertDTO();
         }
     }
 
+    /**
+     * 识别健康证，OCR服务调用失败时抛出异常（批量识别需要区分"识别失败"和"未识别到内容"）
+     * 
+     * @param imageFile 图片文件
+     * @param imageHash 图片内容SHA-256
+     * @return OCR识别结果（HealthCertDTO）
+     * @throws IOException 图片无法处理、OCR服务不可用或响应格式错误
+     */
+    @Override
+    public HealthCertDTO recognize(File imageFile, String imageHash) throws IOException {
+        // 按图片内容哈希查询缓存
+        if (ocrCacheService != null) {
+            HealthCertDTO cached = ocrCacheService.get(imageHash);
+            if (cached != null) {
+                log.debug("OCR缓存命中: {}", imageHash);
+                return cached;
+            }
+        }
+
+        // 方向校正、缩放到OCR所需分辨率并重新编码
+        byte[] imageBytes = ImagePreprocessor.prepareForOcr(imageFile, imageMaxSide, imageJpegQuality);
+
+        log.debug("图片大小: {} bytes，预处理后: {} bytes", imageFile.length(), imageBytes.length);
+
+        // 发送请求（节点选择、熔断、对冲请求由OcrBackendService处理）
+        String responseBody = ocrBackendService.recognize(new Base64ImageRequestBody(imageBytes));
+        if (responseBody.isEmpty()) {
+            throw new IOException("OCR响应为空");
+        }
+
+        // OCR原始响应包含健康证上的姓名、身份证号等个人信息，只在调试级别输出
+        log.debug("OCR原始响应: {}", responseBody.substring(0, Math.min(500, responseBody.length())));
+
+        // 解析OCR结果
+        JsonNode prunedResultNode = extractPrunedResult(responseBody);
+        List<String> recTexts = readRecTexts(prunedResultNode);
+        if (recTexts == null) {
+            throw new IOException("OCR响应格式错误");
+        }
+        HealthCertDTO result = parseRecTexts(recTexts, readRecBoxes(prunedResultNode, recTexts.size()));
+        log.debug("OCR解析结果: {}", result);
+
+        // 只缓存识别成功的结果，失败时下次上传仍会重新识别
+        if (ocrCacheService != null) {
+            ocrCacheService.put(imageHash, result, recTexts);
+        }
+        return result;
+    }
+
     /**
      * 解析OCR结果为HealthCertDTO
      * 从识别文本中提取健康证字段
@@ -125,255 +173,170 @@ public class OcrServiceImpl implements OcrService {
      */
     @Override
     public HealthCertDTO parseOcrResult(String ocrJson) {
-        HealthCertDTO dto = new HealthCertDTO();
+        JsonNode prunedResultNode = extractPrunedResult(ocrJson);
+        List<String> recTexts = readRecTexts(prunedResultNode);
+        if (recTexts == null) {
+            return new HealthCertDTO();
+        }
+        return parseRecTexts(recTexts, readRecBoxes(prunedResultNode, recTexts.size()));
+    }
 
+    /**
+     * 从OCR返回的JSON中提取prunedResult节点
+     * PaddleOCR响应结构：result -> ocrResults -> prunedResult -> rec_texts/rec_boxes
+     * 
+     * @param ocrJson OCR返回的JSON字符串
+     * @return prunedResult节点，响应格式错误时返回null
+     */
+    private JsonNode extractPrunedResult(String ocrJson) {
         try {
             // 解析JSON
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(ocrJson);
+            JsonNode jsonNode = OBJECT_MAPPER.readTree(ocrJson);
 
-            // PaddleOCR响应结构：result -> ocrResults -> prunedResult -> rec_texts
             JsonNode resultNode = jsonNode.get("result");
             if (resultNode == null || !resultNode.isObject()) {
-                System.err.println("OCR响应中没有result字段，响应结构: " + jsonNode.toString());
-                return dto;
+                log.warn("OCR响应中没有result字段");
+                log.debug("OCR响应结构: {}", jsonNode);
+                return null;
             }
             
             JsonNode ocrResultsNode = resultNode.get("ocrResults");
             if (ocrResultsNode == null || !ocrResultsNode.isArray() || ocrResultsNode.size() == 0) {
-                System.err.println("OCR响应中没有ocrResults字段或为空");
-                return dto;
+                log.warn("OCR响应中没有ocrResults字段或为空");
+                return null;
             }
             
             // 取第一个OCR结果
             JsonNode firstResult = ocrResultsNode.get(0);
             if (firstResult == null || !firstResult.isObject()) {
-                System.err.println("OCR结果格式错误");
-                return dto;
+                log.warn("OCR结果格式错误");
+                return null;
             }
             
             JsonNode prunedResultNode = firstResult.get("prunedResult");
             if (prunedResultNode == null || !prunedResultNode.isObject()) {
-                System.err.println("OCR响应中没有prunedResult字段");
-                return dto;
-            }
-            
-            // 提取rec_texts字段（字符串数组）
-            JsonNode recTextsNode = prunedResultNode.get("rec_texts");
-            if (recTextsNode == null || !recTextsNode.isArray()) {
-                System.err.println("OCR响应中没有rec_texts字段");
-                return dto;
-            }
-
-            // 将所有识别文本合并
-            // PaddleOCR返回的rec_texts是字符串数组: ["文本1", "文本2", ...]
-            StringBuilder allText = new StringBuilder();
-            for (JsonNode textNode : recTextsNode) {
-                if (textNode.isTextual()) {
-                    allText.append(textNode.asText()).append(" ");
-                }
+                log.warn("OCR响应中没有prunedResult字段");
+                return null;
             }
-
-            String ocrText = allText.toString();
-            
-            // 打印OCR识别文本（用于调试）
-            System.out.println("OCR识别文本: " + ocrText);
-
-            // 从识别文本中提取健康证字段
-            // 提取编号
-            dto.setCertNumber(extractCertNumber(ocrText));
-            // 提取姓名
-            dto.setEmployeeName(extractName(ocrText));
-            // 提取性别
-            dto.setGender(extractGender(ocrText));
-            // 提取年龄
-            dto.setAge(extractAge(ocrText));
-            // 提取身份证号
-            dto.setIdCard(extractIdCard(ocrText));
-            // 提取健康证类别
-            dto.setCategory(extractCategory(ocrText));
-            // 提取发证日期
-            dto.setIssueDate(extractIssueDate(ocrText));
-            // 提取有效期至
-            dto.setExpiryDate(extractExpiryDate(ocrText));
-            // 提取发证机构
-            dto.setIssuingAuthority(extractIssuingAuthority(ocrText));
-
+            return prunedResultNode;
         } catch (Exception e) {
-            // 解析失败，记录日志并返回空对象
-            System.err.println("OCR解析失败: " + e.getMessage());
-            e.printStackTrace();
-            return new HealthCertDTO();
+            // 解析失败，记录日志
+            log.error("OCR响应解析失败", e);
+            return null;
         }
-
-        return dto;
     }
 
     /**
-     * 提取健康证编号
+     * 读取rec_texts识别文本
+     * PaddleOCR返回的rec_texts是字符串数组: ["文本1", "文本2", ...]
+     * 
+     * @param prunedResultNode prunedResult节点
+     * @return 识别文本列表，没有rec_texts字段时返回null
      */
-    private String extractCertNumber(String text) {
-        // 匹配编号模式（如：编号：XXXXX 或 证号：XXXXX）
-        Pattern pattern = Pattern.compile("(?:编号|证号)[：:：]?\\s*([A-Z0-9]{6,20})", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            return matcher.group(1);
+    private List<String> readRecTexts(JsonNode prunedResultNode) {
+        if (prunedResultNode == null) {
+            return null;
+        }
+        JsonNode recTextsNode = prunedResultNode.get("rec_texts");
+        if (recTextsNode == null || !recTextsNode.isArray()) {
+            log.warn("OCR响应中没有rec_texts字段");
+            return null;
         }
-        return null;
-    }
 
-    /**
-     * 提取姓名
-     */
-    private String extractName(String text) {
-        // 匹配姓名模式（如：姓名：张勃 或 姓名 张勃）
-        Pattern pattern = Pattern.compile("(?:姓名|名字)[：:：\\s]+([\\u4e00-\\u9fa5]{2,4})", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            String name = matcher.group(1);
-            System.out.println("提取到姓名: " + name);
-            return name;
+        List<String> recTexts = new ArrayList<>(recTextsNode.size());
+        for (JsonNode textNode : recTextsNode) {
+            if (textNode.isTextual()) {
+                recTexts.add(textNode.asText());
+            }
         }
-        return null;
+        return recTexts;
     }
 
     /**
-     * 提取性别
+     * 读取rec_boxes文本框坐标（[x1, y1, x2, y2]），用于按版面顺序排列识别文本
+     * 
+     * @param prunedResultNode prunedResult节点
+     * @param textCount 识别文本数量
+     * @return 文本框坐标列表，没有rec_boxes字段或数量与文本不一致时返回null
      */
-    private String extractGender(String text) {
-        // 匹配性别模式
-        if (text.contains("男") || text.contains("M") || text.contains("male")) {
-            return "男";
-        } else if (text.contains("女") || text.contains("F") || text.contains("female")) {
-            return "女";
+    private List<int[]> readRecBoxes(JsonNode prunedResultNode, int textCount) {
+        JsonNode recBoxesNode = prunedResultNode.get("rec_boxes");
+        if (recBoxesNode == null || !recBoxesNode.isArray() || recBoxesNode.size() != textCount) {
+            return null;
         }
-        return null;
-    }
 
-    /**
-     * 提取年龄
-     */
-    private Integer extractAge(String text) {
-        // 匹配年龄模式（如：年龄：40 或 年龄 40）
-        Pattern pattern = Pattern.compile("(?:年龄|岁)[：:：\\s]+(\\d{1,3})(?:岁)?");
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            try {
-                Integer age = Integer.parseInt(matcher.group(1));
-                System.out.println("提取到年龄: " + age);
-                return age;
-            } catch (NumberFormatException e) {
+        List<int[]> boxes = new ArrayList<>(textCount);
+        for (JsonNode boxNode : recBoxesNode) {
+            if (!boxNode.isArray() || boxNode.size() < 4) {
                 return null;
             }
+            boxes.add(new int[]{boxNode.get(0).asInt(), boxNode.get(1).asInt(), boxNode.get(2).asInt(), boxNode.get(3).asInt()});
         }
-        return null;
+        return boxes;
     }
 
     /**
-     * 提取身份证号
+     * 从rec_texts识别文本中提取健康证字段
+     * 
+     * @param recTexts 识别文本列表
+     * @param recBoxes 文本框坐标列表（可为null）
+     * @return 解析后的HealthCertDTO
      */
-    private String extractIdCard(String text) {
-        // 匹配身份证号模式（18位），支持多种格式
-        Pattern pattern1 = Pattern.compile("(?:身份证|身份证号|证件号)[：:：\\s]+(\\d{17}[\\dXx])");
-        Matcher matcher1 = pattern1.matcher(text);
-        if (matcher1.find()) {
-            String idCard = matcher1.group(1).toUpperCase();
-            System.out.println("提取到身份证号: " + idCard);
-            return idCard;
-        }
-        // 如果没有标签，直接匹配18位数字（可能是身份证号）
-        Pattern pattern2 = Pattern.compile("\\b(\\d{17}[\\dXx])\\b");
-        Matcher matcher2 = pattern2.matcher(text);
-        if (matcher2.find()) {
-            String idCard = matcher2.group(1).toUpperCase();
-            // 验证是否是有效的身份证号格式
-            if (idCard.matches("\\d{17}[\\dXx]")) {
-                System.out.println("提取到身份证号(无标签): " + idCard);
-                return idCard;
-            }
+    private HealthCertDTO parseRecTexts(List<String> recTexts, List<int[]> recBoxes) {
+        try {
+            // 识别文本包含个人信息，只在调试级别输出
+            log.debug("OCR识别文本: {}", recTexts);
+            return OcrFieldExtractor.extract(recTexts, recBoxes);
+        } catch (Exception e) {
+            // 解析失败，记录日志并返回空对象
+            log.error("OCR识别文本解析失败", e);
+            return new HealthCertDTO();
         }
-        return null;
     }
 
     /**
-     * 提取健康证类别
+     * OCR请求体
+     * 写出时直接把图片数据Base64编码到网络流中，避免构建Base64字符串和JSON字符串两份大对象
      */
-    private String extractCategory(String text) {
-        // 匹配类别模式（如：类别：食品生产经营 或 类别 食品生产经营）
-        // 支持多种分隔符：中文冒号、英文冒号、空格等
-        Pattern pattern = Pattern.compile("(?:类别|类型)[：:：\\s]+([\\u4e00-\\u9fa5]{2,30})");
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            String category = matcher.group(1);
-            System.out.println("提取到类别: " + category);
-            return category;
-        }
-        return null;
-    }
+    private static class Base64ImageRequestBody extends RequestBody {
 
-    /**
-     * 提取发证日期
-     */
-    private LocalDate extractIssueDate(String text) {
-        // 匹配发证日期模式（支持多种格式）
-        Pattern pattern = Pattern.compile("(?:发证日期|发证时间|签发日期)[：:：\\s]+(\\d{4}[-/年.]\\d{1,2}[-/月.]\\d{1,2}[日]?)");
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            String dateStr = matcher.group(1).replace("年", "-").replace("月", "-").replace("日", "").replace(".", "-");
-            LocalDate date = parseDate(dateStr);
-            if (date != null) {
-                System.out.println("提取到发证日期: " + date);
-            }
-            return date;
+        private final byte[] imageBytes;
+
+        Base64ImageRequestBody(byte[] imageBytes) {
+            this.imageBytes = imageBytes;
         }
-        return null;
-    }
 
-    /**
-     * 提取有效期至
-     */
-    private LocalDate extractExpiryDate(String text) {
-        // 匹配有效期模式（支持多种格式）
-        Pattern pattern = Pattern.compile("(?:有效期|有效期至|到期日期|到期时间)[：:：\\s]+(\\d{4}[-/年.]\\d{1,2}[-/月.]\\d{1,2}[日]?)");
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            String dateStr = matcher.group(1).replace("年", "-").replace("月", "-").replace("日", "").replace(".", "-");
-            LocalDate date = parseDate(dateStr);
-            if (date != null) {
-                System.out.println("提取到有效期: " + date);
-            }
-            return date;
+        @Override
+        public MediaType contentType() {
+            return JSON_MEDIA_TYPE;
         }
-        return null;
-    }
 
-    /**
-     * 提取发证机构
-     */
-    private String extractIssuingAuthority(String text) {
-        // 匹配发证机构模式（如：发证机构：嘉兴市南湖区大桥镇卫生院）
-        Pattern pattern = Pattern.compile("(?:发证机构|签发机构)[：:：\\s]+([\\u4e00-\\u9fa5]{5,50})");
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            String authority = matcher.group(1);
-            System.out.println("提取到发证机构: " + authority);
-            return authority;
+        @Override
+        public long contentLength() {
+            // Base64编码长度：每3字节编码为4字符（含填充）
+            long base64Length = (imageBytes.length + 2L) / 3 * 4;
+            return BODY_PREFIX.length + base64Length + BODY_SUFFIX.length;
         }
-        return null;
-    }
 
-    /**
-     * 解析日期字符串
-     */
-    private LocalDate parseDate(String dateStr) {
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDate.parse(dateStr, formatter);
-            } catch (DateTimeParseException e) {
-                // 继续尝试下一个格式
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(BODY_PREFIX);
+            // 编码器close时会写出末尾填充，但不能关闭底层的sink
+            OutputStream sinkStream = new FilterOutputStream(sink.outputStream()) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            try (OutputStream base64 = Base64.getEncoder().wrap(sinkStream)) {
+                base64.write(imageBytes);
             }
+            sink.write(BODY_SUFFIX);
         }
-        return null;
     }
 }
-
@@ -0,0 +1,215 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microport.healthcert.dto.HealthCertDTO;
+import com.microport.healthcert.entity.OcrTask;
+import com.microport.healthcert.mapper.OcrTaskMapper;
+import com.microport.healthcert.service.OcrService;
+import com.microport.healthcert.service.StorageService;
+import com.microport.healthcert.service.OcrTaskService;
+import com.microport.healthcert.util.FileUtil;
+import com.microport.healthcert.util.UploadedFile;
+import com.microport.healthcert.vo.OcrTaskVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * OCR异步识别任务服务实现类
+ * 图片保存后立即返回任务ID，识别任务交给ocrExecutor线程池执行，
+ * 任务状态和识别结果保存在ocr_tasks表中，多节点部署时前端轮询请求由任一节点处理都能查到
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class OcrTaskServiceImpl implements OcrTaskService {
+
+    /**
+     * 任务结果保留时间（分钟）
+     */
+    private static final long TASK_EXPIRY_MINUTES = 30;
+
+    /**
+     * 任务状态：识别中
+     */
+    private static final String STATUS_PROCESSING = "processing";
+
+    /**
+     * 任务状态：识别完成
+     */
+    private static final String STATUS_SUCCESS = "success";
+
+    /**
+     * 任务状态：识别失败
+     */
+    private static final String STATUS_FAILED = "failed";
+
+    @Autowired
+    private OcrService ocrService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private OcrTaskMapper ocrTaskMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("ocrExecutor")
+    private ThreadPoolTaskExecutor ocrExecutor;
+
+    /**
+     * 上传图片并提交OCR识别任务
+     * 图片在请求线程中保存（MultipartFile在请求结束后会被清理），识别在线程池中异步执行
+     *
+     * @param file 图片文件
+     * @param userId 上传用户ID
+     * @return 识别任务（包含任务ID和图片路径）
+     */
+    @Override
+    public OcrTaskVO submit(MultipartFile file, Long userId) {
+        // 验证图片
+        FileUtil.validateImage(file);
+
+        // 保存文件（只写一次，保存时同时计算SHA-256）
+        UploadedFile uploaded;
+        try {
+            uploaded = FileUtil.saveUpload(file, storageService);
+        } catch (Exception e) {
+            log.error("保存上传图片失败", e);
+            throw new RuntimeException("保存图片失败：" + e.getMessage(), e);
+        }
+
+        OcrTask task = new OcrTask();
+        task.setTaskId(UUID.randomUUID().toString().replace("-", ""));
+        task.setUserId(userId);
+        task.setImagePath(uploaded.getRelativePath());
+        task.setStatus(STATUS_PROCESSING);
+        task.setCreatedAt(LocalDateTime.now());
+        ocrTaskMapper.insert(task);
+
+        // 提交识别任务，队列已满时标记为失败，用户仍可手动填写
+        try {
+            ocrExecutor.execute(() -> runOcr(task, uploaded));
+        } catch (TaskRejectedException e) {
+            log.warn("OCR识别队列已满，任务ID：{}", task.getTaskId());
+            task.setStatus(STATUS_FAILED);
+            task.setMessage("识别服务繁忙，请手动填写健康证信息");
+            updateTask(task);
+        }
+
+        return toVO(task, null);
+    }
+
+    /**
+     * 查询OCR识别任务
+     *
+     * @param taskId 任务ID
+     * @param userId 用户ID（用于验证权限）
+     * @return 识别任务（包含状态和识别结果）
+     */
+    @Override
+    public OcrTaskVO getTask(String taskId, Long userId) {
+        LambdaQueryWrapper<OcrTask> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(OcrTask::getTaskId, taskId);
+        OcrTask task = ocrTaskMapper.selectOne(wrapper);
+        if (task == null || task.getCreatedAt().isBefore(LocalDateTime.now().minusMinutes(TASK_EXPIRY_MINUTES))) {
+            throw new IllegalArgumentException("识别任务不存在或已过期");
+        }
+        // 验证是否属于当前用户
+        if (!task.getUserId().equals(userId)) {
+            throw new IllegalArgumentException("无权访问该识别任务");
+        }
+
+        HealthCertDTO result = null;
+        if (task.getResultJson() != null) {
+            try {
+                result = objectMapper.readValue(task.getResultJson(), HealthCertDTO.class);
+            } catch (Exception e) {
+                log.error("解析识别结果失败，任务ID：{}", taskId, e);
+            }
+        }
+        return toVO(task, result);
+    }
+
+    /**
+     * 清理过期的识别任务
+     * 每5分钟执行一次，删除创建时间超过30分钟的任务（各节点执行同一条删除语句，无需互斥）
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000L)
+    public void cleanupExpiredTasks() {
+        LambdaQueryWrapper<OcrTask> wrapper = new LambdaQueryWrapper<>();
+        wrapper.lt(OcrTask::getCreatedAt, LocalDateTime.now().minusMinutes(TASK_EXPIRY_MINUTES));
+        ocrTaskMapper.delete(wrapper);
+    }
+
+    /**
+     * 执行OCR识别（在ocrExecutor线程中运行）
+     *
+     * @param task 识别任务
+     * @param uploaded 已保存的图片
+     */
+    private void runOcr(OcrTask task, UploadedFile uploaded) {
+        try {
+            HealthCertDTO result = ocrService.callOcrApi(uploaded.getFile(), uploaded.getSha256());
+            result.setImagePath(task.getImagePath());
+            task.setResultJson(objectMapper.writeValueAsString(result));
+            task.setStatus(STATUS_SUCCESS);
+        } catch (Exception e) {
+            // OCR失败不影响上传结果，允许手动填写
+            log.error("OCR识别任务执行失败，任务ID：{}", task.getTaskId(), e);
+            task.setMessage("OCR识别失败，请手动填写健康证信息");
+            task.setStatus(STATUS_FAILED);
+        }
+        try {
+            updateTask(task);
+        } catch (Exception e) {
+            log.error("保存识别结果失败，任务ID：{}", task.getTaskId(), e);
+        }
+    }
+
+    /**
+     * 保存任务状态、识别结果和提示信息（状态和结果在同一条语句中写入，轮询读到success时结果已可见）
+     *
+     * @param task 识别任务
+     */
+    private void updateTask(OcrTask task) {
+        LambdaUpdateWrapper<OcrTask> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.eq(OcrTask::getTaskId, task.getTaskId())
+               .set(OcrTask::getStatus, task.getStatus())
+               .set(OcrTask::getResultJson, task.getResultJson())
+               .set(OcrTask::getMessage, task.getMessage());
+        ocrTaskMapper.update(null, wrapper);
+    }
+
+    /**
+     * 转换为VO
+     *
+     * @param task 识别任务
+     * @param result 识别结果
+     * @return 识别任务VO
+     */
+    private OcrTaskVO toVO(OcrTask task, HealthCertDTO result) {
+        OcrTaskVO vo = new OcrTaskVO();
+        vo.setTaskId(task.getTaskId());
+        vo.setStatus(task.getStatus());
+        vo.setImagePath(task.getImagePath());
+        vo.setResult(result);
+        vo.setMessage(task.getMessage());
+        return vo;
+    }
+}
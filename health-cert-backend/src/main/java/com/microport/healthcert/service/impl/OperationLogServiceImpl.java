@@ -5,21 +5,20 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.microport.healthcert.entity.OperationLog;
 import com.microport.healthcert.mapper.OperationLogMapper;
 import com.microport.healthcert.service.OperationLogService;
+import com.microport.healthcert.service.StorageService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 操作日志服务实现类
@@ -32,20 +31,15 @@ import java.util.concurrent.ConcurrentHashMap;
 public class OperationLogServiceImpl implements OperationLogService {
 
     /**
-     * 文件URL过期时间（毫秒），1小时
+     * 文件URL有效期（秒），1小时
      */
-    private static final long FILE_URL_EXPIRY = 60 * 60 * 1000L;
-
-    /**
-     * 文件URL缓存（key: 文件名, value: 创建时间）
-     */
-    private static final Map<String, Long> FILE_URL_CACHE = new ConcurrentHashMap<>();
+    private static final long FILE_URL_EXPIRY_SECONDS = 60 * 60L;
 
     @Autowired
     private OperationLogMapper operationLogMapper;
 
-    @Value("${server.servlet.context-path:}")
-    private String contextPath;
+    @Autowired
+    private StorageService storageService;
 
     /**
      * 保存日志
@@ -193,15 +187,15 @@ public class OperationLogServiceImpl implements OperationLogService {
 
             // 生成临时文件
             String fileName = "operation_logs_" + System.currentTimeMillis() + ".xlsx";
-            String filePath = getDownloadPath() + File.separator + fileName;
-            File file = new File(filePath);
-            file.getParentFile().mkdirs();
+            Path tmpFile = storageService.createTempFile();
 
-            fileOut = new FileOutputStream(file);
+            fileOut = new FileOutputStream(tmpFile.toFile());
             workbook.write(fileOut);
+            fileOut.close();
+            fileOut = null;
 
-            // 记录文件创建时间（用于URL过期控制）
-            FILE_URL_CACHE.put(fileName, System.currentTimeMillis());
+            // 存入文件存储
+            storageService.store(ExportServiceImpl.DOWNLOAD_PREFIX + fileName, tmpFile);
 
             log.info("操作日志导出成功，文件：{}，记录数：{}", fileName, logs.size());
 
@@ -226,43 +220,12 @@ public class OperationLogServiceImpl implements OperationLogService {
     }
 
     /**
-     * 获取下载目录路径
-     * 
-     * @return 下载目录路径
-     */
-    private String getDownloadPath() {
-        String userDir = System.getProperty("user.dir");
-        String downloadDir = userDir + File.separator + "downloads";
-        File dir = new File(downloadDir);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
-        return downloadDir;
-    }
-
-    /**
-     * 获取下载URL
+     * 获取下载URL（带签名和有效期，对象存储时为预签名URL）
      * 
      * @param fileName 文件名
      * @return 下载URL
      */
     private String getDownloadUrl(String fileName) {
-        String baseUrl = contextPath.isEmpty() ? "" : contextPath;
-        return baseUrl + "/api/admin/download/" + fileName;
-    }
-
-    /**
-     * 检查文件URL是否过期
-     * 
-     * @param fileName 文件名
-     * @return true表示未过期，false表示已过期
-     */
-    public static boolean isFileUrlValid(String fileName) {
-        Long createTime = FILE_URL_CACHE.get(fileName);
-        if (createTime == null) {
-            return false;
-        }
-        return System.currentTimeMillis() - createTime < FILE_URL_EXPIRY;
+        return storageService.getAccessUrl(ExportServiceImpl.DOWNLOAD_PREFIX + fileName, fileName, FILE_URL_EXPIRY_SECONDS);
     }
 }
-
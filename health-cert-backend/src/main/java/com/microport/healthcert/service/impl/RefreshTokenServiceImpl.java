@@ -0,0 +1,135 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.microport.healthcert.entity.RefreshToken;
+import com.microport.healthcert.exception.LoginException;
+import com.microport.healthcert.mapper.RefreshTokenMapper;
+import com.microport.healthcert.service.RefreshTokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 刷新Token服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    /**
+     * 刷新Token随机字节数
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * 刷新Token有效期（毫秒）
+     */
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpiration = 604800000L;
+
+    @Autowired
+    private RefreshTokenMapper refreshTokenMapper;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Override
+    public String issue(Long userId, String userType, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setUserId(userId);
+        token.setUserType(userType);
+        token.setStatus(STATUS_ACTIVE);
+        token.setExpiresAt(now.plusNanos(refreshExpiration * 1_000_000L));
+        token.setCreatedAt(now);
+        refreshTokenMapper.insert(token);
+        return rawToken;
+    }
+
+    @Override
+    public RefreshToken rotate(String rawToken) {
+        if (rawToken == null || rawToken.trim().isEmpty()) {
+            throw new LoginException(401, "未提供刷新Token");
+        }
+        String tokenHash = hash(rawToken.trim());
+        LocalDateTime now = LocalDateTime.now();
+
+        // 一条UPDATE完成轮换，并发使用同一Token时只有一个请求成功
+        LambdaUpdateWrapper<RefreshToken> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(RefreshToken::getTokenHash, tokenHash)
+                     .eq(RefreshToken::getStatus, STATUS_ACTIVE)
+                     .gt(RefreshToken::getExpiresAt, now)
+                     .set(RefreshToken::getStatus, STATUS_ROTATED)
+                     .set(RefreshToken::getRotatedAt, now);
+        boolean rotated = refreshTokenMapper.update(null, updateWrapper) > 0;
+
+        LambdaQueryWrapper<RefreshToken> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(RefreshToken::getTokenHash, tokenHash);
+        RefreshToken token = refreshTokenMapper.selectOne(queryWrapper);
+        if (rotated && token != null) {
+            return token;
+        }
+
+        if (token == null) {
+            throw new LoginException(401, "刷新Token无效");
+        }
+        if (STATUS_ROTATED.equals(token.getStatus())) {
+            // 已轮换的Token被再次使用：Token可能已泄露，吊销整个会话，用户需要重新登录
+            log.warn("刷新Token被重复使用，吊销会话，用户ID：{}，用户类型：{}，会话：{}",
+                    token.getUserId(), token.getUserType(), token.getFamilyId());
+            revokeFamily(token.getFamilyId());
+            throw new LoginException(401, "刷新Token已被使用，请重新登录");
+        }
+        if (STATUS_REVOKED.equals(token.getStatus())) {
+            throw new LoginException(401, "刷新Token已失效，请重新登录");
+        }
+        throw new LoginException(401, "刷新Token已过期，请重新登录");
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        if (familyId == null) {
+            return;
+        }
+        LambdaUpdateWrapper<RefreshToken> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.eq(RefreshToken::getFamilyId, familyId)
+               .ne(RefreshToken::getStatus, STATUS_REVOKED)
+               .set(RefreshToken::getStatus, STATUS_REVOKED);
+        refreshTokenMapper.update(null, wrapper);
+    }
+
+    /**
+     * 计算刷新Token的SHA-256摘要
+     *
+     * @param rawToken 刷新Token原文
+     * @return 十六进制摘要
+     */
+    private String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("计算刷新Token摘要失败", e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.microport.healthcert.service.impl;
+
+import com.microport.healthcert.service.ReminderDispatchService;
+import com.microport.healthcert.util.TokenBucket;
+import com.microport.healthcert.vo.ReminderDispatchStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提醒发送调度服务实现类
+ *
+ * 钉钉开放平台按应用限制接口QPS，SMTP中继也限制发送速率，
+ * 因此每个通道使用独立的令牌桶限流，线程池只负责并发，不决定调用速率
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class ReminderDispatchServiceImpl implements ReminderDispatchService {
+
+    /**
+     * 邮件通道每秒发送数量
+     */
+    @Value("${reminder.dispatch.email-qps:5}")
+    private double emailQps = 5;
+
+    /**
+     * 钉钉通道每秒接口调用次数
+     */
+    @Value("${reminder.dispatch.dingtalk-qps:15}")
+    private double dingTalkQps = 15;
+
+    /**
+     * 单个任务最多执行次数（含首次）
+     */
+    @Value("${reminder.dispatch.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /**
+     * 首次重试等待时间（毫秒），之后每次翻倍
+     */
+    @Value("${reminder.dispatch.backoff-ms:1000}")
+    private long backoffMillis = 1000;
+
+    /**
+     * 重试等待时间上限（毫秒）
+     */
+    @Value("${reminder.dispatch.max-backoff-ms:30000}")
+    private long maxBackoffMillis = 30000;
+
+    @Autowired
+    @Qualifier("reminderDispatchExecutor")
+    private ThreadPoolTaskExecutor reminderDispatchExecutor;
+
+    /**
+     * 各通道限流器
+     */
+    private final Map<String, TokenBucket> limiters = new HashMap<>();
+
+    /**
+     * 最近一次发送统计
+     */
+    private volatile ReminderDispatchStatsVO lastRunStats;
+
+    /**
+     * 初始化各通道限流器（桶容量为1秒的令牌数，允许短暂突发）
+     */
+    @PostConstruct
+    public void init() {
+        limiters.put(CHANNEL_EMAIL, new TokenBucket(emailQps, Math.ceil(emailQps)));
+        limiters.put(CHANNEL_DINGTALK, new TokenBucket(dingTalkQps, Math.ceil(dingTalkQps)));
+    }
+
+    @Override
+    public ReminderDispatchStatsVO dispatch(List<DispatchTask> tasks) {
+        LocalDateTime startTime = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+
+        Map<String, ChannelRecorder> recorders = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+        for (DispatchTask task : tasks) {
+            ChannelRecorder recorder = recorders.computeIfAbsent(task.getChannel(), k -> new ChannelRecorder());
+            futures.add(CompletableFuture.runAsync(() -> execute(task, recorder), reminderDispatchExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        ReminderDispatchStatsVO stats = new ReminderDispatchStatsVO();
+        stats.setStartTime(startTime);
+        long duration = System.currentTimeMillis() - start;
+        stats.setDurationMillis(duration);
+        stats.setTasks(tasks.size());
+        stats.setThroughputPerSecond(duration > 0 ? tasks.size() * 1000.0 / duration : (double) tasks.size());
+        for (Map.Entry<String, ChannelRecorder> entry : recorders.entrySet()) {
+            ReminderDispatchStatsVO.ChannelStats channelStats = entry.getValue().toStats();
+            stats.getChannels().put(entry.getKey(), channelStats);
+            log.info("提醒发送统计[{}]：成功{}，跳过{}，失败{}，重试{}次，限流等待{}ms，平均耗时{}ms，P95 {}ms，最大{}ms",
+                    entry.getKey(), channelStats.getSent(), channelStats.getSkipped(), channelStats.getFailed(),
+                    channelStats.getRetries(), channelStats.getThrottledMillis(),
+                    String.format("%.1f", channelStats.getAvgMillis()), channelStats.getP95Millis(), channelStats.getMaxMillis());
+        }
+        log.info("提醒发送完成：{}个任务，耗时{}ms，{}个/秒", tasks.size(), duration,
+                String.format("%.2f", stats.getThroughputPerSecond()));
+
+        lastRunStats = stats;
+        return stats;
+    }
+
+    @Override
+    public ReminderDispatchStatsVO getLastRunStats() {
+        return lastRunStats;
+    }
+
+    /**
+     * 执行单个发送任务，失败时按指数退避（带随机抖动）重试
+     *
+     * @param task 发送任务
+     * @param recorder 通道统计
+     */
+    private void execute(DispatchTask task, ChannelRecorder recorder) {
+        TokenBucket limiter = limiters.get(task.getChannel());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (limiter != null) {
+                    recorder.addThrottled(limiter.acquire(task.getPermits()));
+                }
+                long begin = System.currentTimeMillis();
+                boolean sent;
+                try {
+                    sent = task.getAction().execute();
+                } finally {
+                    recorder.addLatency(System.currentTimeMillis() - begin);
+                }
+                recorder.complete(sent);
+                task.setResult(sent ? RESULT_SENT : RESULT_SKIPPED);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recorder.fail();
+                task.setResult(RESULT_FAILED);
+                task.setError("发送被中断");
+                log.warn("提醒发送被中断，通道：{}，目标：{}", task.getChannel(), task.getTarget());
+                return;
+            } catch (Exception e) {
+                task.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                if (attempt >= maxAttempts) {
+                    recorder.fail();
+                    task.setResult(RESULT_FAILED);
+                    log.error("提醒发送失败，已重试{}次，通道：{}，目标：{}", attempt - 1, task.getChannel(), task.getTarget(), e);
+                    return;
+                }
+                long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+                delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                recorder.retry();
+                log.warn("提醒发送失败，{}ms后第{}次重试，通道：{}，目标：{}，错误：{}",
+                        delay, attempt, task.getChannel(), task.getTarget(), e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    recorder.fail();
+                    task.setResult(RESULT_FAILED);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个通道在一次发送中的统计数据（多个发送线程并发写入）
+     */
+    private static class ChannelRecorder {
+
+        private int sent;
+
+        private int skipped;
+
+        private int failed;
+
+        private int retries;
+
+        private long throttledMillis;
+
+        private final List<Long> latencies = new ArrayList<>();
+
+        synchronized void complete(boolean isSent) {
+            if (isSent) {
+                sent++;
+            } else {
+                skipped++;
+            }
+        }
+
+        synchronized void fail() {
+            failed++;
+        }
+
+        synchronized void retry() {
+            retries++;
+        }
+
+        synchronized void addThrottled(long millis) {
+            throttledMillis += millis;
+        }
+
+        synchronized void addLatency(long millis) {
+            latencies.add(millis);
+        }
+
+        synchronized ReminderDispatchStatsVO.ChannelStats toStats() {
+            ReminderDispatchStatsVO.ChannelStats stats = new ReminderDispatchStatsVO.ChannelStats();
+            stats.setSent(sent);
+            stats.setSkipped(skipped);
+            stats.setFailed(failed);
+            stats.setRetries(retries);
+            stats.setThrottledMillis(throttledMillis);
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            long total = 0;
+            for (Long latency : sorted) {
+                total += latency;
+            }
+            stats.setAvgMillis(sorted.isEmpty() ? 0.0 : (double) total / sorted.size());
+            stats.setP95Millis(sorted.isEmpty() ? 0L : sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1));
+            stats.setMaxMillis(sorted.isEmpty() ? 0L : sorted.get(sorted.size() - 1));
+            return stats;
+        }
+    }
+}
@@ -1,26 +1,59 @@
 package com.microport.healthcert.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microport.healthcert.dto.DingTalkSendResultDTO;
+import com.microport.healthcert.dto.OutboxItemDTO;
+import com.microport.healthcert.dto.ReminderItemDTO;
 import com.microport.healthcert.entity.Employee;
 import com.microport.healthcert.entity.HealthCertificate;
+import com.microport.healthcert.entity.NotificationOutbox;
 import com.microport.healthcert.entity.OperationLog;
+import com.microport.healthcert.entity.ReminderShard;
 import com.microport.healthcert.mapper.EmployeeMapper;
 import com.microport.healthcert.mapper.HealthCertificateMapper;
 import com.microport.healthcert.mapper.OperationLogMapper;
 import com.microport.healthcert.service.DingTalkService;
 import com.microport.healthcert.service.EmailService;
+import com.microport.healthcert.service.JobCoordinationService;
+import com.microport.healthcert.service.NotificationOutboxService;
+import com.microport.healthcert.service.ReminderDispatchService;
 import com.microport.healthcert.service.ReminderService;
+import com.microport.healthcert.service.ReminderShardService;
+import com.microport.healthcert.vo.ReminderDispatchStatsVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 提醒服务实现类
  * 
+ * 提醒任务只负责查询待提醒的健康证并写入通知发件箱（notification_outbox），
+ * 由deliverOutbox领取发件箱中的通知发送，发送结果和重试状态记录在发件箱中，发送日志按实际结果记录。
+ * 发件箱按"提醒日期:通道:收件人"去重，同一天重复执行提醒任务（手动重跑、多个实例同时触发）不会重复发送。
+ * 
+ * 多节点部署时提醒任务在所有节点同时执行：待提醒的健康证按employee_id拆分为分片（reminder_shards），
+ * 各节点领取分片写入发件箱，每批写入后保存进度，节点退出时只有它未完成的分片由其他节点从进度处继续。
+ * 分片数大于1时，发给主管/管理员的汇总邮件按分片分别发送（同一收件人每个分片最多一封）
+ * 
  * @author system
  * @date 2024
  */
@@ -33,6 +66,53 @@ public class ReminderServiceImpl implements ReminderService {
      */
     private static final int[] REMINDER_DAYS = {30, 15, 7, 3, 1};
 
+    /**
+     * 每次检查送达结果的通知数量
+     */
+    private static final int DELIVERY_CHECK_BATCH_SIZE = 1000;
+
+    /**
+     * 发件箱租约最少保持时间（秒），与发件箱轮询任务相同
+     */
+    private static final long OUTBOX_MIN_HOLD_SECONDS = 30;
+
+    /**
+     * 发件箱payload类型
+     */
+    private static final TypeReference<List<OutboxItemDTO>> PAYLOAD_TYPE = new TypeReference<List<OutboxItemDTO>>() {
+    };
+
+    /**
+     * 是否按收件人合并发送提醒
+     */
+    @Value("${reminder.digest.enabled:true}")
+    private boolean digestEnabled = true;
+
+    /**
+     * 查询待提醒健康证的每批数量
+     */
+    @Value("${reminder.query.chunk-size:500}")
+    private int queryChunkSize = 500;
+
+    /**
+     * 每次从发件箱领取的通知数量
+     */
+    @Value("${reminder.outbox.batch-size:1000}")
+    private int outboxBatchSize = 1000;
+
+    /**
+     * 钉钉消息是否合并发送（内容相同的通知每条工作通知发送给最多100个用户）
+     * 合并发送的消息不包含姓名和健康证编号；关闭后每个员工单独发送包含健康证详情的消息
+     */
+    @Value("${reminder.dingtalk.batch-enabled:true}")
+    private boolean dingTalkBatchEnabled = true;
+
+    /**
+     * 钉钉工作通知送达结果的查询期限（小时），超过后不再查询
+     */
+    @Value("${reminder.dingtalk.delivery-check-hours:24}")
+    private long deliveryCheckHours = 24;
+
     @Autowired
     private HealthCertificateMapper healthCertificateMapper;
 
@@ -45,129 +125,651 @@ public class ReminderServiceImpl implements ReminderService {
     @Autowired
     private DingTalkService dingTalkService;
 
+    @Autowired
+    private ReminderDispatchService reminderDispatchService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private ReminderShardService reminderShardService;
+
+    @Autowired
+    private JobCoordinationService jobCoordinationService;
+
     @Autowired
     private OperationLogMapper operationLogMapper;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 发送提醒
-     * 查询即将到期的健康证（30/15/7/3/1天）和已过期的健康证（每周提醒一次），调用EmailService和DingTalkService发送
+     * 查询即将到期的健康证（30/15/7/3/1天）和已过期的健康证（每周提醒一次），写入通知发件箱后发送
+     * 汇总模式下先收集本次所有提醒，再按收件人合并（每个收件人每次只收到一封邮件/一条钉钉消息）
+     * 各节点领取当天的分片执行，所有分片都已被领取后发送发件箱中的通知；
+     * 发送需持有发件箱租约（同一时间只有一个节点发送，发送限流对所有节点生效），其他节点持有租约时由其发送
      */
     @Override
     public void sendReminders() {
         log.info("开始执行健康证到期提醒任务");
 
         try {
-            // 1. 查询即将到期的健康证（30/15/7/3/1天）
+            // 1. 创建当天的分片（其他节点已创建的不再创建）
             LocalDate today = LocalDate.now();
-            for (int days : REMINDER_DAYS) {
-                LocalDate targetDate = today.plusDays(days);
-                sendExpiringReminders(targetDate, days);
+            reminderShardService.prepare(today);
+
+            // 2. 依次领取分片，查询分片内的待提醒健康证，按收件人分组写入发件箱（今天已写入过的忽略）
+            int shards = runShards(today);
+
+            // 3. 发送发件箱中的通知（其他节点正在发送时不重复发送）
+            int[] delivered = new int[1];
+            boolean ran = jobCoordinationService.runExclusive(OUTBOX_JOB_NAME, OUTBOX_MIN_HOLD_SECONDS, lease -> {
+                delivered[0] = deliverOutbox(lease);
+                return "发送" + delivered[0] + "条";
+            });
+
+            if (ran) {
+                log.info("健康证到期提醒任务执行完成，本节点执行{}个分片，处理{}条通知", shards, delivered[0]);
+            } else {
+                log.info("健康证到期提醒任务执行完成，本节点执行{}个分片，通知由持有发件箱租约的节点发送", shards);
             }
 
-            // 2. 查询已过期的健康证（每周提醒一次）
-            sendExpiredReminders();
-
-            log.info("健康证到期提醒任务执行完成");
-
         } catch (Exception e) {
             log.error("健康证到期提醒任务执行失败", e);
         }
     }
 
     /**
-     * 发送即将到期的提醒
+     * 继续执行当天未完成的分片
+     * 执行节点退出后分片领取过期，由其他节点在这里领取，从保存的进度处继续执行
      * 
-     * @param targetDate 目标日期（今天+N天）
-     * @param days 提醒天数
+     * @return 本次执行的分片数
      */
-    private void sendExpiringReminders(LocalDate targetDate, int days) {
+    @Override
+    public int resumeShards() {
         try {
-            // 查询指定日期到期的健康证
-            LambdaQueryWrapper<HealthCertificate> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(HealthCertificate::getExpiryDate, targetDate)
-                   .eq(HealthCertificate::getStatus, "approved") // 只查询已通过的健康证
-                   .eq(HealthCertificate::getIsCurrent, 1); // 只查询当前有效的健康证
+            return runShards(LocalDate.now());
+        } catch (Exception e) {
+            log.error("继续执行提醒任务分片失败", e);
+            return 0;
+        }
+    }
+
+    /**
+     * 发送发件箱中的通知
+     * 分批领取到达发送时间的通知（包括等待重试的和领取已过期的），交给ReminderDispatchService并发发送；
+     * 每批领取前检查租约，租约已被其他节点获取时停止（已领取的通知领取过期后由新的租约持有者发送）
+     * 
+     * @param lease 持有的发件箱租约
+     * @return 本次处理的通知数量
+     */
+    @Override
+    public int deliverOutbox(JobCoordinationService.LeaseHandle lease) {
+        releaseDigestsIfShardsDone(LocalDate.now());
+        int total = 0;
+        while (true) {
+            lease.checkHeld();
+            List<NotificationOutbox> rows = notificationOutboxService.claim(outboxBatchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            deliverBatch(rows);
+            total += rows.size();
+        }
+        return total;
+    }
+
+    @Override
+    public ReminderDispatchStatsVO getLastRunStats() {
+        return reminderDispatchService.getLastRunStats();
+    }
+
+    /**
+     * 依次领取并执行分片，直到没有可领取的分片
+     * 
+     * @param today 提醒日期
+     * @return 本次执行的分片数
+     * @throws Exception 执行分片失败时抛出异常
+     */
+    private int runShards(LocalDate today) throws Exception {
+        int shards = 0;
+        ReminderShard shard;
+        while ((shard = reminderShardService.claim(today)) != null) {
+            processShard(today, shard);
+            shards++;
+        }
+        return shards;
+    }
+
+    /**
+     * 执行一个分片
+     * 健康证联表员工按(员工ID, 健康证ID)分批查询，同一员工的提醒总是在同一批写入发件箱（汇总消息不会被拆开），
+     * 每批写入后保存进度；分片被重新领取时从进度处继续，已写入的通知按去重键忽略
+     * 汇总邮件的收件人（主管/管理员）可能出现在多批、多个分片中，汇总邮件先以暂不发送状态写入，后续写入的提醒条目合并到同一记录，
+     * 当天所有分片执行完成后再释放发送
+     * 
+     * @param today 今天
+     * @param shard 领取到的分片
+     * @throws Exception 查询或写入发件箱失败时抛出异常（分片领取过期后重新执行）
+     */
+    private void processShard(LocalDate today, ReminderShard shard) throws Exception {
+        List<LocalDate> dates = new ArrayList<>();
+        for (int days : REMINDER_DAYS) {
+            dates.add(today.plusDays(days));
+        }
 
-            List<HealthCertificate> certificates = healthCertificateMapper.selectList(wrapper);
+        int itemCount = shard.getItemCount() != null ? shard.getItemCount() : 0;
+        long afterEmployeeId = shard.getCheckpointEmployeeId() != null ? shard.getCheckpointEmployeeId() : 0L;
+        long afterId = Long.MAX_VALUE;
+        if (afterEmployeeId > 0) {
+            log.info("提醒任务分片{}/{}从员工ID {}之后继续执行", shard.getShardNo(), shard.getShardCount(), afterEmployeeId);
+        }
 
-            log.info("查询到{}条将在{}天后到期的健康证", certificates.size(), days);
+        List<ReminderItemDTO> pending = new ArrayList<>();
+        while (true) {
+            List<ReminderItemDTO> chunk = healthCertificateMapper.selectReminderCandidates(today, dates,
+                    shard.getShardCount(), shard.getShardNo(), afterEmployeeId, afterId, queryChunkSize);
+            pending.addAll(chunk);
+            boolean last = chunk.size() < queryChunkSize;
+            if (!chunk.isEmpty()) {
+                ReminderItemDTO tail = chunk.get(chunk.size() - 1);
+                afterEmployeeId = tail.getCert().getEmployeeId();
+                afterId = tail.getCert().getId();
+            }
 
-            for (HealthCertificate cert : certificates) {
-                // 获取员工信息
-                Employee employee = employeeMapper.selectById(cert.getEmployeeId());
-                if (employee == null || employee.getIsActive() == 0) {
-                    continue; // 员工不存在或已离职，跳过
+            // 最后一个员工的健康证可能还有下一批，留到下一批一起写入
+            int flushCount = pending.size();
+            if (!last) {
+                while (flushCount > 0 && pending.get(flushCount - 1).getCert().getEmployeeId().equals(afterEmployeeId)) {
+                    flushCount--;
                 }
+                if (flushCount < queryChunkSize / 2) {
+                    continue;
+                }
+            }
 
-                // 发送邮件提醒
-                try {
-                    emailService.sendReminderEmail(employee, cert);
-                } catch (Exception e) {
-                    log.error("发送邮件提醒失败，员工：{}，健康证编号：{}", employee.getSfUserId(), cert.getCertNumber(), e);
+            if (flushCount > 0) {
+                List<ReminderItemDTO> batch = new ArrayList<>(pending.subList(0, flushCount));
+                pending.subList(0, flushCount).clear();
+                List<NotificationOutbox> rows = new ArrayList<>();
+                List<NotificationOutbox> digestRows = new ArrayList<>();
+                for (NotificationOutbox row : buildOutboxRows(today, batch)) {
+                    if (digestEnabled && ReminderDispatchService.CHANNEL_EMAIL.equals(row.getChannel())) {
+                        digestRows.add(row);
+                    } else {
+                        rows.add(row);
+                    }
+                }
+                int enqueued = notificationOutboxService.enqueue(rows);
+                notificationOutboxService.enqueueHeld(digestRows);
+                itemCount += batch.size();
+                log.info("提醒任务分片{}/{}：写入通知发件箱{}条，{}条今天已写入过，忽略；写入或合并汇总邮件{}封",
+                        shard.getShardNo(), shard.getShardCount(), enqueued, rows.size() - enqueued, digestRows.size());
+                long checkpoint = batch.get(batch.size() - 1).getCert().getEmployeeId();
+                if (!reminderShardService.checkpoint(shard, checkpoint, itemCount)) {
+                    return;
+                }
+            }
+            if (last) {
+                break;
+            }
+        }
+
+        reminderShardService.complete(shard, itemCount);
+        log.info("提醒任务分片{}/{}执行完成，共{}条提醒", shard.getShardNo(), shard.getShardCount(), itemCount);
+        releaseDigestsIfShardsDone(today);
+    }
+
+    /**
+     * 构建发件箱记录
+     * 邮件：无邮箱员工的提醒会发给主管或管理员，汇总模式下同一收件人的多条提醒合并为一封汇总邮件
+     * 钉钉：发给员工本人，汇总模式下同一员工的多张健康证合并为一条消息；无手机号的员工不写入
+     * 
+     * 同一主管/管理员的提醒可能分布在多批、多个分片中，汇总邮件的去重键只按收件人区分，写入时合并到同一记录
+     * 
+     * @param today 提醒日期（去重键的一部分）
+     * @param items 提醒条目
+     * @return 发件箱记录
+     * @throws Exception 序列化提醒条目失败时抛出异常
+     */
+    private List<NotificationOutbox> buildOutboxRows(LocalDate today, List<ReminderItemDTO> items) throws Exception {
+        // 1. 邮件：批量确定收件人后按收件人分组
+        Map<Long, Employee> employees = new LinkedHashMap<>();
+        for (ReminderItemDTO item : items) {
+            employees.putIfAbsent(item.getEmployee().getId(), item.getEmployee());
+        }
+        Map<Long, String> recipients = emailService.determineRecipients(new ArrayList<>(employees.values()));
+        Map<String, NotificationOutbox> rows = new LinkedHashMap<>();
+        Map<String, List<OutboxItemDTO>> payloads = new HashMap<>();
+        for (ReminderItemDTO item : items) {
+            String recipient = recipients.get(item.getEmployee().getId());
+            if (recipient == null) {
+                log.warn("无法确定收件人邮箱，员工={}", item.getEmployee().getSfUserId());
+                continue;
+            }
+            recipient = recipient.trim();
+            addToOutbox(rows, payloads, today, ReminderDispatchService.CHANNEL_EMAIL, recipient,
+                    recipient.toLowerCase(), item);
+        }
+
+        // 2. 钉钉：按员工分组
+        for (ReminderItemDTO item : items) {
+            Employee employee = item.getEmployee();
+            if (employee.getMobile() == null || employee.getMobile().trim().isEmpty()) {
+                continue;
+            }
+            addToOutbox(rows, payloads, today, ReminderDispatchService.CHANNEL_DINGTALK, employee.getSfUserId(),
+                    String.valueOf(employee.getId()), item);
+        }
+
+        // 3. 提醒条目序列化为payload
+        for (NotificationOutbox row : rows.values()) {
+            row.setPayload(objectMapper.writeValueAsString(payloads.get(row.getDedupKey())));
+        }
+
+        log.info("{}提醒：{}条提醒，{}条通知", digestEnabled ? "汇总发送" : "逐条发送", items.size(), rows.size());
+        return new ArrayList<>(rows.values());
+    }
+
+    /**
+     * 当天所有分片都已完成时释放汇总邮件（暂不发送改为待发送）
+     * 同一收件人的提醒可能分布在多个分片中，全部分片写入后才发送，每个收件人每次只收到一封汇总邮件；
+     * 最后完成的分片释放，发送任务也会检查一次（完成分片的节点在释放前退出时）
+     * 
+     * @param today 提醒日期
+     */
+    private void releaseDigestsIfShardsDone(LocalDate today) {
+        if (!digestEnabled) {
+            return;
+        }
+        List<ReminderShard> shards = reminderShardService.listShards(today);
+        if (shards.isEmpty()) {
+            return;
+        }
+        for (ReminderShard shard : shards) {
+            if (!ReminderShardService.STATUS_DONE.equals(shard.getStatus())) {
+                return;
+            }
+        }
+        int released = notificationOutboxService.release(today + ":" + ReminderDispatchService.CHANNEL_EMAIL + ":");
+        if (released > 0) {
+            log.info("提醒任务所有分片已完成，释放汇总邮件{}封", released);
+        }
+    }
+
+    /**
+     * 把提醒条目加入对应的发件箱记录（汇总模式按收件人合并，否则每张健康证一条）
+     * 
+     * @param rows 发件箱记录（key: 去重键）
+     * @param payloads 发件箱记录的提醒条目（key: 去重键）
+     * @param today 提醒日期
+     * @param channel 通道
+     * @param recipient 收件人
+     * @param recipientKey 收件人在去重键中的标识
+     * @param item 提醒条目
+     */
+    private void addToOutbox(Map<String, NotificationOutbox> rows, Map<String, List<OutboxItemDTO>> payloads,
+                             LocalDate today, String channel, String recipient, String recipientKey, ReminderItemDTO item) {
+        String dedupKey = today + ":" + channel + ":" + recipientKey;
+        if (!digestEnabled) {
+            dedupKey += ":" + item.getCert().getId();
+        }
+        rows.computeIfAbsent(dedupKey, k -> {
+            NotificationOutbox row = new NotificationOutbox();
+            row.setDedupKey(k);
+            row.setChannel(channel);
+            row.setRecipient(recipient);
+            return row;
+        });
+        payloads.computeIfAbsent(dedupKey, k -> new ArrayList<>())
+                .add(new OutboxItemDTO(item.getCert().getId(), item.getEmployee().getId(), item.getDays(), item.isExpired()));
+    }
+
+    /**
+     * 发送一批已领取的通知
+     * 员工和健康证按ID批量读取最新信息；发送成功后立即标记完成，重试后仍失败的按发件箱重试策略重新排队
+     * 
+     * @param rows 已领取的发件箱记录
+     */
+    private void deliverBatch(List<NotificationOutbox> rows) {
+        // 1. 解析payload，批量读取员工和健康证
+        Map<Long, List<OutboxItemDTO>> payloads = new HashMap<>();
+        Set<Long> certIds = new HashSet<>();
+        Set<Long> employeeIds = new HashSet<>();
+        for (NotificationOutbox row : rows) {
+            try {
+                // 汇总邮件合并时可能重复写入同一批（分片从进度处重新执行），按健康证去重
+                Map<Long, OutboxItemDTO> unique = new LinkedHashMap<>();
+                for (OutboxItemDTO item : objectMapper.readValue(row.getPayload(), PAYLOAD_TYPE)) {
+                    unique.putIfAbsent(item.getCertId(), item);
+                }
+                List<OutboxItemDTO> payload = new ArrayList<>(unique.values());
+                payloads.put(row.getId(), payload);
+                for (OutboxItemDTO item : payload) {
+                    certIds.add(item.getCertId());
+                    employeeIds.add(item.getEmployeeId());
                 }
+            } catch (Exception e) {
+                log.error("解析发件箱记录失败，id：{}", row.getId(), e);
+                notificationOutboxService.fail(row, "解析提醒条目失败：" + e.getMessage());
+            }
+        }
+        Map<Long, HealthCertificate> certs = new HashMap<>();
+        if (!certIds.isEmpty()) {
+            for (HealthCertificate cert : healthCertificateMapper.selectBatchIds(certIds)) {
+                certs.put(cert.getId(), cert);
+            }
+        }
+        Map<Long, Employee> employees = new HashMap<>();
+        if (!employeeIds.isEmpty()) {
+            for (Employee employee : employeeMapper.selectBatchIds(employeeIds)) {
+                employees.put(employee.getId(), employee);
+            }
+        }
 
-                // 发送钉钉提醒
+        // 2. 补全钉钉userid（employees.dingtalk_userid为空的员工批量查询并写回）
+        Map<Long, Employee> dingTalkEmployees = new HashMap<>();
+        for (NotificationOutbox row : rows) {
+            List<OutboxItemDTO> payload = payloads.get(row.getId());
+            if (payload != null && ReminderDispatchService.CHANNEL_DINGTALK.equals(row.getChannel())) {
+                for (OutboxItemDTO item : payload) {
+                    Employee employee = employees.get(item.getEmployeeId());
+                    if (employee != null) {
+                        dingTalkEmployees.put(employee.getId(), employee);
+                    }
+                }
+            }
+        }
+        Set<String> unresolvedMobiles = resolveDingTalkUserIds(dingTalkEmployees.values());
+
+        // 3. 构建发送任务（健康证或员工已删除的条目不再发送）
+        List<ReminderDispatchService.DispatchTask> tasks = new ArrayList<>();
+        Map<ReminderDispatchService.DispatchTask, List<NotificationOutbox>> taskRows = new IdentityHashMap<>();
+        Map<Long, List<ReminderItemDTO>> rowItems = new HashMap<>();
+        Map<String, List<NotificationOutbox>> dingTalkBatches = new LinkedHashMap<>();
+        for (NotificationOutbox row : rows) {
+            List<OutboxItemDTO> payload = payloads.get(row.getId());
+            if (payload == null) {
+                continue;
+            }
+            List<ReminderItemDTO> items = new ArrayList<>();
+            for (OutboxItemDTO item : payload) {
+                HealthCertificate cert = certs.get(item.getCertId());
+                Employee employee = employees.get(item.getEmployeeId());
+                if (cert != null && employee != null) {
+                    items.add(new ReminderItemDTO(employee, cert, item.getDays(), item.isExpired()));
+                }
+            }
+            if (items.isEmpty()) {
+                notificationOutboxService.complete(row, false);
+                continue;
+            }
+            rowItems.put(row.getId(), items);
+
+            ReminderDispatchService.DispatchTask task;
+            if (ReminderDispatchService.CHANNEL_EMAIL.equals(row.getChannel())) {
+                task = new ReminderDispatchService.DispatchTask(row.getChannel(), row.getRecipient(), 1, () -> {
+                    emailService.sendReminderDigest(row.getRecipient(), items);
+                    completeDelivery(row, items, true);
+                    return true;
+                });
+            } else {
+                Employee employee = items.get(0).getEmployee();
+                if (dingTalkBatchEnabled) {
+                    // 合并发送：userid在第2步已补全，查询失败的稍后重试，不存在的跳过
+                    if (employee.getMobile() != null && unresolvedMobiles.contains(employee.getMobile().trim())) {
+                        notificationOutboxService.fail(row, "查询钉钉userid失败");
+                    } else if (!hasText(employee.getDingtalkUserid())) {
+                        notificationOutboxService.complete(row, false);
+                    } else {
+                        dingTalkBatches.computeIfAbsent(buildDingTalkBatchContent(items), k -> new ArrayList<>()).add(row);
+                    }
+                    continue;
+                }
+                // 已知userid时只调用一次发送接口，否则还需要调用一次查询接口
+                int permits = hasText(employee.getDingtalkUserid()) ? 1 : 2;
+                task = new ReminderDispatchService.DispatchTask(row.getChannel(), row.getRecipient(), permits, () -> {
+                    boolean sent = sendDingTalkReminder(employee, items);
+                    completeDelivery(row, items, sent);
+                    return sent;
+                });
+            }
+            tasks.add(task);
+            taskRows.put(task, Collections.singletonList(row));
+        }
+
+        // 钉钉合并发送：内容相同的通知每100个userid发送一条工作通知
+        for (Map.Entry<String, List<NotificationOutbox>> entry : dingTalkBatches.entrySet()) {
+            List<NotificationOutbox> contentRows = entry.getValue();
+            for (int from = 0; from < contentRows.size(); from += DingTalkService.MAX_USERIDS_PER_MESSAGE) {
+                List<NotificationOutbox> batch = contentRows.subList(from,
+                        Math.min(from + DingTalkService.MAX_USERIDS_PER_MESSAGE, contentRows.size()));
+                ReminderDispatchService.DispatchTask task = new ReminderDispatchService.DispatchTask(
+                        ReminderDispatchService.CHANNEL_DINGTALK, batch.size() + "个用户", 1,
+                        () -> sendDingTalkBatch(batch, entry.getKey(), rowItems));
+                tasks.add(task);
+                taskRows.put(task, batch);
+            }
+        }
+
+        // 4. 并发发送，重试后仍失败的重新排队或标记失败
+        reminderDispatchService.dispatch(tasks);
+        for (ReminderDispatchService.DispatchTask task : tasks) {
+            if (!ReminderDispatchService.RESULT_FAILED.equals(task.getResult())) {
+                continue;
+            }
+            for (NotificationOutbox row : taskRows.get(task)) {
                 try {
-                    sendDingTalkReminder(employee, cert, days, false);
+                    if (notificationOutboxService.fail(row, task.getError())) {
+                        for (ReminderItemDTO item : rowItems.get(row.getId())) {
+                            saveReminderLog(item, row.getChannel(), task.getError());
+                        }
+                    }
                 } catch (Exception e) {
-                    log.error("发送钉钉提醒失败，员工：{}，健康证编号：{}", employee.getSfUserId(), cert.getCertNumber(), e);
+                    log.error("更新发件箱发送结果失败，id：{}", row.getId(), e);
                 }
+            }
+        }
+    }
 
-                // 记录发送日志
-                saveReminderLog(employee.getId(), employee.getSfUserId(), "employee", 
-                        "reminder", "发送健康证到期前" + days + "天提醒，健康证编号：" + cert.getCertNumber());
+    /**
+     * 检查钉钉工作通知的送达情况
+     * 合并发送的工作通知为异步发送，按task_id查询发送结果，更新发件箱的送达状态；
+     * userid无效的员工清空employees.dingtalk_userid，下次发送时按手机号重新查询
+     * 
+     * @return 本次更新送达状态的通知数量
+     */
+    @Override
+    public int checkDingTalkDelivery() {
+        List<NotificationOutbox> rows = notificationOutboxService.listAwaitingDelivery(
+                ReminderDispatchService.CHANNEL_DINGTALK, DELIVERY_CHECK_BATCH_SIZE);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<NotificationOutbox>> byTask = new LinkedHashMap<>();
+        for (NotificationOutbox row : rows) {
+            byTask.computeIfAbsent(row.getChannelTaskId(), k -> new ArrayList<>()).add(row);
+        }
+
+        int updated = 0;
+        LocalDateTime giveUpBefore = LocalDateTime.now().minusHours(deliveryCheckHours);
+        for (Map.Entry<String, List<NotificationOutbox>> entry : byTask.entrySet()) {
+            DingTalkSendResultDTO result;
+            try {
+                result = dingTalkService.getSendResult(Long.parseLong(entry.getKey()));
+            } catch (Exception e) {
+                log.warn("查询钉钉工作通知发送结果失败，task_id：{}，错误：{}", entry.getKey(), e.getMessage());
+                continue;
             }
 
-        } catch (Exception e) {
-            log.error("发送即将到期提醒失败，天数：{}", days, e);
+            List<Long> delivered = new ArrayList<>();
+            List<Long> unknown = new ArrayList<>();
+            for (NotificationOutbox row : entry.getValue()) {
+                String userId = row.getChannelUserId();
+                String error = result.getFailedUserIds().get(userId);
+                if (result.getDeliveredUserIds().contains(userId)) {
+                    delivered.add(row.getId());
+                } else if (error != null) {
+                    notificationOutboxService.updateDeliveryStatus(Collections.singletonList(row.getId()),
+                            NotificationOutboxService.DELIVERY_FAILED, error);
+                    log.warn("钉钉工作通知未送达，收件人：{}，userid：{}，原因：{}", row.getRecipient(), userId, error);
+                    updated++;
+                } else if (row.getSentAt() != null && row.getSentAt().isBefore(giveUpBefore)) {
+                    unknown.add(row.getId());
+                }
+            }
+            notificationOutboxService.updateDeliveryStatus(delivered, NotificationOutboxService.DELIVERY_DELIVERED, null);
+            notificationOutboxService.updateDeliveryStatus(unknown, NotificationOutboxService.DELIVERY_UNKNOWN, "超过查询期限仍未查到发送结果");
+            updated += delivered.size() + unknown.size();
+
+            // userid无效（已离职或重新加入企业），清空后按手机号重新查询（同时清除手机号对应的userid缓存）
+            for (String invalidUserId : result.getInvalidUserIds()) {
+                LambdaQueryWrapper<Employee> queryWrapper = new LambdaQueryWrapper<>();
+                queryWrapper.select(Employee::getMobile).eq(Employee::getDingtalkUserid, invalidUserId);
+                for (Employee employee : employeeMapper.selectList(queryWrapper)) {
+                    if (hasText(employee.getMobile())) {
+                        dingTalkService.evictUserId(employee.getMobile().trim());
+                    }
+                }
+                LambdaUpdateWrapper<Employee> wrapper = new LambdaUpdateWrapper<>();
+                wrapper.set(Employee::getDingtalkUserid, null).eq(Employee::getDingtalkUserid, invalidUserId);
+                employeeMapper.update(null, wrapper);
+            }
         }
+        return updated;
     }
 
     /**
-     * 发送已过期的提醒（每周提醒一次）
+     * 合并发送一批内容相同的钉钉工作通知
+     * 
+     * @param rows 发件箱记录（最多100条，员工的钉钉userid已补全）
+     * @param content 消息内容
+     * @param rowItems 发件箱记录的提醒条目（key: 发件箱记录ID）
+     * @return 是否已发送
+     * @throws Exception 发送失败时抛出异常，由调度服务重试
      */
-    private void sendExpiredReminders() {
-        try {
-            LocalDate today = LocalDate.now();
+    private boolean sendDingTalkBatch(List<NotificationOutbox> rows, String content,
+                                      Map<Long, List<ReminderItemDTO>> rowItems) throws Exception {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (NotificationOutbox row : rows) {
+            userIds.add(rowItems.get(row.getId()).get(0).getEmployee().getDingtalkUserid());
+        }
+        long taskId = dingTalkService.sendBatchWorkMessage(new ArrayList<>(userIds), content);
+        for (NotificationOutbox row : rows) {
+            List<ReminderItemDTO> items = rowItems.get(row.getId());
+            row.setChannelTaskId(String.valueOf(taskId));
+            row.setChannelUserId(items.get(0).getEmployee().getDingtalkUserid());
+            completeDelivery(row, items, true);
+        }
+        return true;
+    }
 
-            // 查询已过期的健康证
-            LambdaQueryWrapper<HealthCertificate> wrapper = new LambdaQueryWrapper<>();
-            wrapper.lt(HealthCertificate::getExpiryDate, today)
-                   .eq(HealthCertificate::getStatus, "approved") // 只查询已通过的健康证
-                   .eq(HealthCertificate::getIsCurrent, 1); // 只查询当前有效的健康证
+    /**
+     * 构建合并发送的钉钉消息内容
+     * 不包含姓名、健康证编号等个人信息，只按最紧急的一张健康证（已过期或最早到期）区分，
+     * 同一天到期天数相同的员工收到的内容完全相同，可以合并为一条工作通知
+     * 
+     * @param items 员工的提醒条目
+     * @return 消息内容（markdown格式）
+     */
+    private String buildDingTalkBatchContent(List<ReminderItemDTO> items) {
+        ReminderItemDTO urgent = items.get(0);
+        for (ReminderItemDTO item : items) {
+            if (item.isExpired() && !urgent.isExpired() || item.isExpired() == urgent.isExpired() && item.getDays() < urgent.getDays()) {
+                urgent = item;
+            }
+        }
 
-            List<HealthCertificate> certificates = healthCertificateMapper.selectList(wrapper);
+        StringBuilder content = new StringBuilder();
+        content.append("## 健康证提醒\n\n");
+        if (urgent.isExpired()) {
+            content.append("**提醒内容：** 您的健康证已过期，请及时更新！\n\n");
+        } else {
+            content.append("**提醒内容：** 您的健康证将在").append(urgent.getDays()).append("天后到期，请及时更新！\n\n");
+        }
+        content.append("请登录员工健康证管理系统查看健康证信息并上传新的健康证。");
+        return content.toString();
+    }
 
-            log.info("查询到{}条已过期的健康证", certificates.size());
+    /**
+     * 批量补全员工的钉钉userid
+     * employees.dingtalk_userid已有值的员工直接使用；为空的按手机号并发查询（走钉钉通道限流），查到后写回employees表，
+     * 之后的提醒不再调用查询接口。钉钉中不存在的手机号由DingTalkService缓存，一段时间内不再查询
+     * 
+     * @param employees 需要发送钉钉消息的员工（查到的userid直接写入对象）
+     * @return 查询失败（网络异常、接口错误，重试后仍失败）的手机号
+     */
+    private Set<String> resolveDingTalkUserIds(Collection<Employee> employees) {
+        Map<String, List<Employee>> byMobile = new LinkedHashMap<>();
+        for (Employee employee : employees) {
+            if (!hasText(employee.getDingtalkUserid()) && hasText(employee.getMobile())) {
+                byMobile.computeIfAbsent(employee.getMobile().trim(), k -> new ArrayList<>()).add(employee);
+            }
+        }
+        if (byMobile.isEmpty()) {
+            return Collections.emptySet();
+        }
 
-            for (HealthCertificate cert : certificates) {
-                // 获取员工信息
-                Employee employee = employeeMapper.selectById(cert.getEmployeeId());
-                if (employee == null || employee.getIsActive() == 0) {
-                    continue; // 员工不存在或已离职，跳过
+        Map<String, String> resolved = new ConcurrentHashMap<>();
+        List<ReminderDispatchService.DispatchTask> tasks = new ArrayList<>(byMobile.size());
+        for (String mobile : byMobile.keySet()) {
+            tasks.add(new ReminderDispatchService.DispatchTask(ReminderDispatchService.CHANNEL_DINGTALK, mobile, 1, () -> {
+                String userId = dingTalkService.resolveUserId(mobile);
+                if (userId == null) {
+                    return false;
                 }
+                resolved.put(mobile, userId);
+                return true;
+            }));
+        }
+        reminderDispatchService.dispatch(tasks);
 
-                // 发送邮件提醒
+        // 写回employees表（只写入仍为空的记录，不覆盖管理员手动维护的钉钉号）
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<String, String> entry : resolved.entrySet()) {
+            for (Employee employee : byMobile.get(entry.getKey())) {
+                employee.setDingtalkUserid(entry.getValue());
                 try {
-                    emailService.sendReminderEmail(employee, cert);
+                    LambdaUpdateWrapper<Employee> wrapper = new LambdaUpdateWrapper<>();
+                    wrapper.set(Employee::getDingtalkUserid, entry.getValue())
+                           .set(Employee::getUpdatedAt, now)
+                           .eq(Employee::getId, employee.getId())
+                           .and(w -> w.isNull(Employee::getDingtalkUserid).or().eq(Employee::getDingtalkUserid, ""));
+                    employeeMapper.update(null, wrapper);
                 } catch (Exception e) {
-                    log.error("发送已过期邮件提醒失败，员工：{}，健康证编号：{}", employee.getSfUserId(), cert.getCertNumber(), e);
+                    log.error("写回钉钉userid失败，员工：{}", employee.getSfUserId(), e);
                 }
+            }
+        }
+        Set<String> failedMobiles = new HashSet<>();
+        for (ReminderDispatchService.DispatchTask task : tasks) {
+            if (ReminderDispatchService.RESULT_FAILED.equals(task.getResult())) {
+                failedMobiles.add(task.getTarget());
+            }
+        }
+        log.info("查询钉钉userid：{}个手机号，查到{}个，查询失败{}个", byMobile.size(), resolved.size(), failedMobiles.size());
+        return failedMobiles;
+    }
 
-                // 发送钉钉提醒
-                try {
-                    sendDingTalkReminder(employee, cert, 0, true);
-                } catch (Exception e) {
-                    log.error("发送已过期钉钉提醒失败，员工：{}，健康证编号：{}", employee.getSfUserId(), cert.getCertNumber(), e);
+    /**
+     * 通知发送后标记发件箱记录完成并记录发送日志
+     * 发送已经完成，标记失败只记录日志不抛出异常，避免被当作发送失败重试而重复发送
+     * 
+     * @param row 发件箱记录
+     * @param items 提醒条目
+     * @param sent 是否已发送
+     */
+    private void completeDelivery(NotificationOutbox row, List<ReminderItemDTO> items, boolean sent) {
+        try {
+            if (notificationOutboxService.complete(row, sent) && sent) {
+                for (ReminderItemDTO item : items) {
+                    saveReminderLog(item, row.getChannel(), null);
                 }
-
-                // 记录发送日志
-                saveReminderLog(employee.getId(), employee.getSfUserId(), "employee", 
-                        "reminder", "发送健康证已过期提醒，健康证编号：" + cert.getCertNumber());
             }
-
         } catch (Exception e) {
-            log.error("发送已过期提醒失败", e);
+            log.error("更新发件箱发送结果失败，id：{}", row.getId(), e);
         }
     }
 
@@ -175,38 +777,63 @@ public class ReminderServiceImpl implements ReminderService {
      * 发送钉钉提醒
      * 
      * @param employee 员工信息
-     * @param cert 健康证信息
-     * @param days 到期天数（0表示已过期）
-     * @param isExpired 是否已过期
+     * @param items 该员工的提醒条目（多张健康证合并为一条消息）
+     * @return 是否已发送（员工无手机号或未找到钉钉用户时返回false）
+     * @throws Exception 查询userid失败时抛出异常
      */
-    private void sendDingTalkReminder(Employee employee, HealthCertificate cert, int days, boolean isExpired) {
+    private boolean sendDingTalkReminder(Employee employee, List<ReminderItemDTO> items) throws Exception {
         // 如果员工没有手机号，无法发送钉钉消息
         if (employee.getMobile() == null || employee.getMobile().trim().isEmpty()) {
-            return;
+            return false;
         }
 
-        // 根据手机号获取钉钉userid
-        String userId = dingTalkService.getUserIdByMobile(employee.getMobile());
+        // 优先使用已保存的钉钉userid，没有时按手机号查询（查询失败抛出异常由调度服务重试）
+        String userId = employee.getDingtalkUserid();
+        if (!hasText(userId)) {
+            userId = dingTalkService.resolveUserId(employee.getMobile().trim());
+        }
         if (userId == null) {
             log.warn("无法获取钉钉userid，手机号：{}", employee.getMobile());
-            return;
+            return false;
         }
 
         // 构建markdown格式的消息内容
         StringBuilder content = new StringBuilder();
         content.append("## 健康证提醒\n\n");
         content.append("**姓名：** ").append(employee.getName()).append("\n\n");
-        content.append("**健康证编号：** ").append(cert.getCertNumber()).append("\n\n");
-        content.append("**有效期至：** ").append(cert.getExpiryDate().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append("\n\n");
+        for (ReminderItemDTO item : items) {
+            HealthCertificate cert = item.getCert();
+            content.append("**健康证编号：** ").append(cert.getCertNumber()).append("\n\n");
+            content.append("**有效期至：** ").append(cert.getExpiryDate().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd"))).append("\n\n");
+
+            if (item.isExpired()) {
+                content.append("**提醒内容：** 您的健康证已过期，请及时更新！\n\n");
+            } else {
+                content.append("**提醒内容：** 您的健康证将在").append(item.getDays()).append("天后到期，请及时更新！\n\n");
+            }
+        }
 
-        if (isExpired) {
-            content.append("**提醒内容：** 您的健康证已过期，请及时更新！\n\n");
-        } else {
-            content.append("**提醒内容：** 您的健康证将在").append(days).append("天后到期，请及时更新！\n\n");
+        // 发送钉钉工作通知，失败时抛出异常由调度服务重试
+        if (!dingTalkService.sendWorkMessage(userId, content.toString())) {
+            throw new IllegalStateException("发送钉钉工作通知失败，userid：" + userId);
         }
+        return true;
+    }
 
-        // 发送钉钉工作通知
-        dingTalkService.sendWorkMessage(userId, content.toString());
+    /**
+     * 保存提醒日志
+     * 
+     * @param item 提醒条目
+     * @param channel 通道（email/dingtalk）
+     * @param error 失败原因，发送成功时为null
+     */
+    private void saveReminderLog(ReminderItemDTO item, String channel, String error) {
+        Employee employee = item.getEmployee();
+        String channelName = ReminderDispatchService.CHANNEL_EMAIL.equals(channel) ? "邮件" : "钉钉";
+        String description = item.isExpired()
+                ? "发送健康证已过期" + channelName + "提醒，健康证编号：" + item.getCert().getCertNumber()
+                : "发送健康证到期前" + item.getDays() + "天" + channelName + "提醒，健康证编号：" + item.getCert().getCertNumber();
+        saveReminderLog(employee.getId(), employee.getSfUserId(), "employee", "reminder", description, error);
     }
 
     /**
@@ -217,8 +844,9 @@ public class ReminderServiceImpl implements ReminderService {
      * @param userType 用户类型
      * @param operation 操作类型
      * @param description 操作描述
+     * @param error 失败原因，发送成功时为null
      */
-    private void saveReminderLog(Long userId, String userName, String userType, String operation, String description) {
+    private void saveReminderLog(Long userId, String userName, String userType, String operation, String description, String error) {
         try {
             OperationLog log = new OperationLog();
             log.setUserId(userId);
@@ -226,12 +854,16 @@ public class ReminderServiceImpl implements ReminderService {
             log.setUserType(userType);
             log.setOperation(operation);
             log.setDescription(description);
-            log.setResult("success");
+            log.setResult(error == null ? "success" : "fail");
+            log.setErrorMsg(error);
             log.setCreatedAt(LocalDateTime.now());
             operationLogMapper.insert(log);
         } catch (Exception e) {
             log.error("保存提醒日志失败", e);
         }
     }
-}
 
+    private boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.microport.healthcert.entity.ReminderShard;
+import com.microport.healthcert.mapper.ReminderShardMapper;
+import com.microport.healthcert.service.ReminderShardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 提醒任务分片服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class ReminderShardServiceImpl implements ReminderShardService {
+
+    /**
+     * 分片数（按employee_id取模），一般不少于后端节点数
+     */
+    @Value("${reminder.shard.count:4}")
+    private int shardCount = 4;
+
+    /**
+     * 领取有效期（秒），每保存一次进度延长一次；节点退出后最多经过该时长由其他节点继续
+     */
+    @Value("${reminder.shard.lease-seconds:600}")
+    private long leaseSeconds = 600;
+
+    @Autowired
+    private ReminderShardMapper reminderShardMapper;
+
+    @Override
+    public void prepare(LocalDate runDate) {
+        LambdaQueryWrapper<ReminderShard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ReminderShard::getRunDate, runDate);
+        if (reminderShardMapper.selectCount(wrapper) > 0) {
+            return;
+        }
+
+        int count = Math.max(1, shardCount);
+        List<Integer> shardNos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shardNos.add(i);
+        }
+        int created = reminderShardMapper.insertIgnoreShards(runDate, count, shardNos);
+        if (created > 0) {
+            log.info("创建{}的提醒任务分片{}个", runDate, created);
+        }
+    }
+
+    @Override
+    public ReminderShard claim(LocalDate runDate) {
+        String owner = UUID.randomUUID().toString();
+        if (reminderShardMapper.claim(runDate, owner, leaseSeconds) == 0) {
+            return null;
+        }
+
+        LambdaQueryWrapper<ReminderShard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ReminderShard::getRunDate, runDate)
+               .eq(ReminderShard::getOwner, owner)
+               .eq(ReminderShard::getStatus, STATUS_RUNNING);
+        return reminderShardMapper.selectOne(wrapper);
+    }
+
+    @Override
+    public boolean checkpoint(ReminderShard shard, long checkpointEmployeeId, int itemCount) {
+        boolean saved = reminderShardMapper.checkpoint(shard.getId(), shard.getOwner(), shard.getFencingToken(),
+                checkpointEmployeeId, itemCount, leaseSeconds) > 0;
+        if (saved) {
+            shard.setCheckpointEmployeeId(checkpointEmployeeId);
+            shard.setItemCount(itemCount);
+        } else {
+            log.warn("提醒任务分片{}/{}已被其他节点领取，停止执行", shard.getShardNo(), shard.getShardCount());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean complete(ReminderShard shard, int itemCount) {
+        boolean completed = reminderShardMapper.complete(shard.getId(), shard.getOwner(), shard.getFencingToken(), itemCount) > 0;
+        if (completed) {
+            shard.setStatus(STATUS_DONE);
+            shard.setItemCount(itemCount);
+        } else {
+            log.warn("提醒任务分片{}/{}已被其他节点领取，不标记完成", shard.getShardNo(), shard.getShardCount());
+        }
+        return completed;
+    }
+
+    @Override
+    public List<ReminderShard> listShards(LocalDate runDate) {
+        LambdaQueryWrapper<ReminderShard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ReminderShard::getRunDate, runDate)
+               .orderByAsc(ReminderShard::getShardNo);
+        return reminderShardMapper.selectList(wrapper);
+    }
+}
@@ -0,0 +1,478 @@
+package com.microport.healthcert.service.impl;
+
+import cn.hutool.core.util.HexUtil;
+import com.microport.healthcert.service.StorageService;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * S3兼容对象存储实现类（AWS S3、MinIO等）
+ * 使用OkHttp直接调用S3 REST API（AWS Signature V4签名，路径风格访问），上传和下载均为流式
+ * 访问URL为预签名URL，浏览器直接从对象存储下载，不经过后端转发
+ * 本节点上传的文件同时保留在本地缓存目录，OCR识别等需要本地文件的场景不必再下载
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+public class S3StorageServiceImpl implements StorageService {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter AMZ_DAY = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    /**
+     * 本地缓存文件保留时间（毫秒），1天
+     */
+    private static final long CACHE_EXPIRY = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 对象存储服务地址（如http://127.0.0.1:9000）
+     */
+    @Value("${storage.s3.endpoint}")
+    private String endpoint;
+
+    @Value("${storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${storage.s3.access-key}")
+    private String accessKey;
+
+    @Value("${storage.s3.secret-key}")
+    private String secretKey;
+
+    /**
+     * 本地缓存目录（临时文件和本节点上传的文件）
+     */
+    @Value("${storage.s3.cache-dir:storage-cache}")
+    private String cacheDir;
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(5, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS)
+            .writeTimeout(60, TimeUnit.SECONDS)
+            .build();
+
+    private HttpUrl baseUrl;
+
+    private Path cacheRoot;
+
+    private Path tmpRoot;
+
+    /**
+     * 初始化本地缓存目录
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        baseUrl = HttpUrl.get(endpoint);
+        cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+        tmpRoot = cacheRoot.resolve("tmp");
+        Files.createDirectories(tmpRoot);
+        log.info("文件存储：对象存储 {}，存储桶 {}", endpoint, bucket);
+    }
+
+    @Override
+    public Path createTempFile() throws IOException {
+        return Files.createFile(tmpRoot.resolve(UUID.randomUUID().toString() + ".part"));
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        // 流式上传（请求体直接读取文件，Content-Length已知）
+        RequestBody body = RequestBody.create(source.toFile(), MediaType.parse(contentType(key)));
+        Request request = signedRequest("PUT", key, null, body, UNSIGNED_PAYLOAD);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("上传文件失败，状态码：" + response.code() + "，响应：" + bodyString(response));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(source);
+            throw e;
+        }
+
+        // 上传完成后移入本地缓存
+        Path cached = cachePath(key);
+        Files.createDirectories(cached.getParent());
+        Files.move(source, cached, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        Request request = signedRequest("HEAD", key, null, null, EMPTY_SHA256);
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() == 404) {
+                return false;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("查询文件失败，状态码：" + response.code());
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        Request request = signedRequest("HEAD", key, null, null, EMPTY_SHA256);
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() == 404) {
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("查询文件失败，状态码：" + response.code());
+            }
+            String contentLength = response.header("Content-Length");
+            String lastModified = response.header("Last-Modified");
+            return new StoredObject(key,
+                    contentLength != null ? Long.parseLong(contentLength) : 0L,
+                    lastModified != null
+                            ? ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                            : System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Path cached = cachePath(key);
+        if (Files.isRegularFile(cached)) {
+            return Files.newInputStream(cached);
+        }
+
+        Request request = signedRequest("GET", key, null, null, EMPTY_SHA256);
+        Response response = client.newCall(request).execute();
+        if (response.code() == 404) {
+            response.close();
+            throw new FileNotFoundException(key);
+        }
+        if (!response.isSuccessful() || response.body() == null) {
+            String error = bodyString(response);
+            response.close();
+            throw new IOException("读取文件失败，状态码：" + response.code() + "，响应：" + error);
+        }
+        // 关闭输入流时同时关闭响应
+        return new FilterInputStream(response.body().byteStream()) {
+            @Override
+            public void close() throws IOException {
+                response.close();
+            }
+        };
+    }
+
+    @Override
+    public File getLocalFile(String key) throws IOException {
+        Path cached = cachePath(key);
+        if (!Files.isRegularFile(cached)) {
+            Path tmp = createTempFile();
+            try (InputStream in = open(key)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.createDirectories(cached.getParent());
+                Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return cached.toFile();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(cachePath(key));
+        Request request = signedRequest("DELETE", key, null, null, EMPTY_SHA256);
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful() && response.code() != 404) {
+                throw new IOException("删除文件失败，状态码：" + response.code());
+            }
+        }
+    }
+
+    /**
+     * 对象存储的DELETE不支持按修改时间条件删除，删除前重新查询修改时间
+     * store每次都重新上传（刷新修改时间），只有在查询和删除之间重新上传的才会被删除，由员工重新上传即可恢复
+     */
+    @Override
+    public boolean deleteIfNotModifiedSince(String key, long lastModified) throws IOException {
+        StoredObject current = stat(key);
+        if (current == null || current.getLastModified() > lastModified) {
+            return false;
+        }
+        delete(key);
+        return true;
+    }
+
+    @Override
+    public List<StoredObject> list(String prefix) throws IOException {
+        List<StoredObject> objects = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            Request request = signedRequest("GET", null, query, null, EMPTY_SHA256);
+            try (Response response = client.newCall(request).execute()) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new IOException("列出文件失败，状态码：" + response.code() + "，响应：" + bodyString(response));
+                }
+                Document document = parseXml(response.body().byteStream());
+                NodeList contents = document.getElementsByTagName("Contents");
+                for (int i = 0; i < contents.getLength(); i++) {
+                    Element element = (Element) contents.item(i);
+                    objects.add(new StoredObject(
+                            text(element, "Key"),
+                            Long.parseLong(text(element, "Size")),
+                            Instant.parse(text(element, "LastModified")).toEpochMilli()));
+                }
+                continuationToken = "true".equals(text(document.getDocumentElement(), "IsTruncated"))
+                        ? text(document.getDocumentElement(), "NextContinuationToken") : null;
+            }
+        } while (continuationToken != null);
+        return objects;
+    }
+
+    @Override
+    public String getAccessUrl(String key, String downloadName, long expireSeconds) {
+        Instant now = Instant.now();
+        String amzDate = AMZ_DATE.format(now);
+        String scope = AMZ_DAY.format(now) + "/" + region + "/s3/aws4_request";
+
+        Map<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", accessKey + "/" + scope);
+        query.put("X-Amz-Date", amzDate);
+        query.put("X-Amz-Expires", String.valueOf(Math.min(expireSeconds, 7 * 24 * 3600)));
+        query.put("X-Amz-SignedHeaders", "host");
+        if (downloadName != null && !downloadName.isEmpty()) {
+            query.put("response-content-disposition", "attachment; filename*=UTF-8''" + uriEncode(downloadName, true));
+        }
+
+        String path = objectPath(key);
+        String canonicalQuery = canonicalQuery(query);
+        String canonicalRequest = "GET\n" + path + "\n" + canonicalQuery + "\nhost:" + hostHeader() + "\n\nhost\n" + UNSIGNED_PAYLOAD;
+        String signature = signature(now, scope, amzDate, canonicalRequest);
+        return baseUrl.scheme() + "://" + hostHeader() + path + "?" + canonicalQuery + "&X-Amz-Signature=" + signature;
+    }
+
+    /**
+     * 清理本地缓存（其他节点上传的文件只在需要时下载，不长期保留）
+     * 每小时执行一次，删除超过1天未修改的缓存文件和临时文件
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L)
+    public void cleanupCache() {
+        long now = System.currentTimeMillis();
+        try (Stream<Path> stream = Files.walk(cacheRoot)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                if (Files.isRegularFile(path) && now - Files.getLastModifiedTime(path).toMillis() > CACHE_EXPIRY) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理本地缓存失败", e);
+        }
+    }
+
+    /**
+     * 构建带签名的请求（AWS Signature V4，Authorization请求头）
+     *
+     * @param method 请求方法
+     * @param key 存储key（为null时请求存储桶本身）
+     * @param query 查询参数（可为null）
+     * @param body 请求体（可为null）
+     * @param payloadHash 请求体SHA-256（流式上传时为UNSIGNED-PAYLOAD）
+     * @return 请求
+     */
+    private Request signedRequest(String method, String key, Map<String, String> query, RequestBody body, String payloadHash) {
+        Instant now = Instant.now();
+        String amzDate = AMZ_DATE.format(now);
+        String scope = AMZ_DAY.format(now) + "/" + region + "/s3/aws4_request";
+
+        String path = key == null ? "/" + bucket : objectPath(key);
+        String canonicalQuery = query == null ? "" : canonicalQuery(query);
+        String canonicalHeaders = "host:" + hostHeader() + "\n"
+                + "x-amz-content-sha256:" + payloadHash + "\n"
+                + "x-amz-date:" + amzDate + "\n";
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonicalRequest = method + "\n" + path + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+        String signature = signature(now, scope, amzDate, canonicalRequest);
+
+        String url = baseUrl.scheme() + "://" + hostHeader() + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery);
+        return new Request.Builder()
+                .url(url)
+                .method(method, body)
+                .header("x-amz-content-sha256", payloadHash)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature)
+                .build();
+    }
+
+    private String signature(Instant now, String scope, String amzDate, String canonicalRequest) {
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), AMZ_DAY.format(now));
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        return HexUtil.encodeHexStr(hmac(signingKey, stringToSign));
+    }
+
+    private String objectPath(String key) {
+        return "/" + bucket + "/" + uriEncode(key, false);
+    }
+
+    private String hostHeader() {
+        int defaultPort = HttpUrl.defaultPort(baseUrl.scheme());
+        return baseUrl.port() == defaultPort ? baseUrl.host() : baseUrl.host() + ":" + baseUrl.port();
+    }
+
+    private String canonicalQuery(Map<String, String> query) {
+        // TreeMap按参数名排序，参数名均为ASCII，编码前后顺序一致
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(uriEncode(entry.getKey(), true)).append('=').append(uriEncode(entry.getValue(), true));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按S3签名规则进行URI编码（除字母、数字和-_.~以外的字符都编码，可选是否编码"/"）
+     */
+    private static String uriEncode(String value, boolean encodeSlash) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                sb.append(c);
+            } else {
+                sb.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return sb.toString();
+    }
+
+    private Path cachePath(String key) {
+        Path path = cacheRoot.resolve(key.replace('\\', '/')).normalize();
+        if (!path.startsWith(cacheRoot) || path.startsWith(tmpRoot)) {
+            throw new IllegalArgumentException("非法的文件路径：" + key);
+        }
+        return path;
+    }
+
+    private String contentType(String key) {
+        String lower = key.toLowerCase();
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
+            return "image/jpeg";
+        } else if (lower.endsWith(".png")) {
+            return "image/png";
+        } else if (lower.endsWith(".bmp")) {
+            return "image/bmp";
+        } else if (lower.endsWith(".xlsx")) {
+            return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+        } else if (lower.endsWith(".pdf")) {
+            return "application/pdf";
+        }
+        return "application/octet-stream";
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("计算签名失败", e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            return HexUtil.encodeHexStr(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("计算签名失败", e);
+        }
+    }
+
+    private static Document parseXml(InputStream in) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // 禁止外部实体
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            return factory.newDocumentBuilder().parse(in);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("解析对象存储响应失败", e);
+        }
+    }
+
+    private static String text(Element parent, String tagName) {
+        NodeList nodes = parent.getElementsByTagName(tagName);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+
+    private static String bodyString(Response response) {
+        try {
+            ResponseBody body = response.body();
+            return body != null ? body.string() : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
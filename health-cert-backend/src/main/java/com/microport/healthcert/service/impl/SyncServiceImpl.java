@@ -6,10 +6,12 @@ import com.microport.healthcert.entity.Department;
 import com.microport.healthcert.entity.Employee;
 import com.microport.healthcert.entity.SystemConfig;
 import com.microport.healthcert.entity.remote.HrSync;
+import com.microport.healthcert.exception.LeaseLostException;
 import com.microport.healthcert.mapper.DepartmentMapper;
 import com.microport.healthcert.mapper.EmployeeMapper;
 import com.microport.healthcert.mapper.SystemConfigMapper;
 import com.microport.healthcert.mapper.remote.HrSyncMapper;
+import com.microport.healthcert.service.JobCoordinationService.LeaseHandle;
 import com.microport.healthcert.service.SyncService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -39,6 +41,11 @@ public class SyncServiceImpl implements SyncService {
      */
     private static final String SYNC_FLAG_KEY = "sync.in_progress";
 
+    /**
+     * 每同步多少名员工检查一次租约
+     */
+    private static final int LEASE_CHECK_INTERVAL = 200;
+
     @Autowired
     private HrSyncMapper hrSyncMapper;
 
@@ -55,11 +62,12 @@ public class SyncServiceImpl implements SyncService {
      * 同步员工数据
      * 从远程hr_sync表同步到本地employees表
      * 
+     * @param lease 定时任务持有的租约，管理员手动同步时为null
      * @return 同步结果（新增数/更新数/离职数）
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public SyncResultDTO syncEmployees() {
+    public SyncResultDTO syncEmployees(LeaseHandle lease) {
         long startTime = System.currentTimeMillis();
         SyncResultDTO result = new SyncResultDTO();
         result.setStartTime(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
@@ -83,6 +91,10 @@ public class SyncServiceImpl implements SyncService {
             Map<String, Boolean> remoteSfUserIds = new HashMap<>();
 
             for (HrSync remote : remoteEmployees) {
+                // 租约已被其他节点获取时停止，本次写入整体回滚
+                if (lease != null && remoteSfUserIds.size() % LEASE_CHECK_INTERVAL == 0) {
+                    lease.checkHeld();
+                }
                 remoteSfUserIds.put(remote.getSfUserId(), true);
 
                 Employee local = localEmployeeMap.get(remote.getSfUserId());
@@ -169,6 +181,10 @@ public class SyncServiceImpl implements SyncService {
             }
 
             // 5. 远程无本地有 → 标记is_active=0
+            // 标记离职前锁定租约并校验令牌（锁定到事务提交），其他节点已接手时不标记、整体回滚
+            if (lease != null) {
+                lease.lockHeld();
+            }
             int inactiveCount = 0;
             for (Employee local : localEmployees) {
                 if (!remoteSfUserIds.containsKey(local.getSfUserId())) {
@@ -199,6 +215,9 @@ public class SyncServiceImpl implements SyncService {
 
             return result;
 
+        } catch (LeaseLostException e) {
+            setSyncFlag(false);
+            throw e;
         } catch (Exception e) {
             // 同步失败，清除同步标志
             setSyncFlag(false);
@@ -0,0 +1,209 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.microport.healthcert.common.SystemConfigChangedEvent;
+import com.microport.healthcert.entity.SystemConfig;
+import com.microport.healthcert.mapper.SystemConfigMapper;
+import com.microport.healthcert.service.SystemConfigService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 系统配置读取服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class SystemConfigServiceImpl implements SystemConfigService {
+
+    @Autowired
+    private SystemConfigMapper systemConfigMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 配置快照（只读，刷新时整体替换）
+     */
+    private volatile Map<String, String> snapshot;
+
+    /**
+     * 快照对应的版本戳（记录数、最后修改时间、内容校验和）
+     */
+    private volatile String versionStamp;
+
+    /**
+     * 启动时加载配置
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // 数据库暂不可用时不影响启动，首次读取或下次检查时重新加载
+            log.warn("加载系统配置失败", e);
+        }
+    }
+
+    @Override
+    public String getValue(String configKey) {
+        return getSnapshot().get(configKey);
+    }
+
+    @Override
+    public String getValue(String configKey, String defaultValue) {
+        String value = getValue(configKey);
+        return value != null && !value.trim().isEmpty() ? value : defaultValue;
+    }
+
+    @Override
+    public int getInt(String configKey, int defaultValue) {
+        String value = getValue(configKey);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("配置值不是整数，使用默认值：{}={}", configKey, value);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String configKey, boolean defaultValue) {
+        String value = getValue(configKey);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return "true".equalsIgnoreCase(value.trim());
+    }
+
+    @Override
+    public Map<String, String> getSnapshot() {
+        Map<String, String> current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    @Override
+    public void saveConfigs(List<SystemConfig> configs) {
+        if (configs == null || configs.isEmpty()) {
+            return;
+        }
+
+        // 一次查询出已存在的配置
+        Set<String> keys = configs.stream().map(SystemConfig::getConfigKey).collect(Collectors.toSet());
+        LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
+        wrapper.in(SystemConfig::getConfigKey, keys);
+        Map<String, SystemConfig> existing = new HashMap<>();
+        for (SystemConfig config : systemConfigMapper.selectList(wrapper)) {
+            existing.put(config.getConfigKey(), config);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (SystemConfig config : configs) {
+            SystemConfig current = existing.get(config.getConfigKey());
+            if (current == null) {
+                // 配置不存在，创建新配置
+                if (config.getIsEncrypted() == null) {
+                    config.setIsEncrypted(0);
+                }
+                config.setCreatedAt(now);
+                config.setUpdatedAt(now);
+                systemConfigMapper.insert(config);
+            } else if (!Objects.equals(current.getConfigValue(), config.getConfigValue())) {
+                // 配置已存在，更新配置值
+                current.setConfigValue(config.getConfigValue());
+                current.setUpdatedAt(now);
+                systemConfigMapper.updateById(current);
+            }
+        }
+
+        refresh();
+    }
+
+    @Override
+    public synchronized void refresh() {
+        // 先读版本戳再读配置：两次读取之间的修改会使下次检查时版本戳不一致，再刷新一次
+        String stamp = queryVersionStamp();
+        Map<String, String> values = new HashMap<>();
+        for (SystemConfig config : systemConfigMapper.selectList(null)) {
+            values.put(config.getConfigKey(), config.getConfigValue());
+        }
+
+        Map<String, String> previous = snapshot;
+        snapshot = Collections.unmodifiableMap(values);
+        versionStamp = stamp;
+
+        if (previous == null) {
+            log.info("加载系统配置{}项", values.size());
+            return;
+        }
+        Set<String> changedKeys = new HashSet<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!previous.containsKey(entry.getKey()) || !Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+                changedKeys.add(entry.getKey());
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!values.containsKey(key)) {
+                changedKeys.add(key);
+            }
+        }
+        if (!changedKeys.isEmpty()) {
+            log.info("系统配置已更新：{}", changedKeys);
+            eventPublisher.publishEvent(new SystemConfigChangedEvent(this, Collections.unmodifiableSet(changedKeys)));
+        }
+    }
+
+    /**
+     * 检查配置版本，其他实例修改配置后刷新快照
+     * 只查询一行汇总数据，默认每10秒执行一次
+     */
+    @Scheduled(fixedDelayString = "${config.refresh-interval-ms:10000}")
+    public void checkVersion() {
+        try {
+            if (snapshot == null || !Objects.equals(versionStamp, queryVersionStamp())) {
+                refresh();
+            }
+        } catch (Exception e) {
+            log.warn("检查系统配置版本失败", e);
+        }
+    }
+
+    /**
+     * 查询配置版本戳
+     * updated_at只精确到秒，同一秒内的多次修改需要内容校验和区分
+     *
+     * @return 版本戳
+     */
+    private String queryVersionStamp() {
+        QueryWrapper<SystemConfig> wrapper = new QueryWrapper<>();
+        wrapper.select("COUNT(*) AS cnt", "MAX(updated_at) AS ts",
+                "SUM(CRC32(CONCAT_WS('=', config_key, config_value))) AS crc");
+        List<Map<String, Object>> rows = systemConfigMapper.selectMaps(wrapper);
+        return rows.isEmpty() || rows.get(0) == null ? "" : new TreeMap<>(rows.get(0)).toString();
+    }
+}
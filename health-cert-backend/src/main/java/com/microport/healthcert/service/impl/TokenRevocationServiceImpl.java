@@ -0,0 +1,207 @@
+package com.microport.healthcert.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.microport.healthcert.common.JwtPrincipal;
+import com.microport.healthcert.entity.RevokedToken;
+import com.microport.healthcert.mapper.RevokedTokenMapper;
+import com.microport.healthcert.service.TokenRevocationService;
+import com.microport.healthcert.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token吊销服务实现类
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    /**
+     * 增量同步时向前重叠的时间（秒），避免同一秒内写入、事务提交先后不同的记录漏同步
+     */
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+
+    /**
+     * 布隆过滤器误判率
+     */
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * 布隆过滤器的最小容量
+     */
+    @Value("${auth.revocation.bloom-capacity:10000}")
+    private int bloomCapacity = 10000;
+
+    /**
+     * 清理已过期记录、重建布隆过滤器的间隔（毫秒）
+     */
+    @Value("${auth.revocation.purge-interval-ms:600000}")
+    private long purgeIntervalMillis = 600000;
+
+    @Autowired
+    private RevokedTokenMapper revokedTokenMapper;
+
+    /**
+     * 精确名单（key: jti，value: Token过期时间毫秒时间戳）
+     */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * 布隆过滤器（重建时整体替换）
+     */
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * 布隆过滤器容量（超过后重建并扩容）
+     */
+    private int bloomFilterCapacity;
+
+    /**
+     * 已同步到的吊销时间（数据库时间）
+     */
+    private volatile LocalDateTime syncedUntil;
+
+    /**
+     * 上次清理时间
+     */
+    private volatile long lastPurgeAt = System.currentTimeMillis();
+
+    /**
+     * 启动时加载未过期的已吊销Token
+     */
+    @PostConstruct
+    public void init() {
+        rebuildBloomFilter();
+        try {
+            sync();
+        } catch (Exception e) {
+            // 数据库暂不可用时不影响启动，下次同步时加载
+            log.warn("加载已吊销Token失败", e);
+        }
+    }
+
+    @Override
+    public void revoke(JwtPrincipal principal, String reason) {
+        if (principal == null || principal.getTokenId() == null) {
+            return;
+        }
+        RevokedToken token = new RevokedToken();
+        token.setJti(principal.getTokenId());
+        token.setUserId(principal.getUserId());
+        token.setReason(reason);
+        token.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(principal.getExpiresAt()), ZoneId.systemDefault()));
+        revokedTokenMapper.insertIgnore(token);
+        add(principal.getTokenId(), principal.getExpiresAt());
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        // 绝大多数Token不在名单中，布隆过滤器判断不存在时不再查精确名单
+        return bloomFilter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * 增量同步其他节点吊销的Token，并定期清理已过期的记录
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.sync-interval-ms:5000}", initialDelay = 5000)
+    public void scheduledSync() {
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("同步已吊销Token失败：{}", e.getMessage());
+        }
+        if (System.currentTimeMillis() - lastPurgeAt >= purgeIntervalMillis) {
+            purgeExpired();
+        }
+    }
+
+    /**
+     * 查询上次同步之后吊销的、未过期的Token，加入内存名单
+     */
+    private void sync() {
+        LambdaQueryWrapper<RevokedToken> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(RevokedToken::getJti, RevokedToken::getExpiresAt, RevokedToken::getRevokedAt)
+               .gt(RevokedToken::getExpiresAt, LocalDateTime.now());
+        LocalDateTime since = syncedUntil;
+        if (since != null) {
+            wrapper.ge(RevokedToken::getRevokedAt, since.minusSeconds(SYNC_OVERLAP_SECONDS));
+        }
+        List<RevokedToken> rows = revokedTokenMapper.selectList(wrapper);
+
+        LocalDateTime maxRevokedAt = since;
+        for (RevokedToken row : rows) {
+            add(row.getJti(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            if (maxRevokedAt == null || row.getRevokedAt().isAfter(maxRevokedAt)) {
+                maxRevokedAt = row.getRevokedAt();
+            }
+        }
+        if (since == null && maxRevokedAt == null) {
+            // 没有未过期的吊销记录，之后按启动时间增量同步
+            maxRevokedAt = LocalDateTime.now().minusSeconds(SYNC_OVERLAP_SECONDS);
+        }
+        syncedUntil = maxRevokedAt;
+        if (since == null) {
+            log.info("加载未过期的已吊销Token{}个", revoked.size());
+        }
+    }
+
+    /**
+     * 加入内存名单（与重建布隆过滤器互斥，重建期间加入的记录不会丢失）
+     *
+     * @param jti Token ID
+     * @param expiresAt Token过期时间（毫秒时间戳）
+     */
+    private synchronized void add(String jti, long expiresAt) {
+        if (revoked.put(jti, expiresAt) == null) {
+            if (revoked.size() > bloomFilterCapacity) {
+                rebuildBloomFilter();
+            } else {
+                bloomFilter.put(jti);
+            }
+        }
+    }
+
+    /**
+     * 移除已过期的记录，按剩余记录重建布隆过滤器（布隆过滤器不支持删除）
+     */
+    private synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        rebuildBloomFilter();
+        lastPurgeAt = now;
+        if (before != revoked.size()) {
+            log.info("清理已过期的吊销Token{}个，剩余{}个", before - revoked.size(), revoked.size());
+        }
+    }
+
+    /**
+     * 按精确名单重建布隆过滤器，容量为当前记录数的2倍（不小于配置的最小容量）
+     */
+    private synchronized void rebuildBloomFilter() {
+        int capacity = Math.max(bloomCapacity, revoked.size() * 2);
+        BloomFilter filter = new BloomFilter(capacity, BLOOM_FALSE_POSITIVE_RATE);
+        for (String jti : revoked.keySet()) {
+            filter.put(jti);
+        }
+        bloomFilterCapacity = capacity;
+        bloomFilter = filter;
+    }
+}
@@ -1,6 +1,7 @@
 package com.microport.healthcert.task;
 
 import com.microport.healthcert.dto.SyncResultDTO;
+import com.microport.healthcert.service.JobCoordinationService;
 import com.microport.healthcert.service.SyncService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,7 +10,7 @@ import org.springframework.stereotype.Component;
 
 /**
  * 员工同步定时任务
- * 定时执行员工数据同步
+ * 定时执行员工数据同步（多节点部署时只在获取到租约的节点执行）
  * 
  * @author system
  * @date 2024
@@ -18,26 +19,39 @@ import org.springframework.stereotype.Component;
 @Component
 public class EmployeeSyncTask {
 
+    /**
+     * 任务名称（job_leases.job_name）
+     */
+    private static final String JOB_NAME = "employee-sync";
+
+    /**
+     * 租约最少保持时间（秒）
+     */
+    private static final long MIN_HOLD_SECONDS = 600;
+
     @Autowired
     private SyncService syncService;
 
+    @Autowired
+    private JobCoordinationService jobCoordinationService;
+
     /**
      * 定时同步员工数据
      * cron表达式: 0 0 0,12,18 * * ? (每天0点、12点、18点执行)
      */
     @Scheduled(cron = "0 0 0,12,18 * * ?")
     public void syncEmployees() {
-        log.info("开始执行员工同步定时任务");
-        try {
-            SyncResultDTO result = syncService.syncEmployees();
+        jobCoordinationService.runExclusive(JOB_NAME, MIN_HOLD_SECONDS, lease -> {
+            log.info("开始执行员工同步定时任务");
+            SyncResultDTO result = syncService.syncEmployees(lease);
             log.info("员工同步定时任务执行成功：新增{}条，更新{}条，离职{}条，耗时{}ms",
                     result.getAddedCount(),
                     result.getUpdatedCount(),
                     result.getInactiveCount(),
                     result.getDuration());
-        } catch (Exception e) {
-            log.error("员工同步定时任务执行失败", e);
-        }
+            return String.format("新增%d条，更新%d条，离职%d条",
+                    result.getAddedCount(), result.getUpdatedCount(), result.getInactiveCount());
+        });
     }
 }
 
@@ -0,0 +1,203 @@
+package com.microport.healthcert.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.microport.healthcert.entity.HealthCertificate;
+import com.microport.healthcert.mapper.HealthCertificateMapper;
+import com.microport.healthcert.service.JobCoordinationService;
+import com.microport.healthcert.service.StorageService;
+import com.microport.healthcert.service.impl.ExportServiceImpl;
+import com.microport.healthcert.util.FileUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片清理定时任务
+ * 清理内容寻址存储（uploads/cas）中没有被任何健康证记录引用的图片，本地存储和对象存储均适用
+ * 引用关系以health_certificates.image_path为准，刚上传、尚未提交的图片在保留期内不会被清理
+ * 同时清理已超过下载有效期的导出文件（downloads/，包含员工个人信息）
+ * 
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+@Component
+public class ImageCleanupTask {
+
+    @Autowired
+    private HealthCertificateMapper healthCertificateMapper;
+
+    /**
+     * 任务名称（job_leases.job_name）
+     */
+    private static final String JOB_NAME = "image-cleanup";
+
+    /**
+     * 租约最少保持时间（秒）
+     */
+    private static final long MIN_HOLD_SECONDS = 600;
+
+    /**
+     * 导出文件清理任务名称（job_leases.job_name）
+     */
+    private static final String EXPORT_JOB_NAME = "export-cleanup";
+
+    /**
+     * 导出文件清理租约最少保持时间（秒）
+     */
+    private static final long EXPORT_MIN_HOLD_SECONDS = 300;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private JobCoordinationService jobCoordinationService;
+
+    /**
+     * 未被引用图片的保留天数（员工上传后可能还没提交）
+     */
+    @Value("${upload.gc.grace-days:7}")
+    private int graceDays;
+
+    /**
+     * 清理未被引用的图片
+     * cron表达式: 0 0 3 * * ? (每天凌晨3点执行)
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void cleanupOrphanImages() {
+        jobCoordinationService.runExclusive(JOB_NAME, MIN_HOLD_SECONDS, lease -> {
+            log.info("开始执行图片清理任务");
+            // 查询所有被引用的图片路径（统一使用"/"分隔）
+            LambdaQueryWrapper<HealthCertificate> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(HealthCertificate::getImagePath)
+                   .likeRight(HealthCertificate::getImagePath, FileUtil.CAS_DIR);
+            Set<String> referenced = new HashSet<>();
+            for (Object imagePath : healthCertificateMapper.selectObjs(wrapper)) {
+                if (imagePath != null) {
+                    referenced.add(FileUtil.UPLOAD_PREFIX + imagePath.toString().replace('\\', '/'));
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            long graceMillis = TimeUnit.DAYS.toMillis(graceDays);
+            List<StorageService.StoredObject> objects = storageService.list(FileUtil.UPLOAD_PREFIX + FileUtil.CAS_DIR + "/");
+
+            int deletedCount = 0;
+            long freedBytes = 0;
+            for (StorageService.StoredObject object : objects) {
+                // 租约已被其他节点获取时停止删除（新的执行节点会重新扫描）
+                lease.checkHeld();
+                // 删除时再次按修改时间判断，查询后被重新上传的图片（刷新了修改时间）不删除
+                if (!referenced.contains(object.getKey()) && now - object.getLastModified() > graceMillis
+                        && isStillOrphan(object.getKey(), graceMillis)
+                        && storageService.deleteIfNotModifiedSince(object.getKey(), System.currentTimeMillis() - graceMillis)) {
+                    deletedCount++;
+                    freedBytes += object.getSize();
+                }
+            }
+
+            // 清理原图已删除的缩略图（variants/w{宽度}/cas/ab/cd/{sha256}.jpg）
+            Set<String> referencedHashes = new HashSet<>();
+            for (String key : referenced) {
+                referencedHashes.add(baseName(key));
+            }
+            int variantCount = 0;
+            for (StorageService.StoredObject object : storageService.list(FileUtil.VARIANT_PREFIX)) {
+                lease.checkHeld();
+                if (!isVariantReferenced(object.getKey(), referencedHashes)) {
+                    storageService.delete(object.getKey());
+                    variantCount++;
+                    freedBytes += object.getSize();
+                }
+            }
+
+            log.info("图片清理完成，共{}个文件，删除{}个未被引用的文件和{}个缩略图，释放{}KB",
+                    objects.size(), deletedCount, variantCount, freedBytes / 1024);
+            return "删除" + deletedCount + "个文件和" + variantCount + "个缩略图，释放" + freedBytes / 1024 + "KB";
+        });
+    }
+
+    /**
+     * 清理已超过下载有效期的导出文件
+     * cron表达式: 0 30 * * * ? (每小时30分执行)
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void cleanupExportFiles() {
+        jobCoordinationService.runExclusive(EXPORT_JOB_NAME, EXPORT_MIN_HOLD_SECONDS, lease -> {
+            long expiryMillis = TimeUnit.SECONDS.toMillis(ExportServiceImpl.FILE_URL_EXPIRY_SECONDS);
+            int deletedCount = 0;
+            long freedBytes = 0;
+            for (StorageService.StoredObject object : storageService.list(ExportServiceImpl.DOWNLOAD_PREFIX)) {
+                if (System.currentTimeMillis() - object.getLastModified() > expiryMillis) {
+                    storageService.delete(object.getKey());
+                    deletedCount++;
+                    freedBytes += object.getSize();
+                }
+            }
+            if (deletedCount > 0) {
+                log.info("导出文件清理完成，删除{}个过期的导出文件，释放{}KB", deletedCount, freedBytes / 1024);
+            }
+            return "删除" + deletedCount + "个导出文件，释放" + freedBytes / 1024 + "KB";
+        });
+    }
+
+    /**
+     * 删除前重新确认图片仍未被引用且仍超过保留期
+     * 引用关系和文件列表在任务开始时查询，执行期间可能有健康证引用了该图片，或员工重新上传了相同内容的图片（刷新修改时间）
+     *
+     * @param key 存储key
+     * @param graceMillis 保留期（毫秒）
+     * @return 是否可以删除
+     * @throws IOException IO异常
+     */
+    private boolean isStillOrphan(String key, long graceMillis) throws IOException {
+        StorageService.StoredObject current = storageService.stat(key);
+        if (current == null || System.currentTimeMillis() - current.getLastModified() <= graceMillis) {
+            return false;
+        }
+        String imagePath = key.substring(FileUtil.UPLOAD_PREFIX.length());
+        LambdaQueryWrapper<HealthCertificate> wrapper = new LambdaQueryWrapper<>();
+        wrapper.in(HealthCertificate::getImagePath, imagePath, imagePath.replace('/', '\\'));
+        return healthCertificateMapper.selectCount(wrapper) == 0;
+    }
+
+    /**
+     * 判断缩略图对应的原图是否仍被引用（不区分原图扩展名）
+     *
+     * @param variantKey 缩略图存储key
+     * @param referencedHashes 被引用的原图SHA-256
+     * @return 是否被引用
+     */
+    private boolean isVariantReferenced(String variantKey, Set<String> referencedHashes) {
+        int start = variantKey.indexOf('/', FileUtil.VARIANT_PREFIX.length());
+        if (start > 0 && variantKey.charAt(FileUtil.VARIANT_PREFIX.length()) != 'w') {
+            // 旧格式（variants/{长边}/）的缩略图按长边缩放，竖版图片宽度不对，删除后按宽度重新生成
+            return false;
+        }
+        if (start < 0 || !variantKey.startsWith(FileUtil.CAS_DIR + "/", start + 1)) {
+            // 历史图片的缩略图不清理
+            return true;
+        }
+        return referencedHashes.contains(baseName(variantKey));
+    }
+
+    /**
+     * 获取存储key的文件名（不含扩展名），内容寻址存储中即SHA-256
+     *
+     * @param key 存储key
+     * @return 文件名
+     */
+    private String baseName(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        return dot >= 0 ? name.substring(0, dot) : name;
+    }
+}
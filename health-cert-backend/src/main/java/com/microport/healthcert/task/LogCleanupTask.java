@@ -1,18 +1,29 @@
 package com.microport.healthcert.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.microport.healthcert.entity.JobHistory;
 import com.microport.healthcert.entity.OperationLog;
+import com.microport.healthcert.entity.RefreshToken;
+import com.microport.healthcert.entity.ReminderShard;
+import com.microport.healthcert.entity.RevokedToken;
+import com.microport.healthcert.mapper.JobHistoryMapper;
 import com.microport.healthcert.mapper.OperationLogMapper;
+import com.microport.healthcert.mapper.RefreshTokenMapper;
+import com.microport.healthcert.mapper.ReminderShardMapper;
+import com.microport.healthcert.mapper.RevokedTokenMapper;
+import com.microport.healthcert.service.JobCoordinationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * 日志清理定时任务
- * 定期清理1年以前的日志
+ * 定期清理1年以前的日志、过期的定时任务执行记录、已过期Token的吊销记录和已过期的刷新Token
  * 
  * @author system
  * @date 2024
@@ -21,17 +32,48 @@ import java.time.LocalDateTime;
 @Component
 public class LogCleanupTask {
 
+    /**
+     * 任务名称（job_leases.job_name）
+     */
+    private static final String JOB_NAME = "log-cleanup";
+
+    /**
+     * 租约最少保持时间（秒）
+     */
+    private static final long MIN_HOLD_SECONDS = 600;
+
     @Autowired
     private OperationLogMapper operationLogMapper;
 
+    @Autowired
+    private JobHistoryMapper jobHistoryMapper;
+
+    @Autowired
+    private ReminderShardMapper reminderShardMapper;
+
+    @Autowired
+    private RevokedTokenMapper revokedTokenMapper;
+
+    @Autowired
+    private RefreshTokenMapper refreshTokenMapper;
+
+    @Autowired
+    private JobCoordinationService jobCoordinationService;
+
+    /**
+     * 定时任务执行记录保留天数
+     */
+    @Value("${job.history.retention-days:90}")
+    private int historyRetentionDays = 90;
+
     /**
      * 清理1年以前的日志
      * cron表达式: 0 0 2 * * ? (每天凌晨2点执行)
      */
     @Scheduled(cron = "0 0 2 * * ?")
     public void cleanupOldLogs() {
-        log.info("开始执行日志清理任务");
-        try {
+        jobCoordinationService.runExclusive(JOB_NAME, MIN_HOLD_SECONDS, lease -> {
+            log.info("开始执行日志清理任务");
             // 计算1年前的日期
             LocalDateTime oneYearAgo = LocalDateTime.now().minusYears(1);
 
@@ -42,10 +84,31 @@ public class LogCleanupTask {
             // 删除1年以前的日志
             int deletedCount = operationLogMapper.delete(wrapper);
 
-            log.info("日志清理完成，删除{}条1年以前的日志", deletedCount);
-        } catch (Exception e) {
-            log.error("日志清理任务执行失败", e);
-        }
+            // 删除过期的定时任务执行记录
+            LambdaQueryWrapper<JobHistory> historyWrapper = new LambdaQueryWrapper<>();
+            historyWrapper.lt(JobHistory::getStartedAt, LocalDateTime.now().minusDays(historyRetentionDays));
+            int historyCount = jobHistoryMapper.delete(historyWrapper);
+
+            // 删除过期的提醒任务分片记录（与执行记录保留相同天数）
+            LambdaQueryWrapper<ReminderShard> shardWrapper = new LambdaQueryWrapper<>();
+            shardWrapper.lt(ReminderShard::getRunDate, LocalDate.now().minusDays(historyRetentionDays));
+            int shardCount = reminderShardMapper.delete(shardWrapper);
+
+            // 删除Token已过期的吊销记录（过期的Token验签时已被拒绝）
+            LambdaQueryWrapper<RevokedToken> revokedWrapper = new LambdaQueryWrapper<>();
+            revokedWrapper.lt(RevokedToken::getExpiresAt, LocalDateTime.now());
+            int revokedCount = revokedTokenMapper.delete(revokedWrapper);
+
+            // 删除已过期的刷新Token
+            LambdaQueryWrapper<RefreshToken> refreshWrapper = new LambdaQueryWrapper<>();
+            refreshWrapper.lt(RefreshToken::getExpiresAt, LocalDateTime.now());
+            int refreshCount = refreshTokenMapper.delete(refreshWrapper);
+
+            log.info("日志清理完成，删除{}条1年以前的日志，{}条定时任务执行记录和{}条提醒任务分片记录（{}天以前），{}条已过期Token的吊销记录，{}条已过期的刷新Token",
+                    deletedCount, historyCount, shardCount, historyRetentionDays, revokedCount, refreshCount);
+            return "删除日志" + deletedCount + "条，定时任务执行记录" + historyCount + "条，提醒任务分片记录" + shardCount
+                    + "条，吊销记录" + revokedCount + "条，刷新Token" + refreshCount + "条";
+        });
     }
 }
 
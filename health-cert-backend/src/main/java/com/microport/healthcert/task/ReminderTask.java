@@ -1,5 +1,6 @@
 package com.microport.healthcert.task;
 
+import com.microport.healthcert.service.JobCoordinationService;
 import com.microport.healthcert.service.ReminderService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Component;
 /**
  * 提醒定时任务
  * 定时执行健康证到期提醒
+ * 多节点部署时提醒任务在各节点同时执行（按分片分工），其他任务只在获取到租约的节点执行
  * 
  * @author system
  * @date 2024
@@ -17,9 +19,17 @@ import org.springframework.stereotype.Component;
 @Component
 public class ReminderTask {
 
+    /**
+     * 租约最少保持时间（秒）：轮询任务，小于轮询间隔
+     */
+    private static final long POLL_MIN_HOLD_SECONDS = 30;
+
     @Autowired
     private ReminderService reminderService;
 
+    @Autowired
+    private JobCoordinationService jobCoordinationService;
+
     /**
      * 定时发送健康证到期提醒
      * cron表达式: 0 0 9 * * ? (每天9点执行)
@@ -34,5 +44,45 @@ public class ReminderTask {
             log.error("健康证到期提醒定时任务执行失败", e);
         }
     }
-}
 
+    /**
+     * 定时继续执行当天未完成的提醒任务分片
+     * 执行节点在提醒任务中途退出时，它领取的分片在领取过期后由这里重新领取，从保存的进度处继续
+     */
+    @Scheduled(fixedDelayString = "${reminder.shard.recovery-interval-ms:300000}", initialDelay = 180000)
+    public void resumeReminderShards() {
+        int shards = reminderService.resumeShards();
+        if (shards > 0) {
+            log.info("继续执行未完成的提醒任务分片{}个", shards);
+        }
+    }
+
+    /**
+     * 定时发送通知发件箱中等待重试的通知
+     * 提醒任务发送失败的通知按退避间隔重新排队，发送进程中断时领取过期的通知也在这里重新发送
+     */
+    @Scheduled(fixedDelayString = "${reminder.outbox.poll-interval-ms:60000}", initialDelay = 60000)
+    public void deliverOutbox() {
+        jobCoordinationService.runExclusive(ReminderService.OUTBOX_JOB_NAME, POLL_MIN_HOLD_SECONDS, lease -> {
+            int delivered = reminderService.deliverOutbox(lease);
+            if (delivered > 0) {
+                log.info("发送通知发件箱中的通知{}条", delivered);
+            }
+            return "发送" + delivered + "条";
+        });
+    }
+
+    /**
+     * 定时检查钉钉工作通知的送达情况
+     */
+    @Scheduled(fixedDelayString = "${reminder.dingtalk.delivery-check-interval-ms:300000}", initialDelay = 120000)
+    public void checkDingTalkDelivery() {
+        jobCoordinationService.runExclusive("dingtalk-delivery-check", POLL_MIN_HOLD_SECONDS, lease -> {
+            int updated = reminderService.checkDingTalkDelivery();
+            if (updated > 0) {
+                log.info("更新钉钉工作通知送达状态{}条", updated);
+            }
+            return "更新" + updated + "条";
+        });
+    }
+}
@@ -0,0 +1,223 @@
+package com.microport.healthcert.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 访问令牌管理器
+ * 缓存第三方接口的access_token（如钉钉），供多个线程并发使用：
+ * 1. 同一时间只有一个线程调用获取token的接口，其他线程等待同一次获取的结果（不会同时请求多次）
+ * 2. 按接口返回的有效期缓存，到期前提前在后台刷新，调用方不会因token过期而等待
+ * 3. 接口返回token无效/过期时调用invalidate作废当前token，下次获取时重新请求
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+public class AccessTokenManager {
+
+    /**
+     * 获取token的接口调用
+     */
+    @FunctionalInterface
+    public interface TokenLoader {
+
+        /**
+         * 调用接口获取新的token
+         *
+         * @return token
+         * @throws Exception 获取失败时抛出异常
+         */
+        Token load() throws Exception;
+    }
+
+    /**
+     * 访问令牌
+     */
+    public static class Token {
+
+        private final String value;
+
+        private final long expiresAt;
+
+        /**
+         * 创建访问令牌
+         *
+         * @param value token值
+         * @param expiresInSeconds 接口返回的有效期（秒）
+         */
+        public Token(String value, long expiresInSeconds) {
+            this.value = value;
+            this.expiresAt = System.currentTimeMillis() + expiresInSeconds * 1000L;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * 名称（用于日志）
+     */
+    private final String name;
+
+    private final TokenLoader loader;
+
+    /**
+     * 提前刷新时间（毫秒），token剩余有效期小于该值时在后台刷新
+     */
+    private final long refreshAheadMillis;
+
+    /**
+     * 当前token
+     */
+    private final AtomicReference<Token> current = new AtomicReference<>();
+
+    /**
+     * 正在进行的获取（保证同一时间只有一次获取）
+     */
+    private final AtomicReference<CompletableFuture<Token>> inflight = new AtomicReference<>();
+
+    /**
+     * 版本号，invalidateAll后递增，作废之前开始的获取结果（如配置变更前发出的请求）
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * 后台刷新线程
+     */
+    private final ExecutorService refreshExecutor;
+
+    /**
+     * 创建访问令牌管理器
+     *
+     * @param name 名称（用于日志和线程名）
+     * @param loader 获取token的接口调用
+     * @param refreshAheadSeconds 提前刷新时间（秒）
+     */
+    public AccessTokenManager(String name, TokenLoader loader, long refreshAheadSeconds) {
+        this.name = name;
+        this.loader = loader;
+        this.refreshAheadMillis = refreshAheadSeconds * 1000L;
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 获取token
+     * 缓存有效时直接返回；进入提前刷新时间后返回当前token并在后台刷新；已过期或没有token时等待获取完成
+     *
+     * @return token值
+     * @throws Exception 获取失败时抛出异常
+     */
+    public String get() throws Exception {
+        Token token = current.get();
+        long now = System.currentTimeMillis();
+        if (token != null && now < token.expiresAt) {
+            if (now >= token.expiresAt - refreshAheadMillis) {
+                refreshAsync();
+            }
+            return token.value;
+        }
+
+        try {
+            return refresh(false).get().value;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 作废指定的token（接口返回token无效或过期时调用）
+     * 只作废仍为当前值的token，其他线程已经刷新得到的新token不受影响
+     *
+     * @param tokenValue 被接口拒绝的token值
+     */
+    public void invalidate(String tokenValue) {
+        Token token = current.get();
+        if (token != null && token.value.equals(tokenValue) && current.compareAndSet(token, null)) {
+            log.info("{} access_token已失效，下次使用时重新获取", name);
+        }
+    }
+
+    /**
+     * 作废当前token和正在进行的获取（如接口配置变更后）
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        current.set(null);
+        inflight.set(null);
+    }
+
+    /**
+     * 关闭后台刷新线程
+     */
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 在后台刷新token（已有获取在进行时不重复发起）
+     */
+    private void refreshAsync() {
+        if (inflight.get() == null) {
+            refresh(true);
+        }
+    }
+
+    /**
+     * 发起或加入一次token获取
+     *
+     * @param async 是否在后台线程执行（否则在当前线程执行）
+     * @return 获取结果
+     */
+    private CompletableFuture<Token> refresh(boolean async) {
+        while (true) {
+            CompletableFuture<Token> existing = inflight.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<Token> future = new CompletableFuture<>();
+            if (!inflight.compareAndSet(null, future)) {
+                continue;
+            }
+
+            int startGeneration = generation.get();
+            Runnable load = () -> {
+                try {
+                    Token token = loader.load();
+                    if (generation.get() == startGeneration) {
+                        current.set(token);
+                    }
+                    future.complete(token);
+                } catch (Throwable e) {
+                    log.error("获取{} access_token失败：{}", name, e.getMessage());
+                    future.completeExceptionally(e);
+                } finally {
+                    inflight.compareAndSet(future, null);
+                }
+            };
+            if (async) {
+                try {
+                    refreshExecutor.execute(load);
+                } catch (Exception e) {
+                    inflight.compareAndSet(future, null);
+                    future.completeExceptionally(e);
+                }
+            } else {
+                load.run();
+            }
+            return future;
+        }
+    }
+}
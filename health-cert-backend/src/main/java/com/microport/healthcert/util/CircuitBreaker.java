@@ -0,0 +1,131 @@
+package com.microport.healthcert.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 熔断器
+ * 保护对外部系统（如远程HR数据库）的调用：
+ * 1. 连续失败达到阈值后熔断，熔断期间直接拒绝调用，不再等待超时
+ * 2. 熔断时间结束后只放行一次试探调用，成功则恢复，失败则重新熔断
+ *
+ * @author system
+ * @date 2024
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * 状态：正常
+     */
+    public static final String STATE_CLOSED = "closed";
+
+    /**
+     * 状态：熔断
+     */
+    public static final String STATE_OPEN = "open";
+
+    /**
+     * 状态：试探（熔断时间结束后放行一次调用）
+     */
+    public static final String STATE_HALF_OPEN = "half_open";
+
+    /**
+     * 名称（用于日志）
+     */
+    private final String name;
+
+    /**
+     * 连续失败多少次后熔断
+     */
+    private final int failureThreshold;
+
+    /**
+     * 熔断时间（毫秒）
+     */
+    private final long openMillis;
+
+    private String state = STATE_CLOSED;
+
+    /**
+     * 连续失败次数
+     */
+    private int consecutiveFailures;
+
+    /**
+     * 熔断开始时间（毫秒时间戳）
+     */
+    private long openedAt;
+
+    /**
+     * 创建熔断器
+     *
+     * @param name 名称（用于日志）
+     * @param failureThreshold 连续失败多少次后熔断
+     * @param openSeconds 熔断时间（秒）
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openSeconds) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openSeconds * 1000L;
+    }
+
+    /**
+     * 判断是否允许调用
+     * 熔断期间返回false；熔断时间结束后只有第一个调用方得到true（试探），其结果返回前其他调用方仍返回false
+     *
+     * @return 是否允许调用
+     */
+    public synchronized boolean allowRequest() {
+        if (STATE_CLOSED.equals(state)) {
+            return true;
+        }
+        if (STATE_OPEN.equals(state) && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = STATE_HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录调用成功
+     */
+    public synchronized void recordSuccess() {
+        if (!STATE_CLOSED.equals(state)) {
+            log.info("{}调用恢复正常，解除熔断", name);
+        }
+        state = STATE_CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * 记录调用失败（异常或超时）
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (STATE_HALF_OPEN.equals(state) || (STATE_CLOSED.equals(state) && consecutiveFailures >= failureThreshold)) {
+            state = STATE_OPEN;
+            openedAt = System.currentTimeMillis();
+            log.warn("{}连续{}次调用失败，熔断{}秒", name, consecutiveFailures, openMillis / 1000);
+        }
+    }
+
+    /**
+     * 记录调用未执行（如本地线程池已满），不计入失败
+     * 试探调用未执行时恢复为熔断状态，下一个调用可以立即试探
+     */
+    public synchronized void recordSkipped() {
+        if (STATE_HALF_OPEN.equals(state)) {
+            state = STATE_OPEN;
+            openedAt = System.currentTimeMillis() - openMillis;
+        }
+    }
+
+    /**
+     * 获取当前状态
+     *
+     * @return 状态（closed/open/half_open）
+     */
+    public synchronized String getState() {
+        return state;
+    }
+}
@@ -1,14 +1,16 @@
 package com.microport.healthcert.util;
 
+import cn.hutool.core.util.HexUtil;
+import com.microport.healthcert.service.StorageService;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.util.UUID;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * 文件工具类
@@ -19,50 +21,146 @@ import java.util.UUID;
  */
 public class FileUtil {
 
+    /**
+     * 图片大小上限（10MB）
+     */
+    public static final long MAX_IMAGE_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * 上传文件的存储key前缀（image_path为相对于该前缀的路径）
+     */
+    public static final String UPLOAD_PREFIX = "uploads/";
+
+    /**
+     * 内容寻址存储目录（相对于上传目录）
+     */
+    public static final String CAS_DIR = "cas";
+
+    /**
+     * 缩略图的存储key前缀（variants/w{宽度}/{image_path}，不对外直接映射）
+     */
+    public static final String VARIANT_PREFIX = "variants/";
+
     /**
      * 保存文件
-     * 生成UUID文件名，创建日期目录，返回相对路径
+     * 按内容寻址存储，返回相对路径
      * 
      * @param file 上传的文件
-     * @param uploadDir 上传目录（相对于项目根目录）
-     * @return 文件的相对路径
+     * @param storage 文件存储
+     * @return 文件的相对路径（相对于上传目录）
      * @throws IOException IO异常
      */
-    public static String saveFile(MultipartFile file, String uploadDir) throws IOException {
+    public static String saveFile(MultipartFile file, StorageService storage) throws IOException {
+        return saveUpload(file, storage).getRelativePath();
+    }
+
+    /**
+     * 保存上传文件
+     * 从上传流写入存储（只写一次，不把整个文件读入内存），同时计算文件大小和SHA-256
+     *
+     * @param file 上传的文件
+     * @param storage 文件存储
+     * @return 已保存的文件（包含相对路径、大小和SHA-256）
+     * @throws IOException IO异常
+     */
+    public static UploadedFile saveUpload(MultipartFile file, StorageService storage) throws IOException {
         // 获取原始文件名
         String originalFilename = file.getOriginalFilename();
         if (originalFilename == null || originalFilename.isEmpty()) {
             throw new IllegalArgumentException("文件名不能为空");
         }
 
-        // 获取文件扩展名
+        try (InputStream in = file.getInputStream()) {
+            return saveStream(in, originalFilename, storage, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 保存输入流中的文件（上传文件、ZIP包中的文件等）
+     * 按内容寻址存储：边读边写到临时文件，同时计算文件大小和SHA-256，写完后存入uploads/cas/哈希前2位/哈希3-4位/哈希.扩展名，
+     * 相同内容的文件已存在时直接复用，不重复占用磁盘；超过大小限制时删除已写入的部分并抛出异常
+     *
+     * @param in 输入流（不会被关闭）
+     * @param originalFilename 原始文件名（用于获取扩展名）
+     * @param storage 文件存储
+     * @param maxSize 文件大小上限（字节）
+     * @return 已保存的文件（包含相对路径、大小和SHA-256）
+     * @throws IOException IO异常
+     */
+    public static UploadedFile saveStream(InputStream in, String originalFilename, StorageService storage, long maxSize) throws IOException {
+        Path tmpPath = storage.createTempFile();
+
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        try {
+            try (OutputStream out = Files.newOutputStream(tmpPath)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxSize) {
+                        throw new IllegalArgumentException("文件大小不能超过" + (maxSize / 1024 / 1024) + "MB");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String sha256 = HexUtil.encodeHexStr(digest.digest());
+            String relativePath = casRelativePath(sha256, originalFilename);
+            String key = UPLOAD_PREFIX + relativePath;
+            storage.store(key, tmpPath);
+            return new UploadedFile(relativePath, storage.getLocalFile(key), total, sha256);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpPath);
+            throw e;
+        }
+    }
+
+    /**
+     * 生成内容寻址的相对路径
+     * 按哈希前4位分两级目录，避免单个目录下文件过多（格式：cas/ab/cd/abcd...ef.jpg）
+     *
+     * @param sha256 文件内容SHA-256
+     * @param originalFilename 原始文件名（用于获取扩展名）
+     * @return 相对路径（相对于上传目录）
+     */
+    private static String casRelativePath(String sha256, String originalFilename) {
         String extension = "";
         int lastDotIndex = originalFilename.lastIndexOf(".");
         if (lastDotIndex > 0) {
-            extension = originalFilename.substring(lastDotIndex);
+            extension = originalFilename.substring(lastDotIndex).toLowerCase();
         }
+        // 使用"/"分隔，路径同时用作访问URL
+        return CAS_DIR + "/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + extension;
+    }
 
-        // 生成UUID文件名
-        String uuidFilename = UUID.randomUUID().toString() + extension;
-
-        // 创建日期目录（格式：uploads/2024/12/）
-        LocalDate now = LocalDate.now();
-        String year = String.valueOf(now.getYear());
-        String month = String.format("%02d", now.getMonthValue());
-        String dateDir = uploadDir + File.separator + year + File.separator + month;
-
-        // 创建目录（如果不存在）
-        Path datePath = Paths.get(dateDir);
-        if (!Files.exists(datePath)) {
-            Files.createDirectories(datePath);
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JDK都必须支持SHA-256
+            throw new IllegalStateException(e);
         }
+    }
 
-        // 保存文件
-        Path filePath = datePath.resolve(uuidFilename);
-        Files.write(filePath, file.getBytes());
-
-        // 返回相对路径（相对于uploadDir）
-        return year + File.separator + month + File.separator + uuidFilename;
+    /**
+     * 判断文件名是否为支持的图片格式（jpg/png/bmp）
+     *
+     * @param filename 文件名
+     * @return 是否为支持的图片格式
+     */
+    public static boolean isImageFilename(String filename) {
+        if (filename == null || filename.isEmpty()) {
+            return false;
+        }
+        String extension = "";
+        int lastDotIndex = filename.lastIndexOf(".");
+        if (lastDotIndex > 0) {
+            extension = filename.substring(lastDotIndex + 1).toLowerCase();
+        }
+        return extension.equals("jpg") || extension.equals("jpeg") ||
+               extension.equals("png") || extension.equals("bmp");
     }
 
     /**
@@ -83,20 +181,12 @@ public class FileUtil {
             throw new IllegalArgumentException("文件名不能为空");
         }
 
-        String extension = "";
-        int lastDotIndex = originalFilename.lastIndexOf(".");
-        if (lastDotIndex > 0) {
-            extension = originalFilename.substring(lastDotIndex + 1).toLowerCase();
-        }
-
-        if (!extension.equals("jpg") && !extension.equals("jpeg") && 
-            !extension.equals("png") && !extension.equals("bmp")) {
+        if (!isImageFilename(originalFilename)) {
             throw new IllegalArgumentException("只支持jpg、png、bmp格式的图片");
         }
 
         // 检查文件大小（< 10MB）
-        long maxSize = 10 * 1024 * 1024; // 10MB
-        if (file.getSize() > maxSize) {
+        if (file.getSize() > MAX_IMAGE_SIZE) {
             throw new IllegalArgumentException("文件大小不能超过10MB");
         }
     }
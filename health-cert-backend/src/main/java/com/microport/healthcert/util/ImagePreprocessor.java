@@ -0,0 +1,361 @@
+package com.microport.healthcert.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+/**
+ * 图片预处理工具类
+ * OCR识别前对图片做方向校正、缩放和重新编码，减少传输给OCR服务的数据量
+ *
+ * 手机拍摄的原图通常为3000-4000像素、数MB大小，PaddleOCR内部会缩放到约1000-2000像素再识别，
+ * 因此先在本地缩放到目标分辨率，既不影响识别效果，又能大幅降低内存占用和网络传输量
+ *
+ * @author system
+ * @date 2024
+ */
+public class ImagePreprocessor {
+
+    /**
+     * EXIF方向标签
+     */
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    /**
+     * 读取EXIF时最多扫描的字节数（EXIF位于JPEG文件开头的APP1段）
+     */
+    private static final int EXIF_SCAN_LIMIT = 128 * 1024;
+
+    /**
+     * 允许解码的最大像素数（宽×高），超过时拒绝处理
+     * 高压缩比的图片（如纯色PNG）文件很小但像素数可能达到数亿，按原尺寸解码会占用数GB内存
+     */
+    public static final long MAX_PIXELS = 100_000_000L;
+
+    /**
+     * 图片像素数超过限制
+     */
+    public static class ImageTooLargeException extends IOException {
+
+        public ImageTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 预处理图片，返回发送给OCR服务的图片数据
+     * 图片尺寸不超过目标分辨率、方向正常且为JPEG时直接返回原图（不解码）；无法解码时也返回原图，由OCR服务自行处理
+     * 先只读取图片头获取宽高，像素数超过MAX_PIXELS时拒绝；大图解码时按整数倍隔行隔列采样，不在内存中展开原尺寸图片
+     *
+     * @param imageFile 图片文件
+     * @param maxSide 目标分辨率（长边像素数）
+     * @param jpegQuality JPEG编码质量（0-1）
+     * @return 图片数据（JPEG或原图）
+     * @throws ImageTooLargeException 图片像素数超过MAX_PIXELS
+     * @throws IOException IO异常
+     */
+    public static byte[] prepareForOcr(File imageFile, int maxSide, float jpegQuality) throws IOException {
+        return resize(imageFile, maxSide, maxSide, jpegQuality);
+    }
+
+    /**
+     * 生成指定宽度的缩略图（按方向校正后的显示宽度缩放，高度按比例，竖版图片不会因为高度而缩得更窄）
+     * 宽度不超过目标宽度、方向正常且为JPEG时直接返回原图
+     *
+     * @param imageFile 图片文件
+     * @param maxWidth 目标宽度（像素）
+     * @param jpegQuality JPEG编码质量（0-1）
+     * @return 图片数据（JPEG或原图）
+     * @throws ImageTooLargeException 图片像素数超过MAX_PIXELS
+     * @throws IOException IO异常
+     */
+    public static byte[] resizeToWidth(File imageFile, int maxWidth, float jpegQuality) throws IOException {
+        return resize(imageFile, maxWidth, Integer.MAX_VALUE, jpegQuality);
+    }
+
+    /**
+     * 方向校正并缩放到指定范围内（保持宽高比）
+     *
+     * @param imageFile 图片文件
+     * @param maxWidth 最大宽度（方向校正后）
+     * @param maxHeight 最大高度（方向校正后）
+     * @param jpegQuality JPEG编码质量（0-1）
+     * @return 图片数据（JPEG或原图）
+     * @throws IOException IO异常
+     */
+    private static byte[] resize(File imageFile, int maxWidth, int maxHeight, float jpegQuality) throws IOException {
+        boolean jpeg = isJpeg(imageFile);
+        int orientation = jpeg ? readExifOrientation(imageFile) : 1;
+
+        BufferedImage image;
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return Files.readAllBytes(imageFile.toPath());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new ImageTooLargeException("图片像素过大：" + width + "x" + height);
+                }
+
+                // EXIF方向为5-8时图片旋转90度显示，显示宽高与存储宽高互换
+                int displayWidth = orientation >= 5 ? height : width;
+                int displayHeight = orientation >= 5 ? width : height;
+                if (jpeg && orientation == 1 && displayWidth <= maxWidth && displayHeight <= maxHeight) {
+                    return Files.readAllBytes(imageFile.toPath());
+                }
+
+                // 采样后仍不小于目标尺寸，剩余部分由downscale平滑缩放
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = (int) Math.max(1, Math.max(displayWidth / (double) Math.max(1, maxWidth),
+                        displayHeight / (double) Math.max(1, maxHeight)));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        BufferedImage oriented = applyOrientation(image, orientation);
+        BufferedImage scaled = downscale(oriented, maxWidth, maxHeight);
+        return encodeJpeg(scaled, jpegQuality);
+    }
+
+    /**
+     * 判断文件是否为JPEG（检查文件头0xFFD8）
+     */
+    private static boolean isJpeg(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return in.read() == 0xFF && in.read() == 0xD8;
+        }
+    }
+
+    /**
+     * 读取JPEG的EXIF方向（1-8），没有EXIF或解析失败时返回1（正常方向）
+     *
+     * @param file JPEG文件
+     * @return EXIF方向
+     */
+    private static int readExifOrientation(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            // 跳过SOI
+            in.skipBytes(2);
+            int scanned = 2;
+            while (scanned < EXIF_SCAN_LIMIT) {
+                int marker = in.readUnsignedShort();
+                // SOS之后是图像数据，不会再有EXIF
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA) {
+                    return 1;
+                }
+                int length = in.readUnsignedShort();
+                scanned += 4;
+                if (marker == 0xFFE1) {
+                    byte[] segment = new byte[length - 2];
+                    in.readFully(segment);
+                    int orientation = parseExifOrientation(segment);
+                    if (orientation > 0) {
+                        return orientation;
+                    }
+                } else {
+                    in.skipBytes(length - 2);
+                }
+                scanned += length - 2;
+            }
+        } catch (Exception e) {
+            // EXIF损坏时按正常方向处理
+        }
+        return 1;
+    }
+
+    /**
+     * 从APP1段中解析EXIF方向
+     *
+     * @param segment APP1段数据（不含标记和长度）
+     * @return EXIF方向，不是EXIF段或没有方向标签时返回0
+     */
+    private static int parseExifOrientation(byte[] segment) {
+        // "Exif\0\0"
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i' || segment[3] != 'f') {
+            return 0;
+        }
+        int tiff = 6;
+        boolean littleEndian = segment[tiff] == 'I';
+        int ifdOffset = tiff + readInt(segment, tiff + 4, littleEndian);
+        if (ifdOffset + 2 > segment.length) {
+            return 0;
+        }
+        int entryCount = readShort(segment, ifdOffset, littleEndian);
+        for (int i = 0; i < entryCount; i++) {
+            int entry = ifdOffset + 2 + i * 12;
+            if (entry + 12 > segment.length) {
+                return 0;
+            }
+            if (readShort(segment, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readShort(segment, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+
+    /**
+     * 按EXIF方向旋转/翻转图片，同时转换为不带透明通道的RGB图片（JPEG不支持透明通道）
+     *
+     * @param image 原图
+     * @param orientation EXIF方向
+     * @return 方向校正后的图片
+     */
+    private static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swap = orientation >= 5;
+
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2:
+                // 水平翻转
+                transform.scale(-1, 1);
+                transform.translate(-width, 0);
+                break;
+            case 3:
+                // 旋转180度
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+                break;
+            case 4:
+                // 垂直翻转
+                transform.scale(1, -1);
+                transform.translate(0, -height);
+                break;
+            case 5:
+                // 沿主对角线翻转
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            case 6:
+                // 顺时针旋转90度
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+                break;
+            case 7:
+                // 沿副对角线翻转
+                transform.scale(-1, 1);
+                transform.translate(-height, 0);
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+                break;
+            case 8:
+                // 逆时针旋转90度
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+                break;
+            default:
+                break;
+        }
+
+        BufferedImage result = new BufferedImage(swap ? height : width, swap ? width : height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = result.createGraphics();
+        try {
+            // 透明区域填充白色
+            g.setColor(java.awt.Color.WHITE);
+            g.fillRect(0, 0, result.getWidth(), result.getHeight());
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * 缩放图片（保持宽高比），使宽高不超过目标尺寸
+     * 缩小比例较大时逐级减半，避免一次缩放导致文字笔画锯齿
+     *
+     * @param image 图片
+     * @param maxWidth 最大宽度
+     * @param maxHeight 最大高度
+     * @return 缩放后的图片
+     */
+    private static BufferedImage downscale(BufferedImage image, int maxWidth, int maxHeight) {
+        BufferedImage current = image;
+        while (current.getWidth() > maxWidth || current.getHeight() > maxHeight) {
+            double fit = Math.min((double) maxWidth / current.getWidth(), (double) maxHeight / current.getHeight());
+            double scale = fit <= 0.5 ? 0.5 : fit;
+            int width = Math.max(1, (int) Math.round(current.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(current.getHeight() * scale));
+
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * 编码为JPEG
+     *
+     * @param image 图片
+     * @param quality JPEG编码质量（0-1）
+     * @return JPEG数据
+     * @throws IOException IO异常
+     */
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("没有可用的JPEG编码器");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
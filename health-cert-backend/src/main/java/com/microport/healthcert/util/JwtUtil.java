@@ -1,21 +1,30 @@
 package com.microport.healthcert.util;
 
+import com.microport.healthcert.common.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * JWT工具类
  * 用于生成、解析和验证JWT Token
+ * 签名密钥和解析器在启动时创建一次；验证通过的Token按SHA-256摘要缓存（有界LRU），同一Token再次请求时不再验签
  * 
  * @author system
  * @date 2024
@@ -30,19 +39,56 @@ public class JwtUtil {
     private String secret;
 
     /**
-     * Token过期时间（毫秒，从application.yml读取）
+     * 访问Token过期时间（毫秒，从application.yml读取），过期后使用刷新Token换取新Token
      */
     @Value("${jwt.expiration}")
     private Long expiration;
 
     /**
-     * 获取签名密钥
+     * 已验证Token缓存的最大数量（0表示不缓存）
+     */
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+
+    /**
+     * 签名密钥
+     */
+    private SecretKey signingKey;
+
+    /**
+     * Token解析器（线程安全，可复用）
+     */
+    private JwtParser parser;
+
+    /**
+     * 已验证的Token（key: Token的SHA-256摘要，按访问顺序淘汰）
+     */
+    private Map<String, JwtPrincipal> verifiedCache;
+
+    /**
+     * 创建签名密钥、解析器和已验证Token缓存
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedCache = new LinkedHashMap<String, JwtPrincipal>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                return size() > cacheMaxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取访问Token有效期
      * 
-     * @return 签名密钥
+     * @return 有效期（秒）
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public long getExpirationSeconds() {
+        return expiration / 1000;
     }
 
     /**
@@ -51,38 +97,73 @@ public class JwtUtil {
      * @param userId 用户ID
      * @param username 用户名
      * @param userType 用户类型（employee/admin）
+     * @param sessionId 会话ID（刷新Token的会话）
      * @return JWT Token字符串
      */
-    public String generateToken(Long userId, String username, String userType) {
+    public String generateToken(Long userId, String username, String userType, String sessionId) {
         // 创建Claims，存储用户信息
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("username", username);
         claims.put("userType", userType);
+        claims.put("sid", sessionId);
 
         // 计算过期时间
         Date expirationDate = new Date(System.currentTimeMillis() + expiration);
 
-        // 生成Token
+        // 生成Token（jti用于吊销单个Token）
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setExpiration(expirationDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     /**
-     * 从Token中获取Claims
+     * 验证Token并获取当前用户
+     * 验签和过期检查只做一次；验证通过的Token缓存到过期为止
+     * 
+     * @param token JWT Token
+     * @return 当前用户
+     * @throws io.jsonwebtoken.JwtException Token格式错误、签名不正确或已过期时抛出异常
+     */
+    public JwtPrincipal parseToken(String token) {
+        long now = System.currentTimeMillis();
+        String cacheKey = cacheMaxSize > 0 ? digest(token) : null;
+        if (cacheKey != null) {
+            JwtPrincipal cached;
+            synchronized (verifiedCache) {
+                cached = verifiedCache.get(cacheKey);
+            }
+            if (cached != null && !cached.isExpired(now)) {
+                return cached;
+            }
+        }
+
+        Claims claims = getClaimsFromToken(token);
+        Date expirationDate = claims.getExpiration();
+        if (expirationDate == null) {
+            throw new MalformedJwtException("Token没有过期时间");
+        }
+        JwtPrincipal principal = new JwtPrincipal(claims.getId(), toLong(claims.get("userId")), (String) claims.get("username"),
+                (String) claims.get("userType"), (String) claims.get("sid"), expirationDate.getTime());
+        if (cacheKey != null) {
+            synchronized (verifiedCache) {
+                verifiedCache.put(cacheKey, principal);
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * 从Token中获取Claims（验签并检查过期时间）
      * 
      * @param token JWT Token
      * @return Claims对象
      */
     private Claims getClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
@@ -92,12 +173,7 @@ public class JwtUtil {
      * @return 用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        Object userId = claims.get("userId");
-        if (userId instanceof Integer) {
-            return ((Integer) userId).longValue();
-        }
-        return (Long) userId;
+        return parseToken(token).getUserId();
     }
 
     /**
@@ -107,8 +183,7 @@ public class JwtUtil {
      * @return 用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get("username");
+        return parseToken(token).getUsername();
     }
 
     /**
@@ -118,8 +193,7 @@ public class JwtUtil {
      * @return 用户类型（employee/admin）
      */
     public String getUserTypeFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get("userType");
+        return parseToken(token).getUserType();
     }
 
     /**
@@ -130,10 +204,9 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            // 尝试解析Token（如果解析成功，说明Token格式正确）
-            getClaimsFromToken(token);
-            // 检查是否过期
-            return !isTokenExpired(token);
+            // 解析时同时验签和检查过期时间
+            parseToken(token);
+            return true;
         } catch (Exception e) {
             // 解析失败或过期，返回false
             return false;
@@ -147,15 +220,31 @@ public class JwtUtil {
      * @return true表示已过期，false表示未过期
      */
     public boolean isTokenExpired(String token) {
+        return !validateToken(token);
+    }
+
+    /**
+     * 转换用户ID（Claims中的数字按大小解析为Integer或Long）
+     * 
+     * @param value Claims中的用户ID
+     * @return 用户ID
+     */
+    private Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    /**
+     * 计算Token的SHA-256摘要（缓存key，不在内存中保存Token原文）
+     * 
+     * @param token JWT Token
+     * @return Base64编码的摘要
+     */
+    private String digest(String token) {
         try {
-            Claims claims = getClaimsFromToken(token);
-            Date expiration = claims.getExpiration();
-            // 判断过期时间是否在当前时间之前
-            return expiration.before(new Date());
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
-            // 解析失败，视为已过期
-            return true;
+            throw new IllegalStateException("计算Token摘要失败", e);
         }
     }
 }
-
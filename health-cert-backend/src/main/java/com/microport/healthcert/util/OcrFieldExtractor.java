@@ -0,0 +1,373 @@
+package com.microport.healthcert.util;
+
+import com.microport.healthcert.dto.HealthCertDTO;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OCR字段提取工具类
+ * 从PaddleOCR的rec_texts识别文本中提取健康证字段
+ *
+ * 所有正则表达式预编译为静态常量，识别文本只按阅读顺序扫描一遍：
+ * 1. 如果有rec_boxes坐标，先按行（纵坐标）、行内按横坐标重新排序，保证"标签"后面紧跟"值"
+ * 2. 每个文本块中用一个合并的标签正则查找所有字段标签，标签之间的文本即为字段值
+ * 3. 标签后没有值时（如"性别："和"男"被识别为两个文本块），取下一个文本块作为值
+ * 4. 日期按数字分组直接构造，不依赖DateTimeFormatter异常判断格式
+ *
+ * @author system
+ * @date 2024
+ */
+public class OcrFieldExtractor {
+
+    /**
+     * 字段标签（长标签在前，避免"有效期至"被"有效期"提前匹配）
+     */
+    private static final Pattern LABEL_PATTERN = Pattern.compile(
+            "(身份证号|身份证|证件号|发证日期|发证时间|签发日期|有效期至|有效期|到期日期|到期时间|发证机构|签发机构|编号|证号|姓名|名字|性别|年龄|类别|类型)");
+
+    /**
+     * 标签与值之间的分隔符
+     */
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile("^[：:\\s]+");
+
+    /**
+     * 健康证编号
+     */
+    private static final Pattern CERT_NUMBER_PATTERN = Pattern.compile("[A-Za-z0-9]{6,20}");
+
+    /**
+     * 姓名（2-4个汉字）
+     */
+    private static final Pattern NAME_PATTERN = Pattern.compile("[\\u4e00-\\u9fa5]{2,4}");
+
+    /**
+     * 年龄
+     */
+    private static final Pattern AGE_PATTERN = Pattern.compile("\\d{1,3}");
+
+    /**
+     * 身份证号（带标签时）
+     */
+    private static final Pattern ID_CARD_PATTERN = Pattern.compile("\\d{17}[\\dXx]");
+
+    /**
+     * 身份证号（无标签时，前后不能再有数字）
+     */
+    private static final Pattern UNLABELED_ID_CARD_PATTERN = Pattern.compile("(?<![\\dXx])(\\d{17}[\\dXx])(?![\\dXx])");
+
+    /**
+     * 健康证类别
+     */
+    private static final Pattern CATEGORY_PATTERN = Pattern.compile("[\\u4e00-\\u9fa5]{2,30}");
+
+    /**
+     * 发证机构
+     */
+    private static final Pattern AUTHORITY_PATTERN = Pattern.compile("[\\u4e00-\\u9fa5]{5,50}");
+
+    /**
+     * 日期（支持yyyy-MM-dd、yyyy/MM/dd、yyyy.MM.dd、yyyy年MM月dd日）
+     */
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{4})[-/年.](\\d{1,2})[-/月.](\\d{1,2})日?");
+
+    /**
+     * 标签到字段的映射
+     */
+    private static final Map<String, Field> LABEL_FIELDS = new HashMap<>();
+
+    static {
+        LABEL_FIELDS.put("编号", Field.CERT_NUMBER);
+        LABEL_FIELDS.put("证号", Field.CERT_NUMBER);
+        LABEL_FIELDS.put("姓名", Field.NAME);
+        LABEL_FIELDS.put("名字", Field.NAME);
+        LABEL_FIELDS.put("性别", Field.GENDER);
+        LABEL_FIELDS.put("年龄", Field.AGE);
+        LABEL_FIELDS.put("身份证号", Field.ID_CARD);
+        LABEL_FIELDS.put("身份证", Field.ID_CARD);
+        LABEL_FIELDS.put("证件号", Field.ID_CARD);
+        LABEL_FIELDS.put("类别", Field.CATEGORY);
+        LABEL_FIELDS.put("类型", Field.CATEGORY);
+        LABEL_FIELDS.put("发证日期", Field.ISSUE_DATE);
+        LABEL_FIELDS.put("发证时间", Field.ISSUE_DATE);
+        LABEL_FIELDS.put("签发日期", Field.ISSUE_DATE);
+        LABEL_FIELDS.put("有效期至", Field.EXPIRY_DATE);
+        LABEL_FIELDS.put("有效期", Field.EXPIRY_DATE);
+        LABEL_FIELDS.put("到期日期", Field.EXPIRY_DATE);
+        LABEL_FIELDS.put("到期时间", Field.EXPIRY_DATE);
+        LABEL_FIELDS.put("发证机构", Field.ISSUING_AUTHORITY);
+        LABEL_FIELDS.put("签发机构", Field.ISSUING_AUTHORITY);
+    }
+
+    /**
+     * 健康证字段
+     */
+    private enum Field {
+        CERT_NUMBER, NAME, GENDER, AGE, ID_CARD, CATEGORY, ISSUE_DATE, EXPIRY_DATE, ISSUING_AUTHORITY
+    }
+
+    /**
+     * 从识别文本中提取健康证字段
+     *
+     * @param texts 识别文本（rec_texts）
+     * @param boxes 文本框坐标（rec_boxes，每项为[x1, y1, x2, y2]），为null或数量不一致时按原顺序处理
+     * @return 提取结果，未识别的字段为null
+     */
+    public static HealthCertDTO extract(List<String> texts, List<int[]> boxes) {
+        HealthCertDTO dto = new HealthCertDTO();
+        List<String> ordered = orderByLayout(texts, boxes);
+
+        // 上一个文本块中值为空的标签，由当前文本块补充值
+        Field pending = null;
+        for (String text : ordered) {
+            if (text == null || text.isEmpty()) {
+                continue;
+            }
+
+            Matcher matcher = LABEL_PATTERN.matcher(text);
+            if (!matcher.find()) {
+                // 不含标签：作为上一个标签的值，或尝试无标签识别
+                if (pending != null) {
+                    assign(dto, pending, stripSeparator(text));
+                    pending = null;
+                } else {
+                    extractUnlabeled(dto, text);
+                }
+                continue;
+            }
+
+            // 标签前的文本作为上一个标签的值
+            if (pending != null && matcher.start() > 0) {
+                assign(dto, pending, stripSeparator(text.substring(0, matcher.start())));
+            }
+            pending = null;
+
+            // 依次处理文本块中的每个标签，两个标签之间的文本为前一个标签的值
+            Field field = LABEL_FIELDS.get(matcher.group(1));
+            int valueStart = matcher.end();
+            while (matcher.find()) {
+                String value = stripSeparator(text.substring(valueStart, matcher.start()));
+                assign(dto, field, value);
+                field = LABEL_FIELDS.get(matcher.group(1));
+                valueStart = matcher.end();
+            }
+
+            String value = stripSeparator(text.substring(valueStart));
+            if (value.isEmpty()) {
+                pending = field;
+            } else {
+                assign(dto, field, value);
+            }
+        }
+
+        return dto;
+    }
+
+    /**
+     * 解析日期字符串
+     * 支持yyyy-MM-dd、yyyy/MM/dd、yyyy.MM.dd、yyyy年MM月dd日，月日可为一位数
+     *
+     * @param value 日期字符串（只匹配开头部分）
+     * @return 日期，格式不正确或日期不存在时返回null
+     */
+    public static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = DATE_PATTERN.matcher(value);
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+
+        int year = Integer.parseInt(matcher.group(1));
+        int month = Integer.parseInt(matcher.group(2));
+        int day = Integer.parseInt(matcher.group(3));
+        if (month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        if (day > YearMonth.of(year, month).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * 按版面位置排序识别文本
+     * 纵坐标中心相差不超过半个行高的文本视为同一行，行内按横坐标排序
+     *
+     * @param texts 识别文本
+     * @param boxes 文本框坐标
+     * @return 排序后的识别文本
+     */
+    private static List<String> orderByLayout(List<String> texts, List<int[]> boxes) {
+        if (boxes == null || boxes.size() != texts.size() || texts.size() < 2) {
+            return texts;
+        }
+
+        int size = texts.size();
+        Integer[] indexes = new Integer[size];
+        int[] heights = new int[size];
+        for (int i = 0; i < size; i++) {
+            int[] box = boxes.get(i);
+            if (box == null || box.length < 4) {
+                return texts;
+            }
+            indexes[i] = i;
+            heights[i] = Math.max(1, box[3] - box[1]);
+        }
+
+        // 行高取中位数，避免个别大字号标题影响分行
+        int[] sortedHeights = heights.clone();
+        Arrays.sort(sortedHeights);
+        int rowTolerance = Math.max(1, sortedHeights[size / 2] / 2);
+
+        // 先按纵坐标中心排序
+        Arrays.sort(indexes, Comparator.comparingInt(i -> centerY(boxes.get(i))));
+
+        // 分行后行内按横坐标排序
+        List<String> ordered = new ArrayList<>(size);
+        List<Integer> row = new ArrayList<>();
+        int rowCenter = centerY(boxes.get(indexes[0]));
+        for (Integer index : indexes) {
+            int center = centerY(boxes.get(index));
+            if (center - rowCenter > rowTolerance) {
+                appendRow(ordered, row, texts, boxes);
+                row.clear();
+                rowCenter = center;
+            }
+            row.add(index);
+        }
+        appendRow(ordered, row, texts, boxes);
+        return ordered;
+    }
+
+    /**
+     * 将一行文本按横坐标排序后追加到结果中
+     */
+    private static void appendRow(List<String> ordered, List<Integer> row, List<String> texts, List<int[]> boxes) {
+        row.sort(Comparator.comparingInt(i -> boxes.get(i)[0]));
+        for (Integer index : row) {
+            ordered.add(texts.get(index));
+        }
+    }
+
+    /**
+     * 文本框纵坐标中心
+     */
+    private static int centerY(int[] box) {
+        return (box[1] + box[3]) / 2;
+    }
+
+    /**
+     * 去掉值开头的分隔符和首尾空白
+     */
+    private static String stripSeparator(String value) {
+        return SEPARATOR_PATTERN.matcher(value).replaceFirst("").trim();
+    }
+
+    /**
+     * 识别不带标签的字段（身份证号、性别）
+     */
+    private static void extractUnlabeled(HealthCertDTO dto, String text) {
+        if (dto.getIdCard() == null) {
+            Matcher matcher = UNLABELED_ID_CARD_PATTERN.matcher(text);
+            if (matcher.find()) {
+                dto.setIdCard(matcher.group(1).toUpperCase());
+                return;
+            }
+        }
+        if (dto.getGender() == null) {
+            String trimmed = text.trim();
+            if ("男".equals(trimmed) || "女".equals(trimmed)) {
+                dto.setGender(trimmed);
+            }
+        }
+    }
+
+    /**
+     * 校验并设置字段值，已识别的字段不会被覆盖（与文本中第一次出现的值保持一致）
+     *
+     * @param dto 提取结果
+     * @param field 字段
+     * @param value 标签后的文本
+     */
+    private static void assign(HealthCertDTO dto, Field field, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        switch (field) {
+            case CERT_NUMBER:
+                if (dto.getCertNumber() == null) {
+                    dto.setCertNumber(matchPrefix(CERT_NUMBER_PATTERN, value));
+                }
+                break;
+            case NAME:
+                if (dto.getEmployeeName() == null) {
+                    dto.setEmployeeName(matchPrefix(NAME_PATTERN, value));
+                }
+                break;
+            case GENDER:
+                if (dto.getGender() == null) {
+                    char first = value.charAt(0);
+                    if (first == '男' || first == '女') {
+                        dto.setGender(String.valueOf(first));
+                    }
+                }
+                break;
+            case AGE:
+                if (dto.getAge() == null) {
+                    String age = matchPrefix(AGE_PATTERN, value);
+                    dto.setAge(age != null ? Integer.valueOf(age) : null);
+                }
+                break;
+            case ID_CARD:
+                if (dto.getIdCard() == null) {
+                    String idCard = matchPrefix(ID_CARD_PATTERN, value);
+                    dto.setIdCard(idCard != null ? idCard.toUpperCase() : null);
+                }
+                break;
+            case CATEGORY:
+                if (dto.getCategory() == null) {
+                    dto.setCategory(matchPrefix(CATEGORY_PATTERN, value));
+                }
+                break;
+            case ISSUE_DATE:
+                if (dto.getIssueDate() == null) {
+                    dto.setIssueDate(parseDate(value));
+                }
+                break;
+            case EXPIRY_DATE:
+                if (dto.getExpiryDate() == null) {
+                    dto.setExpiryDate(parseDate(value));
+                }
+                break;
+            case ISSUING_AUTHORITY:
+                if (dto.getIssuingAuthority() == null) {
+                    dto.setIssuingAuthority(matchPrefix(AUTHORITY_PATTERN, value));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 匹配值开头的部分
+     *
+     * @param pattern 预编译正则
+     * @param value 标签后的文本
+     * @return 匹配到的文本，不匹配时返回null
+     */
+    private static String matchPrefix(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        return matcher.lookingAt() ? matcher.group() : null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.microport.healthcert.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器
+ * 按固定速率生成令牌，桶满后不再累积；调用方取不到令牌时阻塞等待，用于控制调用外部接口的QPS；
+ * 也可以不等待（tryAcquire），取不到令牌时直接拒绝，用于登录限流
+ *
+ * @author system
+ * @date 2024
+ */
+public class TokenBucket {
+
+    /**
+     * 每秒生成的令牌数（小于等于0表示不限流）
+     */
+    private final double permitsPerSecond;
+
+    /**
+     * 桶容量（允许的突发请求数）
+     */
+    private final double capacity;
+
+    /**
+     * 当前令牌数
+     */
+    private double tokens;
+
+    /**
+     * 上次补充令牌的时间（纳秒）
+     */
+    private long lastRefillNanos;
+
+    /**
+     * 创建令牌桶，初始为满桶
+     *
+     * @param permitsPerSecond 每秒生成的令牌数
+     * @param capacity 桶容量
+     */
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取令牌，令牌不足时阻塞等待
+     *
+     * @param permits 令牌数（超过桶容量时按桶容量计算）
+     * @return 等待时间（毫秒）
+     * @throws InterruptedException 等待时线程被中断
+     */
+    public long acquire(int permits) throws InterruptedException {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        double required = Math.min(Math.max(1, permits), capacity);
+        long start = System.nanoTime();
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= required) {
+                    tokens -= required;
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                waitNanos = (long) ((required - tokens) / permitsPerSecond * 1_000_000_000L);
+            }
+            // 至少等待1毫秒，避免多个线程空转争抢
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000L));
+        }
+    }
+
+    /**
+     * 尝试获取令牌，令牌不足时不等待
+     *
+     * @param permits 令牌数
+     * @return 是否获取成功
+     */
+    public synchronized boolean tryAcquire(int permits) {
+        if (permitsPerSecond <= 0) {
+            return true;
+        }
+        refill();
+        if (tokens >= permits) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 归还令牌（如登录成功后归还本次尝试占用的令牌），桶满后不再累积
+     *
+     * @param permits 令牌数
+     */
+    public synchronized void release(int permits) {
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+        refill();
+        tokens = Math.min(capacity, tokens + permits);
+    }
+
+    /**
+     * 按经过的时间补充令牌
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+}
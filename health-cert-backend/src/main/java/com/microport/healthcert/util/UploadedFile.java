@@ -0,0 +1,38 @@
+package com.microport.healthcert.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.File;
+
+/**
+ * 已保存的上传文件
+ * 保存时边写边计算大小和SHA-256，后续OCR识别、缓存直接使用，不再重复读取文件
+ *
+ * @author system
+ * @date 2024
+ */
+@Getter
+@AllArgsConstructor
+public class UploadedFile {
+
+    /**
+     * 相对路径（相对于上传目录，保存到health_certificates.image_path）
+     */
+    private final String relativePath;
+
+    /**
+     * 文件（只读使用，不要修改或删除）
+     */
+    private final File file;
+
+    /**
+     * 文件大小（字节）
+     */
+    private final long size;
+
+    /**
+     * 文件内容SHA-256（十六进制小写）
+     */
+    private final String sha256;
+}
@@ -13,10 +13,20 @@ import lombok.Data;
 public class LoginVO {
 
     /**
-     * JWT Token
+     * JWT Token（访问Token）
      */
     private String token;
 
+    /**
+     * 刷新Token（访问Token过期后调用/api/auth/refresh换取新的Token，每次刷新后更换）
+     */
+    private String refreshToken;
+
+    /**
+     * 访问Token有效期（秒）
+     */
+    private Long expiresIn;
+
     /**
      * 用户ID
      */
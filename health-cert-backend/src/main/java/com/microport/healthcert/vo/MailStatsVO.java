@@ -0,0 +1,54 @@
+package com.microport.healthcert.vo;
+
+import lombok.Data;
+
+/**
+ * 邮件发送统计VO
+ * 统计自服务启动以来的邮件发送情况，用于观察提醒任务的发送吞吐量和SMTP连接复用情况
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class MailStatsVO {
+
+    /**
+     * 发送成功数量
+     */
+    private Long sent;
+
+    /**
+     * 发送失败数量
+     */
+    private Long failed;
+
+    /**
+     * 累计建立的SMTP连接数
+     */
+    private Long connectionsOpened;
+
+    /**
+     * 当前连接池中的空闲连接数
+     */
+    private Integer idleConnections;
+
+    /**
+     * 当前正在发送的连接数
+     */
+    private Integer activeConnections;
+
+    /**
+     * 平均每个连接发送的邮件数量
+     */
+    private Double messagesPerConnection;
+
+    /**
+     * 平均单封发送耗时（毫秒，不含建立连接）
+     */
+    private Double avgSendMillis;
+
+    /**
+     * 最近一分钟发送数量
+     */
+    private Long sentLastMinute;
+}
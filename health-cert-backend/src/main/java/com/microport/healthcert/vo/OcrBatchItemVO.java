@@ -0,0 +1,55 @@
+package com.microport.healthcert.vo;
+
+import com.microport.healthcert.dto.HealthCertDTO;
+import lombok.Data;
+
+/**
+ * 批量识别明细VO
+ * 每张图片对应一条明细
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class OcrBatchItemVO {
+
+    /**
+     * 原始文件名（ZIP包中的文件为包内路径）
+     */
+    private String fileName;
+
+    /**
+     * 健康证图片路径
+     */
+    private String imagePath;
+
+    /**
+     * 状态: waiting等待识别/submitted已生成待审核记录/unmatched未匹配到员工/incomplete识别信息不完整/duplicate编号已存在/failed识别失败
+     */
+    private String status;
+
+    /**
+     * 匹配到的员工ID
+     */
+    private Long employeeId;
+
+    /**
+     * 匹配到的员工域账号
+     */
+    private String sfUserId;
+
+    /**
+     * 生成的健康证记录ID（status为submitted时有值）
+     */
+    private Long certId;
+
+    /**
+     * OCR识别结果
+     */
+    private HealthCertDTO result;
+
+    /**
+     * 提示信息
+     */
+    private String message;
+}
@@ -0,0 +1,62 @@
+package com.microport.healthcert.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量识别批次VO
+ * 批量导入接口立即返回批次ID，前端根据批次ID轮询识别进度
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class OcrBatchVO {
+
+    /**
+     * 批次ID
+     */
+    private String batchId;
+
+    /**
+     * 批次状态: processing识别中/completed已完成
+     */
+    private String status;
+
+    /**
+     * 图片总数
+     */
+    private Integer total;
+
+    /**
+     * 已处理数量
+     */
+    private Integer processed;
+
+    /**
+     * 已生成待审核记录的数量
+     */
+    private Integer submitted;
+
+    /**
+     * 提示信息
+     */
+    private String message;
+
+    /**
+     * 创建人姓名
+     */
+    private String creatorName;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 明细列表
+     */
+    private List<OcrBatchItemVO> items;
+}
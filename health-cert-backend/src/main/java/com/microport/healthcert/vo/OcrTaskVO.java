@@ -0,0 +1,40 @@
+package com.microport.healthcert.vo;
+
+import com.microport.healthcert.dto.HealthCertDTO;
+import lombok.Data;
+
+/**
+ * OCR识别任务VO
+ * 异步上传接口立即返回任务ID，前端根据任务ID轮询识别结果
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class OcrTaskVO {
+
+    /**
+     * 任务ID（图片ID）
+     */
+    private String taskId;
+
+    /**
+     * 任务状态: processing识别中/success识别完成/failed识别失败
+     */
+    private String status;
+
+    /**
+     * 健康证图片路径（上传成功后即可用于提交）
+     */
+    private String imagePath;
+
+    /**
+     * OCR识别结果（status为success时有值）
+     */
+    private HealthCertDTO result;
+
+    /**
+     * 提示信息
+     */
+    private String message;
+}
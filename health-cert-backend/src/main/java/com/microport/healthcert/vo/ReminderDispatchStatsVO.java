@@ -0,0 +1,90 @@
+package com.microport.healthcert.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 提醒发送统计VO
+ * 记录一次提醒任务的发送情况，用于观察各通道的吞吐量、耗时和失败重试情况
+ *
+ * @author system
+ * @date 2024
+ */
+@Data
+public class ReminderDispatchStatsVO {
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private Long durationMillis;
+
+    /**
+     * 发送任务总数
+     */
+    private Integer tasks;
+
+    /**
+     * 吞吐量（每秒完成的发送任务数）
+     */
+    private Double throughputPerSecond;
+
+    /**
+     * 各通道统计（key: 通道名称，email/dingtalk）
+     */
+    private Map<String, ChannelStats> channels = new LinkedHashMap<>();
+
+    /**
+     * 单个通道的发送统计
+     */
+    @Data
+    public static class ChannelStats {
+
+        /**
+         * 发送成功数量
+         */
+        private Integer sent;
+
+        /**
+         * 跳过数量（如员工无手机号、未找到钉钉用户）
+         */
+        private Integer skipped;
+
+        /**
+         * 重试后仍失败的数量
+         */
+        private Integer failed;
+
+        /**
+         * 重试次数
+         */
+        private Integer retries;
+
+        /**
+         * 等待限流令牌的累计时间（毫秒）
+         */
+        private Long throttledMillis;
+
+        /**
+         * 平均单次调用耗时（毫秒，不含限流等待）
+         */
+        private Double avgMillis;
+
+        /**
+         * 单次调用耗时P95（毫秒）
+         */
+        private Long p95Millis;
+
+        /**
+         * 单次调用最大耗时（毫秒）
+         */
+        private Long maxMillis;
+    }
+}
@@ -0,0 +1,30 @@
+-- ============================================
+-- 迁移脚本：添加定时任务租约表和执行记录表
+-- 后端多节点部署时，定时任务执行前先获取数据库租约，同一任务同一时间只在一个节点执行，
+-- 每次执行的节点、耗时和结果记录在执行记录表中
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `job_leases` (
+  `job_name` VARCHAR(64) NOT NULL COMMENT '任务名称',
+  `owner` VARCHAR(128) DEFAULT NULL COMMENT '持有租约的节点(主机名:进程号:随机标识)',
+  `fencing_token` BIGINT(20) NOT NULL DEFAULT 0 COMMENT '令牌(每次获得租约加1，续约和释放时校验)',
+  `lease_until` DATETIME NOT NULL COMMENT '租约有效期(过期后其他节点可获取)',
+  `acquired_at` DATETIME DEFAULT NULL COMMENT '获得租约时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务租约表(多节点部署时同一任务只在一个节点执行)';
+
+CREATE TABLE IF NOT EXISTS `job_history` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `job_name` VARCHAR(64) NOT NULL COMMENT '任务名称',
+  `owner` VARCHAR(128) NOT NULL COMMENT '执行节点',
+  `fencing_token` BIGINT(20) NOT NULL COMMENT '执行时持有的租约令牌',
+  `status` VARCHAR(20) NOT NULL COMMENT '状态: running执行中/success成功/fail失败/interrupted中断(节点退出或租约丢失)',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '执行结果或失败原因',
+  `started_at` DATETIME NOT NULL COMMENT '开始时间',
+  `finished_at` DATETIME DEFAULT NULL COMMENT '结束时间',
+  `duration_ms` BIGINT(20) DEFAULT NULL COMMENT '执行耗时(毫秒)',
+  PRIMARY KEY (`id`),
+  KEY `idx_job_name_started_at` (`job_name`, `started_at`),
+  KEY `idx_started_at` (`started_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务执行记录表';
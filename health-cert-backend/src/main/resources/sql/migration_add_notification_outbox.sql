@@ -0,0 +1,26 @@
+-- ============================================
+-- 迁移脚本：添加通知发件箱表
+-- 提醒任务先把待发送的邮件/钉钉消息写入发件箱，再由发送任务领取发送，
+-- 发送结果和重试状态记录在发件箱中，同一天重复执行提醒任务不会重复发送
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `notification_outbox` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `dedup_key` VARCHAR(320) NOT NULL COMMENT '去重键(提醒日期:通道:收件人)，同一天重复执行提醒任务不会重复写入',
+  `channel` VARCHAR(20) NOT NULL COMMENT '通道: email邮件/dingtalk钉钉',
+  `recipient` VARCHAR(255) NOT NULL COMMENT '收件人(邮箱地址或员工域账号)',
+  `payload` TEXT NOT NULL COMMENT '提醒条目(JSON数组: 健康证ID、员工ID、到期天数、是否已过期)',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'pending' COMMENT '状态: held暂不发送(汇总通知等待所有分片完成)/pending待发送/sending发送中/sent已发送/skipped无需发送/failed失败',
+  `attempts` INT(10) NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  `next_attempt_at` DATETIME NOT NULL COMMENT '下次可发送时间',
+  `lease_owner` VARCHAR(64) DEFAULT NULL COMMENT '领取标识(每次领取生成)',
+  `lease_until` DATETIME DEFAULT NULL COMMENT '领取有效期(过期未完成可被重新领取)',
+  `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `sent_at` DATETIME DEFAULT NULL COMMENT '发送完成时间',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_dedup_key` (`dedup_key`),
+  KEY `idx_status_next_attempt` (`status`, `next_attempt_at`),
+  KEY `idx_lease_owner` (`lease_owner`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='通知发件箱表';
@@ -0,0 +1,18 @@
+-- ============================================
+-- 迁移脚本：添加OCR识别结果缓存表
+-- 按图片内容SHA-256缓存OCR识别结果，相同图片再次上传时不再调用OCR服务，
+-- 缓存在重启后保留并在多个后端节点间共享；长期未命中的记录由定时任务清理
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `ocr_result_cache` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `image_hash` CHAR(64) NOT NULL COMMENT '图片内容SHA-256哈希(十六进制)',
+  `result_json` TEXT NOT NULL COMMENT '解析后的识别结果(HealthCertDTO JSON)',
+  `rec_texts` TEXT DEFAULT NULL COMMENT 'OCR原始识别文本(rec_texts JSON数组)',
+  `hit_count` INT(10) DEFAULT 0 COMMENT '命中次数',
+  `last_hit_at` DATETIME DEFAULT NULL COMMENT '最后命中时间',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_image_hash` (`image_hash`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='OCR识别结果缓存表';
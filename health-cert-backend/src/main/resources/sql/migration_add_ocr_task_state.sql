@@ -0,0 +1,53 @@
+-- ============================================
+-- 迁移脚本：添加OCR异步识别任务、批量识别批次和明细表
+-- 识别任务和批量识别进度保存在数据库中，多个后端节点部署时前端轮询请求由任一节点处理都能查到；
+-- 过期记录由各节点的定时任务清理
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `ocr_tasks` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `task_id` VARCHAR(32) NOT NULL COMMENT '任务ID(前端轮询使用)',
+  `user_id` BIGINT(20) NOT NULL COMMENT '上传员工ID',
+  `image_path` VARCHAR(500) NOT NULL COMMENT '图片相对路径',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'processing' COMMENT '状态: processing识别中/success识别完成/failed识别失败',
+  `result_json` TEXT DEFAULT NULL COMMENT '识别结果(HealthCertDTO JSON)',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '提示信息',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_task_id` (`task_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='OCR异步识别任务表(多个后端节点共享，30分钟后清理)';
+
+-- 批量识别批次表 (ocr_batches)
+CREATE TABLE IF NOT EXISTS `ocr_batches` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `batch_id` VARCHAR(32) NOT NULL COMMENT '批次ID(前端轮询使用)',
+  `creator_name` VARCHAR(100) DEFAULT NULL COMMENT '创建人姓名',
+  `upload_finished` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '上传文件是否已读取完成: 1是/0否',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '提示信息',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_batch_id` (`batch_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='批量识别批次表(多个后端节点共享，24小时后清理)';
+
+-- 批量识别明细表 (ocr_batch_items)
+CREATE TABLE IF NOT EXISTS `ocr_batch_items` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `batch_id` VARCHAR(32) NOT NULL COMMENT '批次ID',
+  `file_name` VARCHAR(500) NOT NULL COMMENT '原始文件名',
+  `image_path` VARCHAR(500) DEFAULT NULL COMMENT '图片相对路径',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'waiting' COMMENT '状态: waiting识别中/submitted已生成待审核记录/unmatched未匹配员工/incomplete信息不完整/duplicate重复/failed失败',
+  `employee_id` BIGINT(20) DEFAULT NULL COMMENT '匹配到的员工ID',
+  `sf_user_id` VARCHAR(100) DEFAULT NULL COMMENT '匹配到的员工域账号',
+  `cert_id` BIGINT(20) DEFAULT NULL COMMENT '生成的健康证ID',
+  `result_json` TEXT DEFAULT NULL COMMENT '识别结果(HealthCertDTO JSON)',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '提示信息',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_batch_id` (`batch_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='批量识别明细表';
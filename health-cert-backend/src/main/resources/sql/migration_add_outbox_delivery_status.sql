@@ -0,0 +1,11 @@
+-- ============================================
+-- 迁移脚本：通知发件箱添加送达状态
+-- 钉钉工作通知合并发送（一条消息最多100个userid）后为异步发送，
+-- 记录发送任务ID和接收人userid，定时按任务ID查询实际送达情况
+-- ============================================
+
+ALTER TABLE `notification_outbox`
+  ADD COLUMN `channel_task_id` VARCHAR(64) DEFAULT NULL COMMENT '通道返回的发送任务ID(钉钉工作通知task_id，多条通知合并发送时相同)' AFTER `sent_at`,
+  ADD COLUMN `channel_user_id` VARCHAR(64) DEFAULT NULL COMMENT '通道中的接收人ID(钉钉userid)' AFTER `channel_task_id`,
+  ADD COLUMN `delivery_status` VARCHAR(20) DEFAULT NULL COMMENT '送达状态(异步发送的通道): pending待查询/delivered已送达/failed未送达/unknown超时未查到' AFTER `channel_user_id`,
+  ADD INDEX `idx_delivery_status` (`delivery_status`, `sent_at`);
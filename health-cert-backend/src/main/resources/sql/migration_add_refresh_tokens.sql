@@ -0,0 +1,22 @@
+-- ============================================
+-- 迁移脚本：添加刷新Token表
+-- 访问Token有效期缩短为15分钟，过期后使用刷新Token换取新Token；
+-- 刷新Token每次使用后更换，已更换的Token被再次使用时吊销同一会话的全部刷新Token；
+-- 过期记录由日志清理任务删除
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `refresh_tokens` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `token_hash` CHAR(64) NOT NULL COMMENT '刷新Token的SHA-256摘要(不保存原文)',
+  `family_id` VARCHAR(64) NOT NULL COMMENT '会话ID(登录时生成，刷新后的Token沿用)',
+  `user_id` BIGINT(20) NOT NULL COMMENT '用户ID',
+  `user_type` VARCHAR(20) NOT NULL COMMENT '用户类型: employee/admin',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'active' COMMENT '状态: active有效/rotated已更换/revoked已吊销',
+  `expires_at` DATETIME NOT NULL COMMENT '过期时间(过期后记录可删除)',
+  `rotated_at` DATETIME DEFAULT NULL COMMENT '更换时间',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_token_hash` (`token_hash`),
+  KEY `idx_family_id` (`family_id`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='刷新Token表(访问Token过期后换取新Token，每次刷新后更换)';
@@ -0,0 +1,6 @@
+-- ============================================
+-- 迁移脚本：添加到期提醒查询索引
+-- 到期提醒任务按 status='approved' AND is_current=1 AND expiry_date范围 一次查询所有待提醒的健康证
+-- ============================================
+
+ALTER TABLE `health_certificates` ADD INDEX `idx_reminder` (`status`, `is_current`, `expiry_date`);
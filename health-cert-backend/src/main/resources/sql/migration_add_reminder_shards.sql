@@ -0,0 +1,24 @@
+-- ============================================
+-- 迁移脚本：添加提醒任务分片表
+-- 提醒任务按employee_id拆分为多个分片，由各后端节点领取执行，
+-- 每批写入发件箱后保存进度，节点退出时其他节点从进度处继续
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `reminder_shards` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `run_date` DATE NOT NULL COMMENT '提醒日期',
+  `shard_no` INT(5) NOT NULL COMMENT '分片号(employee_id % shard_count)',
+  `shard_count` INT(5) NOT NULL COMMENT '分片数',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'pending' COMMENT '状态: pending待执行/running执行中/done已完成',
+  `owner` VARCHAR(64) DEFAULT NULL COMMENT '领取标识(每次领取生成)',
+  `fencing_token` BIGINT(20) NOT NULL DEFAULT 0 COMMENT '令牌(每次领取加1，保存进度和完成时校验)',
+  `lease_until` DATETIME DEFAULT NULL COMMENT '领取有效期(过期未完成可被其他节点重新领取)',
+  `checkpoint_employee_id` BIGINT(20) NOT NULL DEFAULT 0 COMMENT '进度: 已写入发件箱的最后一个员工ID',
+  `item_count` INT(10) NOT NULL DEFAULT 0 COMMENT '已处理的提醒条目数',
+  `started_at` DATETIME DEFAULT NULL COMMENT '第一次领取时间',
+  `finished_at` DATETIME DEFAULT NULL COMMENT '完成时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_run_date_shard_no` (`run_date`, `shard_no`),
+  KEY `idx_owner` (`owner`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='提醒任务分片表(多节点分工执行到期提醒)';
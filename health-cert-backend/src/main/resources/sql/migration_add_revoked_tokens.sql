@@ -0,0 +1,18 @@
+-- ============================================
+-- 迁移脚本：添加已吊销Token表
+-- 登出等操作吊销的Token记录在该表中，各后端节点定时增量同步到内存，
+-- Token过期前拒绝使用该Token访问；Token过期后记录由日志清理任务删除
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS `revoked_tokens` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `jti` VARCHAR(64) NOT NULL COMMENT 'Token ID(JWT的jti)',
+  `user_id` BIGINT(20) DEFAULT NULL COMMENT '用户ID',
+  `reason` VARCHAR(50) DEFAULT NULL COMMENT '吊销原因: logout登出等',
+  `expires_at` DATETIME NOT NULL COMMENT 'Token过期时间(过期后记录可删除)',
+  `revoked_at` DATETIME NOT NULL COMMENT '吊销时间(数据库时间，各节点按此增量同步)',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_jti` (`jti`),
+  KEY `idx_revoked_at` (`revoked_at`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='已吊销Token表(登出等，Token过期前拒绝访问)';
@@ -67,6 +67,7 @@ CREATE TABLE `health_certificates` (
   KEY `idx_status` (`status`),
   KEY `idx_expiry_date` (`expiry_date`),
   KEY `idx_is_current` (`is_current`),
+  KEY `idx_reminder` (`status`, `is_current`, `expiry_date`),
   KEY `idx_submit_time` (`submit_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='健康证信息表';
 
@@ -172,3 +173,170 @@ CREATE TABLE `audit_locks` (
   UNIQUE KEY `uk_cert_id` (`cert_id`),
   KEY `idx_expires_at` (`expires_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='审核锁表(防止并发审核)';
+
+-- 9. OCR识别结果缓存表 (ocr_result_cache)
+CREATE TABLE `ocr_result_cache` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `image_hash` CHAR(64) NOT NULL COMMENT '图片内容SHA-256哈希(十六进制)',
+  `result_json` TEXT NOT NULL COMMENT '解析后的识别结果(HealthCertDTO JSON)',
+  `rec_texts` TEXT DEFAULT NULL COMMENT 'OCR原始识别文本(rec_texts JSON数组)',
+  `hit_count` INT(10) DEFAULT 0 COMMENT '命中次数',
+  `last_hit_at` DATETIME DEFAULT NULL COMMENT '最后命中时间',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_image_hash` (`image_hash`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='OCR识别结果缓存表';
+
+-- 10. 通知发件箱表 (notification_outbox)
+CREATE TABLE `notification_outbox` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `dedup_key` VARCHAR(320) NOT NULL COMMENT '去重键(提醒日期:通道:收件人)，同一天重复执行提醒任务不会重复写入',
+  `channel` VARCHAR(20) NOT NULL COMMENT '通道: email邮件/dingtalk钉钉',
+  `recipient` VARCHAR(255) NOT NULL COMMENT '收件人(邮箱地址或员工域账号)',
+  `payload` TEXT NOT NULL COMMENT '提醒条目(JSON数组: 健康证ID、员工ID、到期天数、是否已过期)',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'pending' COMMENT '状态: held暂不发送(汇总通知等待所有分片完成)/pending待发送/sending发送中/sent已发送/skipped无需发送/failed失败',
+  `attempts` INT(10) NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  `next_attempt_at` DATETIME NOT NULL COMMENT '下次可发送时间',
+  `lease_owner` VARCHAR(64) DEFAULT NULL COMMENT '领取标识(每次领取生成)',
+  `lease_until` DATETIME DEFAULT NULL COMMENT '领取有效期(过期未完成可被重新领取)',
+  `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `sent_at` DATETIME DEFAULT NULL COMMENT '发送完成时间',
+  `channel_task_id` VARCHAR(64) DEFAULT NULL COMMENT '通道返回的发送任务ID(钉钉工作通知task_id，多条通知合并发送时相同)',
+  `channel_user_id` VARCHAR(64) DEFAULT NULL COMMENT '通道中的接收人ID(钉钉userid)',
+  `delivery_status` VARCHAR(20) DEFAULT NULL COMMENT '送达状态(异步发送的通道): pending待查询/delivered已送达/failed未送达/unknown超时未查到',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_dedup_key` (`dedup_key`),
+  KEY `idx_status_next_attempt` (`status`, `next_attempt_at`),
+  KEY `idx_lease_owner` (`lease_owner`),
+  KEY `idx_delivery_status` (`delivery_status`, `sent_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='通知发件箱表';
+
+-- 11. 定时任务租约表 (job_leases)
+CREATE TABLE `job_leases` (
+  `job_name` VARCHAR(64) NOT NULL COMMENT '任务名称',
+  `owner` VARCHAR(128) DEFAULT NULL COMMENT '持有租约的节点(主机名:进程号:随机标识)',
+  `fencing_token` BIGINT(20) NOT NULL DEFAULT 0 COMMENT '令牌(每次获得租约加1，续约和释放时校验)',
+  `lease_until` DATETIME NOT NULL COMMENT '租约有效期(过期后其他节点可获取)',
+  `acquired_at` DATETIME DEFAULT NULL COMMENT '获得租约时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务租约表(多节点部署时同一任务只在一个节点执行)';
+
+-- 12. 定时任务执行记录表 (job_history)
+CREATE TABLE `job_history` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `job_name` VARCHAR(64) NOT NULL COMMENT '任务名称',
+  `owner` VARCHAR(128) NOT NULL COMMENT '执行节点',
+  `fencing_token` BIGINT(20) NOT NULL COMMENT '执行时持有的租约令牌',
+  `status` VARCHAR(20) NOT NULL COMMENT '状态: running执行中/success成功/fail失败/interrupted中断(节点退出或租约丢失)',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '执行结果或失败原因',
+  `started_at` DATETIME NOT NULL COMMENT '开始时间',
+  `finished_at` DATETIME DEFAULT NULL COMMENT '结束时间',
+  `duration_ms` BIGINT(20) DEFAULT NULL COMMENT '执行耗时(毫秒)',
+  PRIMARY KEY (`id`),
+  KEY `idx_job_name_started_at` (`job_name`, `started_at`),
+  KEY `idx_started_at` (`started_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务执行记录表';
+
+-- 13. 提醒任务分片表 (reminder_shards)
+CREATE TABLE `reminder_shards` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `run_date` DATE NOT NULL COMMENT '提醒日期',
+  `shard_no` INT(5) NOT NULL COMMENT '分片号(employee_id % shard_count)',
+  `shard_count` INT(5) NOT NULL COMMENT '分片数',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'pending' COMMENT '状态: pending待执行/running执行中/done已完成',
+  `owner` VARCHAR(64) DEFAULT NULL COMMENT '领取标识(每次领取生成)',
+  `fencing_token` BIGINT(20) NOT NULL DEFAULT 0 COMMENT '令牌(每次领取加1，保存进度和完成时校验)',
+  `lease_until` DATETIME DEFAULT NULL COMMENT '领取有效期(过期未完成可被其他节点重新领取)',
+  `checkpoint_employee_id` BIGINT(20) NOT NULL DEFAULT 0 COMMENT '进度: 已写入发件箱的最后一个员工ID',
+  `item_count` INT(10) NOT NULL DEFAULT 0 COMMENT '已处理的提醒条目数',
+  `started_at` DATETIME DEFAULT NULL COMMENT '第一次领取时间',
+  `finished_at` DATETIME DEFAULT NULL COMMENT '完成时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_run_date_shard_no` (`run_date`, `shard_no`),
+  KEY `idx_owner` (`owner`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='提醒任务分片表(多节点分工执行到期提醒)';
+
+-- 14. 已吊销Token表 (revoked_tokens)
+CREATE TABLE `revoked_tokens` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `jti` VARCHAR(64) NOT NULL COMMENT 'Token ID(JWT的jti)',
+  `user_id` BIGINT(20) DEFAULT NULL COMMENT '用户ID',
+  `reason` VARCHAR(50) DEFAULT NULL COMMENT '吊销原因: logout登出等',
+  `expires_at` DATETIME NOT NULL COMMENT 'Token过期时间(过期后记录可删除)',
+  `revoked_at` DATETIME NOT NULL COMMENT '吊销时间(数据库时间，各节点按此增量同步)',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_jti` (`jti`),
+  KEY `idx_revoked_at` (`revoked_at`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='已吊销Token表(登出等，Token过期前拒绝访问)';
+
+-- 15. 刷新Token表 (refresh_tokens)
+CREATE TABLE `refresh_tokens` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `token_hash` CHAR(64) NOT NULL COMMENT '刷新Token的SHA-256摘要(不保存原文)',
+  `family_id` VARCHAR(64) NOT NULL COMMENT '会话ID(登录时生成，刷新后的Token沿用)',
+  `user_id` BIGINT(20) NOT NULL COMMENT '用户ID',
+  `user_type` VARCHAR(20) NOT NULL COMMENT '用户类型: employee/admin',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'active' COMMENT '状态: active有效/rotated已更换/revoked已吊销',
+  `expires_at` DATETIME NOT NULL COMMENT '过期时间(过期后记录可删除)',
+  `rotated_at` DATETIME DEFAULT NULL COMMENT '更换时间',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_token_hash` (`token_hash`),
+  KEY `idx_family_id` (`family_id`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='刷新Token表(访问Token过期后换取新Token，每次刷新后更换)';
+
+-- 16. OCR异步识别任务表 (ocr_tasks)
+CREATE TABLE `ocr_tasks` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `task_id` VARCHAR(32) NOT NULL COMMENT '任务ID(前端轮询使用)',
+  `user_id` BIGINT(20) NOT NULL COMMENT '上传员工ID',
+  `image_path` VARCHAR(500) NOT NULL COMMENT '图片相对路径',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'processing' COMMENT '状态: processing识别中/success识别完成/failed识别失败',
+  `result_json` TEXT DEFAULT NULL COMMENT '识别结果(HealthCertDTO JSON)',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '提示信息',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_task_id` (`task_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='OCR异步识别任务表(多个后端节点共享，30分钟后清理)';
+
+-- 17. 批量识别批次表 (ocr_batches)
+CREATE TABLE `ocr_batches` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `batch_id` VARCHAR(32) NOT NULL COMMENT '批次ID(前端轮询使用)',
+  `creator_name` VARCHAR(100) DEFAULT NULL COMMENT '创建人姓名',
+  `upload_finished` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '上传文件是否已读取完成: 1是/0否',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '提示信息',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_batch_id` (`batch_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='批量识别批次表(多个后端节点共享，24小时后清理)';
+
+-- 18. 批量识别明细表 (ocr_batch_items)
+CREATE TABLE `ocr_batch_items` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `batch_id` VARCHAR(32) NOT NULL COMMENT '批次ID',
+  `file_name` VARCHAR(500) NOT NULL COMMENT '原始文件名',
+  `image_path` VARCHAR(500) DEFAULT NULL COMMENT '图片相对路径',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'waiting' COMMENT '状态: waiting识别中/submitted已生成待审核记录/unmatched未匹配员工/incomplete信息不完整/duplicate重复/failed失败',
+  `employee_id` BIGINT(20) DEFAULT NULL COMMENT '匹配到的员工ID',
+  `sf_user_id` VARCHAR(100) DEFAULT NULL COMMENT '匹配到的员工域账号',
+  `cert_id` BIGINT(20) DEFAULT NULL COMMENT '生成的健康证ID',
+  `result_json` TEXT DEFAULT NULL COMMENT '识别结果(HealthCertDTO JSON)',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '提示信息',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_batch_id` (`batch_id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='批量识别明细表';
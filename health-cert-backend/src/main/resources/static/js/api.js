@@ -59,10 +59,21 @@ async function apiRequest(url, options = {}) {
         // 发送请求
         const response = await fetch(fullUrl, finalOptions);
         
-        // 处理401未授权错误
+        // 处理401未授权错误（访问Token过期时先使用刷新Token换取新Token，再重试一次）
+        const isAuthUrl = url.includes('/auth/login') || url.includes('/auth/refresh');
+        if (response.status === 401 && !options._retried && !isAuthUrl
+                && typeof refreshAccessToken === 'function' && await refreshAccessToken()) {
+            return apiRequest(url, { ...options, _retried: true });
+        }
+        if (response.status === 401 && !options._retried && !isAuthUrl && localStorage.getItem('refreshToken')) {
+            // 刷新Token服务暂时不可用（刷新Token仍有效，稍后自动重试刷新），保留登录信息，不跳转到登录页
+            throw new Error('登录状态刷新失败，请稍后重试');
+        }
         if (response.status === 401) {
             // 清除本地存储的token和用户信息
             localStorage.removeItem('token');
+            localStorage.removeItem('refreshToken');
+            localStorage.removeItem('tokenExpiresAt');
             localStorage.removeItem('userId');
             localStorage.removeItem('username');
             localStorage.removeItem('userType');
@@ -0,0 +1,139 @@
+/**
+ * Token刷新模块
+ * 访问Token有效期较短，到期前使用刷新Token自动换取新的Token（保存到localStorage），
+ * 各页面每次请求从localStorage读取token，不需要修改原有请求代码
+ */
+
+// 提前刷新时间（毫秒），访问Token剩余有效期小于该值时刷新
+const TOKEN_REFRESH_AHEAD_MS = 60 * 1000;
+
+// 刷新锁有效时间（毫秒），用于多个标签页之间避免重复刷新
+const TOKEN_REFRESH_LOCK_MS = 5 * 1000;
+
+// 正在进行的刷新（同一页面同一时间只发送一次刷新请求）
+let tokenRefreshPromise = null;
+
+// 刷新定时器
+let tokenRefreshTimer = null;
+
+/**
+ * 保存登录或刷新返回的Token
+ * @param {Object} data - 登录响应数据（token、refreshToken、expiresIn）
+ */
+function saveAuthTokens(data) {
+    if (data.token) {
+        localStorage.setItem('token', data.token);
+    }
+    if (data.refreshToken) {
+        localStorage.setItem('refreshToken', data.refreshToken);
+    }
+    if (data.expiresIn) {
+        localStorage.setItem('tokenExpiresAt', String(Date.now() + data.expiresIn * 1000));
+    }
+}
+
+/**
+ * 清除本地保存的Token和用户信息
+ */
+function clearAuthTokens() {
+    localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+    localStorage.removeItem('tokenExpiresAt');
+    localStorage.removeItem('userId');
+    localStorage.removeItem('username');
+    localStorage.removeItem('userType');
+}
+
+/**
+ * 使用刷新Token换取新的Token
+ * 刷新Token无效（过期、已被使用或用户已停用，返回401）时清除登录信息并跳转到登录页；
+ * 服务端暂时异常（5xx、网络错误）时保留登录信息，30秒后重试
+ * @returns {Promise<boolean>} 是否刷新成功
+ */
+function refreshAccessToken() {
+    if (tokenRefreshPromise) {
+        return tokenRefreshPromise;
+    }
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+        return Promise.resolve(false);
+    }
+
+    tokenRefreshPromise = (async () => {
+        let locked = false;
+        try {
+            // 多个标签页共用localStorage中的刷新Token，同一刷新Token被使用两次会被视为盗用而吊销会话，
+            // 因此同一时间只允许一个标签页刷新，其他标签页等待并使用其保存的新Token
+            const lockedAt = Number(localStorage.getItem('tokenRefreshLock'));
+            if (lockedAt && Date.now() - lockedAt < TOKEN_REFRESH_LOCK_MS) {
+                await new Promise(resolve => setTimeout(resolve, TOKEN_REFRESH_LOCK_MS - (Date.now() - lockedAt)));
+            }
+            if (localStorage.getItem('refreshToken') !== refreshToken) {
+                scheduleTokenRefresh();
+                return true;
+            }
+            localStorage.setItem('tokenRefreshLock', String(Date.now()));
+            locked = true;
+
+            const response = await fetch('/api/auth/refresh', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                },
+                body: JSON.stringify({ refreshToken: refreshToken })
+            });
+            const result = response.ok ? await response.json() : null;
+            if (result && result.code === 200) {
+                saveAuthTokens(result.data);
+                scheduleTokenRefresh();
+                return true;
+            }
+            // 其他页面已经用同一个刷新Token刷新过，使用其保存的新Token
+            if (localStorage.getItem('refreshToken') !== refreshToken) {
+                scheduleTokenRefresh();
+                return true;
+            }
+            if (response.status === 401 || (result && result.code === 401)) {
+                clearAuthTokens();
+                window.location.href = '/login.html';
+                return false;
+            }
+            throw new Error('刷新Token服务暂时不可用：' + (result ? result.message : response.status));
+        } catch (error) {
+            // 网络错误或服务端暂时异常，30秒后重试
+            console.error('刷新Token失败：', error);
+            tokenRefreshTimer = setTimeout(refreshAccessToken, 30 * 1000);
+            return false;
+        } finally {
+            if (locked) {
+                localStorage.removeItem('tokenRefreshLock');
+            }
+            tokenRefreshPromise = null;
+        }
+    })();
+    return tokenRefreshPromise;
+}
+
+/**
+ * 在访问Token到期前安排刷新
+ */
+function scheduleTokenRefresh() {
+    if (tokenRefreshTimer) {
+        clearTimeout(tokenRefreshTimer);
+        tokenRefreshTimer = null;
+    }
+    const expiresAt = Number(localStorage.getItem('tokenExpiresAt'));
+    if (!expiresAt || !localStorage.getItem('refreshToken')) {
+        return;
+    }
+    const delay = Math.max(0, expiresAt - TOKEN_REFRESH_AHEAD_MS - Date.now());
+    tokenRefreshTimer = setTimeout(refreshAccessToken, delay);
+}
+
+// 页面加载时安排刷新；后台标签页的定时器可能被浏览器延迟，切回页面时重新检查
+scheduleTokenRefresh();
+document.addEventListener('visibilitychange', () => {
+    if (document.visibilityState === 'visible') {
+        scheduleTokenRefresh();
+    }
+});
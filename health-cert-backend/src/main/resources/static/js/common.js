@@ -269,6 +269,8 @@ function formatDate(timestamp, format = 'YYYY-MM-DD HH:mm:ss') {
 function logout() {
     // 清除本地存储
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+    localStorage.removeItem('tokenExpiresAt');
     localStorage.removeItem('userId');
     localStorage.removeItem('username');
     localStorage.removeItem('userType');
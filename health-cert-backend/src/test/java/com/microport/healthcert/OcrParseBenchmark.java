@@ -0,0 +1,79 @@
+package com.microport.healthcert;
+
+import com.microport.healthcert.dto.HealthCertDTO;
+import com.microport.healthcert.service.impl.OcrServiceImpl;
+
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * OCR结果解析性能测试类
+ * 使用src/test/resources/ocr下的PaddleOCR样例响应，测量parseOcrResult的单次耗时
+ * 不依赖OCR服务，可直接运行main方法
+ */
+public class OcrParseBenchmark {
+
+    /**
+     * 样例响应文件
+     */
+    private static final String[] SAMPLES = {"ocr/TEST1_response.json", "ocr/TEST2_response.json"};
+
+    /**
+     * 预热次数
+     */
+    private static final int WARMUP_ITERATIONS = 20000;
+
+    /**
+     * 测量次数
+     */
+    private static final int MEASURE_ITERATIONS = 100000;
+
+    public static void main(String[] args) throws Exception {
+        // 关闭解析过程中的调试输出，避免控制台IO影响测量结果
+        java.io.PrintStream originalOut = System.out;
+        OcrServiceImpl ocrService = new OcrServiceImpl();
+
+        for (String sample : SAMPLES) {
+            String json = readResource(sample);
+
+            // 打印解析结果，确认样例解析正确
+            System.setOut(new java.io.PrintStream(new ByteArrayOutputStream()));
+            HealthCertDTO result = ocrService.parseOcrResult(json);
+            System.setOut(originalOut);
+            System.out.println("样例: " + sample);
+            System.out.println("  解析结果: " + result);
+
+            System.setOut(new java.io.PrintStream(new ByteArrayOutputStream()));
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                ocrService.parseOcrResult(json);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+                ocrService.parseOcrResult(json);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.setOut(originalOut);
+
+            System.out.printf("  平均耗时: %.2f µs/次（%d次）%n", elapsed / 1000.0 / MEASURE_ITERATIONS, MEASURE_ITERATIONS);
+        }
+    }
+
+    /**
+     * 读取classpath资源
+     */
+    private static String readResource(String path) throws Exception {
+        try (InputStream in = OcrParseBenchmark.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("样例文件不存在: " + path);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
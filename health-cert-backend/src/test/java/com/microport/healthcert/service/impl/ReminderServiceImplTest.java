@@ -0,0 +1,271 @@
+package com.microport.healthcert.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microport.healthcert.dto.OutboxItemDTO;
+import com.microport.healthcert.dto.ReminderItemDTO;
+import com.microport.healthcert.entity.Employee;
+import com.microport.healthcert.entity.HealthCertificate;
+import com.microport.healthcert.entity.NotificationOutbox;
+import com.microport.healthcert.entity.ReminderShard;
+import com.microport.healthcert.exception.LeaseLostException;
+import com.microport.healthcert.mapper.HealthCertificateMapper;
+import com.microport.healthcert.service.EmailService;
+import com.microport.healthcert.service.JobCoordinationService;
+import com.microport.healthcert.service.NotificationOutboxService;
+import com.microport.healthcert.service.ReminderService;
+import com.microport.healthcert.service.ReminderShardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 提醒任务分片执行测试
+ *
+ * @author system
+ * @date 2024
+ */
+@ExtendWith(MockitoExtension.class)
+class ReminderServiceImplTest {
+
+    private static final String ADMIN_EMAIL = "admin@example.com";
+
+    private static final int CHUNK_SIZE = 4;
+
+    @InjectMocks
+    private ReminderServiceImpl reminderService;
+
+    @Mock
+    private HealthCertificateMapper healthCertificateMapper;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private NotificationOutboxService notificationOutboxService;
+
+    @Mock
+    private ReminderShardService reminderShardService;
+
+    @Mock
+    private JobCoordinationService jobCoordinationService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reminderService, "queryChunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(reminderService, "digestEnabled", true);
+    }
+
+    /**
+     * 无邮箱员工的提醒都发给管理员，提醒条目超过每批查询数量时分多批写入，
+     * 每批的汇总邮件去重键相同，应全部以暂不发送状态写入（合并），分片完成后释放
+     */
+    @Test
+    void digestRecipientAcrossChunksKeepsAllItems() throws Exception {
+        List<ReminderItemDTO> candidates = new ArrayList<>();
+        for (long employeeId = 1; employeeId <= 10; employeeId++) {
+            candidates.add(candidate(employeeId, employeeId * 100));
+        }
+        ReminderShard shard = shard(1, 0);
+        LocalDate today = LocalDate.now();
+        mockShards(today, shard);
+        mockCandidates(today, shard, candidates);
+        mockAdminRecipient();
+
+        assertEquals(1, reminderService.resumeShards());
+
+        assertEquals(candidates.size(), heldCertIds(today, 2).size());
+        InOrder order = inOrder(notificationOutboxService, reminderShardService);
+        order.verify(reminderShardService).complete(shard, 10);
+        order.verify(notificationOutboxService).release(today + ":email:");
+    }
+
+    /**
+     * 同一收件人的提醒分布在两个分片中：两个分片写入同一条汇总邮件（去重键不含分片号），
+     * 第一个分片完成时另一个分片未完成，不释放；最后一个分片完成后才释放
+     */
+    @Test
+    void digestRecipientAcrossShardsReleasedAfterLastShard() throws Exception {
+        ReminderShard first = shard(2, 0);
+        ReminderShard second = shard(2, 1);
+        List<ReminderItemDTO> firstCandidates = new ArrayList<>();
+        List<ReminderItemDTO> secondCandidates = new ArrayList<>();
+        for (long employeeId = 1; employeeId <= 6; employeeId++) {
+            (employeeId % 2 == 0 ? firstCandidates : secondCandidates).add(candidate(employeeId, employeeId * 100));
+        }
+        LocalDate today = LocalDate.now();
+        mockShards(today, first, second);
+        mockCandidates(today, first, firstCandidates);
+        mockCandidates(today, second, secondCandidates);
+        mockAdminRecipient();
+
+        assertEquals(2, reminderService.resumeShards());
+
+        assertEquals(6, heldCertIds(today, 2).size());
+        InOrder order = inOrder(notificationOutboxService, reminderShardService);
+        order.verify(reminderShardService).complete(first, 3);
+        order.verify(reminderShardService).complete(second, 3);
+        order.verify(notificationOutboxService).release(today + ":email:");
+        verify(notificationOutboxService, times(1)).release(anyString());
+    }
+
+    /**
+     * 其他节点持有发件箱租约时，提醒任务不在本节点发送通知（各节点的发送限流器相互独立）
+     */
+    @Test
+    void sendRemindersDeliversOnlyUnderOutboxLease() {
+        when(reminderShardService.claim(any())).thenReturn(null);
+        when(jobCoordinationService.runExclusive(eq(ReminderService.OUTBOX_JOB_NAME), anyLong(), any())).thenReturn(false);
+
+        reminderService.sendReminders();
+
+        verify(jobCoordinationService).runExclusive(eq(ReminderService.OUTBOX_JOB_NAME), anyLong(), any());
+        verify(notificationOutboxService, never()).claim(anyInt());
+    }
+
+    /**
+     * 发件箱租约已被其他节点获取时，不再领取下一批通知
+     */
+    @Test
+    void deliverOutboxStopsWhenLeaseLost() {
+        JobCoordinationService.LeaseHandle lease = mock(JobCoordinationService.LeaseHandle.class);
+        doThrow(new LeaseLostException("租约已被其他节点获取")).when(lease).checkHeld();
+
+        assertThrows(LeaseLostException.class, () -> reminderService.deliverOutbox(lease));
+
+        verify(notificationOutboxService, never()).claim(anyInt());
+    }
+
+    /**
+     * 模拟分片领取：依次领取各分片，完成时标记为done
+     */
+    private void mockShards(LocalDate today, ReminderShard... shards) {
+        List<ReminderShard> all = Arrays.asList(shards);
+        for (ReminderShard shard : all) {
+            shard.setStatus(ReminderShardService.STATUS_PENDING);
+        }
+        List<ReminderShard> claims = new ArrayList<>(all.subList(1, all.size()));
+        claims.add(null);
+        when(reminderShardService.claim(today)).thenReturn(all.get(0), claims.toArray(new ReminderShard[0]));
+        when(reminderShardService.listShards(today)).thenReturn(all);
+        when(reminderShardService.complete(any(), anyInt())).thenAnswer(invocation -> {
+            invocation.<ReminderShard>getArgument(0).setStatus(ReminderShardService.STATUS_DONE);
+            return true;
+        });
+        lenient().when(reminderShardService.checkpoint(any(), anyLong(), anyInt())).thenReturn(true);
+    }
+
+    private void mockCandidates(LocalDate today, ReminderShard shard, List<ReminderItemDTO> candidates) {
+        when(healthCertificateMapper.selectReminderCandidates(eq(today), anyList(), eq(shard.getShardCount()),
+                eq(shard.getShardNo()), anyLong(), anyLong(), eq(CHUNK_SIZE)))
+                .thenAnswer(invocation -> page(candidates, invocation.getArgument(4), invocation.getArgument(5)));
+    }
+
+    /**
+     * 所有员工都没有邮箱，提醒发给管理员
+     */
+    private void mockAdminRecipient() {
+        when(emailService.determineRecipients(anyList())).thenAnswer(invocation -> {
+            Map<Long, String> recipients = new HashMap<>();
+            for (Employee employee : invocation.<List<Employee>>getArgument(0)) {
+                recipients.put(employee.getId(), ADMIN_EMAIL);
+            }
+            return recipients;
+        });
+    }
+
+    /**
+     * 以暂不发送状态写入的汇总邮件中的健康证ID（校验去重键都只按收件人区分）
+     */
+    private Set<Long> heldCertIds(LocalDate today, int minCalls) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationOutbox>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationOutboxService, atLeast(minCalls)).enqueueHeld(captor.capture());
+        Set<Long> certIds = new HashSet<>();
+        for (List<NotificationOutbox> rows : captor.getAllValues()) {
+            for (NotificationOutbox row : rows) {
+                assertEquals(today + ":email:" + ADMIN_EMAIL, row.getDedupKey());
+                List<OutboxItemDTO> items = objectMapper.readValue(row.getPayload(),
+                        new TypeReference<List<OutboxItemDTO>>() {
+                        });
+                for (OutboxItemDTO item : items) {
+                    assertTrue(certIds.add(item.getCertId()));
+                }
+            }
+        }
+        return certIds;
+    }
+
+    /**
+     * 模拟按(员工ID, 健康证ID)分页查询
+     */
+    private List<ReminderItemDTO> page(List<ReminderItemDTO> candidates, long afterEmployeeId, long afterId) {
+        List<ReminderItemDTO> page = new ArrayList<>();
+        for (ReminderItemDTO item : candidates) {
+            long employeeId = item.getCert().getEmployeeId();
+            if (employeeId > afterEmployeeId || (employeeId == afterEmployeeId && item.getCert().getId() > afterId)) {
+                page.add(item);
+                if (page.size() == CHUNK_SIZE) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    private ReminderItemDTO candidate(long employeeId, long certId) {
+        Employee employee = new Employee();
+        employee.setId(employeeId);
+        employee.setSfUserId("emp" + employeeId);
+        HealthCertificate cert = new HealthCertificate();
+        cert.setId(certId);
+        cert.setEmployeeId(employeeId);
+        return new ReminderItemDTO(employee, cert, 7, false);
+    }
+
+    private ReminderShard shard(int shardCount, int shardNo) {
+        ReminderShard shard = new ReminderShard();
+        shard.setId(1L);
+        shard.setShardCount(shardCount);
+        shard.setShardNo(shardNo);
+        return shard;
+    }
+}